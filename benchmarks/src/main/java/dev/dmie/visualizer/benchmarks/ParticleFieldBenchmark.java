@@ -0,0 +1,106 @@
+package dev.dmie.visualizer.benchmarks;
+
+import dev.dmie.visualizer.particles.ParticleField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the update and the rasterization of a {@link ParticleField}, with and without the Vector API, at the
+ * default size of the window. No JavaFX stage is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ParticleFieldBenchmark {
+    /**
+     * The width of the pixel buffer.
+     */
+    private static final int WIDTH = 1000;
+
+    /**
+     * The height of the pixel buffer.
+     */
+    private static final int HEIGHT = 300;
+
+    /**
+     * The number of particles.
+     */
+    @Param({"10000", "50000", "200000"})
+    public int particleCount;
+
+    /**
+     * Whether the particles are moved with the Vector API.
+     */
+    @Param({"false", "true"})
+    public boolean vectorized;
+
+    /**
+     * The benchmarked particle field.
+     */
+    private ParticleField field;
+
+    /**
+     * The bar levels of the input frames.
+     */
+    private float[][] levels;
+
+    /**
+     * The pixels the particles are drawn into.
+     */
+    private int[] pixels;
+
+    /**
+     * The index of the next input frame.
+     */
+    private int frameIndex;
+
+    /**
+     * Creates the particle field and the input frames.
+     */
+    @Setup
+    public void setUp() {
+        int bandCount = 25;
+        field = new ParticleField(particleCount, bandCount, vectorized);
+        levels = SpectrumFrames.analyzed(bandCount);
+        for (float[] frame : levels) {
+            for (int i = 0; i < bandCount; i++) {
+                frame[i] = Math.min(1, (frame[i] - SpectrumFrames.THRESHOLD) / 80.0f);
+            }
+        }
+        pixels = new int[WIDTH * HEIGHT];
+    }
+
+    /**
+     * Moves the particles by one frame at 60 fps.
+     */
+    @Benchmark
+    public void update() {
+        field.update(1 / 60.0, levels[frameIndex], levels[frameIndex].length, frameIndex % 30 == 0);
+        frameIndex = (frameIndex + 1) % levels.length;
+    }
+
+    /**
+     * Moves the particles by one frame and draws them.
+     * @return The drawn pixels
+     */
+    @Benchmark
+    public int[] updateAndRasterize() {
+        update();
+        field.rasterize(pixels, WIDTH, HEIGHT);
+        return pixels;
+    }
+}
@@ -0,0 +1,129 @@
+package dev.dmie.visualizer.benchmarks;
+
+import dev.dmie.visualizer.SpectrumBus;
+import dev.dmie.visualizer.SpectrumProcessor;
+import dev.dmie.visualizer.replay.SpectrumRecorder;
+import dev.dmie.visualizer.replay.SpectrumReplayer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a spectrum log written by a {@link SpectrumRecorder} as fast as possible into a {@link SpectrumBus}, whose
+ * frames are read by a subscription like a view does, so that a recorded session can be measured without media or
+ * audio hardware. No JavaFX stage is needed.
+ * <p>
+ * A log is recorded with {@code -Dvisualizer.record.output=spectrum.log} and replayed with {@code -p log=spectrum.log},
+ * in which case {@code bandCount} is ignored. Without a log, the analyzed frames of a synthesized track are recorded
+ * to a temporary log first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+    /**
+     * The path of the replayed log, or an empty string to record the synthesized track.
+     */
+    @Param({""})
+    public String log;
+
+    /**
+     * The number of bands of the synthesized track.
+     */
+    @Param({"128", "2048"})
+    public int bandCount;
+
+    /**
+     * The replayed log.
+     */
+    private SpectrumReplayer replayer;
+
+    /**
+     * The bus that processes the replayed frames.
+     */
+    private SpectrumBus bus;
+
+    /**
+     * The subscription that reads the processed frames.
+     */
+    private SpectrumBus.Subscription subscription;
+
+    /**
+     * The temporary log of the synthesized track, or {@code null} if a log is replayed.
+     */
+    private Path temporaryLog;
+
+    /**
+     * Opens the log, recording it first if none is given, and creates the bus.
+     * @throws IOException If the log could not be written or read
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Path path;
+        if (log.isEmpty()) {
+            temporaryLog = Files.createTempFile("spectrum", ".log");
+            Files.delete(temporaryLog);
+            path = temporaryLog;
+            float[] phases = new float[bandCount];
+            try (SpectrumRecorder recorder = SpectrumRecorder.open(path, (timestamp, duration, magnitudes, p) -> {
+            })) {
+                float[][] frames = SpectrumFrames.analyzed(bandCount);
+                for (int i = 0; i < frames.length; i++) {
+                    recorder.spectrumDataUpdate((i + 1) / 40.0, 1 / 40.0, frames[i], phases);
+                }
+            }
+        } else {
+            path = Path.of(log);
+        }
+        replayer = SpectrumReplayer.open(path);
+
+        int[] recordedBandCount = new int[1];
+        replayer.replay((timestamp, duration, magnitudes, phases) -> recordedBandCount[0] = magnitudes.length, false);
+        bus = new SpectrumBus(16,
+                new SpectrumProcessor(recordedBandCount[0], 128, SpectrumFrames.THRESHOLD, 80.0f),
+                () -> 0.0);
+        subscription = bus.subscribe();
+    }
+
+    /**
+     * Deletes the temporary log.
+     * @throws IOException If the log could not be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        if (temporaryLog != null) {
+            Files.deleteIfExists(temporaryLog);
+        }
+    }
+
+    /**
+     * Replays the whole log and reads every processed frame.
+     * @param blackhole The blackhole that consumes the frames
+     * @return The number of replayed frames
+     */
+    @Benchmark
+    public int replay(Blackhole blackhole) {
+        return replayer.replay((timestamp, duration, magnitudes, phases) -> {
+            bus.spectrumDataUpdate(timestamp, duration, magnitudes, phases);
+            subscription.poll((frameTimestamp, frameDuration, state) -> blackhole.consume(state.getLevels()));
+        }, false);
+    }
+}
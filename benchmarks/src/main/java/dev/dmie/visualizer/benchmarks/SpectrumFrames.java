@@ -0,0 +1,81 @@
+package dev.dmie.visualizer.benchmarks;
+
+import dev.dmie.visualizer.analysis.SpectrumAnalyzer;
+
+import java.util.Random;
+
+/**
+ * Sequences of spectrum magnitude frames that benchmarks feed to the visualizer.
+ */
+public final class SpectrumFrames {
+    /**
+     * The spectrum threshold used by the frames.
+     */
+    public static final int THRESHOLD = -80;
+
+    /**
+     * The number of frames in a sequence.
+     */
+    public static final int FRAME_COUNT = 1024;
+
+    /**
+     * The sample rate of the synthesized signal.
+     */
+    private static final float SAMPLE_RATE = 44100.0f;
+
+    /**
+     * Prevents instantiation.
+     */
+    private SpectrumFrames() {
+    }
+
+    /**
+     * Creates frames of uniformly random magnitudes.
+     * @param bandCount The number of bands
+     * @return The frames
+     */
+    public static float[][] random(int bandCount) {
+        Random random = new Random(42);
+        float[][] frames = new float[FRAME_COUNT][bandCount];
+        for (float[] frame : frames) {
+            for (int i = 0; i < bandCount; i++) {
+                frame[i] = THRESHOLD * random.nextFloat();
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Creates frames by analyzing a synthesized track of a 120 BPM kick drum over a chord with the FFT engine, so the
+     * magnitudes have the band correlation and onsets of real music.
+     * @param bandCount The number of bands
+     * @return The frames
+     */
+    public static float[][] analyzed(int bandCount) {
+        int windowSize = Math.max(2048, Integer.highestOneBit(bandCount * 2 - 1) << 1);
+        int hopSize = (int) (SAMPLE_RATE / 40);
+        SpectrumAnalyzer analyzer = new SpectrumAnalyzer(windowSize, bandCount, THRESHOLD);
+        float[] samples = new float[windowSize];
+        float[] phases = new float[bandCount];
+        float[][] frames = new float[FRAME_COUNT][bandCount];
+        Random random = new Random(42);
+
+        long sample = 0;
+        int oldest = 0;
+        for (float[] frame : frames) {
+            for (int i = 0; i < hopSize; i++, sample++) {
+                double time = sample / SAMPLE_RATE;
+                double beatTime = time % 0.5;
+                double kick = Math.sin(2 * Math.PI * 55 * beatTime) * Math.exp(-beatTime * 30);
+                double chord = 0.1 * (Math.sin(2 * Math.PI * 220 * time)
+                        + Math.sin(2 * Math.PI * 277.18 * time)
+                        + Math.sin(2 * Math.PI * 329.63 * time));
+                double hat = beatTime > 0.25 && beatTime < 0.27 ? 0.05 * (random.nextFloat() * 2 - 1) : 0.0;
+                samples[oldest] = (float) (0.6 * kick + chord + hat);
+                oldest = (oldest + 1) % windowSize;
+            }
+            analyzer.analyze(samples, oldest, frame, phases);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,152 @@
+package dev.dmie.visualizer.benchmarks;
+
+import dev.dmie.visualizer.analysis.SpectrumKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the vectorized {@link SpectrumKernels} on analyzed spectrum frames.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SpectrumKernelsBenchmark {
+    /**
+     * The number of bands.
+     */
+    @Param({"25", "128", "512", "2048"})
+    public int bandCount;
+
+    /**
+     * The implementation of the kernels: {@code scalar} or {@code vector}.
+     */
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    /**
+     * The benchmarked kernels.
+     */
+    private SpectrumKernels kernels;
+
+    /**
+     * The input frames.
+     */
+    private float[][] frames;
+
+    /**
+     * The held or smoothed magnitudes.
+     */
+    private float[] state;
+
+    /**
+     * The output of the kernels.
+     */
+    private float[] output;
+
+    /**
+     * The index of the next input frame.
+     */
+    private int frameIndex;
+
+    /**
+     * Selects the kernels and creates the input frames.
+     */
+    @Setup
+    public void setUp() {
+        kernels = kernel.equals("vector") ? SpectrumKernels.vector() : SpectrumKernels.scalar();
+        frames = SpectrumFrames.analyzed(bandCount);
+        state = frames[0].clone();
+        output = new float[bandCount];
+    }
+
+    /**
+     * Returns the next input frame.
+     * @return The frame
+     */
+    private float[] nextFrame() {
+        float[] frame = frames[frameIndex];
+        frameIndex = (frameIndex + 1) % frames.length;
+        return frame;
+    }
+
+    /**
+     * Holds the peaks of the next frame, as done for every frame by the spectrum processor.
+     * @return The sum of the rises
+     */
+    @Benchmark
+    public float peakHold() {
+        return kernels.peakHold(nextFrame(), state, 3.0f, bandCount);
+    }
+
+    /**
+     * Smooths the next frame with attack and release weights.
+     * @return The smoothed magnitudes
+     */
+    @Benchmark
+    public float[] smooth() {
+        kernels.smooth(nextFrame(), state, 0.6f, 0.1f, bandCount);
+        return state;
+    }
+
+    /**
+     * Converts the next frame to linear amplitudes.
+     * @return The amplitudes
+     */
+    @Benchmark
+    public float[] decibelsToLinear() {
+        kernels.decibelsToLinear(nextFrame(), output, bandCount);
+        return output;
+    }
+
+    /**
+     * Normalizes the next frame into bar levels.
+     * @return The levels
+     */
+    @Benchmark
+    public float[] normalize() {
+        kernels.normalize(nextFrame(), output, SpectrumFrames.THRESHOLD, 1 / 80.0f, bandCount);
+        return output;
+    }
+
+    /**
+     * Interpolates between the held magnitudes and the next frame, as done for every render.
+     * @return The interpolated magnitudes
+     */
+    @Benchmark
+    public float[] interpolate() {
+        kernels.interpolate(state, nextFrame(), 0.5f, output, bandCount);
+        return output;
+    }
+
+    /**
+     * Adds up the next frame.
+     * @return The sum
+     */
+    @Benchmark
+    public float sum() {
+        return kernels.sum(nextFrame(), 0, bandCount);
+    }
+
+    /**
+     * Finds the loudest band of the next frame.
+     * @return The largest magnitude
+     */
+    @Benchmark
+    public float max() {
+        return kernels.max(nextFrame(), 0, bandCount);
+    }
+}
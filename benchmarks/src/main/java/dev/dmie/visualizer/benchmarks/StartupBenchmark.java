@@ -0,0 +1,91 @@
+package dev.dmie.visualizer.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the time from launching the application until its window shows the first frame. Each invocation starts
+ * the jlink image in a new process with {@code visualizer.exitAfterFirstFrame}, so the application exits right after
+ * the first frame.
+ * <p>
+ * Needs a graphical environment and the image created by {@code mvn javafx:jlink} in the parent project, optionally
+ * with its CDS archive. Select the image with {@code -p image=...} and compare class data sharing with
+ * {@code -p sharing=on,off}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+    /**
+     * The directory of the jlink image.
+     */
+    @Param({"../target/app"})
+    public String image;
+
+    /**
+     * Whether class data sharing is used: {@code on} uses the archive of the image, {@code off} disables it.
+     */
+    @Param({"on", "off"})
+    public String sharing;
+
+    /**
+     * The command that launches the application.
+     */
+    private List<String> command;
+
+    /**
+     * Checks the image and prepares the command.
+     * @throws IOException If the image does not exist
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Path java = Path.of(image, "bin", "java");
+        if (!Files.isExecutable(java)) {
+            throw new IOException("No jlink image at " + Path.of(image).toAbsolutePath());
+        }
+        command = new ArrayList<>();
+        command.add(java.toString());
+        command.add(sharing.equals("off") ? "-Xshare:off" : "-Xshare:auto");
+        command.add("-Dvisualizer.exitAfterFirstFrame=true");
+        command.add("-m");
+        command.add("dev.dmie.visualizer/dev.dmie.visualizer.Application");
+    }
+
+    /**
+     * Launches the application and waits until it exits after the first frame.
+     * @return The exit code of the application
+     * @throws IOException If the application cannot be launched
+     * @throws InterruptedException If the benchmark is interrupted
+     */
+    @Benchmark
+    public int launchToFirstFrame() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("The application exited with " + exitCode);
+        }
+        return exitCode;
+    }
+}
@@ -0,0 +1,265 @@
+package dev.dmie.visualizer.benchmarks;
+
+import dev.dmie.visualizer.SpectrumBus;
+import dev.dmie.visualizer.SpectrumProcessor;
+import dev.dmie.visualizer.stream.SpectrumServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the end-to-end latency and throughput of a {@link SpectrumServer} over the loopback interface.
+ * <p>
+ * Analyzed frames are published on a {@link SpectrumBus} at a fixed rate, or as fast as possible when the rate is
+ * zero, and received by one UDP and one WebSocket client in the same process. The latency of a frame is the time from
+ * its publication on the bus to its reception, so it includes the poll interval of the server. Run with
+ * {@code java -cp target/benchmarks.jar dev.dmie.visualizer.benchmarks.StreamLatencyClient [fps] [seconds]
+ * [interval]}.
+ */
+public final class StreamLatencyClient {
+    /**
+     * The number of spectrum bands and bars.
+     */
+    private static final int BAND_COUNT = 64;
+
+    /**
+     * The time of the publication of each frame in nanoseconds, indexed by sequence number.
+     */
+    private final long[] publishTimes;
+
+    /**
+     * Creates a new {@link StreamLatencyClient} instance.
+     * @param frameCount The number of frames that will be published
+     */
+    private StreamLatencyClient(int frameCount) {
+        publishTimes = new long[frameCount];
+    }
+
+    /**
+     * Publishes frames and prints the statistics of both clients.
+     * @param args Command-line arguments: the frame rate (40 by default, 0 for as fast as possible), the duration in
+     *             seconds (10 by default) and the poll interval of the server in milliseconds (10 by default)
+     * @throws Exception If the server or a client fails
+     */
+    public static void main(String[] args) throws Exception {
+        int fps = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int interval = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int frameCount = fps > 0 ? fps * seconds : 1 << 20;
+        new StreamLatencyClient(frameCount).run(fps, seconds, interval);
+    }
+
+    /**
+     * Runs the measurement.
+     * @param fps The frame rate, or zero to publish as fast as possible
+     * @param seconds The duration in seconds
+     * @param interval The poll interval of the server in milliseconds
+     * @throws Exception If the server or a client fails
+     */
+    private void run(int fps, int seconds, int interval) throws Exception {
+        SpectrumProcessor processor = new SpectrumProcessor(BAND_COUNT, BAND_COUNT, SpectrumFrames.THRESHOLD, 80.0f);
+        SpectrumBus bus = new SpectrumBus(16, processor, () -> 0.0);
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        try (SpectrumServer server = new SpectrumServer(bus, new InetSocketAddress(loopback, 0),
+                new InetSocketAddress(loopback, 0), interval)) {
+            server.start();
+            Receiver udp = new Receiver("UDP");
+            Receiver webSocket = new Receiver("WebSocket");
+            Thread udpThread = startUdpClient(server.getUdpAddress(), udp);
+            WebSocket webSocketClient = startWebSocketClient(server.getWebSocketAddress(), webSocket);
+            Thread.sleep(200);
+
+            float[][] frames = SpectrumFrames.analyzed(BAND_COUNT);
+            float[] phases = new float[BAND_COUNT];
+            long period = fps > 0 ? 1_000_000_000L / fps : 0;
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(seconds);
+            int published = 0;
+            while (published < publishTimes.length && System.nanoTime() - end < 0) {
+                long due = start + published * period;
+                while (System.nanoTime() - due < 0) {
+                    LockSupport.parkNanos(due - System.nanoTime());
+                }
+                publishTimes[published] = System.nanoTime();
+                bus.spectrumDataUpdate(published / 40.0, 1 / 40.0, frames[published % frames.length], phases);
+                published++;
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            Thread.sleep(200 + interval);
+
+            System.out.printf("Published %d frames in %.2f s (%.0f frames/s), %d bars, poll interval %d ms%n",
+                    published, elapsed, published / elapsed, BAND_COUNT, interval);
+            udp.print(published, elapsed);
+            webSocket.print(published, elapsed);
+
+            udpThread.interrupt();
+            webSocketClient.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+        }
+    }
+
+    /**
+     * Subscribes to the UDP stream and receives batches on a new thread until it is interrupted.
+     * @param address The address of the server
+     * @param receiver The receiver of the batches
+     * @return The started thread
+     * @throws IOException If the channel cannot be opened
+     */
+    private Thread startUdpClient(InetSocketAddress address, Receiver receiver) throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.connect(address);
+        channel.write(ByteBuffer.wrap(new byte[] {1}));
+        Thread thread = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(65536);
+            try (channel) {
+                while (!Thread.currentThread().isInterrupted()) {
+                    channel.receive(buffer.clear());
+                    receiver.receive(buffer.flip());
+                }
+            } catch (IOException exception) {
+                // The channel is closed by the interrupt.
+            }
+        }, "UDP client");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Connects to the WebSocket stream.
+     * @param address The address of the server
+     * @param receiver The receiver of the batches
+     * @return The connected WebSocket
+     */
+    private WebSocket startWebSocketClient(InetSocketAddress address, Receiver receiver) {
+        URI uri = URI.create("ws://" + address.getHostString() + ":" + address.getPort() + "/");
+        ByteBuffer message = ByteBuffer.allocate(65536);
+        return HttpClient.newHttpClient().newWebSocketBuilder().buildAsync(uri, new WebSocket.Listener() {
+            @Override
+            public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+                message.put(data);
+                if (last) {
+                    receiver.receive(message.flip());
+                    message.clear();
+                }
+                webSocket.request(1);
+                return null;
+            }
+        }).join();
+    }
+
+    /**
+     * Collects the statistics of the batches received by a client.
+     */
+    private final class Receiver {
+        /**
+         * The name of the protocol.
+         */
+        private final String protocol;
+
+        /**
+         * The latency of each received frame in nanoseconds.
+         */
+        private final long[] latencies = new long[publishTimes.length];
+
+        /**
+         * The latency of each received batch from its sending to its reception in nanoseconds.
+         */
+        private final long[] transportLatencies = new long[publishTimes.length];
+
+        /**
+         * The number of received frames.
+         */
+        private int frameCount = 0;
+
+        /**
+         * The number of received batches.
+         */
+        private int batchCount = 0;
+
+        /**
+         * The sequence number of the next expected frame.
+         */
+        private int expectedSequence = 0;
+
+        /**
+         * The number of frames missing between received frames.
+         */
+        private long missingFrames = 0;
+
+        /**
+         * Creates a new {@link Receiver} instance.
+         * @param protocol The name of the protocol
+         */
+        Receiver(String protocol) {
+            this.protocol = protocol;
+        }
+
+        /**
+         * Records a received batch.
+         * @param batch The batch
+         */
+        synchronized void receive(ByteBuffer batch) {
+            long now = System.nanoTime();
+            if (batch.remaining() < SpectrumServer.BATCH_HEADER_SIZE || batch.getInt(0) != SpectrumServer.MAGIC) {
+                return;
+            }
+            int frames = batch.get(5) & 0xFF;
+            int barCount = batch.getShort(6) & 0xFFFF;
+            if (batchCount < transportLatencies.length) {
+                transportLatencies[batchCount] = now - batch.getLong(8);
+            }
+            batchCount++;
+            for (int i = 0; i < frames; i++) {
+                int sequence = batch.getInt(SpectrumServer.BATCH_HEADER_SIZE
+                        + i * (SpectrumServer.FRAME_HEADER_SIZE + barCount));
+                missingFrames += Math.max(0, sequence - expectedSequence);
+                expectedSequence = sequence + 1;
+                if (sequence < publishTimes.length && frameCount < latencies.length) {
+                    latencies[frameCount++] = now - publishTimes[sequence];
+                }
+            }
+        }
+
+        /**
+         * Prints the statistics.
+         * @param published The number of published frames
+         * @param elapsed The time of the publication in seconds
+         */
+        synchronized void print(int published, double elapsed) {
+            long[] sorted = Arrays.copyOf(latencies, frameCount);
+            Arrays.sort(sorted);
+            long[] transport = Arrays.copyOf(transportLatencies, Math.min(batchCount, transportLatencies.length));
+            Arrays.sort(transport);
+            long missing = missingFrames + Math.max(0, published - expectedSequence);
+            System.out.printf("%s: received %d of %d frames (%.0f frames/s) in %d batches, %d missing%n",
+                    protocol, frameCount, published, frameCount / elapsed, batchCount, missing);
+            System.out.printf("  end-to-end latency: p50 %s, p99 %s, max %s; transport p50 %s, p99 %s%n",
+                    format(sorted, 0.5), format(sorted, 0.99), format(sorted, 1.0),
+                    format(transport, 0.5), format(transport, 0.99));
+        }
+
+        /**
+         * Formats a percentile of sorted latencies.
+         * @param sorted The sorted latencies in nanoseconds
+         * @param percentile The percentile in the range [0, 1]
+         * @return The formatted percentile in microseconds
+         */
+        private String format(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return "-";
+            }
+            int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+            return String.format("%.0f us", sorted[Math.max(0, index)] / 1e3);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dev.dmie.visualizer.benchmarks;
+
+import dev.dmie.visualizer.Renderer;
+import dev.dmie.visualizer.VisualizationState;
+import dev.dmie.visualizer.Visualizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Visualizer#spectrumDataUpdate}, which updates the bar levels, shifts the bar hue and decides
+ * whether the dots pulse, with a renderer that only consumes the resulting state. No JavaFX stage is needed.
+ * <p>
+ * Run with {@code -prof gc} to report the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VisualizerBenchmark {
+    /**
+     * The number of bands.
+     */
+    @Param({"25", "128", "512", "2048"})
+    public int bandCount;
+
+    /**
+     * The kind of input frames: {@code random} magnitudes or magnitudes {@code analyzed} from a synthesized track.
+     */
+    @Param({"random", "analyzed"})
+    public String input;
+
+    /**
+     * The benchmarked visualizer.
+     */
+    private Visualizer visualizer;
+
+    /**
+     * The input frames.
+     */
+    private float[][] frames;
+
+    /**
+     * The phases passed with every frame.
+     */
+    private float[] phases;
+
+    /**
+     * The index of the next input frame.
+     */
+    private int frameIndex;
+
+    /**
+     * The timestamp of the next input frame.
+     */
+    private double timestamp;
+
+    /**
+     * Creates the visualizer and the input frames.
+     * @param blackhole The blackhole that consumes rendered states
+     */
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        frames = input.equals("random") ? SpectrumFrames.random(bandCount) : SpectrumFrames.analyzed(bandCount);
+        phases = new float[bandCount];
+        visualizer = new Visualizer(new Renderer() {
+            @Override
+            public void setUp(int barCount) {
+            }
+
+            @Override
+            public void render(VisualizationState state) {
+                blackhole.consume(state.getHue());
+                blackhole.consume(state.getDotPulses());
+                blackhole.consume(state.getLevels());
+            }
+        }, bandCount, SpectrumFrames.THRESHOLD, 80.0f);
+        visualizer.setUp();
+    }
+
+    /**
+     * Feeds the next input frame to the visualizer.
+     */
+    @Benchmark
+    public void spectrumDataUpdate() {
+        visualizer.spectrumDataUpdate(timestamp, 1 / 40.0, frames[frameIndex], phases);
+        frameIndex = (frameIndex + 1) % frames.length;
+        timestamp += 1 / 40.0;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks of the visualizer hot path and startup.
+ */
+package dev.dmie.visualizer.benchmarks;
@@ -0,0 +1,186 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.metrics.SpectrumDropEvent;
+import dev.dmie.visualizer.metrics.VisualizerMetrics;
+import javafx.scene.media.AudioSpectrumListener;
+import jdk.jfr.EventType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves the processing of spectrum callbacks off the thread that delivers them, which is the JavaFX application
+ * thread for the spectrum of a {@code MediaPlayer}.
+ * <p>
+ * The delivering thread only copies each callback into a ring of preallocated slots and wakes the analysis thread,
+ * which passes the callbacks on in order, typically to a {@link SpectrumBus} that processes them and publishes the
+ * resulting states to the render loops. The ring has a single producer and a single consumer and is handed over with
+ * two counters, so neither thread ever waits for a lock; if the analysis thread falls a whole ring behind, new
+ * callbacks are dropped and recorded in the {@link VisualizerMetrics}.
+ */
+public class AnalysisThread implements AudioSpectrumListener {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The type of the JFR event of a dropped callback, checked before the event is created.
+     */
+    private static final EventType DROP_EVENT_TYPE = EventType.getEventType(SpectrumDropEvent.class);
+
+    /**
+     * The listener that processes the callbacks on the analysis thread.
+     */
+    private final AudioSpectrumListener listener;
+
+    /**
+     * The metrics that dropped callbacks are recorded in.
+     */
+    private final VisualizerMetrics metrics = VisualizerMetrics.get();
+
+    /**
+     * The mask that maps a sequence number to a slot index.
+     */
+    private final int mask;
+
+    /**
+     * The timestamp of the callback in each slot.
+     */
+    private final double[] timestamps;
+
+    /**
+     * The duration of the callback in each slot.
+     */
+    private final double[] durations;
+
+    /**
+     * The magnitudes of the callback in each slot, reallocated by the producer if the band count changes.
+     */
+    private final float[][] magnitudes;
+
+    /**
+     * The phases of the callback in each slot, reallocated by the producer if the band count changes.
+     */
+    private final float[][] phases;
+
+    /**
+     * The number of callbacks copied into the ring, which is the sequence number of the next one.
+     */
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * The number of callbacks passed on, which frees their slots.
+     */
+    private final AtomicLong consumed = new AtomicLong();
+
+    /**
+     * The thread that passes the callbacks on.
+     */
+    private final Thread thread;
+
+    /**
+     * Whether the analysis thread is running.
+     */
+    private volatile boolean running = false;
+
+    /**
+     * Creates a new {@link AnalysisThread} instance.
+     * @param capacity The number of callbacks that can wait for the analysis thread, a power of two
+     * @param listener The listener that processes the callbacks on the analysis thread
+     */
+    public AnalysisThread(int capacity, AudioSpectrumListener listener) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two: " + capacity);
+        }
+        this.listener = listener;
+        mask = capacity - 1;
+        timestamps = new double[capacity];
+        durations = new double[capacity];
+        magnitudes = new float[capacity][0];
+        phases = new float[capacity][0];
+        thread = new Thread(this::run, "Spectrum Analysis");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the analysis thread.
+     */
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Stops the analysis thread. Callbacks that are still waiting are not passed on.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Copies a callback into the ring for the analysis thread, or drops it if the ring is full.
+     * @param timestamp Timestamp of the event in seconds
+     * @param duration Duration for which the spectrum was computed in seconds
+     * @param magnitudes Array containing the spectrum magnitude in decibels for each band
+     * @param phases Array containing the phase for each band
+     */
+    @Override
+    public void spectrumDataUpdate(double timestamp, double duration, float[] magnitudes, float[] phases) {
+        long sequence = published.get();
+        if (sequence - consumed.get() > mask) {
+            metrics.recordDroppedSpectrumFrames(1);
+            if (DROP_EVENT_TYPE.isEnabled()) {
+                SpectrumDropEvent event = new SpectrumDropEvent();
+                event.count = 1;
+                event.commit();
+            }
+            return;
+        }
+        int slot = (int) sequence & mask;
+        timestamps[slot] = timestamp;
+        durations[slot] = duration;
+        this.magnitudes[slot] = copy(magnitudes, this.magnitudes[slot]);
+        this.phases[slot] = copy(phases, this.phases[slot]);
+        published.set(sequence + 1);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Copies an array into a slot array, reallocating the slot array if its length differs.
+     * @param source The array to copy
+     * @param target The slot array
+     * @return The slot array that holds the copy
+     */
+    private static float[] copy(float[] source, float[] target) {
+        if (target.length != source.length) {
+            target = new float[source.length];
+        }
+        System.arraycopy(source, 0, target, 0, source.length);
+        return target;
+    }
+
+    /**
+     * Passes the callbacks in the ring on until the analysis thread is stopped, waiting while the ring is empty. A
+     * callback whose processing fails is logged and skipped, so that the thread keeps passing on the next ones.
+     */
+    private void run() {
+        while (running) {
+            long sequence = consumed.get();
+            if (sequence == published.get()) {
+                LockSupport.park(this);
+                continue;
+            }
+            int slot = (int) sequence & mask;
+            try {
+                listener.spectrumDataUpdate(timestamps[slot], durations[slot], magnitudes[slot], phases[slot]);
+            } catch (RuntimeException exception) {
+                logger.error("Failed to process a spectrum callback", exception);
+            }
+            consumed.set(sequence + 1);
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package dev.dmie.visualizer;
 
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.apache.logging.log4j.LogManager;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 
 /**
  * The music visualizer application.
+ * <p>
+ * Only the window is created at startup. Slow subsystems are warmed up in the background by {@link StartupWarmup},
+ * and the media player and the visualization are set up once a playlist is chosen.
  */
 public class Application extends javafx.application.Application {
     /**
@@ -17,10 +25,40 @@ public class Application extends javafx.application.Application {
     public void start(Stage stage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(Application.class.getResource("main-view.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 1000, 400);
-        stage.setResizable(false);
+        stage.setMinWidth(600);
+        stage.setMinHeight(300);
         stage.setTitle("Music Visualizer");
         stage.setScene(scene);
         stage.show();
+        if (Settings.isExitAfterFirstFrame()) {
+            exitAfterFirstFrame();
+        }
+    }
+
+    /**
+     * Exits the application once the first frame of the window has been shown and logs the time since the launch.
+     */
+    private static void exitAfterFirstFrame() {
+        new AnimationTimer() {
+            /**
+             * The number of pulses since the window was shown.
+             */
+            private int pulses = 0;
+
+            @Override
+            public void handle(long now) {
+                // The first pulse renders the first frame, so the second one follows it.
+                if (++pulses < 2) {
+                    return;
+                }
+                stop();
+                Duration startup = ProcessHandle.current().info().startInstant()
+                        .map(launch -> Duration.between(launch, Instant.now()))
+                        .orElse(Duration.ZERO);
+                LogManager.getLogger("dev.dmie").info("First frame shown {} ms after the launch", startup.toMillis());
+                Platform.exit();
+            }
+        }.start();
     }
 
     /**
@@ -29,6 +67,7 @@ public class Application extends javafx.application.Application {
      * @param args Command-line arguments.
      */
     public static void main(String[] args) {
+        StartupWarmup.start();
         launch();
     }
 }
\ No newline at end of file
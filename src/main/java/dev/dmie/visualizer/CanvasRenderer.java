@@ -0,0 +1,226 @@
+package dev.dmie.visualizer;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+/**
+ * A {@link Renderer} that draws spectrum bars and dots in immediate mode on a single {@code Canvas} node, which
+ * avoids the CSS, layout and dirty-region work of a node per shape.
+ * <p>
+ * The canvas follows the size of its {@code Pane}, and the layout is recomputed when the pane is resized or the
+ * number of shown bars changes.
+ */
+public class CanvasRenderer implements Renderer {
+    /**
+     * The space between two bars and around the outermost bars.
+     */
+    static final double BAR_PADDING = 10.0;
+
+    /**
+     * The space below the bars.
+     */
+    static final double BOTTOM_PADDING = 5.0;
+
+    /**
+     * The number of dot rows.
+     */
+    static final int DOT_ROWS = 5;
+
+    /**
+     * The number of dot columns.
+     */
+    static final int DOT_COLUMNS = 13;
+
+    /**
+     * The space around the dot grid.
+     */
+    static final double DOT_PADDING = 20.0;
+
+    /**
+     * The color of the dots.
+     */
+    private static final Color DOT_COLOR = Color.rgb(255, 255, 255, 0.5);
+
+    /**
+     * The {@code Pane} that contains the {@link CanvasRenderer#canvas}.
+     */
+    private final Pane pane;
+
+    /**
+     * The canvas that visualization is drawn on.
+     */
+    private final Canvas canvas;
+
+    /**
+     * The maximum height of a bar, scaled with the height of the canvas.
+     */
+    private double maxBarHeight;
+
+    /**
+     * The minimum radius of a dot.
+     */
+    private final double minDotRadius;
+
+    /**
+     * The maximum radius of a dot.
+     */
+    private final double maxDotRadius;
+
+    /**
+     * The number of bars.
+     */
+    private int barCount;
+
+    /**
+     * The width of a bar.
+     */
+    private double barWidth;
+
+    /**
+     * The horizontal distance between the centers of two neighbouring dots.
+     */
+    private double dotColumnSpacing;
+
+    /**
+     * The vertical distance between the centers of two neighbouring dots.
+     */
+    private double dotRowSpacing;
+
+    /**
+     * The height of the canvas that the layout was computed for.
+     */
+    private double layoutHeight;
+
+    /**
+     * The last rendered state, or {@code null} if nothing was rendered yet.
+     */
+    private VisualizationState lastState;
+
+    /**
+     * Creates a new {@link CanvasRenderer} instance.
+     * @param pane The {@code Pane} to add the canvas to
+     */
+    public CanvasRenderer(Pane pane) {
+        this(pane, pane.getHeight(), 3, 6);
+    }
+
+    /**
+     * Creates a new {@link CanvasRenderer} instance.
+     * @param pane The {@code Pane} to add the canvas to
+     * @param maxBarHeight The maximum bar height
+     * @param minDotRadius The minimum dot radius
+     * @param maxDotRadius The maximum dot radius
+     */
+    public CanvasRenderer(Pane pane, double maxBarHeight, double minDotRadius, double maxDotRadius) {
+        this.pane = pane;
+        this.canvas = new Canvas(pane.getWidth(), pane.getHeight());
+        this.maxBarHeight = maxBarHeight;
+        this.minDotRadius = minDotRadius;
+        this.maxDotRadius = maxDotRadius;
+    }
+
+    @Override
+    public void setUp(int barCount) {
+        layoutHeight = canvas.getHeight();
+        layout(barCount);
+        if (!pane.getChildren().contains(canvas)) {
+            canvas.setManaged(false);
+            pane.getChildren().add(canvas);
+            canvas.widthProperty().bind(pane.widthProperty());
+            canvas.heightProperty().bind(pane.heightProperty());
+            canvas.widthProperty().addListener(observable -> onResize());
+            canvas.heightProperty().addListener(observable -> onResize());
+        }
+        render(new VisualizationState(barCount));
+    }
+
+    /**
+     * Recomputes the layout for the current size of the canvas and redraws the last rendered state.
+     */
+    private void onResize() {
+        if (layoutHeight > 0) {
+            maxBarHeight *= canvas.getHeight() / layoutHeight;
+        }
+        layoutHeight = canvas.getHeight();
+        layout(barCount);
+        if (lastState != null) {
+            render(lastState);
+        }
+    }
+
+    /**
+     * Computes the size and position of the bars and dots.
+     * @param barCount The number of shown bars
+     */
+    private void layout(int barCount) {
+        this.barCount = barCount;
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        barWidth = (width - (barCount + 1) * BAR_PADDING) / barCount;
+        dotColumnSpacing = (width - DOT_PADDING * 2 - minDotRadius * 2) / (DOT_COLUMNS - 1);
+        dotRowSpacing = (height - DOT_PADDING * 2 - minDotRadius * 2) / (DOT_ROWS - 1);
+    }
+
+    @Override
+    public void render(VisualizationState state) {
+        lastState = state;
+        if (state.getBarCount() != barCount) {
+            layout(state.getBarCount());
+        }
+        GraphicsContext context = canvas.getGraphicsContext2D();
+        context.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        drawBackground(context, state);
+        drawBars(context, state.getLevels(), state.getHue());
+    }
+
+    /**
+     * Draws the background behind the bars, the dots by default.
+     * @param context The context to draw with
+     * @param state The drawn state
+     */
+    protected void drawBackground(GraphicsContext context, VisualizationState state) {
+        drawDots(context, state.getDotPulses());
+    }
+
+    /**
+     * Draws the dots.
+     * @param context The context to draw with
+     * @param dotPulses The number of times the dots pulsed
+     */
+    private void drawDots(GraphicsContext context, long dotPulses) {
+        boolean dotsAnimationForward = dotPulses % 2 == 1;
+        double middleRadius = (maxDotRadius - minDotRadius) / 2 + minDotRadius;
+        context.setFill(DOT_COLOR);
+        for (int i = 0; i < DOT_ROWS; i++) {
+            double centerY = DOT_PADDING + middleRadius + dotRowSpacing * i;
+            for (int j = 0; j < DOT_COLUMNS; j++) {
+                double centerX = DOT_PADDING + middleRadius + dotColumnSpacing * j;
+                double radius = dotPulses == 0
+                        ? middleRadius
+                        : dotsAnimationForward ^ ((i + j) % 2 == 0) ? minDotRadius : maxDotRadius;
+                context.fillOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
+            }
+        }
+    }
+
+    /**
+     * Draws the bars.
+     * @param context The context to draw with
+     * @param levels The level of each bar in the range [0, 1]
+     * @param baseColorHue The hue of the first bar
+     */
+    private void drawBars(GraphicsContext context, float[] levels, double baseColorHue) {
+        double bottom = canvas.getHeight() - BOTTOM_PADDING;
+        for (int i = 0; i < barCount; i++) {
+            double height = maxBarHeight * levels[i];
+            if (height <= 0) {
+                continue;
+            }
+            context.setFill(HuePalette.get(baseColorHue + (double) i / barCount * 30));
+            context.fillRoundRect(BAR_PADDING + (barWidth + BAR_PADDING) * i, bottom - height, barWidth, height,
+                    20, 10);
+        }
+    }
+}
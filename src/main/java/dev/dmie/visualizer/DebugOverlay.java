@@ -0,0 +1,80 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.metrics.VisualizerMetrics;
+import javafx.animation.AnimationTimer;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows the frame rate and the {@link VisualizerMetrics} in the corner of the visualization, so that jank can be
+ * diagnosed without attaching a profiler.
+ */
+public class DebugOverlay extends AnimationTimer {
+    /**
+     * The time between two updates of the overlay in nanoseconds.
+     */
+    private static final long UPDATE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    /**
+     * The text that shows the metrics.
+     */
+    private final Text text = new Text(8, 16, "");
+
+    /**
+     * The metrics to show.
+     */
+    private final VisualizerMetrics metrics = VisualizerMetrics.get();
+
+    /**
+     * The time of the last update in nanoseconds.
+     */
+    private long lastUpdate = 0;
+
+    /**
+     * The number of pulses since the last update.
+     */
+    private int pulses = 0;
+
+    /**
+     * Creates a new {@link DebugOverlay} instance.
+     * @param pane The {@code Pane} to show the overlay in
+     */
+    public DebugOverlay(Pane pane) {
+        text.setFill(Color.rgb(255, 255, 255, 0.8));
+        text.setFont(Font.font("Monospaced", 12));
+        text.setManaged(false);
+        pane.getChildren().add(text);
+    }
+
+    /**
+     * Called in every frame while the {@code DebugOverlay} is active.
+     * @param now The timestamp of the current frame in nanoseconds
+     */
+    @Override
+    public void handle(long now) {
+        text.toFront();
+        pulses++;
+        if (lastUpdate == 0) {
+            lastUpdate = now;
+            return;
+        }
+        if (now - lastUpdate < UPDATE_INTERVAL_NANOS) {
+            return;
+        }
+        double fps = pulses * 1e9 / (now - lastUpdate);
+        text.setText(String.format(
+                "%.0f fps   update p99 %.0f µs   render p99 %.0f µs   late %d   dropped %d   alloc %d KB/s",
+                fps,
+                metrics.getSpectrumUpdateP99Micros(),
+                metrics.getRenderP99Micros(),
+                metrics.getLateSpectrumFrames(),
+                metrics.getDroppedSpectrumFrames(),
+                metrics.getRenderThreadAllocationRate() / 1024));
+        lastUpdate = now;
+        pulses = 0;
+    }
+}
@@ -0,0 +1,287 @@
+package dev.dmie.visualizer;
+
+import java.util.Arrays;
+
+/**
+ * Draws the visualization into an ARGB pixel array in software, with the same geometry as the
+ * {@link CanvasRenderer}, so that frames can be rendered without a display.
+ * <p>
+ * A rasterizer holds no mutable state, so one instance can draw frames on several threads at once.
+ */
+public class FrameRasterizer {
+    /**
+     * The color of the background.
+     */
+    private static final int BACKGROUND = 0xFF000000;
+
+    /**
+     * The color of the dots.
+     */
+    private static final int DOT_COLOR = 0xFFFFFFFF;
+
+    /**
+     * The opacity of the dots.
+     */
+    private static final double DOT_OPACITY = 0.5;
+
+    /**
+     * The horizontal radius of the rounded corners of a bar.
+     */
+    private static final double CORNER_RADIUS_X = 10.0;
+
+    /**
+     * The vertical radius of the rounded corners of a bar.
+     */
+    private static final double CORNER_RADIUS_Y = 5.0;
+
+    /**
+     * The width of a frame in pixels.
+     */
+    private final int width;
+
+    /**
+     * The height of a frame in pixels.
+     */
+    private final int height;
+
+    /**
+     * The number of bars.
+     */
+    private final int barCount;
+
+    /**
+     * The maximum height of a bar.
+     */
+    private final double maxBarHeight;
+
+    /**
+     * The minimum radius of a dot.
+     */
+    private final double minDotRadius;
+
+    /**
+     * The maximum radius of a dot.
+     */
+    private final double maxDotRadius;
+
+    /**
+     * The width of a bar.
+     */
+    private final double barWidth;
+
+    /**
+     * The horizontal distance between the centers of two neighbouring dots.
+     */
+    private final double dotColumnSpacing;
+
+    /**
+     * The vertical distance between the centers of two neighbouring dots.
+     */
+    private final double dotRowSpacing;
+
+    /**
+     * Creates a new {@link FrameRasterizer} instance.
+     * @param width The width of a frame in pixels
+     * @param height The height of a frame in pixels
+     * @param barCount The number of bars
+     */
+    public FrameRasterizer(int width, int height, int barCount) {
+        this(width, height, barCount, height, 3, 6);
+    }
+
+    /**
+     * Creates a new {@link FrameRasterizer} instance.
+     * @param width The width of a frame in pixels
+     * @param height The height of a frame in pixels
+     * @param barCount The number of bars
+     * @param maxBarHeight The maximum bar height
+     * @param minDotRadius The minimum dot radius
+     * @param maxDotRadius The maximum dot radius
+     */
+    public FrameRasterizer(int width, int height, int barCount, double maxBarHeight, double minDotRadius,
+                           double maxDotRadius) {
+        this.width = width;
+        this.height = height;
+        this.barCount = barCount;
+        this.maxBarHeight = maxBarHeight;
+        this.minDotRadius = minDotRadius;
+        this.maxDotRadius = maxDotRadius;
+        barWidth = (width - (barCount + 1) * CanvasRenderer.BAR_PADDING) / barCount;
+        dotColumnSpacing = (width - CanvasRenderer.DOT_PADDING * 2 - minDotRadius * 2)
+                / (CanvasRenderer.DOT_COLUMNS - 1);
+        dotRowSpacing = (height - CanvasRenderer.DOT_PADDING * 2 - minDotRadius * 2) / (CanvasRenderer.DOT_ROWS - 1);
+    }
+
+    /**
+     * Returns the width of a frame.
+     * @return The width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of a frame.
+     * @return The height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Draws a frame.
+     * @param levels The level of each bar in the range [0, 1]
+     * @param hue The hue of the first bar
+     * @param dotPulses The number of times the dots pulsed
+     * @param pixels The ARGB pixels of the frame in rows, at least {@code width * height} long
+     */
+    public void rasterize(float[] levels, double hue, long dotPulses, int[] pixels) {
+        Arrays.fill(pixels, 0, width * height, BACKGROUND);
+        drawDots(dotPulses, pixels);
+        drawBars(levels, hue, pixels);
+    }
+
+    /**
+     * Draws the dots.
+     * @param dotPulses The number of times the dots pulsed
+     * @param pixels The pixels of the frame
+     */
+    private void drawDots(long dotPulses, int[] pixels) {
+        boolean dotsAnimationForward = dotPulses % 2 == 1;
+        double middleRadius = (maxDotRadius - minDotRadius) / 2 + minDotRadius;
+        for (int i = 0; i < CanvasRenderer.DOT_ROWS; i++) {
+            double centerY = CanvasRenderer.DOT_PADDING + middleRadius + dotRowSpacing * i;
+            for (int j = 0; j < CanvasRenderer.DOT_COLUMNS; j++) {
+                double centerX = CanvasRenderer.DOT_PADDING + middleRadius + dotColumnSpacing * j;
+                double radius = dotPulses == 0
+                        ? middleRadius
+                        : dotsAnimationForward ^ ((i + j) % 2 == 0) ? minDotRadius : maxDotRadius;
+                fillCircle(centerX, centerY, radius, pixels);
+            }
+        }
+    }
+
+    /**
+     * Draws the bars.
+     * @param levels The level of each bar in the range [0, 1]
+     * @param baseColorHue The hue of the first bar
+     * @param pixels The pixels of the frame
+     */
+    private void drawBars(float[] levels, double baseColorHue, int[] pixels) {
+        double bottom = height - CanvasRenderer.BOTTOM_PADDING;
+        for (int i = 0; i < barCount; i++) {
+            double barHeight = maxBarHeight * levels[i];
+            if (barHeight <= 0) {
+                continue;
+            }
+            int color = HuePalette.getArgb(baseColorHue + (double) i / barCount * 30);
+            double left = CanvasRenderer.BAR_PADDING + (barWidth + CanvasRenderer.BAR_PADDING) * i;
+            fillRoundRect(left, bottom - barHeight, barWidth, barHeight, color, pixels);
+        }
+    }
+
+    /**
+     * Fills a translucent anti-aliased circle with the dot color.
+     * @param centerX The x coordinate of the center
+     * @param centerY The y coordinate of the center
+     * @param radius The radius
+     * @param pixels The pixels of the frame
+     */
+    private void fillCircle(double centerX, double centerY, double radius, int[] pixels) {
+        int top = Math.max(0, (int) Math.floor(centerY - radius));
+        int bottom = Math.min(height - 1, (int) Math.ceil(centerY + radius));
+        int left = Math.max(0, (int) Math.floor(centerX - radius));
+        int right = Math.min(width - 1, (int) Math.ceil(centerX + radius));
+        for (int y = top; y <= bottom; y++) {
+            double dy = y + 0.5 - centerY;
+            for (int x = left; x <= right; x++) {
+                double dx = x + 0.5 - centerX;
+                double coverage = Math.min(1.0, Math.max(0.0, radius + 0.5 - Math.sqrt(dx * dx + dy * dy)));
+                if (coverage > 0) {
+                    blend(pixels, y * width + x, DOT_COLOR, coverage * DOT_OPACITY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills an opaque anti-aliased rectangle with rounded corners.
+     * @param x The x coordinate of the left edge
+     * @param y The y coordinate of the top edge
+     * @param rectWidth The width
+     * @param rectHeight The height
+     * @param color The ARGB color
+     * @param pixels The pixels of the frame
+     */
+    private void fillRoundRect(double x, double y, double rectWidth, double rectHeight, int color, int[] pixels) {
+        double radiusX = Math.min(CORNER_RADIUS_X, rectWidth / 2);
+        double radiusY = Math.min(CORNER_RADIUS_Y, rectHeight / 2);
+        double bottom = y + rectHeight;
+        int firstRow = Math.max(0, (int) Math.floor(y));
+        int lastRow = Math.min(height - 1, (int) Math.ceil(bottom) - 1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            double rowCoverage = Math.min(row + 1, bottom) - Math.max(row, y);
+            double rowCenter = row + 0.5;
+            double cornerDistance = Math.max(y + radiusY - rowCenter, rowCenter - (bottom - radiusY));
+            double inset = 0.0;
+            if (cornerDistance > 0) {
+                double ratio = Math.min(1.0, cornerDistance / radiusY);
+                inset = radiusX * (1 - Math.sqrt(1 - ratio * ratio));
+            }
+            fillSpan(row, x + inset, x + rectWidth - inset, color, rowCoverage, pixels);
+        }
+    }
+
+    /**
+     * Fills a horizontal span of a row, blending the partially covered pixels at its ends.
+     * @param row The row
+     * @param left The x coordinate where the span starts
+     * @param right The x coordinate where the span ends
+     * @param color The ARGB color
+     * @param coverage The part of the row height that is covered
+     * @param pixels The pixels of the frame
+     */
+    private void fillSpan(int row, double left, double right, int color, double coverage, int[] pixels) {
+        if (right <= left) {
+            return;
+        }
+        int first = Math.max(0, (int) Math.floor(left));
+        int last = Math.min(width - 1, (int) Math.ceil(right) - 1);
+        int offset = row * width;
+        for (int x = first; x <= last; x++) {
+            double pixelCoverage = (Math.min(x + 1, right) - Math.max(x, left)) * coverage;
+            if (pixelCoverage >= 1.0) {
+                pixels[offset + x] = color;
+            } else if (pixelCoverage > 0) {
+                blend(pixels, offset + x, color, pixelCoverage);
+            }
+        }
+    }
+
+    /**
+     * Blends a color over a pixel.
+     * @param pixels The pixels of the frame
+     * @param index The index of the pixel
+     * @param color The ARGB color
+     * @param alpha The opacity of the color in the range [0, 1]
+     */
+    private static void blend(int[] pixels, int index, int color, double alpha) {
+        int destination = pixels[index];
+        int weight = (int) Math.round(alpha * 256);
+        int red = blendChannel(destination >> 16 & 0xFF, color >> 16 & 0xFF, weight);
+        int green = blendChannel(destination >> 8 & 0xFF, color >> 8 & 0xFF, weight);
+        int blue = blendChannel(destination & 0xFF, color & 0xFF, weight);
+        pixels[index] = 0xFF000000 | red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * Blends a color channel.
+     * @param destination The channel of the pixel
+     * @param source The channel of the color
+     * @param weight The weight of the color in the range [0, 256]
+     * @return The blended channel
+     */
+    private static int blendChannel(int destination, int source, int weight) {
+        return destination + ((source - destination) * weight >> 8);
+    }
+}
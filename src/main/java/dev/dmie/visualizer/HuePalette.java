@@ -0,0 +1,73 @@
+package dev.dmie.visualizer;
+
+import javafx.scene.paint.Color;
+
+/**
+ * A precomputed lookup table of fully saturated, fully bright colors indexed by hue, so that coloring the bars
+ * does not allocate a {@code Color} on every frame.
+ */
+public final class HuePalette {
+    /**
+     * The number of palette entries per degree of hue.
+     */
+    private static final int STEPS_PER_DEGREE = 2;
+
+    /**
+     * The number of palette entries.
+     */
+    private static final int SIZE = 360 * STEPS_PER_DEGREE;
+
+    /**
+     * The colors of the palette.
+     */
+    private static final Color[] colors = new Color[SIZE];
+
+    /**
+     * The colors of the palette as opaque ARGB pixels.
+     */
+    private static final int[] argbColors = new int[SIZE];
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            colors[i] = Color.hsb((double) i / STEPS_PER_DEGREE, 1, 1);
+            argbColors[i] = 0xFF000000
+                    | (int) Math.round(colors[i].getRed() * 255) << 16
+                    | (int) Math.round(colors[i].getGreen() * 255) << 8
+                    | (int) Math.round(colors[i].getBlue() * 255);
+        }
+    }
+
+    /**
+     * Prevents instantiation.
+     */
+    private HuePalette() {
+    }
+
+    /**
+     * Returns the index of the palette entry closest to a hue.
+     * @param hue The hue in degrees, wrapped into the range [0, 360)
+     * @return The index of the entry
+     */
+    public static int indexOf(double hue) {
+        int index = (int) Math.round(hue * STEPS_PER_DEGREE) % SIZE;
+        return index < 0 ? index + SIZE : index;
+    }
+
+    /**
+     * Returns the color of a hue.
+     * @param hue The hue in degrees, wrapped into the range [0, 360)
+     * @return The color of the closest palette entry
+     */
+    public static Color get(double hue) {
+        return colors[indexOf(hue)];
+    }
+
+    /**
+     * Returns the color of a hue as an opaque ARGB pixel.
+     * @param hue The hue in degrees, wrapped into the range [0, 360)
+     * @return The color of the closest palette entry
+     */
+    public static int getArgb(double hue) {
+        return argbColors[indexOf(hue)];
+    }
+}
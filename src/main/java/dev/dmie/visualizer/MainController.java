@@ -1,10 +1,32 @@
 package dev.dmie.visualizer;
 
+import dev.dmie.visualizer.analysis.Spectrogram;
+import dev.dmie.visualizer.analysis.SpectrogramCache;
+import dev.dmie.visualizer.analysis.SpectrogramPlayer;
+import dev.dmie.visualizer.analysis.SpectrumEngine;
+import dev.dmie.visualizer.analysis.Waveform;
+import dev.dmie.visualizer.analysis.WaveformCache;
+import dev.dmie.visualizer.audio.PcmSource;
+import dev.dmie.visualizer.metrics.TrackLoadEvent;
+import dev.dmie.visualizer.metrics.VisualizerMetrics;
+import dev.dmie.visualizer.playlist.Library;
+import dev.dmie.visualizer.playlist.MetadataIndex;
+import dev.dmie.visualizer.playlist.PlaylistScanner;
+import dev.dmie.visualizer.playlist.TrackMetadata;
+import dev.dmie.visualizer.replay.SpectrumRecorder;
+import dev.dmie.visualizer.stream.SpectrumServer;
+import javafx.application.Platform;
 import javafx.beans.value.ObservableValue;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.media.AudioSpectrumListener;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaException;
 import javafx.scene.media.MediaPlayer;
@@ -15,9 +37,19 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URL;
-import java.util.Arrays;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 /**
  * The controller of the main application view.
@@ -28,6 +60,11 @@ public class MainController implements Initializable {
      */
     private static final Logger logger = LogManager.getLogger("dev.dmie");
 
+    /**
+     * The spectrum threshold in decibels.
+     */
+    private static final int SPECTRUM_THRESHOLD = -80;
+
     /**
      * A {@code Label} that contains the name of the current loaded playlist.
      */
@@ -58,6 +95,13 @@ public class MainController implements Initializable {
     @FXML
     private Slider playbackSlider;
 
+    /**
+     * A {@code StackPane} that shows the waveform of the current track behind the
+     * {@link MainController#playbackSlider}.
+     */
+    @FXML
+    private StackPane playbackPane;
+
     /**
      * A {@code Slider} that controls the volume of the current track.
      */
@@ -88,17 +132,60 @@ public class MainController implements Initializable {
     @FXML
     private Pane spectrumCanvas;
 
+    /**
+     * A {@code TextField} that filters the {@link MainController#trackList}.
+     */
+    @FXML
+    private TextField searchField;
+
+    /**
+     * A {@code ListView} of the tracks of the playlist that match the {@link MainController#searchField}, identified by
+     * their positions in the {@link MainController#library}.
+     */
+    @FXML
+    private ListView<Integer> trackList;
+
+    /**
+     * The items of the {@link MainController#trackList}.
+     */
+    private final TrackPositionList trackListItems = new TrackPositionList();
+
 
     /**
      * The tracks of the currently loaded playlist.
      */
-    private File[] tracks;
+    private Library library = new Library();
+
+    /**
+     * The scanner of the currently loaded playlist.
+     */
+    private PlaylistScanner playlistScanner;
+
+    /**
+     * The playlist that is being loaded by the {@link MainController#playlistScanner}.
+     */
+    private File loadingPlaylist;
+
+    /**
+     * Whether the tracks of the {@link MainController#loadingPlaylist} replaced the previous playlist.
+     */
+    private boolean playlistReplaced = false;
 
     /**
-     * The index of the current track in {@link MainController#tracks}.
+     * The position of the current track in the {@link MainController#library}.
      */
     private int currentTrackIndex = 0;
 
+    /**
+     * The index of track metadata, created when first needed.
+     */
+    private MetadataIndex metadataIndex;
+
+    /**
+     * The total indexed duration of the tracks in the playlist in milliseconds.
+     */
+    private long playlistDurationMillis = 0;
+
 
     /**
      * The player of the current track.
@@ -106,9 +193,133 @@ public class MainController implements Initializable {
     private MediaPlayer player;
 
     /**
-     * The visualizer.
+     * The preloaded player of the next track, or {@code null} if the next track is not preloaded.
+     */
+    private MediaPlayer nextPlayer;
+
+    /**
+     * The track of the {@link MainController#nextPlayer}.
+     */
+    private File nextTrack;
+
+    /**
+     * Whether preloading of the next track was already attempted for the current track.
+     */
+    private boolean preloadRequested = false;
+
+    /**
+     * How many seconds before the end of the current track the next track is preloaded.
+     */
+    private final double preloadSeconds = Settings.getPreloadSeconds();
+
+    /**
+     * The JFR event of loading the current track, or {@code null} if its player is ready.
+     */
+    private TrackLoadEvent trackLoadEvent;
+
+    /**
+     * The value of {@link System#nanoTime()} when the current track started loading.
+     */
+    private long trackLoadNanos = 0;
+
+    /**
+     * The value of {@link System#nanoTime()} when the last track ended, or zero if no track change is measured.
+     */
+    private long trackEndNanos = 0;
+
+    /**
+     * The bus that processes spectrum data once and publishes it to the views of the visualization.
+     */
+    private SpectrumBus spectrumBus;
+
+    /**
+     * The listener that receives the spectrum callbacks: the {@link MainController#spectrumBus}, wrapped in a
+     * {@link SpectrumRecorder} if recording is enabled.
+     */
+    private AudioSpectrumListener spectrumListener;
+
+    /**
+     * The thread that processes the spectrum callbacks of the {@link MainController#player}, or {@code null} if they
+     * are processed on the JavaFX application thread.
+     */
+    private AnalysisThread analysisThread;
+
+    /**
+     * The server that streams the {@link MainController#spectrumBus} to network clients, or {@code null} if
+     * streaming is disabled.
+     */
+    private SpectrumServer spectrumServer;
+
+    /**
+     * The in-process spectrum engine of the current track, or {@code null} if the player computes the spectrum.
+     */
+    private SpectrumEngine spectrumEngine;
+
+    /**
+     * The player of the precomputed spectrogram of the current track, or {@code null} if there is none.
+     */
+    private SpectrogramPlayer spectrogramPlayer;
+
+    /**
+     * The cache of spectrograms computed by the FFT engine, created when first needed.
+     */
+    private SpectrogramCache spectrogramCache;
+
+    /**
+     * The cache of the downsampled spectrograms previewed while scrubbing, or {@code null} if the preview is disabled.
+     */
+    private SpectrogramCache scrubPreviewCache;
+
+    /**
+     * The track whose scrubbing preview is shown or loaded.
+     */
+    private Path scrubPreviewTrack;
+
+    /**
+     * The downsampled spectrogram of the current track previewed while scrubbing, or {@code null} if it is not
+     * available.
+     */
+    private Spectrogram scrubPreview;
+
+    /**
+     * The magnitudes of the previewed frame.
+     */
+    private float[] scrubMagnitudes;
+
+    /**
+     * The index of the previewed frame, or {@code -1} if no frame was previewed since the slider was pressed.
+     */
+    private int scrubFrame = -1;
+
+    /**
+     * Whether the {@link MainController#playbackSlider} is being dragged.
+     */
+    private boolean scrubbing = false;
+
+    /**
+     * The view of the waveform of the current track, or {@code null} if waveforms are disabled.
+     */
+    private WaveformView waveformView;
+
+    /**
+     * The cache of waveforms, or {@code null} if waveforms are disabled.
+     */
+    private WaveformCache waveformCache;
+
+    /**
+     * The track whose waveform is shown or loaded.
      */
-    private Visualizer visualizer;
+    private Path waveformTrack;
+
+    /**
+     * The loading of the waveform of the {@link MainController#waveformTrack}, or {@code null} if there is none.
+     */
+    private CompletableFuture<Waveform> waveformFuture;
+
+    /**
+     * The playback position of the current track.
+     */
+    private final PlaybackClock playbackClock = new PlaybackClock();
 
 
     /**
@@ -128,6 +339,27 @@ public class MainController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         playbackSlider.valueProperty().addListener(this::onPlaybackSliderValueChanging);
+        trackList.setItems(trackListItems);
+        trackList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Integer position, boolean empty) {
+                super.updateItem(position, empty);
+                setText(empty || position == null ? null : getTrackName(position));
+            }
+        });
+        searchField.textProperty().addListener(observable -> filterTrackList());
+        if (Settings.getScrubHopSize() > 0) {
+            scrubPreviewCache = new SpectrogramCache(
+                    Settings.getCacheDirectory(),
+                    Settings.getWindowSize(),
+                    Settings.getScrubHopSize(),
+                    Settings.getBandCount(),
+                    SPECTRUM_THRESHOLD);
+        }
+        if (Settings.isWaveformEnabled()) {
+            waveformView = new WaveformView(playbackPane);
+            waveformCache = new WaveformCache(Settings.getCacheDirectory(), Settings.getWaveformColumns());
+        }
     }
 
     /**
@@ -142,6 +374,27 @@ public class MainController implements Initializable {
             Number newValue) {
         double newPosition = newValue.doubleValue() * player.getCycleDuration().toMillis();
         setTimeLabel(currentTimeLabel, new Duration(newPosition));
+        if (scrubbing) {
+            previewScrubPosition(newPosition / 1000);
+        }
+    }
+
+    /**
+     * Shows the visualization of a position of the current track while the {@link MainController#playbackSlider} is
+     * dragged, by publishing the frame of the {@link MainController#scrubPreview} instead of seeking the player.
+     * @param position The dragged position in seconds
+     */
+    private void previewScrubPosition(double position) {
+        if (scrubPreview == null || scrubPreview.getFrameCount() == 0) {
+            return;
+        }
+        int frame = Math.max(0, scrubPreview.frameAt(position));
+        if (frame == scrubFrame) {
+            return;
+        }
+        scrubFrame = frame;
+        scrubPreview.read(frame, scrubMagnitudes);
+        spectrumBus.preview(scrubPreview.timestampOf(frame), scrubPreview.getHopDuration(), scrubMagnitudes);
     }
 
     /**
@@ -192,49 +445,306 @@ public class MainController implements Initializable {
     }
 
     /**
-     * Loads tracks of a playlist.
+     * Starts loading tracks of a playlist in the background. The current playlist is replaced as soon as the first
+     * tracks are found.
      * @param playlist The playlist
      */
     private void loadPlaylist(File playlist) {
-        File[] loadedTracks;
-        try {
-            loadedTracks = playlist.listFiles(
-                    (file) -> file.isFile() && file.getName().matches(".+\\.(aac|m4a|mp3|pcm|wav|aiff)"));
-        } catch (SecurityException exception) {
-            logger.error("Access to the playlist was denied");
-            showPlaylistFailureAlert(playlist.getName());
-            return;
+        if (playlistScanner != null) {
+            playlistScanner.close();
         }
-        if (loadedTracks == null) {
-            logger.error("An I/O error occurred while loading playlist");
-            showPlaylistFailureAlert(playlist.getName());
+        loadingPlaylist = playlist;
+        playlistReplaced = false;
+        playlistScanner = new PlaylistScanner(playlist.toPath(), Settings.isPlaylistRecursive(),
+                new PlaylistScanner.Listener() {
+                    @Override
+                    public void onTracksFound(List<Path> found) {
+                        Platform.runLater(() -> {
+                            if (loadingPlaylist == playlist) {
+                                addTracks(found);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onTracksRemoved(List<Path> paths) {
+                        Platform.runLater(() -> {
+                            if (loadingPlaylist == playlist) {
+                                removeTracks(paths);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onTracksRescanned(Set<Path> tracks) {
+                        Platform.runLater(() -> {
+                            if (loadingPlaylist == playlist) {
+                                removeTracks(track -> !tracks.contains(track));
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onScanFinished() {
+                        Platform.runLater(() -> {
+                            if (loadingPlaylist == playlist) {
+                                finishPlaylistScan();
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onScanFailed(IOException exception) {
+                        Platform.runLater(() -> {
+                            if (loadingPlaylist == playlist) {
+                                logger.error("An I/O error occurred while loading playlist");
+                                showPlaylistFailureAlert(playlist.getName());
+                            }
+                        });
+                    }
+                });
+        playlistScanner.start();
+    }
+
+    /**
+     * Replaces the current playlist with the {@link MainController#loadingPlaylist} if it was not replaced yet.
+     */
+    private void replacePlaylist() {
+        if (playlistReplaced) {
             return;
         }
-        tracks = loadedTracks;
+        playlistReplaced = true;
+        if (player != null) {
+            stop();
+        }
+        library = new Library();
         currentTrackIndex = 0;
-        playlistLabel.setText(playlist.getName());
-        if (Arrays.asList(loadedTracks).isEmpty()) {
-            logger.info("The loaded playlist is empty");
-            if (player != null) {
-                stop();
+        playlistDurationMillis = 0;
+        filterTrackList();
+        playlistLabel.setText(loadingPlaylist.getName());
+    }
+
+    /**
+     * Adds tracks found by the {@link MainController#playlistScanner} to the playlist, keeping it sorted, and loads the
+     * first track if the playlist was empty. The metadata of the new tracks is indexed in the background.
+     * @param found The found tracks
+     */
+    private void addTracks(List<Path> found) {
+        replacePlaylist();
+        boolean wasEmpty = library.isEmpty();
+        Path currentTrack = wasEmpty ? null : library.get(currentTrackIndex);
+        indexTracks(library.add(found));
+        if (library.isEmpty()) {
+            return;
+        }
+        currentTrackIndex = wasEmpty ? 0 : library.indexOf(currentTrack);
+        filterTrackList();
+
+        if (wasEmpty) {
+            loadCurrentTrack();
+        } else {
+            setTrackLabelText();
+        }
+    }
+
+    /**
+     * Removes tracks from the playlist.
+     * @param paths The removed tracks and directories
+     */
+    private void removeTracks(List<Path> paths) {
+        removeTracks(track -> paths.stream().anyMatch(track::startsWith));
+    }
+
+    /**
+     * Removes tracks from the playlist. If the current track is removed, the next remaining track is loaded instead
+     * and played if the removed one was playing.
+     * @param filter Selects the removed tracks
+     */
+    private void removeTracks(Predicate<Path> filter) {
+        if (!playlistReplaced) {
+            return;
+        }
+        int[] removed = library.remove(track -> {
+            if (filter.test(track)) {
+                playlistDurationMillis -= getIndexedDuration(track);
+                return true;
             }
-            trackLabel.setText("No Tracks Found");
-            setControlsDisable(true);
+            return false;
+        });
+        if (removed.length == 0) {
+            return;
+        }
+        int removedBefore = 0;
+        boolean currentRemoved = false;
+        for (int position : removed) {
+            if (position < currentTrackIndex) {
+                removedBefore++;
+            } else if (position == currentTrackIndex) {
+                currentRemoved = true;
+            }
+        }
+        currentTrackIndex -= removedBefore;
+        filterTrackList();
+        if (library.isEmpty()) {
+            showEmptyPlaylist();
             return;
         }
-        Arrays.sort(loadedTracks);
+        setPlaylistLabelText();
+        if (!currentRemoved) {
+            setTrackLabelText();
+            return;
+        }
+
+        logger.info("The current track was removed, moving to the next track");
+        if (currentTrackIndex >= library.size()) {
+            currentTrackIndex = 0;
+        }
+        boolean playing = playbackStatus == PlaybackStatus.PLAYING;
         loadCurrentTrack();
+        if (playing) {
+            play();
+        }
+    }
+
+    /**
+     * Indexes the metadata of tracks added to the playlist in the background and updates the labels when done.
+     * @param added The added tracks
+     */
+    private void indexTracks(List<Path> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+        if (metadataIndex == null) {
+            metadataIndex = new MetadataIndex(Settings.getCacheDirectory().resolve("metadata.idx"));
+        }
+        File playlist = loadingPlaylist;
+        metadataIndex.index(added).whenComplete((result, exception) -> Platform.runLater(() -> {
+            if (loadingPlaylist != playlist) {
+                return;
+            }
+            for (Path track : added) {
+                playlistDurationMillis += getIndexedDuration(track);
+                library.setMetadata(track, getMetadata(track));
+            }
+            setPlaylistLabelText();
+            if (searchField.getText().isBlank()) {
+                trackList.refresh();
+            } else {
+                filterTrackList();
+            }
+            if (!library.isEmpty()) {
+                setTrackLabelText();
+                if (player == null || player.getStatus() == MediaPlayer.Status.UNKNOWN) {
+                    setIndexedDurationLabel();
+                }
+            }
+        }));
+    }
+
+    /**
+     * Returns the indexed metadata of a track.
+     * @param track The track
+     * @return The metadata, or {@link TrackMetadata#UNKNOWN} if the track is not indexed
+     */
+    private TrackMetadata getMetadata(Path track) {
+        TrackMetadata metadata = metadataIndex == null ? null : metadataIndex.get(track);
+        return metadata == null ? TrackMetadata.UNKNOWN : metadata;
+    }
+
+    /**
+     * Returns the indexed duration of a track.
+     * @param track The track
+     * @return The duration in milliseconds, or zero if it is not known
+     */
+    private long getIndexedDuration(Path track) {
+        TrackMetadata metadata = getMetadata(track);
+        return metadata.hasDuration() ? metadata.durationMillis() : 0;
+    }
+
+    /**
+     * Called when the {@link MainController#playlistScanner} finished the initial scan.
+     */
+    private void finishPlaylistScan() {
+        replacePlaylist();
+        logger.info("Found {} tracks in the playlist", library.size());
+        if (library.isEmpty()) {
+            showEmptyPlaylist();
+        }
+    }
+
+    /**
+     * Shows that the loaded playlist is empty.
+     */
+    private void showEmptyPlaylist() {
+        logger.info("The loaded playlist is empty");
+        if (player != null) {
+            stop();
+        }
+        trackLabel.setText("No Tracks Found");
+        setControlsDisable(true);
     }
 
     /**
-     * Sets the text of the {@link MainController#trackLabel} based on the current track.
+     * Sets the text of the {@link MainController#playlistLabel} based on the loaded playlist and its indexed duration.
+     */
+    private void setPlaylistLabelText() {
+        String playlistName = loadingPlaylist.getName();
+        if (playlistDurationMillis <= 0) {
+            playlistLabel.setText(playlistName);
+            return;
+        }
+        long totalSeconds = playlistDurationMillis / 1000;
+        String durationText = String.format("%d:%02d:%02d",
+                totalSeconds / 3600, totalSeconds / 60 % 60, totalSeconds % 60);
+        playlistLabel.setText(String.format("%s   ( %s )", playlistName, durationText));
+    }
+
+    /**
+     * Sets the text of the {@link MainController#trackLabel} based on the current track. The artist and the title
+     * from the tags of the track are shown instead of its file name if they are indexed.
      */
     private void setTrackLabelText() {
-        String trackName = tracks[currentTrackIndex].getName();
-        String trackLabelText = String.format("[ %d / %d ]   %s", currentTrackIndex + 1, tracks.length, trackName);
+        String trackName = getTrackName(currentTrackIndex);
+        String trackLabelText = String.format("[ %d / %d ]   %s", currentTrackIndex + 1, library.size(), trackName);
         trackLabel.setText(trackLabelText);
     }
 
+    /**
+     * Returns the name of a track to show: its artist and title from the tags if they are indexed, or its file name.
+     * @param position The position of the track in the {@link MainController#library}
+     * @return The name of the track
+     */
+    private String getTrackName(int position) {
+        String title = library.getTitle(position);
+        if (title == null) {
+            return library.getName(position);
+        }
+        String artist = library.getArtist(position);
+        return artist != null ? artist + " – " + title : title;
+    }
+
+    /**
+     * Shows the tracks of the playlist that match the {@link MainController#searchField} in the
+     * {@link MainController#trackList}.
+     */
+    private void filterTrackList() {
+        trackListItems.setPositions(library.search(searchField.getText()));
+        selectCurrentTrack();
+    }
+
+    /**
+     * Selects the current track in the {@link MainController#trackList} and scrolls to it if it is shown.
+     */
+    private void selectCurrentTrack() {
+        int index = library.isEmpty() ? -1 : trackListItems.indexOfPosition(currentTrackIndex);
+        if (index < 0) {
+            trackList.getSelectionModel().clearSelection();
+            return;
+        }
+        trackList.getSelectionModel().select(index);
+        trackList.scrollTo(index);
+    }
+
     /**
      * Loads the current track.
      */
@@ -245,8 +755,11 @@ public class MainController implements Initializable {
         }
         setControlsDisable(true);
         setTrackLabelText();
+        selectCurrentTrack();
 
-        File currentTrack = tracks[currentTrackIndex];
+        File currentTrack = library.get(currentTrackIndex).toFile();
+        loadWaveform(currentTrack.toPath());
+        loadScrubPreview(currentTrack.toPath());
 
         if (!currentTrack.exists()) {
             logger.error("Trying to play non-existing track");
@@ -254,9 +767,14 @@ public class MainController implements Initializable {
             enableTrackButtons();
             return;
         }
-        if (currentTrack.getName().endsWith(".mp3")) {
+        setIndexedDurationLabel();
+        if (currentTrack.getName().endsWith(".mp3") && !getMetadata(currentTrack.toPath()).hasDuration()) {
             logger.warn("Loading an mp3 file, bad length computation is possible");
         }
+        trackLoadEvent = new TrackLoadEvent();
+        trackLoadEvent.track = currentTrack.getName();
+        trackLoadEvent.begin();
+        trackLoadNanos = System.nanoTime();
         try {
             Media media = new Media(currentTrack.toURI().toString());
             player = new MediaPlayer(media);
@@ -274,29 +792,311 @@ public class MainController implements Initializable {
      * Sets up the {@link MainController#player}.
      */
     private void setUpPlayer() {
+        setUpPlayer(true);
+    }
+
+    /**
+     * Sets up the {@link MainController#player}.
+     * @param clearVisualizer Whether the existing visualizer is cleared
+     */
+    private void setUpPlayer(boolean clearVisualizer) {
         logger.info("Setting up player");
         player.setOnReady(this::onPlayerReady);
+        player.setOnPlaying(this::onPlayerPlaying);
         player.setOnEndOfMedia(this::onPlayerTrackEnd);
         player.currentTimeProperty().addListener(this::onPlayerCurrentTimeChange);
         player.volumeProperty().bind(volumeSlider.valueProperty());
 
         player.setAudioSpectrumInterval(1 / 40.0);
-        player.setAudioSpectrumThreshold(-80);
-        player.setAudioSpectrumNumBands(25);
+        player.setAudioSpectrumThreshold(SPECTRUM_THRESHOLD);
+        player.setAudioSpectrumNumBands(Settings.getBandCount());
+        playbackClock.setPosition(0.0);
 
-        if (visualizer == null) {
-            logger.info("Creating a new visualizer");
-            visualizer = new Visualizer(
-                    spectrumCanvas,
+        if (spectrumBus == null) {
+            logger.info("Creating the spectrum bus");
+            SpectrumProcessor processor = new SpectrumProcessor(
                     player.getAudioSpectrumNumBands(),
+                    Settings.getBarCount(),
                     player.getAudioSpectrumThreshold(),
                     80.0f);
-            visualizer.setUp();
-        } else {
-            logger.info("Clearing existing visualizer");
-            visualizer.clear();
+            spectrumBus = new SpectrumBus(16, processor, playbackClock);
+            spectrumListener = startSpectrumRecorder();
+            if (Settings.isAnalysisThreadEnabled()) {
+                analysisThread = new AnalysisThread(8, spectrumListener);
+                analysisThread.start();
+            }
+            createViews();
+            startSpectrumServer();
+            if (Settings.isDebugOverlayEnabled()) {
+                new DebugOverlay(spectrumCanvas).start();
+            }
+        } else if (clearVisualizer) {
+            logger.info("Clearing the spectrum bus");
+            spectrumBus.clear();
+        }
+        if (!startSpectrumAnalysis()) {
+            player.setAudioSpectrumListener(analysisThread != null ? analysisThread : spectrumListener);
+        }
+    }
+
+    /**
+     * Starts recording the spectrum callbacks to the log in {@code visualizer.record.output} if it is set. The log is
+     * written when the application exits.
+     * @return The recorder that passes the callbacks on to the {@link MainController#spectrumBus}, or the bus itself
+     * if recording is disabled or the log could not be opened
+     */
+    private AudioSpectrumListener startSpectrumRecorder() {
+        Path output = Settings.getRecordOutput();
+        if (output == null) {
+            return spectrumBus;
+        }
+        try {
+            SpectrumRecorder recorder = SpectrumRecorder.open(output, spectrumBus);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    recorder.close();
+                } catch (IOException exception) {
+                    logger.error("Failed to write the spectrum log: {}", exception.getMessage());
+                }
+            }, "Spectrum Recorder Shutdown"));
+            return recorder;
+        } catch (IOException exception) {
+            logger.error("Failed to start recording spectrum callbacks: {}", exception.getMessage());
+            return spectrumBus;
+        }
+    }
+
+    /**
+     * Starts streaming the {@link MainController#spectrumBus} to network clients if a port is set in
+     * {@code visualizer.stream.udpPort} or {@code visualizer.stream.webSocketPort}.
+     */
+    private void startSpectrumServer() {
+        int udpPort = Settings.getStreamUdpPort();
+        int webSocketPort = Settings.getStreamWebSocketPort();
+        if (udpPort <= 0 && webSocketPort <= 0) {
+            return;
+        }
+        String host = Settings.getStreamHost();
+        try {
+            spectrumServer = new SpectrumServer(spectrumBus,
+                    udpPort > 0 ? new InetSocketAddress(host, udpPort) : null,
+                    webSocketPort > 0 ? new InetSocketAddress(host, webSocketPort) : null,
+                    Settings.getStreamIntervalMillis());
+            spectrumServer.start();
+        } catch (IOException | IllegalArgumentException exception) {
+            logger.error("Failed to start streaming spectrum frames: {}", exception.getMessage());
+            spectrumServer = null;
+        }
+    }
+
+    /**
+     * Creates a view of the visualization for each renderer in {@code visualizer.renderer}. The first renderer draws
+     * on the {@link MainController#spectrumCanvas} and each other one in a window of its own. Unknown renderers are
+     * skipped.
+     */
+    private void createViews() {
+        boolean mainViewCreated = false;
+        for (String name : Settings.getRendererNames()) {
+            Optional<RendererProvider> provider = RendererProvider.find(name);
+            if (provider.isEmpty()) {
+                logger.warn("Unknown renderer {}", name);
+                continue;
+            }
+            if (mainViewCreated) {
+                createWindowView(provider.get());
+            } else {
+                createView(provider.get(), spectrumCanvas);
+                mainViewCreated = true;
+            }
+        }
+        if (!mainViewCreated) {
+            createView(RendererType.NODES, spectrumCanvas);
+        }
+    }
+
+    /**
+     * Creates a view of the visualization that reads the {@link MainController#spectrumBus} once per pulse.
+     * @param provider The provider of the renderer
+     * @param canvas The {@code Pane} to draw the visualization on
+     * @return The started render loop of the view
+     */
+    private RenderLoop createView(RendererProvider provider, Pane canvas) {
+        logger.info("Creating a {} view", provider.getName());
+        Visualizer visualizer = new Visualizer(provider.create(canvas), spectrumBus.getBarCount());
+        visualizer.setUp();
+        RenderLoop renderLoop = new RenderLoop(visualizer, spectrumBus.subscribe());
+        if (Settings.getFrameBudgetMillis() > 0) {
+            renderLoop.setQualityController(new QualityController(visualizer, Settings.getFrameBudgetMillis()));
+        }
+        renderLoop.start();
+        return renderLoop;
+    }
+
+    /**
+     * Creates a view of the visualization in a new window owned by the main window.
+     * @param provider The provider of the renderer
+     */
+    private void createWindowView(RendererProvider provider) {
+        Pane canvas = new Pane();
+        canvas.setStyle("-fx-background-color: black;");
+        Stage stage = new Stage();
+        stage.initOwner(spectrumCanvas.getScene().getWindow());
+        stage.setTitle("Music Visualizer – " + provider.getName());
+        stage.setScene(new Scene(canvas, 1000, 300));
+        stage.show();
+        RenderLoop renderLoop = createView(provider, canvas);
+        stage.setOnHidden(event -> renderLoop.stop());
+    }
+
+    /**
+     * Starts the in-process spectrum analysis of the current track if it is enabled and the track can be decoded.
+     * A cached spectrogram is played if there is one; otherwise the {@link MainController#spectrumEngine} analyzes
+     * the track live while its spectrogram is computed in the background.
+     * @return Whether the analysis was started
+     */
+    private boolean startSpectrumAnalysis() {
+        File currentTrack = library.get(currentTrackIndex).toFile();
+        if (Settings.getSpectrumSource() != SpectrumSource.FFT || !PcmSource.isSupported(currentTrack.toPath())) {
+            return false;
+        }
+        if (Settings.isSpectrogramCacheEnabled()) {
+            if (spectrogramCache == null) {
+                spectrogramCache = new SpectrogramCache(
+                        Settings.getCacheDirectory(),
+                        Settings.getWindowSize(),
+                        Settings.getHopSize(),
+                        player.getAudioSpectrumNumBands(),
+                        player.getAudioSpectrumThreshold());
+            }
+            Optional<Spectrogram> spectrogram = spectrogramCache.find(currentTrack.toPath());
+            if (spectrogram.isPresent()) {
+                startSpectrogramPlayer(spectrogram.get());
+                return true;
+            }
+        }
+
+        PcmSource source;
+        try {
+            source = PcmSource.open(currentTrack.toPath());
+        } catch (IOException exception) {
+            logger.warn("Failed to decode the track, falling back to the player spectrum");
+            return false;
+        }
+        logger.info("Starting the spectrum engine");
+        SpectrumEngine engine = new SpectrumEngine(
+                source,
+                Settings.getWindowSize(),
+                Settings.getHopSize(),
+                player.getAudioSpectrumNumBands(),
+                player.getAudioSpectrumThreshold(),
+                spectrumListener,
+                playbackClock);
+        spectrumEngine = engine;
+        engine.start();
+
+        if (Settings.isSpectrogramCacheEnabled()) {
+            logger.info("Computing the spectrogram in the background");
+            spectrogramCache.computeAsync(currentTrack.toPath(), ForkJoinPool.commonPool())
+                    .whenComplete((spectrogram, exception) -> Platform.runLater(() -> {
+                        if (exception != null) {
+                            logger.warn("Failed to compute the spectrogram");
+                        } else if (spectrumEngine == engine) {
+                            logger.info("Switching to the computed spectrogram");
+                            engine.stop();
+                            spectrumEngine = null;
+                            startSpectrogramPlayer(spectrogram);
+                        } else {
+                            spectrogram.close();
+                        }
+                    }));
+        }
+        return true;
+    }
+
+    /**
+     * Shows the waveform of a track behind the {@link MainController#playbackSlider}. The waveform is loaded from the
+     * cache or computed in the background and shown coarse first and then refined.
+     * @param track The path of the track
+     */
+    private void loadWaveform(Path track) {
+        if (waveformView == null || track.equals(waveformTrack)) {
+            return;
+        }
+        if (waveformFuture != null) {
+            waveformFuture.cancel(false);
+            waveformFuture = null;
+        }
+        waveformTrack = track;
+        waveformView.clear();
+        if (!PcmSource.isSupported(track) || !Files.isRegularFile(track)) {
+            return;
+        }
+        waveformFuture = waveformCache.loadAsync(track, ForkJoinPool.commonPool(),
+                waveform -> Platform.runLater(() -> {
+                    if (track.equals(waveformTrack)) {
+                        waveformView.show(waveform);
+                    }
+                }));
+        waveformFuture.whenComplete((waveform, exception) -> {
+            if (exception != null && !(exception instanceof CancellationException)) {
+                logger.warn("Failed to compute the waveform", exception);
+            }
+        });
+    }
+
+    /**
+     * Loads the {@link MainController#scrubPreview} of a track from the cache or computes it in the background.
+     * @param track The path of the track
+     */
+    private void loadScrubPreview(Path track) {
+        if (scrubPreviewCache == null || track.equals(scrubPreviewTrack)) {
+            return;
+        }
+        scrubPreviewTrack = track;
+        if (scrubPreview != null) {
+            scrubPreview.close();
+            scrubPreview = null;
+        }
+        if (!PcmSource.isSupported(track) || !Files.isRegularFile(track)) {
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> scrubPreviewCache.find(track), ForkJoinPool.commonPool())
+                .thenCompose(cached -> cached.map(CompletableFuture::completedFuture)
+                        .orElseGet(() -> scrubPreviewCache.computeAsync(track, ForkJoinPool.commonPool())))
+                .whenComplete((spectrogram, exception) -> Platform.runLater(() -> {
+                    if (exception != null) {
+                        logger.warn("Failed to compute the scrubbing preview");
+                    } else if (track.equals(scrubPreviewTrack)) {
+                        scrubPreview = spectrogram;
+                        scrubMagnitudes = new float[spectrogram.getBandCount()];
+                    } else {
+                        spectrogram.close();
+                    }
+                }));
+    }
+
+    /**
+     * Starts the {@link MainController#spectrogramPlayer} for the current track.
+     * @param spectrogram The spectrogram of the current track
+     */
+    private void startSpectrogramPlayer(Spectrogram spectrogram) {
+        logger.info("Playing the cached spectrogram");
+        spectrogramPlayer = new SpectrogramPlayer(spectrogram, spectrumListener, playbackClock);
+        spectrogramPlayer.start();
+    }
+
+    /**
+     * Stops the {@link MainController#spectrumEngine} and the {@link MainController#spectrogramPlayer}.
+     */
+    private void stopSpectrumAnalysis() {
+        if (spectrumEngine != null) {
+            spectrumEngine.stop();
+            spectrumEngine = null;
+        }
+        if (spectrogramPlayer != null) {
+            spectrogramPlayer.stop();
+            spectrogramPlayer = null;
         }
-        player.setAudioSpectrumListener(visualizer);
     }
 
     /**
@@ -309,8 +1109,98 @@ public class MainController implements Initializable {
             ObservableValue<? extends Duration> observable,
             Duration oldValue,
             Duration newValue) {
+        playbackClock.setPosition(newValue.toSeconds());
         double percent = newValue.toMillis() / player.getCycleDuration().toMillis();
         playbackSlider.setValue(percent);
+        double remainingSeconds = player.getCycleDuration().toSeconds() - newValue.toSeconds();
+        if (!preloadRequested && preloadSeconds > 0 && remainingSeconds <= preloadSeconds) {
+            preloadNextTrack();
+        }
+    }
+
+    /**
+     * Prepares the {@link MainController#nextPlayer} for the track that follows the current track, so that the
+     * playback can switch to it without waiting for the track to be opened.
+     */
+    private void preloadNextTrack() {
+        preloadRequested = true;
+        int nextIndex = currentTrackIndex + 1;
+        if (nextIndex >= library.size()) {
+            return;
+        }
+        File track = library.get(nextIndex).toFile();
+        if (!track.exists()) {
+            return;
+        }
+        logger.info("Preloading the next track");
+        MediaPlayer preloaded;
+        try {
+            preloaded = new MediaPlayer(new Media(track.toURI().toString()));
+        } catch (MediaException exception) {
+            logger.warn("Failed to preload the next track");
+            return;
+        }
+        preloaded.setOnError(() -> {
+            if (nextPlayer == preloaded) {
+                logger.warn("Failed to preload the next track");
+                discardNextPlayer();
+            }
+        });
+        nextPlayer = preloaded;
+        nextTrack = track;
+    }
+
+    /**
+     * Disposes the {@link MainController#nextPlayer} if there is one.
+     */
+    private void discardNextPlayer() {
+        if (nextPlayer != null) {
+            nextPlayer.dispose();
+            nextPlayer = null;
+            nextTrack = null;
+        }
+    }
+
+    /**
+     * Replaces the {@link MainController#player} with the preloaded {@link MainController#nextPlayer} and starts
+     * playing it without clearing the visualizer.
+     */
+    private void switchToNextPlayer() {
+        logger.info("Switching to the preloaded track");
+        stopSpectrumAnalysis();
+        MediaPlayer previousPlayer = player;
+        previousPlayer.volumeProperty().unbind();
+        player = nextPlayer;
+        nextPlayer = null;
+        nextTrack = null;
+        preloadRequested = false;
+
+        setTrackLabelText();
+        selectCurrentTrack();
+        loadWaveform(library.get(currentTrackIndex));
+        loadScrubPreview(library.get(currentTrackIndex));
+        currentTimeLabel.setText("0:00");
+        playbackSlider.setValue(0.0);
+        setUpPlayer(false);
+        play();
+        previousPlayer.dispose();
+        if (player.getStatus() == MediaPlayer.Status.UNKNOWN) {
+            setControlsDisable(true);
+            setIndexedDurationLabel();
+        } else {
+            onPlayerReady();
+        }
+    }
+
+    /**
+     * Called when the {@link MainController#player} starts playing. Logs the gap after the previous track if the
+     * playback continues from it.
+     */
+    private void onPlayerPlaying() {
+        if (trackEndNanos != 0) {
+            logger.info("Track change took {} ms", (System.nanoTime() - trackEndNanos) / 1_000_000.0);
+            trackEndNanos = 0;
+        }
     }
 
     /**
@@ -337,9 +1227,26 @@ public class MainController implements Initializable {
      * Called when the {@link MainController#player} is ready.
      */
     private void onPlayerReady() {
+        if (trackLoadEvent != null) {
+            VisualizerMetrics.get().recordTrackLoad(System.nanoTime() - trackLoadNanos);
+            trackLoadEvent.commit();
+            trackLoadEvent = null;
+        }
         setControlsDisable(false);
         volumeSlider.setValue(player.getVolume());
-        setTimeLabel(durationLabel, player.getCycleDuration());
+        if (!getMetadata(library.get(currentTrackIndex)).hasDuration()) {
+            setTimeLabel(durationLabel, player.getCycleDuration());
+        }
+    }
+
+    /**
+     * Sets the {@link MainController#durationLabel} to the indexed duration of the current track if it is known.
+     */
+    private void setIndexedDurationLabel() {
+        TrackMetadata metadata = getMetadata(library.get(currentTrackIndex));
+        if (metadata.hasDuration()) {
+            setTimeLabel(durationLabel, Duration.millis(metadata.durationMillis()));
+        }
     }
 
     /**
@@ -358,12 +1265,19 @@ public class MainController implements Initializable {
      * Called when the {@link MainController#player} finishes playing the current track.
      */
     private void onPlayerTrackEnd() {
-        if (++currentTrackIndex >= tracks.length) {
+        trackEndNanos = System.nanoTime();
+        if (++currentTrackIndex >= library.size()) {
             currentTrackIndex = 0;
         }
+        if (nextPlayer != null && library.get(currentTrackIndex).toFile().equals(nextTrack)) {
+            switchToNextPlayer();
+            return;
+        }
         loadCurrentTrack();
         if (currentTrackIndex != 0) {
             play();
+        } else {
+            trackEndNanos = 0;
         }
     }
 
@@ -372,6 +1286,9 @@ public class MainController implements Initializable {
      */
     private void stop() {
         logger.debug("Setting all values to zero");
+        stopSpectrumAnalysis();
+        discardNextPlayer();
+        preloadRequested = false;
         player.seek(Duration.ZERO);
         currentTimeLabel.setText("0:00");
         durationLabel.setText("0:00");
@@ -399,6 +1316,9 @@ public class MainController implements Initializable {
     protected void onPlaybackSliderMousePressed() {
         logger.debug("Pausing while slider is pressed");
         player.pause();
+        playbackClock.setRunning(false);
+        scrubbing = true;
+        scrubFrame = -1;
     }
 
     /**
@@ -406,9 +1326,14 @@ public class MainController implements Initializable {
      */
     @FXML
     protected void onPlaybackSliderMouseReleased() {
+        scrubbing = false;
         Duration position = player.getCycleDuration().multiply(playbackSlider.getValue());
         logger.debug("Playback slider released at position {}", position.toString());
         player.seek(position);
+        playbackClock.setPosition(position.toSeconds());
+        if (spectrumEngine != null) {
+            spectrumEngine.seek(position.toSeconds());
+        }
         if (playbackStatus == PlaybackStatus.PLAYING) {
             play();
         }
@@ -420,6 +1345,7 @@ public class MainController implements Initializable {
     private void play() {
         logger.info("Starting playback");
         player.play();
+        playbackClock.setRunning(true);
         playbackButton.setText("❚ ❚");
         playbackStatus = PlaybackStatus.PLAYING;
     }
@@ -430,6 +1356,7 @@ public class MainController implements Initializable {
     private void pause() {
         logger.info("Pausing playback");
         player.pause();
+        playbackClock.setRunning(false);
         playbackButton.setText("▶️");
         playbackStatus = PlaybackStatus.PAUSED;
     }
@@ -440,7 +1367,7 @@ public class MainController implements Initializable {
     @FXML
     protected void onNextTrackButtonClicked() {
         logger.info("Next button pressed");
-        if (++currentTrackIndex >= tracks.length) {
+        if (++currentTrackIndex >= library.size()) {
             logger.debug("Moving to the start of the playlist");
             currentTrackIndex = 0;
         }
@@ -456,9 +1383,45 @@ public class MainController implements Initializable {
         logger.info("Previous button pressed");
         if (--currentTrackIndex < 0) {
             logger.debug("Moving to the end of the playlist");
-            currentTrackIndex = tracks.length - 1;
+            currentTrackIndex = library.size() - 1;
+        }
+        loadCurrentTrack();
+        play();
+    }
+
+    /**
+     * Called when the {@link MainController#trackList} is clicked. Plays the clicked track on a double click.
+     * @param event The mouse event
+     */
+    @FXML
+    protected void onTrackListClicked(MouseEvent event) {
+        if (event.getClickCount() == 2) {
+            playSelectedTrack();
+        }
+    }
+
+    /**
+     * Called when a key is pressed in the {@link MainController#trackList}. Plays the selected track on Enter.
+     * @param event The key event
+     */
+    @FXML
+    protected void onTrackListKeyPressed(KeyEvent event) {
+        if (event.getCode() == KeyCode.ENTER) {
+            playSelectedTrack();
+        }
+    }
+
+    /**
+     * Loads and plays the track selected in the {@link MainController#trackList}.
+     */
+    private void playSelectedTrack() {
+        Integer position = trackList.getSelectionModel().getSelectedItem();
+        if (position == null) {
+            return;
         }
+        logger.info("Track selected in the track list");
+        currentTrackIndex = position;
         loadCurrentTrack();
         play();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package dev.dmie.visualizer;
+
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * A {@link Renderer} that draws spectrum bars as {@code Rectangle} nodes and dots as {@code Circle} nodes.
+ * <p>
+ * Nodes are created once for the largest number of bars. When the canvas is resized or fewer bars are shown, the
+ * existing nodes are moved, resized and hidden instead of being rebuilt.
+ */
+public class NodeRenderer implements Renderer {
+    /**
+     * The space between two bars and around the outermost bars.
+     */
+    private static final double BAR_PADDING = CanvasRenderer.BAR_PADDING;
+
+    /**
+     * The space below the bars.
+     */
+    private static final double BOTTOM_PADDING = CanvasRenderer.BOTTOM_PADDING;
+
+    /**
+     * The number of dot rows.
+     */
+    private static final int DOT_ROWS = CanvasRenderer.DOT_ROWS;
+
+    /**
+     * The number of dot columns.
+     */
+    private static final int DOT_COLUMNS = CanvasRenderer.DOT_COLUMNS;
+
+    /**
+     * The space around the dot grid.
+     */
+    private static final double DOT_PADDING = CanvasRenderer.DOT_PADDING;
+
+    /**
+     * A canvas that visualization is drawn on.
+     */
+    private final Pane canvas;
+
+    /**
+     * Bars that represent magnitude of each band of the current track.
+     */
+    private Rectangle[] bars;
+
+    /**
+     * The maximum height of a bar, scaled with the height of the canvas.
+     */
+    private double maxBarHeight;
+
+    /**
+     * The number of shown bars.
+     */
+    private int visibleBarCount;
+
+    /**
+     * The height of the canvas that the layout was computed for.
+     */
+    private double layoutHeight;
+
+    /**
+     * The last rendered state, or {@code null} if nothing was rendered yet.
+     */
+    private VisualizationState lastState;
+
+
+    /**
+     * Dots that change their radius on each beat of the current track.
+     */
+    private Circle[][] dots;
+
+    /**
+     * The minimum radius of a dot.
+     */
+    private final double minDotRadius;
+
+    /**
+     * The maximum radius of a dot.
+     */
+    private final double maxDotRadius;
+
+    /**
+     * The number of dot pulses that the {@link NodeRenderer#dots} currently show.
+     */
+    private long renderedDotPulses = 0;
+
+
+    /**
+     * Creates a new {@link NodeRenderer} instance.
+     * @param canvas A canvas to draw visualization on
+     */
+    public NodeRenderer(Pane canvas) {
+        this(canvas, canvas.getHeight(), 3, 6);
+    }
+
+    /**
+     * Creates a new {@link NodeRenderer} instance.
+     * @param canvas A canvas to draw visualization on
+     * @param maxBarHeight The maximum bar height
+     * @param minDotRadius The minimum dot radius
+     * @param maxDotRadius The maximum dot radius
+     */
+    public NodeRenderer(Pane canvas, double maxBarHeight, double minDotRadius, double maxDotRadius) {
+        this.canvas = canvas;
+        this.maxBarHeight = maxBarHeight;
+        this.minDotRadius = minDotRadius;
+        this.maxDotRadius = maxDotRadius;
+    }
+
+    @Override
+    public void setUp(int barCount) {
+        if (!canvas.getChildren().isEmpty()) {
+            return;
+        }
+        layoutHeight = canvas.getHeight();
+        setUpDots();
+        setUpBars(barCount);
+        layout(barCount);
+        canvas.widthProperty().addListener(observable -> onResize());
+        canvas.heightProperty().addListener(observable -> onResize());
+    }
+
+    /**
+     * Fills the {@link NodeRenderer#bars} array and adds its elements to the {@link NodeRenderer#canvas}.
+     * @param barCount The number of bars
+     */
+    private void setUpBars(int barCount) {
+        bars = new Rectangle[barCount];
+        for (int i = 0; i < barCount; i++) {
+            Rectangle bar = new Rectangle(0, 0, HuePalette.get((double) i / barCount * 30));
+            bar.setArcHeight(10);
+            bar.setArcWidth(20);
+            bars[i] = bar;
+        }
+        canvas.getChildren().addAll(bars);
+    }
+
+    /**
+     * Fills the {@link NodeRenderer#dots} array and adds its elements to the {@link NodeRenderer#canvas}.
+     */
+    private void setUpDots() {
+        dots = new Circle[DOT_ROWS][DOT_COLUMNS];
+        final Color color = Color.rgb(255, 255, 255, 0.5);
+
+        for (int i = 0; i < DOT_ROWS; i++) {
+            for (int j = 0; j < DOT_COLUMNS; j++) {
+                double radius = (maxDotRadius - minDotRadius) / 2 + minDotRadius;
+                dots[i][j] = new Circle(radius, color);
+            }
+            canvas.getChildren().addAll(dots[i]);
+        }
+    }
+
+    /**
+     * Recomputes the layout for the current size of the {@link NodeRenderer#canvas} and redraws the last rendered
+     * state.
+     */
+    private void onResize() {
+        if (layoutHeight > 0) {
+            maxBarHeight *= canvas.getHeight() / layoutHeight;
+        }
+        layoutHeight = canvas.getHeight();
+        layout(visibleBarCount);
+        if (lastState != null) {
+            render(lastState);
+        }
+    }
+
+    /**
+     * Positions the bars and dots for the current size of the {@link NodeRenderer#canvas} and shows the first
+     * {@code barCount} bars.
+     * @param barCount The number of shown bars
+     */
+    private void layout(int barCount) {
+        visibleBarCount = barCount;
+        double canvasWidth = canvas.getWidth();
+        double canvasHeight = canvas.getHeight();
+        double barWidth = (canvasWidth - (barCount + 1) * BAR_PADDING) / barCount;
+        for (int i = 0; i < bars.length; i++) {
+            bars[i].setVisible(i < barCount);
+            bars[i].setWidth(barWidth);
+            bars[i].setLayoutX(BAR_PADDING + (barWidth + BAR_PADDING) * i);
+            bars[i].setLayoutY(canvasHeight - BOTTOM_PADDING);
+        }
+
+        double horizontalMargin =
+                (canvasWidth - DOT_PADDING * 2 - minDotRadius * 2 * DOT_COLUMNS) / (DOT_COLUMNS - 1);
+        double verticalMargin =
+                (canvasHeight - DOT_PADDING * 2 - minDotRadius * 2 * DOT_ROWS) / (DOT_ROWS - 1);
+        double middleRadius = (maxDotRadius - minDotRadius) / 2 + minDotRadius;
+        for (int i = 0; i < DOT_ROWS; i++) {
+            double rowPosition = DOT_PADDING + (minDotRadius * 2 + verticalMargin) * i;
+            for (int j = 0; j < DOT_COLUMNS; j++) {
+                dots[i][j].setLayoutX(DOT_PADDING + (minDotRadius * 2 + horizontalMargin) * j + middleRadius);
+                dots[i][j].setLayoutY(rowPosition + middleRadius);
+            }
+        }
+    }
+
+    @Override
+    public void render(VisualizationState state) {
+        lastState = state;
+        if (state.getBarCount() != visibleBarCount) {
+            layout(state.getBarCount());
+        }
+        float[] levels = state.getLevels();
+        for (int i = 0; i < visibleBarCount; i++) {
+            updateBarHeight(i, levels[i]);
+        }
+        shiftBarsColor(state.getHue());
+        if (state.getDotPulses() != renderedDotPulses) {
+            updateDotsRadius(state.getDotPulses());
+        }
+    }
+
+    /**
+     * Updates the height of a bar with the provided {@code index}.
+     * @param index The index of the bar in {@link NodeRenderer#bars}
+     * @param level The level of the bar in the range [0, 1]
+     */
+    private void updateBarHeight(int index, float level) {
+        double newHeight = maxBarHeight * level;
+        bars[index].setY(-newHeight);
+        bars[index].setHeight(newHeight);
+    }
+
+    /**
+     * Shifts colors of the {@link NodeRenderer#bars}.
+     * @param baseColorHue The hue of the first bar
+     */
+    private void shiftBarsColor(double baseColorHue) {
+        for (int i = 0; i < visibleBarCount; i++) {
+            bars[i].setFill(HuePalette.get(baseColorHue + (double) i / visibleBarCount * 30));
+        }
+    }
+
+    /**
+     * Updates dots' radius.
+     * @param dotPulses The number of dot pulses to show
+     */
+    private void updateDotsRadius(long dotPulses) {
+        boolean dotsAnimationForward = dotPulses % 2 == 1;
+        for (int i = 0; i < dots.length; i++) {
+            for (int j = 0; j < dots[0].length; j++) {
+                double radius = dotsAnimationForward ^ ((i + j) % 2 == 0) ? minDotRadius : maxDotRadius;
+                dots[i][j].setRadius(radius);
+            }
+        }
+        renderedDotPulses = dotPulses;
+    }
+}
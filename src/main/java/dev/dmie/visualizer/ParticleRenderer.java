@@ -0,0 +1,105 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.particles.ParticleField;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A {@link CanvasRenderer} that draws a {@link ParticleField} of tens of thousands of audio-reactive particles behind
+ * the bars instead of the dots.
+ * <p>
+ * The particles are moved by the time elapsed since the previous render and drawn into a pixel buffer, which is
+ * copied into a {@code WritableImage} and drawn on the canvas with a single call.
+ */
+public class ParticleRenderer extends CanvasRenderer {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The number of particles.
+     */
+    private final int particleCount;
+
+    /**
+     * Whether the particles are moved with the Vector API when it is available.
+     */
+    private final boolean vectorized;
+
+    /**
+     * The particle field, created at the first render when the number of bars is known.
+     */
+    private ParticleField field;
+
+    /**
+     * The pixels the particles are drawn into.
+     */
+    private int[] pixels = new int[0];
+
+    /**
+     * The image that shows the {@link ParticleRenderer#pixels}, or {@code null} if the canvas is empty.
+     */
+    private WritableImage image;
+
+    /**
+     * The value of {@link System#nanoTime()} at the previous render, or zero before the first render.
+     */
+    private long lastRenderNanos = 0;
+
+    /**
+     * The number of dot pulses at the previous render, which changes on every beat.
+     */
+    private long lastDotPulses = 0;
+
+    /**
+     * Creates a new {@link ParticleRenderer} instance with the particle count of {@code visualizer.particles.count}.
+     * @param pane The {@code Pane} to add the canvas to
+     */
+    public ParticleRenderer(Pane pane) {
+        this(pane, Settings.getParticleCount(), Settings.isParticleVectorEnabled());
+    }
+
+    /**
+     * Creates a new {@link ParticleRenderer} instance.
+     * @param pane The {@code Pane} to add the canvas to
+     * @param particleCount The number of particles
+     * @param vectorized Whether the particles are moved with the Vector API when it is available
+     */
+    public ParticleRenderer(Pane pane, int particleCount, boolean vectorized) {
+        super(pane);
+        this.particleCount = particleCount;
+        this.vectorized = vectorized;
+    }
+
+    @Override
+    protected void drawBackground(GraphicsContext context, VisualizationState state) {
+        if (field == null) {
+            field = new ParticleField(particleCount, state.getLevels().length, vectorized);
+            logger.info("Created a field of {} particles, {}", particleCount,
+                    field.isVectorized() ? "vectorized" : "not vectorized");
+        }
+        long now = System.nanoTime();
+        double elapsed = lastRenderNanos == 0 ? 0.0 : (now - lastRenderNanos) / 1e9;
+        lastRenderNanos = now;
+        field.update(elapsed, state.getLevels(), state.getBarCount(), state.getDotPulses() != lastDotPulses);
+        lastDotPulses = state.getDotPulses();
+
+        int width = (int) context.getCanvas().getWidth();
+        int height = (int) context.getCanvas().getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new WritableImage(width, height);
+            pixels = new int[width * height];
+        }
+        field.rasterize(pixels, width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+        context.drawImage(image, 0, 0);
+    }
+}
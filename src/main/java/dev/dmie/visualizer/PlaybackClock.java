@@ -0,0 +1,54 @@
+package dev.dmie.visualizer;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * The playback position of the current track, readable from any thread.
+ * <p>
+ * The player only reports its position a few times per second, so between reports the clock extrapolates the
+ * position from the system timer while the track is playing.
+ */
+public class PlaybackClock implements DoubleSupplier {
+    /**
+     * A reported position and the time it was reported at.
+     * @param position The position in seconds
+     * @param nanos The value of {@link System#nanoTime} when the position was reported
+     * @param running Whether the clock was running
+     */
+    private record Anchor(double position, long nanos, boolean running) {
+    }
+
+    /**
+     * The latest reported position.
+     */
+    private volatile Anchor anchor = new Anchor(0.0, System.nanoTime(), false);
+
+    /**
+     * Sets the position reported by the player.
+     * @param position The position in seconds
+     */
+    public void setPosition(double position) {
+        anchor = new Anchor(position, System.nanoTime(), anchor.running());
+    }
+
+    /**
+     * Starts or stops the clock at its current position.
+     * @param running Whether the track is playing
+     */
+    public void setRunning(boolean running) {
+        anchor = new Anchor(getAsDouble(), System.nanoTime(), running);
+    }
+
+    /**
+     * Returns the playback position.
+     * @return The position in seconds
+     */
+    @Override
+    public double getAsDouble() {
+        Anchor current = anchor;
+        if (!current.running()) {
+            return current.position();
+        }
+        return current.position() + (System.nanoTime() - current.nanos()) / 1e9;
+    }
+}
@@ -0,0 +1,144 @@
+package dev.dmie.visualizer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts the level of detail of a {@link Visualizer} to a frame budget.
+ * <p>
+ * Render times are averaged over windows of one second. When rendering takes more than half of the budget, the
+ * number of bars is halved. The interval between pulses is not considered, since it follows the refresh rate of the
+ * display, which may be slower than the budget whatever the level of detail. When a reduced level has kept well within
+ * the budget for several windows, the bar count is doubled again; every reduction that follows such an increase
+ * doubles the number of windows to wait, so the controller does not oscillate between two levels.
+ */
+public class QualityController {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The duration of a measurement window in nanoseconds.
+     */
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The part of the budget that rendering may take on average before the bar count is lowered.
+     */
+    private static final double RENDER_SHARE = 0.5;
+
+    /**
+     * The part of the budget that rendering must stay below for the bar count to be raised.
+     */
+    private static final double RAISE_RENDER_SHARE = 0.2;
+
+    /**
+     * The number of windows within the budget after which the bar count is raised at first.
+     */
+    private static final int RAISE_WINDOWS = 5;
+
+    /**
+     * The largest number of windows within the budget that a raise waits for.
+     */
+    private static final int MAX_RAISE_WINDOWS = 60;
+
+    /**
+     * The visualizer whose level of detail is adapted.
+     */
+    private final Visualizer visualizer;
+
+    /**
+     * The frame budget in nanoseconds.
+     */
+    private final long budgetNanos;
+
+    /**
+     * The time of the first pulse of the current window in nanoseconds, or zero before the first pulse.
+     */
+    private long windowStart = 0;
+
+    /**
+     * The total render time in the current window in nanoseconds.
+     */
+    private long renderNanos = 0;
+
+    /**
+     * The number of renders in the current window.
+     */
+    private int renders = 0;
+
+    /**
+     * The number of consecutive windows that kept well within the budget.
+     */
+    private int windowsWithinBudget = 0;
+
+    /**
+     * The number of windows within the budget that the next raise waits for.
+     */
+    private int raiseWindows = RAISE_WINDOWS;
+
+    /**
+     * Whether the last change of the level of detail raised the bar count.
+     */
+    private boolean lastChangeRaised = false;
+
+    /**
+     * Creates a new {@link QualityController} instance.
+     * @param visualizer The visualizer whose level of detail is adapted
+     * @param budgetMillis The frame budget in milliseconds
+     */
+    public QualityController(Visualizer visualizer, double budgetMillis) {
+        this.visualizer = visualizer;
+        this.budgetNanos = (long) (budgetMillis * 1e6);
+    }
+
+    /**
+     * Records a pulse of the render loop.
+     * @param now The time of the pulse in nanoseconds
+     * @param renderTime The time spent rendering in the pulse in nanoseconds, or a negative number if nothing was
+     *                   rendered
+     */
+    public void recordPulse(long now, long renderTime) {
+        if (renderTime >= 0) {
+            renderNanos += renderTime;
+            renders++;
+        }
+        if (windowStart == 0) {
+            windowStart = now;
+            return;
+        }
+        if (now - windowStart < WINDOW_NANOS) {
+            return;
+        }
+
+        double renderTimeAverage = renders == 0 ? 0.0 : (double) renderNanos / renders;
+        int level = visualizer.getLevelOfDetail();
+        if (renderTimeAverage > budgetNanos * RENDER_SHARE) {
+            windowsWithinBudget = 0;
+            if (level + 1 < visualizer.getLevelOfDetailCount()) {
+                if (lastChangeRaised) {
+                    raiseWindows = Math.min(MAX_RAISE_WINDOWS, raiseWindows * 2);
+                }
+                lastChangeRaised = false;
+                logger.info("Frame budget exceeded, lowering the level of detail to {}", level + 1);
+                visualizer.setLevelOfDetail(level + 1);
+            }
+        } else if (level > 0 && renderTimeAverage < budgetNanos * RAISE_RENDER_SHARE) {
+            if (++windowsWithinBudget >= raiseWindows) {
+                windowsWithinBudget = 0;
+                lastChangeRaised = true;
+                logger.info("Within the frame budget, raising the level of detail to {}", level - 1);
+                visualizer.setLevelOfDetail(level - 1);
+            }
+        } else {
+            windowsWithinBudget = 0;
+        }
+
+        windowStart = now;
+        renderNanos = 0;
+        renders = 0;
+    }
+}
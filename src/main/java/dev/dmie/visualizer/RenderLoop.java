@@ -0,0 +1,127 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.metrics.RenderEvent;
+import dev.dmie.visualizer.metrics.VisualizerMetrics;
+import javafx.animation.AnimationTimer;
+import jdk.jfr.EventType;
+
+/**
+ * Renders a {@link Visualizer} once per JavaFX pulse with the frames published on a {@link SpectrumBus}.
+ * <p>
+ * The latest frame published since the previous pulse is applied to the visualizer and drawn once per pulse,
+ * interpolated over the duration of that frame. Render cost is therefore bounded by the display rate rather than by
+ * the timing of spectrum callbacks, and several render loops can show the same bus at their own rates.
+ * <p>
+ * The time of every render is recorded in the {@link VisualizerMetrics} and as a JFR event.
+ */
+public class RenderLoop extends AnimationTimer {
+    /**
+     * The type of the JFR event of a render, checked before the event is created.
+     */
+    private static final EventType RENDER_EVENT_TYPE = EventType.getEventType(RenderEvent.class);
+
+    /**
+     * The rendered visualizer.
+     */
+    private final Visualizer visualizer;
+
+    /**
+     * The subscription to the bus of processed spectrum frames.
+     */
+    private final SpectrumBus.Subscription subscription;
+
+    /**
+     * The metrics that renders are recorded in.
+     */
+    private final VisualizerMetrics metrics = VisualizerMetrics.get();
+
+    /**
+     * Applies a read frame to the {@link RenderLoop#visualizer}.
+     */
+    private final SpectrumBus.FrameListener updater;
+
+    /**
+     * The time of the pulse that received the latest frame in nanoseconds.
+     */
+    private long frameStart = 0;
+
+    /**
+     * The duration of the latest frame in nanoseconds.
+     */
+    private long frameDuration = 1;
+
+    /**
+     * Whether the animation towards the latest frame has finished.
+     */
+    private boolean settled = true;
+
+    /**
+     * The controller that adapts the level of detail to the frame budget, or {@code null} if it is not adapted.
+     */
+    private QualityController qualityController;
+
+    /**
+     * Creates a new {@link RenderLoop} instance.
+     * @param visualizer The visualizer to render, fed processed states
+     * @param subscription The subscription to the bus of processed spectrum frames
+     */
+    public RenderLoop(Visualizer visualizer, SpectrumBus.Subscription subscription) {
+        this.visualizer = visualizer;
+        this.subscription = subscription;
+        this.updater = this::update;
+    }
+
+    /**
+     * Sets the controller that adapts the level of detail of the {@link RenderLoop#visualizer} to the frame budget.
+     * @param qualityController The controller, or {@code null} to keep the level of detail
+     */
+    public void setQualityController(QualityController qualityController) {
+        this.qualityController = qualityController;
+    }
+
+    /**
+     * Applies a processed frame to the {@link RenderLoop#visualizer}.
+     * @param timestamp Timestamp of the frame in seconds
+     * @param duration Duration of the frame in seconds
+     * @param state The processed state
+     */
+    private void update(double timestamp, double duration, VisualizationState state) {
+        visualizer.apply(state);
+        frameDuration = Math.max(1, (long) (duration * 1e9));
+    }
+
+    /**
+     * Called in every frame while the {@code RenderLoop} is active.
+     * @param now The timestamp of the current frame in nanoseconds
+     */
+    @Override
+    public void handle(long now) {
+        if (subscription.pollLatest(updater)) {
+            frameStart = now;
+            settled = false;
+        }
+        if (settled) {
+            if (qualityController != null) {
+                qualityController.recordPulse(now, -1);
+            }
+            return;
+        }
+        double progress = Math.min(1.0, (double) (now - frameStart) / frameDuration);
+        RenderEvent event = RENDER_EVENT_TYPE.isEnabled() ? new RenderEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long start = System.nanoTime();
+        visualizer.render(progress);
+        long renderTime = System.nanoTime() - start;
+        metrics.recordRender(renderTime);
+        if (event != null && event.shouldCommit()) {
+            event.progress = progress;
+            event.commit();
+        }
+        if (qualityController != null) {
+            qualityController.recordPulse(now, renderTime);
+        }
+        settled = progress >= 1.0;
+    }
+}
@@ -0,0 +1,18 @@
+package dev.dmie.visualizer;
+
+/**
+ * Draws a {@link VisualizationState}.
+ */
+public interface Renderer {
+    /**
+     * Sets up the renderer. Called once before the first call of {@link Renderer#render}.
+     * @param barCount The number of bars
+     */
+    void setUp(int barCount);
+
+    /**
+     * Draws a state of the visualization.
+     * @param state The state to draw
+     */
+    void render(VisualizationState state);
+}
@@ -0,0 +1,45 @@
+package dev.dmie.visualizer;
+
+import javafx.scene.layout.Pane;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * Creates a {@link Renderer} of one visual style. Besides the built-in {@link RendererType}s, renderers can be added
+ * as plugins by modules that provide this service.
+ */
+public interface RendererProvider {
+    /**
+     * Returns the name that selects this renderer in {@code visualizer.renderer}.
+     * @return The name
+     */
+    String getName();
+
+    /**
+     * Creates a renderer.
+     * @param canvas The {@code Pane} to draw the visualization on
+     * @return The created renderer
+     */
+    Renderer create(Pane canvas);
+
+    /**
+     * Finds a built-in renderer or a plugin by its name, ignoring case.
+     * @param name The name of the renderer
+     * @return The provider of the renderer, or an empty {@code Optional} if there is none
+     */
+    static Optional<RendererProvider> find(String name) {
+        Optional<RendererProvider> builtIn = Arrays.stream(RendererType.values())
+                .filter(type -> type.getName().equalsIgnoreCase(name))
+                .map(RendererProvider.class::cast)
+                .findFirst();
+        if (builtIn.isPresent()) {
+            return builtIn;
+        }
+        return ServiceLoader.load(RendererProvider.class).stream()
+                .map(ServiceLoader.Provider::get)
+                .filter(provider -> provider.getName().equalsIgnoreCase(name))
+                .findFirst();
+    }
+}
@@ -0,0 +1,55 @@
+package dev.dmie.visualizer;
+
+import javafx.scene.layout.Pane;
+
+import java.util.Locale;
+
+/**
+ * Types of {@link Renderer} that draw the visualization on a {@code Pane}.
+ */
+public enum RendererType implements RendererProvider {
+    /**
+     * Indicates the visualization is drawn with a {@code Rectangle} node for each bar and a {@code Circle} node for
+     * each dot.
+     */
+    NODES {
+        @Override
+        public Renderer create(Pane canvas) {
+            return new NodeRenderer(canvas);
+        }
+    },
+
+    /**
+     * Indicates the visualization is drawn in immediate mode on a single {@code Canvas} node.
+     */
+    CANVAS {
+        @Override
+        public Renderer create(Pane canvas) {
+            return new CanvasRenderer(canvas);
+        }
+    },
+
+    /**
+     * Indicates the visualization is drawn on a single {@code Canvas} node with a field of audio-reactive particles
+     * behind the bars instead of the dots.
+     */
+    PARTICLES {
+        @Override
+        public Renderer create(Pane canvas) {
+            return new ParticleRenderer(canvas);
+        }
+    };
+
+    @Override
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Creates a renderer of this type.
+     * @param canvas The {@code Pane} to draw the visualization on
+     * @return The created renderer
+     */
+    @Override
+    public abstract Renderer create(Pane canvas);
+}
@@ -0,0 +1,349 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.export.ExportFormat;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Application settings, read from {@code visualizer.*} system properties.
+ */
+public final class Settings {
+    /**
+     * Prevents instantiation.
+     */
+    private Settings() {
+    }
+
+    /**
+     * Returns the source of the spectrum data, set by {@code visualizer.spectrum.source}.
+     * @return The spectrum source, {@link SpectrumSource#BUILTIN} by default
+     */
+    public static SpectrumSource getSpectrumSource() {
+        return getEnum("visualizer.spectrum.source", SpectrumSource.BUILTIN);
+    }
+
+    /**
+     * Returns the names of the renderers that draw the visualization, set by {@code visualizer.renderer} as a
+     * comma-separated list. The first renderer draws in the main window and each other one in a window of its own.
+     * @return The renderer names, {@code nodes} by default
+     */
+    public static List<String> getRendererNames() {
+        return Arrays.stream(System.getProperty("visualizer.renderer", "nodes").split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Returns the number of particles drawn by the {@code particles} renderer, set by
+     * {@code visualizer.particles.count}.
+     * @return The particle count, 50000 by default
+     */
+    public static int getParticleCount() {
+        return Math.max(0, Integer.getInteger("visualizer.particles.count", 50000));
+    }
+
+    /**
+     * Returns whether particles are moved with the Vector API when the {@code jdk.incubator.vector} module is
+     * present, set by {@code visualizer.particles.vector}.
+     * @return Whether the Vector API is used, {@code true} by default
+     */
+    public static boolean isParticleVectorEnabled() {
+        return Boolean.parseBoolean(System.getProperty("visualizer.particles.vector", "true"));
+    }
+
+    /**
+     * Returns the number of spectrum bands, set by {@code visualizer.spectrum.bands}. The FFT engine has at most one
+     * band per frequency bin, so larger values are lowered to half the {@link Settings#getWindowSize() window size}.
+     * @return The number of bands, 25 by default
+     */
+    public static int getBandCount() {
+        return Math.max(1, Math.min(getWindowSize() / 2, Integer.getInteger("visualizer.spectrum.bands", 25)));
+    }
+
+    /**
+     * Returns the number of bars, set by {@code visualizer.bars}. When there are fewer bars than bands, the bands are
+     * aggregated into logarithmically spaced bars.
+     * @return The number of bars, at least one, the number of bands by default
+     */
+    public static int getBarCount() {
+        return Math.max(1, Integer.getInteger("visualizer.bars", getBandCount()));
+    }
+
+    /**
+     * Returns the time budget of a rendered frame, set by {@code visualizer.frameBudget}. When the budget is
+     * exceeded, the number of bars is lowered. Zero keeps the number of bars.
+     * @return The frame budget in milliseconds, 1000 / 60 by default
+     */
+    public static double getFrameBudgetMillis() {
+        return getDouble("visualizer.frameBudget", 1000.0 / 60);
+    }
+
+    /**
+     * Returns the number of samples in an FFT window, set by {@code visualizer.spectrum.windowSize}. Values that are
+     * not a power of two are rounded down to one.
+     * @return The window size, a power of two of at least 2, 2048 by default
+     */
+    public static int getWindowSize() {
+        return Integer.highestOneBit(Math.max(2, Integer.getInteger("visualizer.spectrum.windowSize", 2048)));
+    }
+
+    /**
+     * Returns the number of frames between two FFT windows, set by {@code visualizer.spectrum.hopSize}. Values larger
+     * than the {@link Settings#getWindowSize() window size} are lowered to it, so that no samples are skipped.
+     * @return The hop size, 1024 by default
+     */
+    public static int getHopSize() {
+        return Math.max(1, Math.min(getWindowSize(), Integer.getInteger("visualizer.spectrum.hopSize", 1024)));
+    }
+
+    /**
+     * Returns the number of frames between two spectra of the preview shown while scrubbing, set by
+     * {@code visualizer.scrub.hopSize}. Zero disables the preview.
+     * @return The hop size of the preview, 4096 by default
+     */
+    public static int getScrubHopSize() {
+        return Math.max(0, Integer.getInteger("visualizer.scrub.hopSize", 4096));
+    }
+
+    /**
+     * Returns whether spectrograms computed by the FFT engine are cached, set by {@code visualizer.spectrogram.cache}.
+     * @return Whether spectrograms are cached, {@code true} by default
+     */
+    public static boolean isSpectrogramCacheEnabled() {
+        return Boolean.parseBoolean(System.getProperty("visualizer.spectrogram.cache", "true"));
+    }
+
+    /**
+     * Returns whether the spectrum of the JavaFX player is processed on an {@link AnalysisThread} instead of the
+     * JavaFX application thread, set by {@code visualizer.spectrum.thread}.
+     * @return Whether the analysis thread is used, {@code true} by default
+     */
+    public static boolean isAnalysisThreadEnabled() {
+        return Boolean.parseBoolean(System.getProperty("visualizer.spectrum.thread", "true"));
+    }
+
+    /**
+     * Returns whether a waveform overview of the current track is shown behind the playback slider, set by
+     * {@code visualizer.waveform}.
+     * @return Whether the waveform is shown, {@code true} by default
+     */
+    public static boolean isWaveformEnabled() {
+        return Boolean.parseBoolean(System.getProperty("visualizer.waveform", "true"));
+    }
+
+    /**
+     * Returns the number of columns of the waveform overview, set by {@code visualizer.waveform.columns}.
+     * @return The column count, 1024 by default
+     */
+    public static int getWaveformColumns() {
+        return Math.max(1, Integer.getInteger("visualizer.waveform.columns", 1024));
+    }
+
+    /**
+     * Returns whether playlists include tracks in subdirectories, set by {@code visualizer.playlist.recursive}.
+     * @return Whether playlists are scanned recursively, {@code false} by default
+     */
+    public static boolean isPlaylistRecursive() {
+        return Boolean.parseBoolean(System.getProperty("visualizer.playlist.recursive", "false"));
+    }
+
+    /**
+     * Returns how many seconds before the end of a track the next track is preloaded, set by
+     * {@code visualizer.playlist.preloadSeconds}. Zero disables preloading.
+     * @return The preload time in seconds, 5 by default
+     */
+    public static double getPreloadSeconds() {
+        return getDouble("visualizer.playlist.preloadSeconds", 5.0);
+    }
+
+    /**
+     * Returns the directory of cache files, set by {@code visualizer.cache.dir}.
+     * @return The cache directory, {@code .cache/visualizer} in the user home directory by default
+     */
+    public static Path getCacheDirectory() {
+        String directory = System.getProperty("visualizer.cache.dir");
+        if (directory != null) {
+            return Path.of(directory);
+        }
+        return Path.of(System.getProperty("user.home"), ".cache", "visualizer");
+    }
+
+    /**
+     * Returns the address that the spectrum stream listens on, set by {@code visualizer.stream.host}.
+     * @return The host name or address, {@code 127.0.0.1} by default
+     */
+    public static String getStreamHost() {
+        return System.getProperty("visualizer.stream.host", "127.0.0.1");
+    }
+
+    /**
+     * Returns the UDP port of the spectrum stream, set by {@code visualizer.stream.udpPort}. Zero disables UDP.
+     * @return The UDP port, 0 by default
+     */
+    public static int getStreamUdpPort() {
+        return Integer.getInteger("visualizer.stream.udpPort", 0);
+    }
+
+    /**
+     * Returns the WebSocket port of the spectrum stream, set by {@code visualizer.stream.webSocketPort}. Zero
+     * disables WebSocket.
+     * @return The WebSocket port, 0 by default
+     */
+    public static int getStreamWebSocketPort() {
+        return Integer.getInteger("visualizer.stream.webSocketPort", 0);
+    }
+
+    /**
+     * Returns the time between two batches of the spectrum stream, set by {@code visualizer.stream.interval}.
+     * @return The interval in milliseconds, 10 by default
+     */
+    public static int getStreamIntervalMillis() {
+        return Math.max(1, Integer.getInteger("visualizer.stream.interval", 10));
+    }
+
+    /**
+     * Returns whether the frame rate and metrics are shown over the visualization, set by
+     * {@code visualizer.debug.overlay}.
+     * @return Whether the debug overlay is shown, {@code false} by default
+     */
+    public static boolean isDebugOverlayEnabled() {
+        return Boolean.parseBoolean(System.getProperty("visualizer.debug.overlay", "false"));
+    }
+
+    /**
+     * Returns whether the application exits once its window shows the first frame, set by
+     * {@code visualizer.exitAfterFirstFrame}. Used to measure the startup time and to record the classes loaded at
+     * startup for class data sharing.
+     * @return Whether the application exits after the first frame, {@code false} by default
+     */
+    public static boolean isExitAfterFirstFrame() {
+        return Boolean.parseBoolean(System.getProperty("visualizer.exitAfterFirstFrame", "false"));
+    }
+
+    /**
+     * Returns the track or playlist directory to export, set by {@code visualizer.export.input}.
+     * @return The input of the export, or {@code null} if it is not set
+     */
+    public static Path getExportInput() {
+        String input = System.getProperty("visualizer.export.input");
+        return input == null ? null : Path.of(input);
+    }
+
+    /**
+     * Returns the directory exported frames are written to, set by {@code visualizer.export.output}.
+     * @return The output directory, or {@code null} if it is not set
+     */
+    public static Path getExportOutput() {
+        String output = System.getProperty("visualizer.export.output");
+        return output == null ? null : Path.of(output);
+    }
+
+    /**
+     * Returns the format of exported frames, set by {@code visualizer.export.format}.
+     * @return The export format, {@link ExportFormat#PNG} by default
+     */
+    public static ExportFormat getExportFormat() {
+        return getEnum("visualizer.export.format", ExportFormat.PNG);
+    }
+
+    /**
+     * Returns the number of exported frames per second, set by {@code visualizer.export.fps}.
+     * @return The frame rate, 60 by default
+     */
+    public static int getExportFps() {
+        return Integer.getInteger("visualizer.export.fps", 60);
+    }
+
+    /**
+     * Returns the width of exported frames, set by {@code visualizer.export.width}.
+     * @return The width in pixels, 1000 by default
+     */
+    public static int getExportWidth() {
+        return Integer.getInteger("visualizer.export.width", 1000);
+    }
+
+    /**
+     * Returns the height of exported frames, set by {@code visualizer.export.height}.
+     * @return The height in pixels, 300 by default
+     */
+    public static int getExportHeight() {
+        return Integer.getInteger("visualizer.export.height", 300);
+    }
+
+    /**
+     * Returns the playlist directory of the batch analysis, set by {@code visualizer.batch.input}.
+     * @return The input of the batch analysis, or {@code null} if it is not set
+     */
+    public static Path getBatchInput() {
+        String input = System.getProperty("visualizer.batch.input");
+        return input == null ? null : Path.of(input);
+    }
+
+    /**
+     * Returns the CSV file the batch analysis writes its report to, set by {@code visualizer.batch.output}.
+     * @return The report file, or {@code null} if it is not set
+     */
+    public static Path getBatchOutput() {
+        String output = System.getProperty("visualizer.batch.output");
+        return output == null ? null : Path.of(output);
+    }
+
+    /**
+     * Returns the number of tracks the batch analysis analyzes at once, set by {@code visualizer.batch.threads}.
+     * @return The number of threads, the number of processors by default
+     */
+    public static int getBatchThreads() {
+        return Math.max(1, Integer.getInteger("visualizer.batch.threads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Returns the file spectrum callbacks are recorded to, set by {@code visualizer.record.output}. An existing
+     * recording is continued.
+     * @return The spectrum log, or {@code null} if recording is disabled
+     */
+    public static Path getRecordOutput() {
+        String output = System.getProperty("visualizer.record.output");
+        return output == null ? null : Path.of(output);
+    }
+
+    /**
+     * Reads a number from a system property.
+     * @param key The name of the property
+     * @param defaultValue The value used when the property is not set or invalid
+     * @return The number
+     */
+    private static double getDouble(String key, double defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException exception) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads an enum constant from a system property.
+     * @param key The name of the property
+     * @param defaultValue The value used when the property is not set or invalid
+     * @param <E> The type of the enum
+     * @return The enum constant
+     */
+    private static <E extends Enum<E>> E getEnum(String key, E defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(defaultValue.getDeclaringClass(), value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.analysis.BeatDetector;
+import dev.dmie.visualizer.metrics.SpectrumDropEvent;
+import dev.dmie.visualizer.metrics.SpectrumUpdateEvent;
+import dev.dmie.visualizer.metrics.VisualizerMetrics;
+import javafx.scene.media.AudioSpectrumListener;
+import jdk.jfr.EventType;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Processes spectrum frames once and publishes the resulting {@link VisualizationState}s to any number of consumers.
+ * <p>
+ * Frames are processed by a {@link SpectrumProcessor} on the thread that delivers them and written into a ring of
+ * preallocated slots. Every consumer reads the ring through its own {@link Subscription} at its own rate, either
+ * frame by frame or only the latest frame. Each slot is guarded by a version number that is odd while the slot is
+ * being written, so readers copy a slot and retry if it changed meanwhile; the producer never waits for consumers,
+ * and a consumer that falls more than a ring behind skips the overwritten frames.
+ * <p>
+ * There must be a single producer at a time. Frames that arrive while another frame is being processed, which can
+ * happen briefly when spectrum sources are switched, are dropped.
+ */
+public class SpectrumBus implements AudioSpectrumListener {
+    /**
+     * Receives frames read from a {@link SpectrumBus}.
+     */
+    @FunctionalInterface
+    public interface FrameListener {
+        /**
+         * Called with a frame read from the bus.
+         * @param timestamp Timestamp of the frame in seconds
+         * @param duration Duration of the frame in seconds
+         * @param state The processed state, owned by the subscription and only valid during the call
+         */
+        void onFrame(double timestamp, double duration, VisualizationState state);
+    }
+
+    /**
+     * Reads the frames of a {@link SpectrumBus} for one consumer. A subscription must only be used by one thread.
+     */
+    public class Subscription {
+        /**
+         * The copy of the latest read frame.
+         */
+        private final VisualizationState frame = new VisualizationState(processor.getBarCount());
+
+        /**
+         * The sequence number of the next frame to read.
+         */
+        private long cursor;
+
+        /**
+         * The timestamp of the latest read frame.
+         */
+        private double timestamp;
+
+        /**
+         * The duration of the latest read frame.
+         */
+        private double duration;
+
+        /**
+         * The number of frames that were overwritten before they were read.
+         */
+        private long skippedFrames = 0;
+
+        /**
+         * Creates a new {@link Subscription} instance that starts with the next published frame.
+         */
+        private Subscription() {
+            cursor = published.get();
+        }
+
+        /**
+         * Passes all frames published since the previous read to a listener in order.
+         * @param listener The listener to pass the frames to
+         * @return The number of frames passed
+         */
+        public int poll(FrameListener listener) {
+            int count = 0;
+            while (true) {
+                long next = published.get();
+                if (cursor == next) {
+                    return count;
+                }
+                if (next - cursor > timestamps.length) {
+                    skippedFrames += next - timestamps.length - cursor;
+                    cursor = next - timestamps.length;
+                }
+                if (read(cursor)) {
+                    cursor++;
+                    count++;
+                    listener.onFrame(timestamp, duration, frame);
+                }
+            }
+        }
+
+        /**
+         * Passes only the latest frame to a listener if any frame was published since the previous read. The frames
+         * in between are skipped on purpose and not counted as skipped.
+         * @param listener The listener to pass the frame to
+         * @return Whether a frame was passed
+         */
+        public boolean pollLatest(FrameListener listener) {
+            while (true) {
+                long next = published.get();
+                if (cursor == next) {
+                    return false;
+                }
+                if (read(next - 1)) {
+                    cursor = next;
+                    listener.onFrame(timestamp, duration, frame);
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Returns the number of frames that were overwritten before {@link Subscription#poll} read them.
+         * @return The number of skipped frames
+         */
+        public long getSkippedFrames() {
+            return skippedFrames;
+        }
+
+        /**
+         * Copies a frame from its slot into the {@link Subscription#frame}.
+         * @param sequence The sequence number of the frame
+         * @return Whether the frame was copied, {@code false} if it was overwritten
+         */
+        private boolean read(long sequence) {
+            int slot = (int) sequence & mask;
+            long version = slotVersions.get(slot);
+            if (version != sequence * 2 + 2) {
+                return false;
+            }
+            timestamp = timestamps[slot];
+            duration = durations[slot];
+            frame.setHue(hues[slot]);
+            frame.setDotPulses(dotPulses[slot]);
+            System.arraycopy(levels[slot], 0, frame.getLevels(), 0, levels[slot].length);
+            VarHandle.loadLoadFence();
+            return slotVersions.get(slot) == version;
+        }
+    }
+
+    /**
+     * The type of the JFR event of a processed frame, checked before the event is created.
+     */
+    private static final EventType UPDATE_EVENT_TYPE = EventType.getEventType(SpectrumUpdateEvent.class);
+
+    /**
+     * The type of the JFR event of a dropped frame, checked before the event is created.
+     */
+    private static final EventType DROP_EVENT_TYPE = EventType.getEventType(SpectrumDropEvent.class);
+
+    /**
+     * The processor of the published frames.
+     */
+    private final SpectrumProcessor processor;
+
+    /**
+     * The playback position in seconds, which the timestamps of frames are compared to.
+     */
+    private final DoubleSupplier clock;
+
+    /**
+     * The metrics that processed and dropped frames are recorded in.
+     */
+    private final VisualizerMetrics metrics = VisualizerMetrics.get();
+
+    /**
+     * The mask that maps a sequence number to a slot index.
+     */
+    private final int mask;
+
+    /**
+     * The version of each slot: twice the sequence number of its frame plus one while the frame is written, and plus
+     * two once it is published.
+     */
+    private final AtomicLongArray slotVersions;
+
+    /**
+     * The timestamp of the frame in each slot.
+     */
+    private final double[] timestamps;
+
+    /**
+     * The duration of the frame in each slot.
+     */
+    private final double[] durations;
+
+    /**
+     * The hue of the frame in each slot.
+     */
+    private final double[] hues;
+
+    /**
+     * The number of dot pulses of the frame in each slot.
+     */
+    private final long[] dotPulses;
+
+    /**
+     * The bar levels of the frame in each slot.
+     */
+    private final float[][] levels;
+
+    /**
+     * The number of published frames, which is the sequence number of the next frame.
+     */
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * Whether a frame is being processed.
+     */
+    private final AtomicBoolean processing = new AtomicBoolean();
+
+    /**
+     * Whether the {@link SpectrumBus#processor} should be cleared before the next frame.
+     */
+    private volatile boolean clearRequested = false;
+
+    /**
+     * Creates a new {@link SpectrumBus} instance.
+     * @param capacity The number of frames kept for slow consumers, a power of two
+     * @param processor The processor of the published frames
+     * @param clock The playback position in seconds
+     */
+    public SpectrumBus(int capacity, SpectrumProcessor processor, DoubleSupplier clock) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two: " + capacity);
+        }
+        this.processor = processor;
+        this.clock = clock;
+        mask = capacity - 1;
+        slotVersions = new AtomicLongArray(capacity);
+        timestamps = new double[capacity];
+        durations = new double[capacity];
+        hues = new double[capacity];
+        dotPulses = new long[capacity];
+        levels = new float[capacity][processor.getBarCount()];
+    }
+
+    /**
+     * Returns the number of bars of the published states.
+     * @return The bar count
+     */
+    public int getBarCount() {
+        return processor.getBarCount();
+    }
+
+    /**
+     * Returns the detector of beats in the processed frames. Its listeners are called on the producer thread.
+     * @return The beat detector
+     */
+    public BeatDetector getBeatDetector() {
+        return processor.getBeatDetector();
+    }
+
+    /**
+     * Clears the history of the processor before the next frame to prepare for the next track. Safe to call from any
+     * thread.
+     */
+    public void clear() {
+        clearRequested = true;
+    }
+
+    /**
+     * Creates a subscription that reads the frames published from now on.
+     * @return The subscription
+     */
+    public Subscription subscribe() {
+        return new Subscription();
+    }
+
+    /**
+     * Processes a frame and publishes it, or drops it if another frame is being processed.
+     * @param timestamp Timestamp of the event in seconds
+     * @param duration Duration for which the spectrum was computed in seconds
+     * @param magnitudes Array containing the spectrum magnitude in decibels for each band
+     * @param phases Array containing the phase for each band
+     */
+    @Override
+    public void spectrumDataUpdate(double timestamp, double duration, float[] magnitudes, float[] phases) {
+        if (!processing.compareAndSet(false, true)) {
+            metrics.recordDroppedSpectrumFrames(1);
+            if (DROP_EVENT_TYPE.isEnabled()) {
+                SpectrumDropEvent event = new SpectrumDropEvent();
+                event.count = 1;
+                event.commit();
+            }
+            return;
+        }
+        try {
+            clearIfRequested();
+            SpectrumUpdateEvent event = UPDATE_EVENT_TYPE.isEnabled() ? new SpectrumUpdateEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            long start = System.nanoTime();
+            processor.process(timestamp, magnitudes);
+            publish(timestamp, duration, processor.getState());
+            long elapsed = System.nanoTime() - start;
+
+            double lateness = clock.getAsDouble() - timestamp;
+            boolean late = lateness > duration;
+            metrics.recordSpectrumUpdate(elapsed, late);
+            if (event != null && event.shouldCommit()) {
+                event.lateness = (long) (lateness * 1e9);
+                event.late = late;
+                event.commit();
+            }
+        } finally {
+            processing.set(false);
+        }
+    }
+
+    /**
+     * Processes a frame that is previewed while scrubbing and publishes it, or drops it if another frame is being
+     * processed. Previewed frames are not played, so they are not recorded in the metrics.
+     * @param timestamp Timestamp of the frame in seconds
+     * @param duration Duration for which the spectrum was computed in seconds
+     * @param magnitudes Array containing the spectrum magnitude in decibels for each band
+     */
+    public void preview(double timestamp, double duration, float[] magnitudes) {
+        if (!processing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            clearIfRequested();
+            processor.process(timestamp, magnitudes);
+            publish(timestamp, duration, processor.getState());
+        } finally {
+            processing.set(false);
+        }
+    }
+
+    /**
+     * Clears the {@link SpectrumBus#processor} if {@link SpectrumBus#clear} was called since the previous frame.
+     */
+    private void clearIfRequested() {
+        if (clearRequested) {
+            clearRequested = false;
+            processor.clear();
+        }
+    }
+
+    /**
+     * Writes a processed state into the next slot and publishes it.
+     * @param timestamp Timestamp of the frame in seconds
+     * @param duration Duration of the frame in seconds
+     * @param state The processed state
+     */
+    private void publish(double timestamp, double duration, VisualizationState state) {
+        long sequence = published.get();
+        int slot = (int) sequence & mask;
+        slotVersions.set(slot, sequence * 2 + 1);
+        VarHandle.storeStoreFence();
+        timestamps[slot] = timestamp;
+        durations[slot] = duration;
+        hues[slot] = state.getHue();
+        dotPulses[slot] = state.getDotPulses();
+        System.arraycopy(state.getLevels(), 0, levels[slot], 0, levels[slot].length);
+        slotVersions.set(slot, sequence * 2 + 2);
+        published.set(sequence + 1);
+    }
+}
@@ -0,0 +1,156 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.analysis.BeatDetector;
+import dev.dmie.visualizer.analysis.LogBandMap;
+import dev.dmie.visualizer.analysis.SpectrumKernels;
+
+import java.util.Arrays;
+
+/**
+ * Turns spectrum frames into a {@link VisualizationState}: aggregates the bands into bars, smooths the falling
+ * magnitudes, normalizes them into bar levels, shifts the hue and pulses the dots on detected beats.
+ * <p>
+ * The state always has the full number of bars. A processor is not thread-safe and keeps the history of the frames
+ * it processed, so each stream of frames needs its own instance.
+ */
+public class SpectrumProcessor {
+    /**
+     * The largest fall of a bar magnitude per frame in decibels.
+     */
+    private static final float PEAK_DECAY = 3.0f;
+
+    /**
+     * The state computed from the latest frame.
+     */
+    private final VisualizationState state;
+
+    /**
+     * The spectrum threshold.
+     */
+    private final int spectrumThreshold;
+
+    /**
+     * The maximum allowed magnitude.
+     */
+    private final float maxMagnitude;
+
+
+    /**
+     * The magnitude buffer used for smooth visualization.
+     */
+    private final float[] magnitudeBuffer;
+
+    /**
+     * The map of bands to bars, or {@code null} if each band is a bar.
+     */
+    private final LogBandMap bandMap;
+
+    /**
+     * The magnitudes of the bars aggregated from the bands.
+     */
+    private final float[] barMagnitudes;
+
+    /**
+     * The detector of beats that pulse the dots.
+     */
+    private final BeatDetector beatDetector;
+
+    /**
+     * The kernels that process the bars.
+     */
+    private final SpectrumKernels kernels;
+
+    /**
+     * Creates a new {@link SpectrumProcessor} instance.
+     * @param bandNum The number of bands
+     * @param barCount The number of bars
+     * @param spectrumThreshold The spectrum threshold
+     * @param maxMagnitude The maximum allowed magnitude
+     */
+    public SpectrumProcessor(int bandNum, int barCount, int spectrumThreshold, float maxMagnitude) {
+        this(bandNum, barCount, spectrumThreshold, maxMagnitude, SpectrumKernels.get());
+    }
+
+    /**
+     * Creates a new {@link SpectrumProcessor} instance that processes the bars with the given kernels.
+     * @param bandNum The number of bands
+     * @param barCount The number of bars
+     * @param spectrumThreshold The spectrum threshold
+     * @param maxMagnitude The maximum allowed magnitude
+     * @param kernels The kernels that process the bars
+     */
+    SpectrumProcessor(int bandNum, int barCount, int spectrumThreshold, float maxMagnitude, SpectrumKernels kernels) {
+        this.kernels = kernels;
+        this.spectrumThreshold = spectrumThreshold;
+        this.maxMagnitude = maxMagnitude;
+
+        state = new VisualizationState(barCount);
+        magnitudeBuffer = new float[barCount];
+        Arrays.fill(magnitudeBuffer, spectrumThreshold);
+        bandMap = barCount == bandNum ? null : new LogBandMap(bandNum, barCount, kernels);
+        barMagnitudes = new float[barCount];
+        beatDetector = new BeatDetector(bandNum);
+        beatDetector.addListener((timestamp, strength) -> state.pulseDots());
+    }
+
+    /**
+     * Clears the beat history to prepare for the next track, but keeps the state itself.
+     */
+    public void clear() {
+        beatDetector.reset();
+    }
+
+    /**
+     * Returns the number of bars.
+     * @return The bar count
+     */
+    public int getBarCount() {
+        return magnitudeBuffer.length;
+    }
+
+    /**
+     * Returns the detector of beats that pulse the dots. Other components can listen to its beats too.
+     * @return The beat detector
+     */
+    public BeatDetector getBeatDetector() {
+        return beatDetector;
+    }
+
+    /**
+     * Returns the state computed from the latest frame.
+     * @return The state
+     */
+    public VisualizationState getState() {
+        return state;
+    }
+
+    /**
+     * Updates the {@link SpectrumProcessor#state} with a spectrum frame.
+     * @param timestamp Timestamp of the frame in seconds
+     * @param magnitudes Array containing the non-positive spectrum magnitude in decibels (dB) for each band
+     */
+    public void process(double timestamp, float[] magnitudes) {
+        float[] bars = magnitudes;
+        if (bandMap != null) {
+            bandMap.aggregate(magnitudes, barMagnitudes);
+            bars = barMagnitudes;
+        }
+
+        int barCount = magnitudeBuffer.length;
+        float magnitudeGrowthAverage = kernels.peakHold(bars, magnitudeBuffer, PEAK_DECAY, barCount) / barCount;
+        kernels.normalize(magnitudeBuffer, state.getLevels(), spectrumThreshold, 1 / maxMagnitude, barCount);
+
+        shiftBarsColor(magnitudeGrowthAverage);
+        beatDetector.process(timestamp, magnitudes);
+    }
+
+    /**
+     * Shifts the hue of the bars. The hue is accumulated as a primitive and mapped to colors through the
+     * {@link HuePalette}, so no {@code Color} is read back or allocated.
+     * @param magnitudeGrowthAverage The magnitude growth average
+     */
+    private void shiftBarsColor(double magnitudeGrowthAverage) {
+        double shiftPercent = magnitudeGrowthAverage / maxMagnitude;
+        state.setHue((state.getHue() + (30 * shiftPercent)) % 360);
+    }
+}
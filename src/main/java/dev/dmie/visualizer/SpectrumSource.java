@@ -0,0 +1,17 @@
+package dev.dmie.visualizer;
+
+/**
+ * Sources of the spectrum data that drives the visualization.
+ */
+public enum SpectrumSource {
+    /**
+     * Indicates the spectrum is computed by the {@code MediaPlayer} of the current track.
+     */
+    BUILTIN,
+
+    /**
+     * Indicates the spectrum is computed by the in-process FFT engine, falling back to {@link SpectrumSource#BUILTIN}
+     * for tracks it cannot decode.
+     */
+    FFT,
+}
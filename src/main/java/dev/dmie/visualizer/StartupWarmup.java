@@ -0,0 +1,110 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.metrics.VisualizerMetrics;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Initializes slow subsystems on a background thread while the JavaFX toolkit starts and the window is created, so
+ * that neither the first frame nor the first track waits for them.
+ * <p>
+ * The logging configuration is loaded first, then the native media platform is initialized by opening a short
+ * silent track, which otherwise delays loading the first track by hundreds of milliseconds, and finally the metrics
+ * MBean is registered.
+ * <p>
+ * The logging configuration is loaded by whichever thread asks for a logger first. The warm-up starts before the
+ * JavaFX toolkit, so it usually wins, and the static loggers of the controller and the caches it creates find the
+ * configuration loaded while the window is created. Otherwise the JavaFX thread loads it and the warm-up waits for
+ * it; the logging time reported by the warm-up is therefore the time until a logger was available, not the time the
+ * configuration took to load.
+ */
+public final class StartupWarmup {
+    /**
+     * The sample rate of the silent track.
+     */
+    private static final int SAMPLE_RATE = 44100;
+
+    /**
+     * The number of samples of the silent track.
+     */
+    private static final int SAMPLE_COUNT = SAMPLE_RATE / 10;
+
+    /**
+     * Prevents instantiation.
+     */
+    private StartupWarmup() {
+    }
+
+    /**
+     * Starts the warm-up on a daemon thread.
+     */
+    public static void start() {
+        Thread thread = new Thread(StartupWarmup::run, "Warm-up");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Runs the warm-up.
+     */
+    private static void run() {
+        long start = System.nanoTime();
+        Logger logger = LogManager.getLogger("dev.dmie");
+        long loggingDone = System.nanoTime();
+        warmUpMedia(logger);
+        long mediaDone = System.nanoTime();
+        VisualizerMetrics.get();
+        long end = System.nanoTime();
+        logger.info("Warm-up finished in {} ms (logging available after {} ms, media {} ms, metrics {} ms)",
+                (end - start) / 1_000_000, (loggingDone - start) / 1_000_000, (mediaDone - loggingDone) / 1_000_000,
+                (end - mediaDone) / 1_000_000);
+    }
+
+    /**
+     * Initializes the native media platform by opening a silent track.
+     * @param logger The logger to report failures to
+     */
+    private static void warmUpMedia(Logger logger) {
+        Path track = null;
+        try {
+            track = Files.createTempFile("visualizer-warmup", ".wav");
+            Files.write(track, createSilentWav());
+            new Media(track.toUri().toString());
+        } catch (IOException | MediaException exception) {
+            logger.warn("Failed to warm up the media platform", exception);
+        } finally {
+            if (track != null) {
+                try {
+                    Files.deleteIfExists(track);
+                } catch (IOException exception) {
+                    logger.warn("Failed to delete the warm-up track {}", track);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a WAV file with a tenth of a second of 16-bit mono silence.
+     * @return The content of the file
+     */
+    private static byte[] createSilentWav() {
+        int dataSize = SAMPLE_COUNT * 2;
+        ByteBuffer buffer = ByteBuffer.allocate(44 + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + dataSize);
+        buffer.put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        buffer.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short) 1).putShort((short) 1);
+        buffer.putInt(SAMPLE_RATE).putInt(SAMPLE_RATE * 2).putShort((short) 2).putShort((short) 16);
+        buffer.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataSize);
+        return buffer.array();
+    }
+}
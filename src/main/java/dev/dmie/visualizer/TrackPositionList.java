@@ -0,0 +1,58 @@
+package dev.dmie.visualizer;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * The items of the track list: the positions of the shown tracks in the library, stored in a single array, so that
+ * showing a filtered library of hundred thousand tracks does not create an object per track.
+ */
+public class TrackPositionList extends ObservableListBase<Integer> {
+    /**
+     * The positions of the shown tracks in ascending order.
+     */
+    private int[] positions = new int[0];
+
+    /**
+     * Replaces all shown tracks.
+     * @param positions The positions of the shown tracks in ascending order
+     */
+    public void setPositions(int[] positions) {
+        int[] removed = this.positions;
+        this.positions = positions;
+        beginChange();
+        nextReplace(0, positions.length, new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return removed[index];
+            }
+
+            @Override
+            public int size() {
+                return removed.length;
+            }
+        });
+        endChange();
+    }
+
+    /**
+     * Finds the index of a track in this list.
+     * @param position The position of the track in the library
+     * @return The index, or a negative number if the track is not shown
+     */
+    public int indexOfPosition(int position) {
+        return Arrays.binarySearch(positions, position);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return positions[index];
+    }
+
+    @Override
+    public int size() {
+        return positions.length;
+    }
+}
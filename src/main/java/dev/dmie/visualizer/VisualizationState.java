@@ -0,0 +1,99 @@
+package dev.dmie.visualizer;
+
+/**
+ * The state of the visualization that a {@link Renderer} draws.
+ */
+public class VisualizationState {
+    /**
+     * The level of each bar in the range [0, 1].
+     */
+    private final float[] levels;
+
+    /**
+     * The number of shown bars.
+     */
+    private int barCount;
+
+    /**
+     * The hue of the first bar in degrees.
+     */
+    private double hue = 0.0;
+
+    /**
+     * The number of times the dots pulsed.
+     */
+    private long dotPulses = 0;
+
+    /**
+     * Creates a new {@link VisualizationState} instance.
+     * @param barCount The largest number of bars
+     */
+    public VisualizationState(int barCount) {
+        levels = new float[barCount];
+        this.barCount = barCount;
+    }
+
+    /**
+     * Returns the levels of the bars. Only the first {@link VisualizationState#getBarCount} levels are shown.
+     * @return The level of each bar in the range [0, 1]
+     */
+    public float[] getLevels() {
+        return levels;
+    }
+
+    /**
+     * Returns the number of shown bars, which may be lower than the length of the levels when the level of detail is
+     * reduced.
+     * @return The number of bars
+     */
+    public int getBarCount() {
+        return barCount;
+    }
+
+    /**
+     * Sets the number of shown bars.
+     * @param barCount The number of bars
+     */
+    void setBarCount(int barCount) {
+        this.barCount = barCount;
+    }
+
+    /**
+     * Returns the hue of the first bar.
+     * @return The hue in degrees in the range [0, 360)
+     */
+    public double getHue() {
+        return hue;
+    }
+
+    /**
+     * Sets the hue of the first bar.
+     * @param hue The hue in degrees in the range [0, 360)
+     */
+    void setHue(double hue) {
+        this.hue = hue;
+    }
+
+    /**
+     * Returns the number of times the dots pulsed. Each pulse swaps the radii of neighbouring dots.
+     * @return The number of pulses
+     */
+    public long getDotPulses() {
+        return dotPulses;
+    }
+
+    /**
+     * Sets the number of times the dots pulsed.
+     * @param dotPulses The number of pulses
+     */
+    void setDotPulses(long dotPulses) {
+        this.dotPulses = dotPulses;
+    }
+
+    /**
+     * Records a pulse of the dots.
+     */
+    void pulseDots() {
+        dotPulses++;
+    }
+}
@@ -1,196 +1,206 @@
 package dev.dmie.visualizer;
 
-import javafx.scene.layout.Pane;
+import dev.dmie.visualizer.analysis.BeatDetector;
+import dev.dmie.visualizer.analysis.SpectrumKernels;
 import javafx.scene.media.AudioSpectrumListener;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Rectangle;
 
 import java.util.Arrays;
 
 /**
  * A simple music visualizer with spectrum bars and dots in the background.
+ * <p>
+ * The visualizer shows the {@link VisualizationState} computed by a {@link SpectrumProcessor} and leaves drawing it to
+ * a {@link Renderer}. Spectrum updates and rendering can be decoupled with {@link Visualizer#update} and
+ * {@link Visualizer#render}, which animates the bars from the levels shown at the time of an update to the levels of
+ * that update. A visualizer created without a processor is fed states processed elsewhere, such as by a
+ * {@link SpectrumBus}, through {@link Visualizer#apply}.
+ * <p>
+ * The number of bars can be lowered at runtime by reducing the level of detail, which merges pairs of neighbouring
+ * bars per level.
  */
 public class Visualizer implements AudioSpectrumListener {
     /**
-     * A canvas that visualization is drawn on.
+     * The lowest number of bars a reduced level of detail can have.
      */
-    private final Pane canvas;
+    private static final int MIN_BAR_COUNT = 16;
 
     /**
-     * Bars that represent magnitude of each band of the current track.
+     * The renderer that draws the visualization.
      */
-    private Rectangle[] bars;
+    private final Renderer renderer;
 
     /**
-     * The maximum height of a bar.
+     * The processor of spectrum updates, or {@code null} if processed states are applied.
      */
-    private final double maxBarHeight;
-
+    private final SpectrumProcessor processor;
 
     /**
-     * Dots that change their radius on each beat of the current track.
+     * The state of the visualization applied at the latest update.
      */
-    private Circle[][] dots;
+    private final VisualizationState state;
 
     /**
-     * The minimum radius of a dot.
+     * The state of the visualization passed to the {@link Visualizer#renderer}.
      */
-    private final double minDotRadius;
+    private final VisualizationState renderedState;
 
     /**
-     * The maximum radius of a dot.
+     * The bar levels that were rendered when the latest update arrived.
      */
-    private final double maxDotRadius;
+    private final float[] previousLevels;
 
     /**
-     * Whether the dot animation is going forward.
+     * The kernels that merge and interpolate the bar levels.
      */
-    private boolean dotsAnimationForward = true;
+    private final SpectrumKernels kernels;
 
 
     /**
-     * The spectrum threshold.
+     * The number of levels of detail.
      */
-    private final int spectrumThreshold;
+    private final int levelOfDetailCount;
 
     /**
-     * The maximum allowed magnitude.
+     * The current level of detail, zero for the full bar count.
      */
-    private final float maxMagnitude;
+    private int levelOfDetail = 0;
 
 
     /**
-     * The magnitude buffer used for smooth visualization.
+     * Creates a new {@link Visualizer} instance that shows each band as a bar.
+     * @param renderer A renderer to draw visualization with
+     * @param bandNum The number of bands
+     * @param spectrumThreshold The spectrum threshold
+     * @param maxMagnitude The maximum allowed magnitude
      */
-    private final float[] magnitudeBuffer;
+    public Visualizer(Renderer renderer, int bandNum, int spectrumThreshold, float maxMagnitude) {
+        this(renderer, bandNum, bandNum, spectrumThreshold, maxMagnitude);
+    }
 
     /**
-     * The magnitude average across all bands from the previous call of {@link Visualizer#spectrumDataUpdate}.
+     * Creates a new {@link Visualizer} instance.
+     * @param renderer A renderer to draw visualization with
+     * @param bandNum The number of bands
+     * @param barCount The number of bars at the full level of detail
+     * @param spectrumThreshold The spectrum threshold
+     * @param maxMagnitude The maximum allowed magnitude
      */
-    private float priorMagnitudeAverage = 0.0f;
+    public Visualizer(Renderer renderer, int bandNum, int barCount, int spectrumThreshold, float maxMagnitude) {
+        this(renderer, new SpectrumProcessor(bandNum, barCount, spectrumThreshold, maxMagnitude), barCount,
+                SpectrumKernels.get());
+    }
 
     /**
-     * The timestamp when the {@link Visualizer#updateDotsRadius} was last called.
+     * Creates a new {@link Visualizer} instance that is fed processed states through {@link Visualizer#apply}.
+     * @param renderer A renderer to draw visualization with
+     * @param barCount The number of bars of the applied states
      */
-    private double lastDotTimestamp = 0.0;
-
+    public Visualizer(Renderer renderer, int barCount) {
+        this(renderer, barCount, SpectrumKernels.get());
+    }
 
     /**
-     * Creates a new {@link Visualizer} instance.
-     * @param canvas A canvas to draw visualization on
-     * @param bandNum The number of bands
-     * @param spectrumThreshold The spectrum threshold
-     * @param maxMagnitude The maximum allowed magnitude
+     * Creates a new {@link Visualizer} instance that is fed processed states through {@link Visualizer#apply} and
+     * merges and interpolates the bar levels with the given kernels.
+     * @param renderer A renderer to draw visualization with
+     * @param barCount The number of bars of the applied states
+     * @param kernels The kernels that merge and interpolate the bar levels
      */
-    public Visualizer(Pane canvas, int bandNum, int spectrumThreshold, float maxMagnitude) {
-        this(canvas, canvas.getHeight(), 3, 6, bandNum, spectrumThreshold, maxMagnitude);
+    Visualizer(Renderer renderer, int barCount, SpectrumKernels kernels) {
+        this(renderer, null, barCount, kernels);
     }
 
-
     /**
      * Creates a new {@link Visualizer} instance.
-     * @param canvas A canvas to draw visualization on
-     * @param maxBarHeight The maximum bar height
-     * @param minDotRadius The minimum dot radius
-     * @param maxDotRadius The maximum dot radius
-     * @param bandNum The number of bands
-     * @param spectrumThreshold The spectrum threshold
-     * @param maxMagnitude The maximum allowed magnitude
+     * @param renderer A renderer to draw visualization with
+     * @param processor The processor of spectrum updates, or {@code null} if processed states are applied
+     * @param barCount The number of bars at the full level of detail
+     * @param kernels The kernels that merge and interpolate the bar levels
      */
-    public Visualizer(
-            Pane canvas,
-            double maxBarHeight,
-            double minDotRadius,
-            double maxDotRadius,
-            int bandNum,
-            int spectrumThreshold,
-            float maxMagnitude) {
-        this.canvas = canvas;
-        this.maxBarHeight = maxBarHeight;
-        this.minDotRadius = minDotRadius;
-        this.maxDotRadius = maxDotRadius;
-        this.spectrumThreshold = spectrumThreshold;
-        this.maxMagnitude = maxMagnitude;
-
-        magnitudeBuffer = new float[bandNum];
-        Arrays.fill(magnitudeBuffer, spectrumThreshold);
+    private Visualizer(Renderer renderer, SpectrumProcessor processor, int barCount, SpectrumKernels kernels) {
+        this.renderer = renderer;
+        this.processor = processor;
+        this.kernels = kernels;
+
+        state = new VisualizationState(barCount);
+        renderedState = new VisualizationState(barCount);
+        previousLevels = new float[barCount];
+
+        int levels = 1;
+        while (barCount >> levels >= MIN_BAR_COUNT) {
+            levels++;
+        }
+        levelOfDetailCount = levels;
     }
 
     /**
      * Clears internal data to prepare for the next track, but does not reset the visualization itself.
      */
     public void clear() {
-        priorMagnitudeAverage = 0.0f;
-        lastDotTimestamp = 0.0;
+        if (processor != null) {
+            processor.clear();
+        }
     }
 
     /**
-     * Sets up the visualization.
+     * Returns the detector of beats that pulse the dots. Other components can listen to its beats too.
+     * @return The beat detector, or {@code null} if processed states are applied
      */
-    public void setUp() {
-        if (!canvas.getChildren().isEmpty()) {
-            return;
-        }
-        setUpDots();
-        setUpBars();
+    public BeatDetector getBeatDetector() {
+        return processor == null ? null : processor.getBeatDetector();
     }
 
     /**
-     * Fills the {@link Visualizer#bars} array and adds its elements to the {@link Visualizer#canvas}.
+     * Returns the number of levels of detail.
+     * @return The number of levels, at least one
      */
-    private void setUpBars() {
-        final int barCount = magnitudeBuffer.length;
-        bars = new Rectangle[barCount];
+    public int getLevelOfDetailCount() {
+        return levelOfDetailCount;
+    }
 
-        double canvasWidth = canvas.getWidth();
-        double canvasHeight = canvas.getHeight();
-        final double barPadding = 10.0;
-        final double bottomPadding = 5.0;
-        double barWidth = (canvasWidth - (barCount + 1) * barPadding) / barCount;
+    /**
+     * Returns the current level of detail.
+     * @return The level, zero for the full bar count
+     */
+    public int getLevelOfDetail() {
+        return levelOfDetail;
+    }
 
-        for (int i = 0; i < barCount; i++) {
-            Color color = Color.hsb((double) i / barCount * 30, 1, 1);
-            Rectangle bar = new Rectangle(barWidth, 0, color);
-            bar.setArcHeight(10);
-            bar.setArcWidth(20);
-            bar.relocate(barPadding + (barWidth + barPadding) * i, canvasHeight - bottomPadding);
-            bars[i] = bar;
+    /**
+     * Sets the level of detail. Each level halves the number of bars of the previous level.
+     * @param level The level in the range [0, {@link Visualizer#getLevelOfDetailCount})
+     */
+    public void setLevelOfDetail(int level) {
+        if (level == levelOfDetail) {
+            return;
         }
-        canvas.getChildren().addAll(bars);
+        levelOfDetail = level;
+        int barCount = previousLevels.length >> level;
+        state.setBarCount(barCount);
+        renderedState.setBarCount(barCount);
+        Arrays.fill(previousLevels, 0.0f);
+        Arrays.fill(state.getLevels(), 0.0f);
+        Arrays.fill(renderedState.getLevels(), 0.0f);
     }
 
     /**
-     * Fills the {@link Visualizer#dots} array and adds its elements to the {@link Visualizer#canvas}.
+     * Sets up the visualization.
      */
-    private void setUpDots() {
-        final int rowsNumber = 5;
-        final int columnsNumber = 13;
-        dots = new Circle[rowsNumber][columnsNumber];
-
-        double canvasWidth = canvas.getWidth();
-        double canvasHeight = canvas.getHeight();
-        final int padding = 20;
-        double horizontalMargin =
-                (canvasWidth - padding * 2 - minDotRadius * 2 * columnsNumber) / (columnsNumber - 1);
-        double verticalMargin =
-                (canvasHeight - padding * 2 - minDotRadius * 2 * rowsNumber) / (rowsNumber - 1);
-        final Color color = Color.rgb(255, 255, 255, 0.5);
+    public void setUp() {
+        renderer.setUp(previousLevels.length);
+    }
 
-        for (int i = 0; i < rowsNumber; i++) {
-            double rowPosition = padding + (minDotRadius * 2 + verticalMargin) * i;
-            for (int j = 0; j < columnsNumber; j++) {
-                double radius = (maxDotRadius - minDotRadius) / 2 + minDotRadius;
-                Circle dot = new Circle(radius, color);
-                dot.relocate(padding + (minDotRadius * 2 + horizontalMargin) * j, rowPosition);
-                dots[i][j] = dot;
-            }
-            canvas.getChildren().addAll(dots[i]);
-        }
+    /**
+     * Returns the state of the visualization applied at the latest update.
+     * @return The state
+     */
+    public VisualizationState getState() {
+        return state;
     }
 
     /**
-     * Called when there are new data available for the audio spectrum.
+     * Called when there are new data available for the audio spectrum. Updates and immediately renders the
+     * visualization.
      * @param timestamp Timestamp of the event in seconds
      * @param duration Duration for which the spectrum was computed in seconds.
      * @param magnitudes Array containing the non-positive spectrum magnitude in decibels (dB) for each band.
@@ -201,70 +211,55 @@ public class Visualizer implements AudioSpectrumListener {
      */
     @Override
     public void spectrumDataUpdate(double timestamp, double duration, float[] magnitudes, float[] phases) {
-        float magnitudeGrowthAverage = 0.0f;
-        float magnitudeAverage = 0.0f;
-
-        for (int i = 0; i < magnitudes.length; i++) {
-            if (magnitudes[i] >= magnitudeBuffer[i]) {
-                magnitudeGrowthAverage += magnitudes[i] - magnitudeBuffer[i];
-                magnitudeBuffer[i] = magnitudes[i];
-            } else {
-                magnitudeBuffer[i] = Math.max(magnitudeBuffer[i] - 3, magnitudes[i]);
-            }
-            magnitudeAverage += magnitudes[i] - spectrumThreshold;
-
-            updateBarHeight(i);
-        }
-        magnitudeAverage /= magnitudes.length;
-        magnitudeGrowthAverage /= magnitudes.length;
-
-        shiftBarsColor(magnitudeGrowthAverage);
-        updateDotsRadius(magnitudeGrowthAverage, timestamp);
-
-        priorMagnitudeAverage = magnitudeAverage;
+        update(timestamp, duration, magnitudes, phases);
+        render(1.0);
     }
 
     /**
-     * Updates the height of a bar with the provided {@code index}.
-     * @param index The index of the bar in {@link Visualizer#bars}
+     * Updates the state of the visualization with new spectrum data without rendering it.
+     * @param timestamp Timestamp of the event in seconds
+     * @param duration Duration for which the spectrum was computed in seconds
+     * @param magnitudes Array containing the non-positive spectrum magnitude in decibels (dB) for each band
+     * @param phases Array containing the phase for each band
+     * @throws IllegalStateException If the visualizer has no processor
      */
-    private void updateBarHeight(int index) {
-        double newHeight = maxBarHeight * Math.min(1, (magnitudeBuffer[index] - spectrumThreshold) / maxMagnitude);
-        bars[index].setY(-newHeight);
-        bars[index].setHeight(newHeight);
+    public void update(double timestamp, double duration, float[] magnitudes, float[] phases) {
+        if (processor == null) {
+            throw new IllegalStateException("The visualizer is fed processed states");
+        }
+        processor.process(timestamp, magnitudes);
+        apply(processor.getState());
     }
 
     /**
-     * Shifts colors of the {@link Visualizer#bars}.
-     * @param magnitudeGrowthAverage The magnitude growth average
+     * Updates the state of the visualization with a processed state without rendering it. Pairs of bars are merged
+     * into their louder bar for each reduced level of detail, and the last bar also takes the bars left over.
+     * @param processed The processed state with the full number of bars
      */
-    private void shiftBarsColor(double magnitudeGrowthAverage) {
-        Color firstBarColor = (Color) bars[0].getFill();
-        double shiftPercent = magnitudeGrowthAverage / maxMagnitude;
-        double baseColorHue = (firstBarColor.getHue() + (30 * shiftPercent));
-        for (int i = 0; i < bars.length; i++) {
-            Color color = Color.hsb(baseColorHue + (double) i / bars.length * 30, 1, 1);
-            bars[i].setFill(color);
+    public void apply(VisualizationState processed) {
+        System.arraycopy(renderedState.getLevels(), 0, previousLevels, 0, previousLevels.length);
+        float[] source = processed.getLevels();
+        float[] levels = state.getLevels();
+        int merged = 1 << levelOfDetail;
+        int barCount = state.getBarCount();
+        for (int i = 0; i < barCount; i++) {
+            int end = i == barCount - 1 ? processed.getBarCount() : (i + 1) * merged;
+            levels[i] = kernels.max(source, i * merged, end);
         }
+        state.setHue(processed.getHue());
+        state.setDotPulses(processed.getDotPulses());
     }
 
     /**
-     * Updates dots' radius.
-     * @param magnitudeGrowthAverage The magnitude growth average
-     * @param timestamp The current timestamp
+     * Renders the visualization part of the way from the levels shown at the latest update to the updated levels.
+     * @param progress The progress of the animation in the range [0, 1]
      */
-    private void updateDotsRadius(double magnitudeGrowthAverage, double timestamp) {
-        double percent = magnitudeGrowthAverage / priorMagnitudeAverage;
-        if (percent < 0.15 || (timestamp - lastDotTimestamp) < 0.125) {
-            return;
-        }
-        for (int i = 0; i < dots.length; i++) {
-            for (int j = 0; j < dots[0].length; j++) {
-                double radius = dotsAnimationForward ^ ((i + j) % 2 == 0) ? minDotRadius : maxDotRadius;
-                dots[i][j].setRadius(radius);
-            }
-        }
-        dotsAnimationForward = !dotsAnimationForward;
-        lastDotTimestamp = timestamp;
+    public void render(double progress) {
+        float[] levels = state.getLevels();
+        float[] renderedLevels = renderedState.getLevels();
+        kernels.interpolate(previousLevels, levels, (float) progress, renderedLevels, state.getBarCount());
+        renderedState.setHue(state.getHue());
+        renderedState.setDotPulses(state.getDotPulses());
+        renderer.render(renderedState);
     }
 }
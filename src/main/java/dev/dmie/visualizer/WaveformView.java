@@ -0,0 +1,95 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.analysis.Waveform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws a {@link Waveform} on a {@code Canvas} at the back of a pane, behind the other children of the pane. The
+ * columns of the waveform are merged or stretched to the width of the pane.
+ */
+public class WaveformView {
+    /**
+     * The color of the range between the minimum and maximum samples.
+     */
+    private static final Color PEAK_COLOR = Color.gray(0.75);
+
+    /**
+     * The color of the RMS level.
+     */
+    private static final Color RMS_COLOR = Color.gray(0.55);
+
+    /**
+     * The canvas that the waveform is drawn on.
+     */
+    private final Canvas canvas = new Canvas();
+
+    /**
+     * The shown waveform, or {@code null} if none is shown.
+     */
+    private Waveform waveform;
+
+    /**
+     * Creates a new {@link WaveformView} instance.
+     * @param pane The {@code Pane} to add the canvas to
+     */
+    public WaveformView(Pane pane) {
+        canvas.setManaged(false);
+        canvas.setMouseTransparent(true);
+        pane.getChildren().add(0, canvas);
+        canvas.widthProperty().bind(pane.widthProperty());
+        canvas.heightProperty().bind(pane.heightProperty());
+        canvas.widthProperty().addListener(observable -> draw());
+        canvas.heightProperty().addListener(observable -> draw());
+    }
+
+    /**
+     * Shows a waveform, replacing the previous one.
+     * @param waveform The waveform
+     */
+    public void show(Waveform waveform) {
+        this.waveform = waveform;
+        draw();
+    }
+
+    /**
+     * Removes the shown waveform.
+     */
+    public void clear() {
+        show(null);
+    }
+
+    /**
+     * Draws the {@link WaveformView#waveform} with one vertical line of peaks and RMS level per pixel column.
+     */
+    private void draw() {
+        GraphicsContext context = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        context.clearRect(0, 0, width, height);
+        if (waveform == null || width < 1) {
+            return;
+        }
+        int columnCount = waveform.getColumnCount();
+        int pixelCount = (int) width;
+        double center = height / 2;
+        for (int x = 0; x < pixelCount; x++) {
+            int first = (int) ((long) x * columnCount / pixelCount);
+            int last = Math.max(first + 1, (int) ((long) (x + 1) * columnCount / pixelCount));
+            float minimum = 0;
+            float maximum = 0;
+            float rms = 0;
+            for (int column = first; column < last; column++) {
+                minimum = Math.min(minimum, waveform.getMinimum(column));
+                maximum = Math.max(maximum, waveform.getMaximum(column));
+                rms = Math.max(rms, waveform.getRms(column));
+            }
+            context.setFill(PEAK_COLOR);
+            context.fillRect(x, center - maximum * center, 1, (maximum - minimum) * center);
+            context.setFill(RMS_COLOR);
+            context.fillRect(x, center - rms * center, 1, 2 * rms * center);
+        }
+    }
+}
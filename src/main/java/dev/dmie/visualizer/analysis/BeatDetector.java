@@ -0,0 +1,357 @@
+package dev.dmie.visualizer.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Detects beats in a stream of spectrum frames and estimates their tempo.
+ * <p>
+ * Onsets are found with per-band spectral flux: each band contributes the rise of its magnitude above the average
+ * rise of that band, and the sum is compared to an adaptive threshold derived from the mean and the deviation of the
+ * recent flux. A local maximum above the threshold is reported as a beat one frame later. The tempo is the lag with
+ * the strongest autocorrelation of the flux, accumulated incrementally with exponential decay.
+ * <p>
+ * All history is kept in circular primitive buffers, so processing a frame costs the same regardless of how long the
+ * detector runs and allocates nothing.
+ */
+public class BeatDetector {
+    /**
+     * Receives beats found by a {@link BeatDetector}.
+     */
+    public interface Listener {
+        /**
+         * Called when a beat is detected.
+         * @param timestamp The timestamp of the beat in seconds
+         * @param strength The spectral flux of the beat in decibels per band
+         */
+        void onBeat(double timestamp, float strength);
+    }
+
+    /**
+     * The number of frames in the circular buffers, a power of two.
+     */
+    private static final int HISTORY_SIZE = 256;
+
+    /**
+     * The number of recent frames the adaptive threshold is computed from.
+     */
+    private static final int THRESHOLD_WINDOW = 32;
+
+    /**
+     * The number of standard deviations the flux must exceed its mean by to be a beat.
+     */
+    private static final float THRESHOLD_DEVIATIONS = 1.5f;
+
+    /**
+     * The smallest flux in decibels per band that can be a beat.
+     */
+    private static final float MIN_STRENGTH = 0.5f;
+
+    /**
+     * The weight of the latest frame in the average flux of each band.
+     */
+    private static final float BAND_AVERAGE_WEIGHT = 0.1f;
+
+    /**
+     * The shortest time between two beats in seconds.
+     */
+    private static final double MIN_BEAT_INTERVAL = 0.1;
+
+    /**
+     * The part of the beat period that must pass between two beats once the tempo is known.
+     */
+    private static final double MIN_BEAT_PERIOD_FRACTION = 0.45;
+
+    /**
+     * The slowest detected tempo in beats per minute.
+     */
+    private static final double MIN_TEMPO = 60;
+
+    /**
+     * The fastest detected tempo in beats per minute.
+     */
+    private static final double MAX_TEMPO = 200;
+
+    /**
+     * The tempo preferred when the autocorrelation has several similar peaks, in beats per minute.
+     */
+    private static final double PREFERRED_TEMPO = 120;
+
+    /**
+     * The time after which the autocorrelation forgets half of its history, in seconds.
+     */
+    private static final double TEMPO_HALF_LIFE = 4.0;
+
+    /**
+     * The number of frames between two tempo estimates.
+     */
+    private static final int TEMPO_INTERVAL = 16;
+
+    /**
+     * The smallest ratio of the autocorrelation at the beat period to the flux energy for the tempo to be known.
+     */
+    private static final double MIN_TEMPO_CONFIDENCE = 0.2;
+
+    /**
+     * The longest time between two frames in seconds that is not treated as a seek.
+     */
+    private static final double MAX_FRAME_GAP = 0.5;
+
+
+    /**
+     * The listeners that receive beats.
+     */
+    private final List<Listener> listeners = new ArrayList<>();
+
+    /**
+     * The magnitudes of the previous frame.
+     */
+    private final float[] previousMagnitudes;
+
+    /**
+     * The average rise of the magnitude of each band.
+     */
+    private final float[] bandAverages;
+
+    /**
+     * The circular buffer of the flux of recent frames.
+     */
+    private final float[] fluxHistory = new float[HISTORY_SIZE];
+
+    /**
+     * The circular buffer of the flux above its local mean, which the autocorrelation is computed from.
+     */
+    private final float[] onsetHistory = new float[HISTORY_SIZE];
+
+    /**
+     * The decayed autocorrelation of {@link BeatDetector#onsetHistory} by lag in frames.
+     */
+    private final double[] autocorrelation = new double[HISTORY_SIZE];
+
+
+    /**
+     * The number of processed frames since the last reset.
+     */
+    private long frameCount;
+
+    /**
+     * The sum of the flux in the threshold window.
+     */
+    private double fluxSum;
+
+    /**
+     * The sum of the squared flux in the threshold window.
+     */
+    private double fluxSquareSum;
+
+    /**
+     * The timestamp of the previous frame.
+     */
+    private double previousTimestamp;
+
+    /**
+     * The average time between two frames in seconds, or zero if it is not known yet.
+     */
+    private double framePeriod;
+
+    /**
+     * The timestamp of the last beat.
+     */
+    private double lastBeatTimestamp;
+
+    /**
+     * The estimated tempo in beats per minute, or zero if it is not known.
+     */
+    private double tempo;
+
+    /**
+     * The number of frames since the last tempo estimate.
+     */
+    private int framesSinceTempo;
+
+    /**
+     * Creates a new {@link BeatDetector} instance.
+     * @param bandCount The number of bands in a frame
+     */
+    public BeatDetector(int bandCount) {
+        previousMagnitudes = new float[bandCount];
+        bandAverages = new float[bandCount];
+        reset();
+    }
+
+    /**
+     * Adds a listener that receives beats.
+     * @param listener The listener
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns the estimated tempo.
+     * @return The tempo in beats per minute, or zero if it is not known
+     */
+    public double getTempo() {
+        return tempo;
+    }
+
+    /**
+     * Forgets all history, e.g. when a new track starts.
+     */
+    public void reset() {
+        Arrays.fill(bandAverages, 0.0f);
+        Arrays.fill(fluxHistory, 0.0f);
+        Arrays.fill(onsetHistory, 0.0f);
+        Arrays.fill(autocorrelation, 0.0);
+        frameCount = 0;
+        fluxSum = 0.0;
+        fluxSquareSum = 0.0;
+        previousTimestamp = 0.0;
+        framePeriod = 0.0;
+        lastBeatTimestamp = Double.NEGATIVE_INFINITY;
+        tempo = 0.0;
+        framesSinceTempo = 0;
+    }
+
+    /**
+     * Processes a spectrum frame and notifies the listeners if it confirms a beat in the previous frame.
+     * @param timestamp The timestamp of the frame in seconds
+     * @param magnitudes The magnitude of each band in decibels
+     */
+    public void process(double timestamp, float[] magnitudes) {
+        double gap = timestamp - previousTimestamp;
+        if (frameCount > 0 && (gap <= 0 || gap > MAX_FRAME_GAP)) {
+            if (gap != 0) {
+                previousTimestamp = timestamp;
+                System.arraycopy(magnitudes, 0, previousMagnitudes, 0, previousMagnitudes.length);
+            }
+            return;
+        }
+        if (frameCount == 0) {
+            previousTimestamp = timestamp;
+            System.arraycopy(magnitudes, 0, previousMagnitudes, 0, previousMagnitudes.length);
+            frameCount++;
+            return;
+        }
+        framePeriod = framePeriod == 0.0 ? gap : framePeriod + (gap - framePeriod) * 0.05;
+
+        float flux = 0.0f;
+        for (int i = 0; i < magnitudes.length; i++) {
+            float rise = Math.max(0.0f, magnitudes[i] - previousMagnitudes[i]);
+            flux += Math.max(0.0f, rise - bandAverages[i]);
+            bandAverages[i] += (rise - bandAverages[i]) * BAND_AVERAGE_WEIGHT;
+            previousMagnitudes[i] = magnitudes[i];
+        }
+        flux /= magnitudes.length;
+
+        int position = (int) (frameCount & (HISTORY_SIZE - 1));
+        float leaving = fluxHistory[(position - THRESHOLD_WINDOW) & (HISTORY_SIZE - 1)];
+        fluxSum += flux - leaving;
+        fluxSquareSum += flux * flux - leaving * leaving;
+        fluxHistory[position] = flux;
+
+        int window = (int) Math.min(frameCount, THRESHOLD_WINDOW);
+        double mean = fluxSum / window;
+        double deviation = Math.sqrt(Math.max(0.0, fluxSquareSum / window - mean * mean));
+        onsetHistory[position] = (float) Math.max(0.0, flux - mean);
+        updateAutocorrelation(position);
+
+        if (frameCount >= 3) {
+            detectBeat(position, mean + THRESHOLD_DEVIATIONS * deviation);
+        }
+        previousTimestamp = timestamp;
+        frameCount++;
+    }
+
+    /**
+     * Reports a beat if the flux of the previous frame is a local maximum above the threshold.
+     * @param position The position of the current frame in the circular buffers
+     * @param threshold The adaptive threshold of the flux
+     */
+    private void detectBeat(int position, double threshold) {
+        float current = fluxHistory[position];
+        float candidate = fluxHistory[(position - 1) & (HISTORY_SIZE - 1)];
+        float before = fluxHistory[(position - 2) & (HISTORY_SIZE - 1)];
+        if (candidate < MIN_STRENGTH || candidate <= threshold || candidate < before || candidate <= current) {
+            return;
+        }
+        double beatTimestamp = previousTimestamp;
+        double minInterval = MIN_BEAT_INTERVAL;
+        if (tempo > 0) {
+            minInterval = Math.max(minInterval, MIN_BEAT_PERIOD_FRACTION * 60 / tempo);
+        }
+        if (beatTimestamp - lastBeatTimestamp < minInterval) {
+            return;
+        }
+        lastBeatTimestamp = beatTimestamp;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onBeat(beatTimestamp, candidate);
+        }
+    }
+
+    /**
+     * Adds the current frame to the decayed autocorrelation and periodically re-estimates the tempo.
+     * @param position The position of the current frame in the circular buffers
+     */
+    private void updateAutocorrelation(int position) {
+        int maxLag = Math.min(HISTORY_SIZE - 1, 2 * (int) Math.ceil(60 / (MIN_TEMPO * framePeriod)) + 2);
+        double decay = Math.pow(0.5, framePeriod / TEMPO_HALF_LIFE);
+        float onset = onsetHistory[position];
+        for (int lag = 0; lag <= maxLag; lag++) {
+            float delayed = onsetHistory[(position - lag) & (HISTORY_SIZE - 1)];
+            autocorrelation[lag] = autocorrelation[lag] * decay + onset * delayed;
+        }
+        if (++framesSinceTempo >= TEMPO_INTERVAL) {
+            framesSinceTempo = 0;
+            estimateTempo(maxLag);
+        }
+    }
+
+    /**
+     * Estimates the tempo from the lag with the strongest autocorrelation. Each lag is credited with the
+     * autocorrelation at twice the lag, so that a beat period is not mistaken for its multiple, and tempos near
+     * {@link BeatDetector#PREFERRED_TEMPO} are preferred. The lags are limited so that the smoothed autocorrelation
+     * of each lag, its neighbours and its double stays within [0, maxLag], which matters when frames are so far apart
+     * that the fastest tempo is only a lag or two.
+     * @param maxLag The longest lag with a valid autocorrelation
+     */
+    private void estimateTempo(int maxLag) {
+        int minLag = Math.max(2, (int) Math.floor(60 / (MAX_TEMPO * framePeriod)));
+        int lastLag = Math.min(Math.min((maxLag - 1) / 2, maxLag - 2),
+                (int) Math.ceil(60 / (MIN_TEMPO * framePeriod)));
+        int bestLag = -1;
+        double bestScore = 0.0;
+        for (int lag = minLag; lag <= lastLag; lag++) {
+            double value = smoothedAutocorrelation(lag);
+            if (value <= smoothedAutocorrelation(lag - 1) || value < smoothedAutocorrelation(lag + 1)) {
+                continue;
+            }
+            double octaves = Math.log(60 / (lag * framePeriod) / PREFERRED_TEMPO) / Math.log(2);
+            double score = (value + 0.5 * smoothedAutocorrelation(2 * lag)) * Math.exp(-0.5 * octaves * octaves);
+            if (score > bestScore) {
+                bestScore = score;
+                bestLag = lag;
+            }
+        }
+        if (bestLag < 0 || smoothedAutocorrelation(bestLag) < MIN_TEMPO_CONFIDENCE * 2 * autocorrelation[0]) {
+            tempo = 0.0;
+            return;
+        }
+        double previous = autocorrelation[bestLag - 1];
+        double next = autocorrelation[bestLag + 1];
+        double curvature = previous - 2 * autocorrelation[bestLag] + next;
+        double offset = curvature < 0 ? 0.5 * (previous - next) / curvature : 0.0;
+        tempo = 60 / ((bestLag + Math.max(-0.5, Math.min(0.5, offset))) * framePeriod);
+    }
+
+    /**
+     * Returns the autocorrelation at a lag smoothed with its neighbours, so that a beat period that falls between two
+     * lags is not underrated.
+     * @param lag The lag in frames
+     * @return The smoothed autocorrelation
+     */
+    private double smoothedAutocorrelation(int lag) {
+        return 0.5 * autocorrelation[lag - 1] + autocorrelation[lag] + 0.5 * autocorrelation[lag + 1];
+    }
+}
@@ -0,0 +1,49 @@
+package dev.dmie.visualizer.analysis;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Names the files of the on-disk analysis caches.
+ */
+final class CacheFiles {
+    /**
+     * Prevents instantiation.
+     */
+    private CacheFiles() {
+    }
+
+    /**
+     * Returns the path of the cache file of a track. The name is a hash of the path, size and modification time of the
+     * track and of the analysis parameters, so the file is invalidated when any of them changes.
+     * @param directory The directory that contains the cache files
+     * @param track The path of the track
+     * @param extension The extension of the cache file
+     * @param parameters The analysis parameters
+     * @return The path of the cache file
+     * @throws IOException If the attributes of the track could not be read
+     */
+    static Path resolve(Path directory, Path track, String extension, int... parameters) throws IOException {
+        Path absolute = track.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+        StringBuilder key = new StringBuilder(absolute.toString())
+                .append('|').append(attributes.size())
+                .append('|').append(attributes.lastModifiedTime().toMillis());
+        for (int parameter : parameters) {
+            key.append('|').append(parameter);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest, 0, 16) + extension);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+}
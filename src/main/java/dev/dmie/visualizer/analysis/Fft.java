@@ -0,0 +1,97 @@
+package dev.dmie.visualizer.analysis;
+
+/**
+ * An in-place radix-2 fast Fourier transform of a fixed size with precomputed tables.
+ */
+public class Fft {
+    /**
+     * The number of points of the transform.
+     */
+    private final int size;
+
+    /**
+     * The bit-reversed index of each point.
+     */
+    private final int[] reversed;
+
+    /**
+     * The cosines of the twiddle factors.
+     */
+    private final float[] cos;
+
+    /**
+     * The sines of the twiddle factors.
+     */
+    private final float[] sin;
+
+    /**
+     * Creates a new {@link Fft} instance.
+     * @param size The number of points, a power of two
+     */
+    public Fft(int size) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("The FFT size must be a power of two: " + size);
+        }
+        this.size = size;
+
+        reversed = new int[size];
+        int bits = Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < size; i++) {
+            reversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+
+        cos = new float[size / 2];
+        sin = new float[size / 2];
+        for (int i = 0; i < size / 2; i++) {
+            double angle = -2 * Math.PI * i / size;
+            cos[i] = (float) Math.cos(angle);
+            sin[i] = (float) Math.sin(angle);
+        }
+    }
+
+    /**
+     * Returns the number of points of this transform.
+     * @return The number of points
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Transforms a complex signal in place.
+     * @param real The real parts of the signal
+     * @param imaginary The imaginary parts of the signal
+     */
+    public void transform(float[] real, float[] imaginary) {
+        for (int i = 0; i < size; i++) {
+            int j = reversed[i];
+            if (j > i) {
+                float swap = real[i];
+                real[i] = real[j];
+                real[j] = swap;
+                swap = imaginary[i];
+                imaginary[i] = imaginary[j];
+                imaginary[j] = swap;
+            }
+        }
+
+        for (int length = 2; length <= size; length <<= 1) {
+            int half = length >> 1;
+            int step = size / length;
+            for (int start = 0; start < size; start += length) {
+                for (int k = 0; k < half; k++) {
+                    float wr = cos[k * step];
+                    float wi = sin[k * step];
+                    int even = start + k;
+                    int odd = even + half;
+                    float tr = real[odd] * wr - imaginary[odd] * wi;
+                    float ti = real[odd] * wi + imaginary[odd] * wr;
+                    real[odd] = real[even] - tr;
+                    imaginary[odd] = imaginary[even] - ti;
+                    real[even] += tr;
+                    imaginary[even] += ti;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package dev.dmie.visualizer.analysis;
+
+/**
+ * A precomputed map that aggregates linearly spaced spectrum bands into logarithmically spaced bars.
+ * <p>
+ * The input bands split the range up to the Nyquist frequency into equal parts, as in
+ * {@link javafx.scene.media.AudioSpectrumListener}. Each bar covers an equal part of the range on a logarithmic scale
+ * from {@link LogBandMap#MIN_FREQUENCY} to the Nyquist frequency. A bar that covers the centers of several bands
+ * shows the loudest of them, and a bar narrower than a band interpolates between the two nearest band centers, so
+ * that low bars do not repeat the same band.
+ */
+public class LogBandMap {
+    /**
+     * The lowest frequency shown by the bars relative to the Nyquist frequency of 22050 Hz, which is 20 Hz.
+     */
+    private static final double MIN_FREQUENCY = 20.0 / 22050.0;
+
+    /**
+     * The number of input bands.
+     */
+    private final int bandCount;
+
+    /**
+     * The first input band of each bar.
+     */
+    private final int[] firstBands;
+
+    /**
+     * The last input band of each bar.
+     */
+    private final int[] lastBands;
+
+    /**
+     * The weight of the last band of each interpolated bar, or a negative number if the bar takes the loudest band.
+     */
+    private final float[] weights;
+
+    /**
+     * The kernels that find the loudest band of a bar.
+     */
+    private final SpectrumKernels kernels;
+
+    /**
+     * Creates a new {@link LogBandMap} instance.
+     * @param bandCount The number of input bands
+     * @param barCount The number of bars
+     */
+    public LogBandMap(int bandCount, int barCount) {
+        this(bandCount, barCount, SpectrumKernels.get());
+    }
+
+    /**
+     * Creates a new {@link LogBandMap} instance that finds the loudest band of a bar with the given kernels.
+     * @param bandCount The number of input bands
+     * @param barCount The number of bars
+     * @param kernels The kernels that find the loudest band of a bar
+     */
+    public LogBandMap(int bandCount, int barCount, SpectrumKernels kernels) {
+        this.bandCount = bandCount;
+        this.kernels = kernels;
+        firstBands = new int[barCount];
+        lastBands = new int[barCount];
+        weights = new float[barCount];
+
+        double lowest = Math.max(MIN_FREQUENCY, 1.0 / bandCount);
+        for (int bar = 0; bar < barCount; bar++) {
+            double low = bar == 0 ? 0.0 : lowest * Math.pow(1 / lowest, (double) bar / barCount) * bandCount;
+            double high = lowest * Math.pow(1 / lowest, (double) (bar + 1) / barCount) * bandCount;
+            int first = (int) Math.ceil(low - 0.5);
+            int last = Math.min(bandCount - 1, (int) Math.ceil(high - 0.5) - 1);
+            if (first <= last) {
+                firstBands[bar] = first;
+                lastBands[bar] = last;
+                weights[bar] = -1.0f;
+            } else {
+                double center = (low + high) / 2 - 0.5;
+                int lower = Math.max(0, Math.min(bandCount - 2, (int) Math.floor(center)));
+                firstBands[bar] = lower;
+                lastBands[bar] = Math.min(bandCount - 1, lower + 1);
+                weights[bar] = (float) Math.max(0.0, Math.min(1.0, center - lower));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of input bands.
+     * @return The band count
+     */
+    public int getBandCount() {
+        return bandCount;
+    }
+
+    /**
+     * Returns the number of bars.
+     * @return The bar count
+     */
+    public int getBarCount() {
+        return weights.length;
+    }
+
+    /**
+     * Aggregates the magnitudes of the input bands into the magnitudes of the bars.
+     * @param bands The magnitude of each input band in decibels
+     * @param bars The array to store the magnitude of each bar in decibels in
+     */
+    public void aggregate(float[] bands, float[] bars) {
+        for (int bar = 0; bar < weights.length; bar++) {
+            int first = firstBands[bar];
+            int last = lastBands[bar];
+            float weight = weights[bar];
+            if (weight >= 0.0f) {
+                bars[bar] = bands[first] + (bands[last] - bands[first]) * weight;
+                continue;
+            }
+            bars[bar] = kernels.max(bands, first, last + 1);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package dev.dmie.visualizer.analysis;
+
+/**
+ * {@link SpectrumKernels} that process one element at a time, used when the Vector API is not available.
+ */
+final class ScalarSpectrumKernels extends SpectrumKernels {
+    /**
+     * The factor that converts decibels to the exponent of a linear amplitude, ln(10) / 20.
+     */
+    static final float DECIBELS_TO_EXPONENT = (float) (Math.log(10) / 20);
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    public float peakHold(float[] magnitudes, float[] held, float decay, int length) {
+        float rise = 0.0f;
+        for (int i = 0; i < length; i++) {
+            rise += Math.max(0.0f, magnitudes[i] - held[i]);
+            held[i] = Math.max(held[i] - decay, magnitudes[i]);
+        }
+        return rise;
+    }
+
+    @Override
+    public void smooth(float[] values, float[] smoothed, float attack, float release, int length) {
+        for (int i = 0; i < length; i++) {
+            float difference = values[i] - smoothed[i];
+            smoothed[i] += difference * (difference > 0.0f ? attack : release);
+        }
+    }
+
+    @Override
+    public void decibelsToLinear(float[] decibels, float[] linear, int length) {
+        for (int i = 0; i < length; i++) {
+            linear[i] = (float) Math.exp(decibels[i] * DECIBELS_TO_EXPONENT);
+        }
+    }
+
+    @Override
+    public void normalize(float[] values, float[] levels, float offset, float scale, int length) {
+        for (int i = 0; i < length; i++) {
+            levels[i] = Math.max(0.0f, Math.min(1.0f, (values[i] - offset) * scale));
+        }
+    }
+
+    @Override
+    public void interpolate(float[] from, float[] to, float weight, float[] result, int length) {
+        for (int i = 0; i < length; i++) {
+            result[i] = from[i] + (to[i] - from[i]) * weight;
+        }
+    }
+
+    @Override
+    public float sum(float[] values, int from, int to) {
+        float sum = 0.0f;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float max(float[] values, int from, int to) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,181 @@
+package dev.dmie.visualizer.analysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A precomputed spectrogram of a track, read from a memory-mapped cache file.
+ * <p>
+ * The file starts with a header of the {@link Spectrogram#MAGIC} number, the format version, the band count, the
+ * spectrum threshold, the hop duration in seconds and the frame count. It is followed by one byte per band and frame
+ * that quantizes the magnitude between the threshold and 0 dB. A file is at most {@link Spectrogram#MAX_SIZE} bytes
+ * long, so that it can be mapped at once.
+ * <p>
+ * Closing a spectrogram drops its mapping, which the garbage collector then releases. A spectrogram is read and
+ * closed by one thread at a time.
+ */
+public class Spectrogram implements Closeable {
+    /**
+     * The magic number of a spectrogram file.
+     */
+    static final int MAGIC = 0x56535047;
+
+    /**
+     * The version of the spectrogram file format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the file header in bytes.
+     */
+    static final int HEADER_SIZE = 4 * 4 + 8 + 4;
+
+    /**
+     * The largest size of a spectrogram file in bytes.
+     */
+    static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * The mapped content of the file, or {@code null} once the spectrogram is closed.
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * The number of bands of a frame.
+     */
+    private final int bandCount;
+
+    /**
+     * The spectrum threshold in decibels.
+     */
+    private final int threshold;
+
+    /**
+     * The time between two frames in seconds.
+     */
+    private final double hopDuration;
+
+    /**
+     * The number of frames.
+     */
+    private final int frameCount;
+
+    /**
+     * Creates a new {@link Spectrogram} instance from a mapped file.
+     * @param buffer The mapped content of the file
+     * @throws IOException If the file is not a valid spectrogram
+     */
+    private Spectrogram(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a spectrogram file");
+        }
+        bandCount = buffer.getInt(8);
+        threshold = buffer.getInt(12);
+        hopDuration = buffer.getDouble(16);
+        frameCount = buffer.getInt(24);
+        if (bandCount < 1 || hopDuration <= 0 || buffer.capacity() != HEADER_SIZE + (long) frameCount * bandCount) {
+            throw new IOException("Corrupted spectrogram file");
+        }
+    }
+
+    /**
+     * Maps a spectrogram file.
+     * @param path The path of the file
+     * @return The spectrogram
+     * @throws IOException If the file could not be read, is larger than {@link Spectrogram#MAX_SIZE} or is not a valid
+     *                     spectrogram
+     */
+    public static Spectrogram open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_SIZE) {
+                throw new IOException("The spectrogram file is too large");
+            }
+            return new Spectrogram(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the number of bands of a frame.
+     * @return The band count
+     */
+    public int getBandCount() {
+        return bandCount;
+    }
+
+    /**
+     * Returns the time between two frames.
+     * @return The hop duration in seconds
+     */
+    public double getHopDuration() {
+        return hopDuration;
+    }
+
+    /**
+     * Returns the number of frames.
+     * @return The frame count
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the index of the latest frame at a playback position.
+     * @param position The position in seconds
+     * @return The index of the frame, or {@code -1} if the position precedes the first frame
+     */
+    public int frameAt(double position) {
+        return (int) Math.min(frameCount - 1, Math.floor(position / hopDuration) - 1);
+    }
+
+    /**
+     * Returns the timestamp of a frame, which is the end of the window it was computed from.
+     * @param frame The index of the frame
+     * @return The timestamp in seconds
+     */
+    public double timestampOf(int frame) {
+        return (frame + 1) * hopDuration;
+    }
+
+    /**
+     * Reads the magnitudes of a frame.
+     * @param frame The index of the frame
+     * @param magnitudes The array to store the magnitude of each band in
+     * @throws IllegalStateException If the spectrogram is closed
+     */
+    public void read(int frame, float[] magnitudes) {
+        if (buffer == null) {
+            throw new IllegalStateException("The spectrogram is closed");
+        }
+        int position = HEADER_SIZE + frame * bandCount;
+        float scale = -threshold / 255.0f;
+        for (int i = 0; i < bandCount; i++) {
+            magnitudes[i] = threshold + (buffer.get(position + i) & 0xFF) * scale;
+        }
+    }
+
+    /**
+     * Drops the mapping of the file. The spectrogram cannot be read afterwards.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+    }
+
+    /**
+     * Quantizes a magnitude to the byte stored in a spectrogram file.
+     * @param magnitude The magnitude in decibels
+     * @param threshold The spectrum threshold in decibels
+     * @return The quantized magnitude
+     */
+    static byte quantize(float magnitude, int threshold) {
+        float level = Math.max(0.0f, Math.min(1.0f, (magnitude - threshold) / -threshold));
+        return (byte) Math.round(level * 255);
+    }
+}
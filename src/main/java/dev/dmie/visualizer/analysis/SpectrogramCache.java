@@ -0,0 +1,209 @@
+package dev.dmie.visualizer.analysis;
+
+import dev.dmie.visualizer.audio.PcmSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * An on-disk cache of {@link Spectrogram}s keyed by the path, size and modification time of a track and by the
+ * analysis parameters.
+ */
+public class SpectrogramCache {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The directory that contains the cache files.
+     */
+    private final Path directory;
+
+    /**
+     * The number of samples in an FFT window.
+     */
+    private final int windowSize;
+
+    /**
+     * The number of frames between two FFT windows.
+     */
+    private final int hopSize;
+
+    /**
+     * The number of bands.
+     */
+    private final int bandCount;
+
+    /**
+     * The spectrum threshold in decibels.
+     */
+    private final int threshold;
+
+    /**
+     * Creates a new {@link SpectrogramCache} instance.
+     * @param directory The directory that contains the cache files
+     * @param windowSize The number of samples in an FFT window
+     * @param hopSize The number of frames between two FFT windows
+     * @param bandCount The number of bands
+     * @param threshold The spectrum threshold in decibels
+     */
+    public SpectrogramCache(Path directory, int windowSize, int hopSize, int bandCount, int threshold) {
+        this.directory = directory;
+        this.windowSize = windowSize;
+        this.hopSize = hopSize;
+        this.bandCount = bandCount;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Finds the cached spectrogram of a track.
+     * @param track The path of the track
+     * @return The spectrogram, or an empty {@code Optional} if it is not cached or the cache file is invalid or too
+     *         large
+     */
+    public Optional<Spectrogram> find(Path track) {
+        try {
+            Path file = cacheFile(track);
+            if (Files.exists(file)) {
+                return Optional.of(Spectrogram.open(file));
+            }
+        } catch (IOException exception) {
+            logger.warn("Failed to read a cached spectrogram");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Computes the spectrogram of a track in the background and stores it in the cache.
+     * @param track The path of the track
+     * @param executor The executor to compute the spectrogram on
+     * @return A future that completes with the stored spectrogram
+     */
+    public CompletableFuture<Spectrogram> computeAsync(Path track, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return compute(track);
+            } catch (IOException exception) {
+                throw new CompletionException(exception);
+            }
+        }, executor);
+    }
+
+    /**
+     * Computes the spectrogram of a track and stores it in the cache.
+     * @param track The path of the track
+     * @return The stored spectrogram
+     * @throws IOException If the track could not be decoded, its spectrogram would be larger than
+     *                     {@link Spectrogram#MAX_SIZE} or the cache file could not be written
+     */
+    public Spectrogram compute(Path track) throws IOException {
+        Path file = cacheFile(track);
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "spectrogram", ".tmp");
+        try (PcmSource source = PcmSource.open(track);
+             FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            if (source.getFrameLength() >= 0 && sizeOf(source.getFrameLength() / hopSize) > Spectrogram.MAX_SIZE) {
+                throw new IOException("The spectrogram of the track would be too large");
+            }
+            SpectrumAnalyzer analyzer = new SpectrumAnalyzer(windowSize, bandCount, threshold);
+            float[] samples = new float[windowSize];
+            float[] magnitudes = new float[bandCount];
+            float[] phases = new float[bandCount];
+            ByteBuffer frames = ByteBuffer.allocateDirect(Math.max(bandCount, 64 * 1024 / bandCount * bandCount));
+
+            channel.position(Spectrogram.HEADER_SIZE);
+            int frameCount = 0;
+            int oldest = 0;
+            boolean ended = false;
+            while (!ended) {
+                int filled = 0;
+                while (filled < hopSize) {
+                    int index = (oldest + filled) % windowSize;
+                    int read = source.read(samples, index, Math.min(hopSize - filled, windowSize - index));
+                    if (read < 0) {
+                        ended = true;
+                        break;
+                    }
+                    filled += read;
+                }
+                if (ended) {
+                    break;
+                }
+                if (sizeOf(frameCount + 1L) > Spectrogram.MAX_SIZE) {
+                    throw new IOException("The spectrogram of the track would be too large");
+                }
+                oldest = (oldest + hopSize) % windowSize;
+                analyzer.analyze(samples, oldest, magnitudes, phases);
+                if (frames.remaining() < bandCount) {
+                    writeFully(channel, frames.flip());
+                    frames.clear();
+                }
+                for (float magnitude : magnitudes) {
+                    frames.put(Spectrogram.quantize(magnitude, threshold));
+                }
+                frameCount++;
+            }
+            writeFully(channel, frames.flip());
+
+            ByteBuffer header = ByteBuffer.allocate(Spectrogram.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(Spectrogram.MAGIC)
+                    .putInt(Spectrogram.VERSION)
+                    .putInt(bandCount)
+                    .putInt(threshold)
+                    .putDouble(hopSize / (double) source.getSampleRate())
+                    .putInt(frameCount);
+            channel.position(0);
+            writeFully(channel, header.flip());
+        } catch (IOException exception) {
+            Files.deleteIfExists(temporary);
+            throw exception;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Stored a spectrogram in the cache");
+        return Spectrogram.open(file);
+    }
+
+    /**
+     * Returns the size of a spectrogram file.
+     * @param frameCount The number of frames
+     * @return The size in bytes
+     */
+    private long sizeOf(long frameCount) {
+        return Spectrogram.HEADER_SIZE + frameCount * bandCount;
+    }
+
+    /**
+     * Writes all remaining bytes of a buffer to a channel.
+     * @param channel The channel
+     * @param buffer The buffer
+     * @throws IOException If an I/O error occurs
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Returns the path of the cache file of a track.
+     * @param track The path of the track
+     * @return The path of the cache file
+     * @throws IOException If the attributes of the track could not be read
+     */
+    private Path cacheFile(Path track) throws IOException {
+        return CacheFiles.resolve(directory, track, ".spg", windowSize, hopSize, bandCount, threshold);
+    }
+}
@@ -0,0 +1,115 @@
+package dev.dmie.visualizer.analysis;
+
+import javafx.scene.media.AudioSpectrumListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Feeds the frames of a precomputed {@link Spectrogram} to an {@link AudioSpectrumListener} on a background thread,
+ * reading each frame by the timestamp of a playback clock.
+ * <p>
+ * Because frames are looked up by timestamp, seeking needs no extra work, and no decoding or FFT happens during
+ * playback. Spectrograms do not store phases, so all phases are zero. The listener is called on the player thread
+ * with arrays that are reused between calls. The player owns the spectrogram and closes it once it stops.
+ */
+public class SpectrogramPlayer {
+    /**
+     * The longest time the player sleeps before checking the clock again.
+     */
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The number of frames the clock may move back without being treated as a seek.
+     */
+    private static final int JITTER_FRAMES = 2;
+
+    /**
+     * The played spectrogram.
+     */
+    private final Spectrogram spectrogram;
+
+    /**
+     * The listener that receives spectrum data.
+     */
+    private final AudioSpectrumListener listener;
+
+    /**
+     * The playback position in seconds.
+     */
+    private final DoubleSupplier clock;
+
+    /**
+     * The thread that runs the player.
+     */
+    private final Thread thread;
+
+    /**
+     * Whether the player is running.
+     */
+    private volatile boolean running = false;
+
+    /**
+     * Creates a new {@link SpectrogramPlayer} instance.
+     * @param spectrogram The spectrogram to play
+     * @param listener The listener that receives spectrum data
+     * @param clock The playback position in seconds
+     */
+    public SpectrogramPlayer(Spectrogram spectrogram, AudioSpectrumListener listener, DoubleSupplier clock) {
+        this.spectrogram = spectrogram;
+        this.listener = listener;
+        this.clock = clock;
+        thread = new Thread(this::run, "Spectrogram Player");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the player.
+     */
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Stops the player.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Runs the playback loop until the player is stopped and closes the spectrogram.
+     */
+    private void run() {
+        try {
+            play();
+        } finally {
+            spectrogram.close();
+        }
+    }
+
+    /**
+     * Feeds the frame at the clock to the listener until the player is stopped.
+     */
+    private void play() {
+        float[] magnitudes = new float[spectrogram.getBandCount()];
+        float[] phases = new float[spectrogram.getBandCount()];
+        double hopDuration = spectrogram.getHopDuration();
+        int lastFrame = -1;
+
+        while (running) {
+            double position = clock.getAsDouble();
+            int frame = spectrogram.frameAt(position);
+            if (frame >= 0 && (frame > lastFrame || frame < lastFrame - JITTER_FRAMES)) {
+                spectrogram.read(frame, magnitudes);
+                listener.spectrumDataUpdate(spectrogram.timestampOf(frame), hopDuration, magnitudes, phases);
+                lastFrame = frame;
+            }
+            double untilNextFrame = spectrogram.timestampOf(frame + 1) - position;
+            LockSupport.parkNanos(Math.max(1, Math.min(MAX_WAIT_NANOS, (long) (untilNextFrame * 1e9))));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package dev.dmie.visualizer.analysis;
+
+/**
+ * Computes band magnitudes and phases of a window of samples with a Hann-windowed FFT.
+ * <p>
+ * The output follows the contract of {@link javafx.scene.media.AudioSpectrumListener}: the frequency range up to
+ * the Nyquist frequency is split into equal bands, magnitudes are non-positive decibels clamped to the threshold, and
+ * phases are in the range [-{@code Math.PI}, {@code Math.PI}]. All buffers are allocated once, so analyzing a window
+ * does not allocate.
+ */
+public class SpectrumAnalyzer {
+    /**
+     * The transform used for analysis.
+     */
+    private final Fft fft;
+
+    /**
+     * The Hann window coefficients.
+     */
+    private final float[] window;
+
+    /**
+     * The real parts of the transformed window.
+     */
+    private final float[] real;
+
+    /**
+     * The imaginary parts of the transformed window.
+     */
+    private final float[] imaginary;
+
+    /**
+     * The index of the first FFT bin of each band, followed by the end index of the last band.
+     */
+    private final int[] bandEdges;
+
+    /**
+     * The spectrum threshold in decibels.
+     */
+    private final int threshold;
+
+    /**
+     * The factor that maps the squared magnitude of a bin to power relative to a full-scale sine wave.
+     */
+    private final float powerScale;
+
+    /**
+     * Creates a new {@link SpectrumAnalyzer} instance.
+     * @param windowSize The number of samples in a window, a power of two
+     * @param bandCount The number of bands
+     * @param threshold The spectrum threshold in decibels
+     */
+    public SpectrumAnalyzer(int windowSize, int bandCount, int threshold) {
+        if (bandCount < 1 || bandCount > windowSize / 2) {
+            throw new IllegalArgumentException("The band count must be between 1 and " + windowSize / 2);
+        }
+        fft = new Fft(windowSize);
+        this.threshold = threshold;
+
+        window = new float[windowSize];
+        double windowSum = 0.0;
+        for (int i = 0; i < windowSize; i++) {
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (windowSize - 1)));
+            windowSum += window[i];
+        }
+        powerScale = (float) (4.0 / (windowSum * windowSum));
+
+        real = new float[windowSize];
+        imaginary = new float[windowSize];
+
+        int binCount = windowSize / 2;
+        bandEdges = new int[bandCount + 1];
+        for (int i = 0; i <= bandCount; i++) {
+            bandEdges[i] = (int) ((long) binCount * i / bandCount);
+        }
+    }
+
+    /**
+     * Returns the number of samples in a window.
+     * @return The window size
+     */
+    public int getWindowSize() {
+        return window.length;
+    }
+
+    /**
+     * Returns the number of bands.
+     * @return The band count
+     */
+    public int getBandCount() {
+        return bandEdges.length - 1;
+    }
+
+    /**
+     * Analyzes a window of samples stored in a circular buffer.
+     * @param samples A circular buffer of {@link SpectrumAnalyzer#getWindowSize} samples
+     * @param oldest The index of the oldest sample in {@code samples}
+     * @param magnitudes The array to store the magnitude of each band in
+     * @param phases The array to store the phase of each band in
+     */
+    public void analyze(float[] samples, int oldest, float[] magnitudes, float[] phases) {
+        int size = window.length;
+        for (int i = 0, j = oldest; i < size; i++, j = j + 1 == size ? 0 : j + 1) {
+            real[i] = samples[j] * window[i];
+            imaginary[i] = 0.0f;
+        }
+        fft.transform(real, imaginary);
+
+        for (int band = 0; band < magnitudes.length; band++) {
+            float powerSum = 0.0f;
+            float peakPower = -1.0f;
+            int peakBin = bandEdges[band];
+            for (int bin = bandEdges[band]; bin < bandEdges[band + 1]; bin++) {
+                float power = real[bin] * real[bin] + imaginary[bin] * imaginary[bin];
+                powerSum += power;
+                if (power > peakPower) {
+                    peakPower = power;
+                    peakBin = bin;
+                }
+            }
+            float power = powerSum * powerScale;
+            float decibels = power > 0.0f ? (float) (10 * Math.log10(power)) : threshold;
+            magnitudes[band] = Math.max(threshold, Math.min(0.0f, decibels));
+            phases[band] = (float) Math.atan2(imaginary[peakBin], real[peakBin]);
+        }
+    }
+}
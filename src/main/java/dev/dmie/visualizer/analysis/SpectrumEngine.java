@@ -0,0 +1,214 @@
+package dev.dmie.visualizer.analysis;
+
+import dev.dmie.visualizer.audio.PcmSource;
+import javafx.scene.media.AudioSpectrumListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleSupplier;
+
+/**
+ * An in-process spectrum engine that decodes a {@link PcmSource} on a background thread and feeds windowed FFT
+ * results to an {@link AudioSpectrumListener}, paced by a playback clock.
+ * <p>
+ * The listener is called on the engine thread with arrays that are reused between calls.
+ */
+public class SpectrumEngine {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The longest time the engine sleeps before checking the clock again.
+     */
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The source of samples.
+     */
+    private final PcmSource source;
+
+    /**
+     * The analyzer of sample windows.
+     */
+    private final SpectrumAnalyzer analyzer;
+
+    /**
+     * The number of frames between two consecutive windows.
+     */
+    private final int hopSize;
+
+    /**
+     * The listener that receives spectrum data.
+     */
+    private final AudioSpectrumListener listener;
+
+    /**
+     * The playback position in seconds that spectrum data is paced against.
+     */
+    private final DoubleSupplier clock;
+
+    /**
+     * The circular buffer of the latest window of samples.
+     */
+    private final float[] samples;
+
+    /**
+     * The magnitude of each band of the latest window.
+     */
+    private final float[] magnitudes;
+
+    /**
+     * The phase of each band of the latest window.
+     */
+    private final float[] phases;
+
+    /**
+     * The thread that runs the engine.
+     */
+    private final Thread thread;
+
+    /**
+     * The frame the engine should seek to, or {@code -1} if no seek was requested. The engine takes a request by
+     * swapping it for {@code -1}, so that a request made meanwhile is not lost.
+     */
+    private final AtomicLong seekRequest = new AtomicLong(-1);
+
+    /**
+     * Whether the engine is running.
+     */
+    private volatile boolean running = false;
+
+    /**
+     * Creates a new {@link SpectrumEngine} instance.
+     * @param source The source of samples
+     * @param windowSize The number of samples in a window, a power of two
+     * @param hopSize The number of frames between two consecutive windows
+     * @param bandCount The number of bands
+     * @param threshold The spectrum threshold in decibels
+     * @param listener The listener that receives spectrum data
+     * @param clock The playback position in seconds
+     */
+    public SpectrumEngine(
+            PcmSource source,
+            int windowSize,
+            int hopSize,
+            int bandCount,
+            int threshold,
+            AudioSpectrumListener listener,
+            DoubleSupplier clock) {
+        if (hopSize < 1) {
+            throw new IllegalArgumentException("The hop size must be positive: " + hopSize);
+        }
+        this.source = source;
+        this.analyzer = new SpectrumAnalyzer(windowSize, bandCount, threshold);
+        this.hopSize = hopSize;
+        this.listener = listener;
+        this.clock = clock;
+
+        samples = new float[windowSize];
+        magnitudes = new float[bandCount];
+        phases = new float[bandCount];
+        thread = new Thread(this::run, "Spectrum Engine");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the engine from the beginning of the source.
+     */
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Moves the engine to another playback position.
+     * @param position The position in seconds
+     */
+    public void seek(double position) {
+        seekRequest.set(Math.max(0, (long) (position * source.getSampleRate())));
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Stops the engine and closes the source.
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Runs the analysis loop until the engine is stopped or the source ends.
+     */
+    private void run() {
+        final float sampleRate = source.getSampleRate();
+        final double hopDuration = hopSize / sampleRate;
+        long frame = 0;
+        int oldest = 0;
+
+        try {
+            while (running) {
+                long seek = seekRequest.getAndSet(-1);
+                if (seek >= 0) {
+                    source.seek(seek);
+                    frame = seek;
+                    oldest = 0;
+                    Arrays.fill(samples, 0.0f);
+                }
+
+                int filled = 0;
+                while (filled < hopSize) {
+                    int index = (oldest + filled) % samples.length;
+                    int length = Math.min(hopSize - filled, samples.length - index);
+                    int read = source.read(samples, index, length);
+                    if (read < 0) {
+                        logger.debug("Spectrum engine reached the end of the source");
+                        return;
+                    }
+                    filled += read;
+                }
+                oldest = (oldest + hopSize) % samples.length;
+                frame += hopSize;
+
+                double timestamp = frame / sampleRate;
+                if (!awaitClock(timestamp) || clock.getAsDouble() - timestamp > hopDuration) {
+                    continue;
+                }
+                analyzer.analyze(samples, oldest, magnitudes, phases);
+                listener.spectrumDataUpdate(timestamp, hopDuration, magnitudes, phases);
+            }
+        } catch (IOException exception) {
+            logger.error("Spectrum engine failed to read the source");
+        } finally {
+            try {
+                source.close();
+            } catch (IOException exception) {
+                logger.warn("Spectrum engine failed to close the source");
+            }
+        }
+    }
+
+    /**
+     * Waits until the clock reaches a timestamp. Windows the clock has already passed by more than a hop are skipped
+     * by the caller, so the engine catches up after a stall instead of flooding the listener.
+     * @param timestamp The timestamp in seconds
+     * @return Whether the timestamp was reached, {@code false} if the engine was stopped or a seek was requested
+     */
+    private boolean awaitClock(double timestamp) {
+        while (running && seekRequest.get() < 0) {
+            double remaining = timestamp - clock.getAsDouble();
+            if (remaining <= 0) {
+                return true;
+            }
+            LockSupport.parkNanos(Math.min(MAX_WAIT_NANOS, (long) (remaining * 1e9)));
+        }
+        return false;
+    }
+}
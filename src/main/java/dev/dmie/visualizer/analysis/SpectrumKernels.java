@@ -0,0 +1,137 @@
+package dev.dmie.visualizer.analysis;
+
+/**
+ * Kernels that post-process spectrum magnitudes and bar levels over whole float arrays.
+ * <p>
+ * The kernels are implemented twice: with the Vector API, which processes as many bands at a time as fit into the
+ * preferred SIMD register, and with plain loops as a fallback. {@link SpectrumKernels#get} selects the vectorized
+ * kernels when the {@code jdk.incubator.vector} module is present at runtime. Reductions may add the elements in a
+ * different order than a plain loop, so their results can differ in the last bits.
+ */
+public abstract class SpectrumKernels {
+    /**
+     * The scalar kernels.
+     */
+    private static final SpectrumKernels SCALAR = new ScalarSpectrumKernels();
+
+    /**
+     * The kernels selected at runtime.
+     */
+    private static final SpectrumKernels PREFERRED = isVectorAvailable() ? new VectorSpectrumKernels() : SCALAR;
+
+    /**
+     * Allows subclasses only in this package.
+     */
+    SpectrumKernels() {
+    }
+
+    /**
+     * Returns the kernels selected at runtime: vectorized if the {@code jdk.incubator.vector} module is present and
+     * scalar otherwise.
+     * @return The kernels
+     */
+    public static SpectrumKernels get() {
+        return PREFERRED;
+    }
+
+    /**
+     * Returns the scalar kernels.
+     * @return The scalar kernels
+     */
+    public static SpectrumKernels scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Returns the vectorized kernels.
+     * @return The vectorized kernels
+     * @throws UnsupportedOperationException If the {@code jdk.incubator.vector} module is not present
+     */
+    public static SpectrumKernels vector() {
+        if (!PREFERRED.isVectorized()) {
+            throw new UnsupportedOperationException("The jdk.incubator.vector module is not present");
+        }
+        return PREFERRED;
+    }
+
+    /**
+     * Checks whether the Vector API can be used.
+     * @return Whether the {@code jdk.incubator.vector} module is present
+     */
+    private static boolean isVectorAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    /**
+     * Returns whether these kernels are vectorized.
+     * @return Whether the Vector API is used
+     */
+    public abstract boolean isVectorized();
+
+    /**
+     * Holds the peaks of magnitudes: a held magnitude rises to a louder magnitude at once and falls by a fixed step
+     * towards a quieter one.
+     * @param magnitudes The current magnitudes
+     * @param held The held magnitudes, updated in place
+     * @param decay The largest fall of a held magnitude
+     * @param length The number of magnitudes
+     * @return The sum of the rises of the held magnitudes
+     */
+    public abstract float peakHold(float[] magnitudes, float[] held, float decay, int length);
+
+    /**
+     * Smooths values with separate weights for rising and falling values.
+     * @param values The current values
+     * @param smoothed The smoothed values, moved towards the current values in place
+     * @param attack The weight of a rising value in the range [0, 1]
+     * @param release The weight of a falling value in the range [0, 1]
+     * @param length The number of values
+     */
+    public abstract void smooth(float[] values, float[] smoothed, float attack, float release, int length);
+
+    /**
+     * Converts decibels to linear amplitudes.
+     * @param decibels The values in decibels
+     * @param linear The array to store the amplitudes in, which may be the input array
+     * @param length The number of values
+     */
+    public abstract void decibelsToLinear(float[] decibels, float[] linear, int length);
+
+    /**
+     * Maps values linearly to levels in the range [0, 1] as {@code (value - offset) * scale}, clamped.
+     * @param values The values
+     * @param levels The array to store the levels in, which may be the input array
+     * @param offset The value mapped to zero
+     * @param scale The factor of the distance from the offset
+     * @param length The number of values
+     */
+    public abstract void normalize(float[] values, float[] levels, float offset, float scale, int length);
+
+    /**
+     * Interpolates linearly between two arrays.
+     * @param from The values at weight zero
+     * @param to The values at weight one
+     * @param weight The weight of {@code to} in the range [0, 1]
+     * @param result The array to store the interpolated values in, which may be one of the input arrays
+     * @param length The number of values
+     */
+    public abstract void interpolate(float[] from, float[] to, float weight, float[] result, int length);
+
+    /**
+     * Adds up a range of values.
+     * @param values The values
+     * @param from The index of the first value
+     * @param to The index after the last value
+     * @return The sum, zero for an empty range
+     */
+    public abstract float sum(float[] values, int from, int to);
+
+    /**
+     * Finds the largest of a range of values.
+     * @param values The values
+     * @param from The index of the first value
+     * @param to The index after the last value
+     * @return The largest value, {@link Float#NEGATIVE_INFINITY} for an empty range
+     */
+    public abstract float max(float[] values, int from, int to);
+}
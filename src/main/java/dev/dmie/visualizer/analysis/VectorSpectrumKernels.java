@@ -0,0 +1,153 @@
+package dev.dmie.visualizer.analysis;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link SpectrumKernels} that process as many elements at a time as fit into the preferred SIMD register, with a
+ * scalar loop for the remaining elements. Arrays and ranges shorter than one vector, such as the one or two bands of a
+ * bar, go to the {@link ScalarSpectrumKernels} directly, which skips setting up and reducing vectors that no element
+ * would fill. Only loaded when the {@code jdk.incubator.vector} module is present.
+ */
+final class VectorSpectrumKernels extends SpectrumKernels {
+    /**
+     * The preferred vector shape of the CPU.
+     */
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    /**
+     * The kernels of arrays and ranges shorter than one vector.
+     */
+    private static final SpectrumKernels SCALAR = SpectrumKernels.scalar();
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public float peakHold(float[] magnitudes, float[] held, float decay, int length) {
+        if (length < SPECIES.length()) {
+            return SCALAR.peakHold(magnitudes, held, decay, length);
+        }
+        FloatVector rises = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int upperBound = SPECIES.loopBound(length); i < upperBound; i += SPECIES.length()) {
+            FloatVector magnitude = FloatVector.fromArray(SPECIES, magnitudes, i);
+            FloatVector peak = FloatVector.fromArray(SPECIES, held, i);
+            rises = rises.add(magnitude.sub(peak).max(0.0f));
+            peak.sub(decay).max(magnitude).intoArray(held, i);
+        }
+        float rise = rises.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            rise += Math.max(0.0f, magnitudes[i] - held[i]);
+            held[i] = Math.max(held[i] - decay, magnitudes[i]);
+        }
+        return rise;
+    }
+
+    @Override
+    public void smooth(float[] values, float[] smoothed, float attack, float release, int length) {
+        if (length < SPECIES.length()) {
+            SCALAR.smooth(values, smoothed, attack, release, length);
+            return;
+        }
+        FloatVector attacks = FloatVector.broadcast(SPECIES, attack);
+        FloatVector releases = FloatVector.broadcast(SPECIES, release);
+        int i = 0;
+        for (int upperBound = SPECIES.loopBound(length); i < upperBound; i += SPECIES.length()) {
+            FloatVector current = FloatVector.fromArray(SPECIES, smoothed, i);
+            FloatVector difference = FloatVector.fromArray(SPECIES, values, i).sub(current);
+            FloatVector weights = releases.blend(attacks, difference.compare(VectorOperators.GT, 0.0f));
+            difference.fma(weights, current).intoArray(smoothed, i);
+        }
+        for (; i < length; i++) {
+            float difference = values[i] - smoothed[i];
+            smoothed[i] += difference * (difference > 0.0f ? attack : release);
+        }
+    }
+
+    @Override
+    public void decibelsToLinear(float[] decibels, float[] linear, int length) {
+        if (length < SPECIES.length()) {
+            SCALAR.decibelsToLinear(decibels, linear, length);
+            return;
+        }
+        float factor = ScalarSpectrumKernels.DECIBELS_TO_EXPONENT;
+        int i = 0;
+        for (int upperBound = SPECIES.loopBound(length); i < upperBound; i += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, decibels, i).mul(factor).lanewise(VectorOperators.EXP)
+                    .intoArray(linear, i);
+        }
+        for (; i < length; i++) {
+            linear[i] = (float) Math.exp(decibels[i] * factor);
+        }
+    }
+
+    @Override
+    public void normalize(float[] values, float[] levels, float offset, float scale, int length) {
+        if (length < SPECIES.length()) {
+            SCALAR.normalize(values, levels, offset, scale, length);
+            return;
+        }
+        int i = 0;
+        for (int upperBound = SPECIES.loopBound(length); i < upperBound; i += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, values, i).sub(offset).mul(scale).max(0.0f).min(1.0f)
+                    .intoArray(levels, i);
+        }
+        for (; i < length; i++) {
+            levels[i] = Math.max(0.0f, Math.min(1.0f, (values[i] - offset) * scale));
+        }
+    }
+
+    @Override
+    public void interpolate(float[] from, float[] to, float weight, float[] result, int length) {
+        if (length < SPECIES.length()) {
+            SCALAR.interpolate(from, to, weight, result, length);
+            return;
+        }
+        int i = 0;
+        for (int upperBound = SPECIES.loopBound(length); i < upperBound; i += SPECIES.length()) {
+            FloatVector start = FloatVector.fromArray(SPECIES, from, i);
+            FloatVector.fromArray(SPECIES, to, i).sub(start).mul(weight).add(start).intoArray(result, i);
+        }
+        for (; i < length; i++) {
+            result[i] = from[i] + (to[i] - from[i]) * weight;
+        }
+    }
+
+    @Override
+    public float sum(float[] values, int from, int to) {
+        if (to - from < SPECIES.length()) {
+            return SCALAR.sum(values, from, to);
+        }
+        FloatVector sums = FloatVector.zero(SPECIES);
+        int i = from;
+        for (int upperBound = from + SPECIES.loopBound(to - from); i < upperBound; i += SPECIES.length()) {
+            sums = sums.add(FloatVector.fromArray(SPECIES, values, i));
+        }
+        float sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float max(float[] values, int from, int to) {
+        if (to - from < SPECIES.length()) {
+            return SCALAR.max(values, from, to);
+        }
+        FloatVector maxima = FloatVector.broadcast(SPECIES, Float.NEGATIVE_INFINITY);
+        int i = from;
+        for (int upperBound = from + SPECIES.loopBound(to - from); i < upperBound; i += SPECIES.length()) {
+            maxima = maxima.max(FloatVector.fromArray(SPECIES, values, i));
+        }
+        float max = maxima.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
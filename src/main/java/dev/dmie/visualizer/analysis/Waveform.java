@@ -0,0 +1,89 @@
+package dev.dmie.visualizer.analysis;
+
+/**
+ * An overview of the waveform of a track, which splits the track into columns of equal length and keeps the minimum,
+ * maximum and RMS of the mono samples of each column.
+ * <p>
+ * A waveform is either a coarse estimate computed from a part of each column, or refined from all samples.
+ */
+public class Waveform {
+    /**
+     * The smallest sample of each column.
+     */
+    private final float[] minimums;
+
+    /**
+     * The largest sample of each column.
+     */
+    private final float[] maximums;
+
+    /**
+     * The root mean square of the samples of each column.
+     */
+    private final float[] rms;
+
+    /**
+     * Whether the columns were computed from all samples.
+     */
+    private final boolean refined;
+
+    /**
+     * Creates a new {@link Waveform} instance that takes ownership of the arrays.
+     * @param minimums The smallest sample of each column
+     * @param maximums The largest sample of each column
+     * @param rms The root mean square of the samples of each column
+     * @param refined Whether the columns were computed from all samples
+     */
+    Waveform(float[] minimums, float[] maximums, float[] rms, boolean refined) {
+        if (maximums.length != minimums.length || rms.length != minimums.length) {
+            throw new IllegalArgumentException("The column arrays differ in length");
+        }
+        this.minimums = minimums;
+        this.maximums = maximums;
+        this.rms = rms;
+        this.refined = refined;
+    }
+
+    /**
+     * Returns the number of columns.
+     * @return The column count
+     */
+    public int getColumnCount() {
+        return minimums.length;
+    }
+
+    /**
+     * Returns the smallest sample of a column.
+     * @param column The index of the column
+     * @return The sample in the range [-1, 1]
+     */
+    public float getMinimum(int column) {
+        return minimums[column];
+    }
+
+    /**
+     * Returns the largest sample of a column.
+     * @param column The index of the column
+     * @return The sample in the range [-1, 1]
+     */
+    public float getMaximum(int column) {
+        return maximums[column];
+    }
+
+    /**
+     * Returns the root mean square of the samples of a column.
+     * @param column The index of the column
+     * @return The root mean square in the range [0, 1]
+     */
+    public float getRms(int column) {
+        return rms[column];
+    }
+
+    /**
+     * Returns whether the columns were computed from all samples rather than estimated.
+     * @return Whether the waveform is refined
+     */
+    public boolean isRefined() {
+        return refined;
+    }
+}
@@ -0,0 +1,408 @@
+package dev.dmie.visualizer.analysis;
+
+import dev.dmie.visualizer.audio.PcmSource;
+import dev.dmie.visualizer.audio.UncompressedPcmSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Computes {@link Waveform}s of tracks and keeps them in an on-disk cache keyed by the path, size and modification time
+ * of a track and by the column count.
+ * <p>
+ * Memory-mapped tracks are downsampled in parallel by fork-join tasks that each read their own range of columns, first
+ * coarsely from the start of each column and then from all samples. Other tracks are downsampled in a single
+ * sequential pass. Only refined waveforms are cached.
+ * <p>
+ * A cache file starts with a header of the {@link WaveformCache#MAGIC} number, the format version and the column
+ * count, followed by the minimums, maximums and RMS values of the columns as little-endian floats.
+ */
+public class WaveformCache {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The magic number of a waveform file.
+     */
+    private static final int MAGIC = 0x5657464D;
+
+    /**
+     * The version of the waveform file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the file header in bytes.
+     */
+    private static final int HEADER_SIZE = 3 * 4;
+
+    /**
+     * The number of frames read from the start of each column for the coarse waveform.
+     */
+    private static final int COARSE_FRAMES = 1024;
+
+    /**
+     * The number of columns below which a fork-join task downsamples its columns itself instead of splitting them.
+     */
+    private static final int LEAF_COLUMNS = 16;
+
+    /**
+     * The number of samples read at once.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * The directory that contains the cache files.
+     */
+    private final Path directory;
+
+    /**
+     * The number of columns of the computed waveforms.
+     */
+    private final int columnCount;
+
+    /**
+     * Creates a new {@link WaveformCache} instance.
+     * @param directory The directory that contains the cache files
+     * @param columnCount The number of columns of the computed waveforms
+     */
+    public WaveformCache(Path directory, int columnCount) {
+        if (columnCount < 1) {
+            throw new IllegalArgumentException("The column count must be positive: " + columnCount);
+        }
+        this.directory = directory;
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * Finds the cached waveform of a track.
+     * @param track The path of the track
+     * @return The waveform, or an empty {@code Optional} if it is not cached or the cache file is invalid
+     */
+    public Optional<Waveform> find(Path track) {
+        try {
+            Path file = CacheFiles.resolve(directory, track, ".wfm", columnCount);
+            if (Files.exists(file)) {
+                return Optional.of(read(file));
+            }
+        } catch (IOException exception) {
+            logger.warn("Failed to read a cached waveform");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Loads the waveform of a track from the cache, or computes it and stores it in the cache, in the background.
+     * Cancelling the returned future stops the computation.
+     * @param track The path of the track
+     * @param pool The pool to compute the waveform on
+     * @param listener Called on a thread of the pool with the coarse and the refined waveform as they become available
+     * @return A future that completes with the refined waveform
+     */
+    public CompletableFuture<Waveform> loadAsync(Path track, ForkJoinPool pool, Consumer<Waveform> listener) {
+        CompletableFuture<Waveform> result = new CompletableFuture<>();
+        pool.execute(() -> {
+            try {
+                Optional<Waveform> cached = find(track);
+                Waveform waveform = cached.isPresent() ? cached.get() : compute(track, pool, listener, result::isDone);
+                if (cached.isPresent()) {
+                    listener.accept(waveform);
+                }
+                result.complete(waveform);
+            } catch (IOException | RuntimeException exception) {
+                result.completeExceptionally(exception);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Computes the waveform of a track and stores it in the cache.
+     * @param track The path of the track
+     * @param pool The pool to compute the waveform on
+     * @param listener Called with the coarse and the refined waveform
+     * @param cancelled Whether the computation should stop
+     * @return The refined waveform
+     * @throws IOException If the track could not be decoded or the cache file could not be written
+     * @throws CancellationException If the computation was stopped
+     */
+    private Waveform compute(Path track, ForkJoinPool pool, Consumer<Waveform> listener, BooleanSupplier cancelled)
+            throws IOException {
+        long start = System.nanoTime();
+        Waveform waveform;
+        try (PcmSource source = PcmSource.open(track)) {
+            long frameLength = source.getFrameLength();
+            if (frameLength < 0) {
+                throw new IOException("The length of the track is not known");
+            }
+            if (source instanceof UncompressedPcmSource) {
+                if (frameLength / columnCount > COARSE_FRAMES * 4L) {
+                    Downsampler coarse = new Downsampler(track, frameLength, columnCount, COARSE_FRAMES, cancelled);
+                    listener.accept(coarse.invoke(pool));
+                }
+                waveform = new Downsampler(track, frameLength, columnCount, Long.MAX_VALUE, cancelled).invoke(pool);
+            } else {
+                Downsampler downsampler = new Downsampler(track, frameLength, columnCount, Long.MAX_VALUE, cancelled);
+                downsampler.downsample(source, 0, columnCount);
+                waveform = downsampler.toWaveform();
+            }
+        }
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException();
+        }
+        logger.debug("Computed a waveform in {} ms", (System.nanoTime() - start) / 1_000_000);
+        listener.accept(waveform);
+        store(track, waveform);
+        return waveform;
+    }
+
+    /**
+     * Writes a refined waveform into the cache file of a track.
+     * @param track The path of the track
+     * @param waveform The waveform
+     * @throws IOException If the cache file could not be written
+     */
+    private void store(Path track, Waveform waveform) throws IOException {
+        Path file = CacheFiles.resolve(directory, track, ".wfm", columnCount);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + columnCount * 3 * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(columnCount);
+        for (int column = 0; column < columnCount; column++) {
+            buffer.putFloat(waveform.getMinimum(column));
+        }
+        for (int column = 0; column < columnCount; column++) {
+            buffer.putFloat(waveform.getMaximum(column));
+        }
+        for (int column = 0; column < columnCount; column++) {
+            buffer.putFloat(waveform.getRms(column));
+        }
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "waveform", ".tmp");
+        try {
+            Files.write(temporary, buffer.array());
+        } catch (IOException exception) {
+            Files.deleteIfExists(temporary);
+            throw exception;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Stored a waveform in the cache");
+    }
+
+    /**
+     * Reads a waveform from a cache file.
+     * @param file The path of the cache file
+     * @return The refined waveform
+     * @throws IOException If the file could not be read or is not a valid waveform
+     */
+    private Waveform read(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a waveform file");
+        }
+        int columns = buffer.getInt();
+        if (columns != columnCount || buffer.remaining() != columns * 3 * 4) {
+            throw new IOException("Corrupted waveform file");
+        }
+        float[] minimums = new float[columns];
+        float[] maximums = new float[columns];
+        float[] rms = new float[columns];
+        buffer.asFloatBuffer().get(minimums).get(maximums).get(rms);
+        return new Waveform(minimums, maximums, rms, true);
+    }
+
+    /**
+     * Downsamples a track into the columns of a {@link Waveform}.
+     */
+    private static class Downsampler {
+        /**
+         * The path of the track.
+         */
+        private final Path track;
+
+        /**
+         * The number of frames of the track.
+         */
+        private final long frameLength;
+
+        /**
+         * The maximum number of frames read from the start of each column.
+         */
+        private final long frameLimit;
+
+        /**
+         * Whether the downsampling should stop.
+         */
+        private final BooleanSupplier cancelled;
+
+        /**
+         * The smallest sample of each column.
+         */
+        private final float[] minimums;
+
+        /**
+         * The largest sample of each column.
+         */
+        private final float[] maximums;
+
+        /**
+         * The root mean square of the samples of each column.
+         */
+        private final float[] rms;
+
+        /**
+         * Creates a new {@link Downsampler} instance.
+         * @param track The path of the track
+         * @param frameLength The number of frames of the track
+         * @param columnCount The number of columns
+         * @param frameLimit The maximum number of frames read from the start of each column
+         * @param cancelled Whether the downsampling should stop
+         */
+        Downsampler(Path track, long frameLength, int columnCount, long frameLimit, BooleanSupplier cancelled) {
+            this.track = track;
+            this.frameLength = frameLength;
+            this.frameLimit = frameLimit;
+            this.cancelled = cancelled;
+            minimums = new float[columnCount];
+            maximums = new float[columnCount];
+            rms = new float[columnCount];
+        }
+
+        /**
+         * Downsamples all columns in parallel, each task reading the track through its own memory-mapped source.
+         * @param pool The pool to run the tasks on
+         * @return The waveform
+         * @throws IOException If the track could not be read
+         */
+        Waveform invoke(ForkJoinPool pool) throws IOException {
+            try {
+                pool.invoke(new DownsampleTask(this, 0, minimums.length));
+            } catch (UncheckedIOException exception) {
+                throw exception.getCause();
+            }
+            return toWaveform();
+        }
+
+        /**
+         * Returns the downsampled columns as a waveform.
+         * @return The waveform
+         */
+        Waveform toWaveform() {
+            return new Waveform(minimums, maximums, rms, frameLimit == Long.MAX_VALUE);
+        }
+
+        /**
+         * Downsamples a range of columns, seeking only where the columns are not contiguous.
+         * @param source The source to read the track from
+         * @param first The index of the first column
+         * @param last The index after the last column
+         * @throws IOException If the track could not be read
+         */
+        void downsample(PcmSource source, int first, int last) throws IOException {
+            float[] buffer = new float[BUFFER_SIZE];
+            long position = -1;
+            for (int column = first; column < last && !cancelled.getAsBoolean(); column++) {
+                long start = columnStart(column);
+                long length = Math.min(columnStart(column + 1) - start, frameLimit);
+                if (start != position) {
+                    source.seek(start);
+                }
+                float minimum = 0;
+                float maximum = 0;
+                double sum = 0;
+                long count = 0;
+                while (count < length) {
+                    int read = source.read(buffer, 0, (int) Math.min(buffer.length, length - count));
+                    if (read < 0) {
+                        break;
+                    }
+                    for (int i = 0; i < read; i++) {
+                        float sample = buffer[i];
+                        minimum = Math.min(minimum, sample);
+                        maximum = Math.max(maximum, sample);
+                        sum += sample * sample;
+                    }
+                    count += read;
+                }
+                position = start + count;
+                minimums[column] = minimum;
+                maximums[column] = maximum;
+                rms[column] = count > 0 ? (float) Math.sqrt(sum / count) : 0;
+            }
+        }
+
+        /**
+         * Returns the index of the first frame of a column.
+         * @param column The index of the column
+         * @return The index of the frame
+         */
+        private long columnStart(int column) {
+            return column * frameLength / minimums.length;
+        }
+    }
+
+    /**
+     * Downsamples a range of columns, splitting it between subtasks while it is longer than
+     * {@link WaveformCache#LEAF_COLUMNS}.
+     */
+    private static class DownsampleTask extends RecursiveAction {
+        /**
+         * The downsampler that owns the columns.
+         */
+        private final Downsampler downsampler;
+
+        /**
+         * The index of the first column.
+         */
+        private final int first;
+
+        /**
+         * The index after the last column.
+         */
+        private final int last;
+
+        /**
+         * Creates a new {@link DownsampleTask} instance.
+         * @param downsampler The downsampler that owns the columns
+         * @param first The index of the first column
+         * @param last The index after the last column
+         */
+        DownsampleTask(Downsampler downsampler, int first, int last) {
+            this.downsampler = downsampler;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (downsampler.cancelled.getAsBoolean()) {
+                return;
+            }
+            if (last - first > LEAF_COLUMNS) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new DownsampleTask(downsampler, first, middle),
+                        new DownsampleTask(downsampler, middle, last));
+                return;
+            }
+            try (UncompressedPcmSource source = new UncompressedPcmSource(downsampler.track)) {
+                downsampler.downsample(source, first, last);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
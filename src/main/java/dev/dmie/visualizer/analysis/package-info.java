@@ -0,0 +1,4 @@
+/**
+ * Spectrum analysis of decoded audio.
+ */
+package dev.dmie.visualizer.analysis;
@@ -0,0 +1,146 @@
+package dev.dmie.visualizer.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * A {@link PcmSource} that decodes WAV, AIFF and raw PCM files through the Java Sound API.
+ */
+public class AudioStreamPcmSource implements PcmSource {
+    /**
+     * The format assumed for raw PCM files, which have no header: 44.1 kHz, 16-bit, stereo, little-endian.
+     */
+    public static final AudioFormat RAW_PCM_FORMAT = new AudioFormat(44100, 16, 2, true, false);
+
+    /**
+     * The number of frames decoded at once.
+     */
+    private static final int CHUNK_FRAMES = 4096;
+
+    /**
+     * The path of the decoded file.
+     */
+    private final Path path;
+
+    /**
+     * The format samples are decoded into.
+     */
+    private final AudioFormat format;
+
+    /**
+     * The length of the file in frames.
+     */
+    private final long frameLength;
+
+    /**
+     * The buffer raw bytes are read into.
+     */
+    private final byte[] chunk;
+
+    /**
+     * The currently open stream.
+     */
+    private AudioInputStream stream;
+
+    /**
+     * Creates a new {@link AudioStreamPcmSource} instance.
+     * @param path The path of the file to decode
+     * @throws IOException If the file could not be opened or its format is not supported
+     */
+    public AudioStreamPcmSource(Path path) throws IOException {
+        this.path = path;
+        stream = openStream();
+        format = stream.getFormat();
+        frameLength = stream.getFrameLength() == AudioSystem.NOT_SPECIFIED ? -1 : stream.getFrameLength();
+        chunk = new byte[CHUNK_FRAMES * format.getFrameSize()];
+    }
+
+    /**
+     * Opens a stream of 16-bit signed little-endian samples at the start of the file.
+     * @return The opened stream
+     * @throws IOException If the file could not be opened or its format is not supported
+     */
+    private AudioInputStream openStream() throws IOException {
+        AudioInputStream source;
+        if (path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pcm")) {
+            InputStream input = new BufferedInputStream(Files.newInputStream(path));
+            long frames = Files.size(path) / RAW_PCM_FORMAT.getFrameSize();
+            source = new AudioInputStream(input, RAW_PCM_FORMAT, frames);
+        } else {
+            try {
+                source = AudioSystem.getAudioInputStream(path.toFile());
+            } catch (UnsupportedAudioFileException exception) {
+                throw new IOException("Unsupported audio file: " + path, exception);
+            }
+        }
+        AudioFormat sourceFormat = source.getFormat();
+        AudioFormat target = new AudioFormat(
+                sourceFormat.getSampleRate(), 16, sourceFormat.getChannels(), true, false);
+        if (sourceFormat.matches(target)) {
+            return source;
+        }
+        try {
+            return AudioSystem.getAudioInputStream(target, source);
+        } catch (IllegalArgumentException exception) {
+            source.close();
+            throw new IOException("Unsupported audio encoding: " + sourceFormat, exception);
+        }
+    }
+
+    @Override
+    public float getSampleRate() {
+        return format.getSampleRate();
+    }
+
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public void seek(long frame) throws IOException {
+        stream.close();
+        stream = openStream();
+        long remaining = frame * format.getFrameSize();
+        while (remaining > 0) {
+            long skipped = stream.skip(remaining);
+            if (skipped <= 0) {
+                break;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    @Override
+    public int read(float[] buffer, int offset, int length) throws IOException {
+        int frameSize = format.getFrameSize();
+        int channels = format.getChannels();
+        int bytesRead = stream.read(chunk, 0, Math.min(length, CHUNK_FRAMES) * frameSize);
+        if (bytesRead < 0) {
+            return -1;
+        }
+        int frames = bytesRead / frameSize;
+        for (int i = 0; i < frames; i++) {
+            int sum = 0;
+            int position = i * frameSize;
+            for (int channel = 0; channel < channels; channel++, position += 2) {
+                sum += (short) ((chunk[position] & 0xFF) | (chunk[position + 1] << 8));
+            }
+            buffer[offset + i] = sum / (channels * 32768.0f);
+        }
+        return frames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
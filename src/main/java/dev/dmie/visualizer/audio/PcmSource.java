@@ -0,0 +1,68 @@
+package dev.dmie.visualizer.audio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * A source of mono PCM samples in the range [-1, 1].
+ */
+public interface PcmSource extends Closeable {
+    /**
+     * Checks whether a file can be decoded by a {@link PcmSource}.
+     * @param path The path of the file
+     * @return Whether the file is supported
+     */
+    static boolean isSupported(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".wav") || name.endsWith(".aiff") || name.endsWith(".pcm");
+    }
+
+    /**
+     * Opens a {@link PcmSource} for a file. Uncompressed files are read directly by an
+     * {@link UncompressedPcmSource}; other encodings are decoded by an {@link AudioStreamPcmSource}.
+     * @param path The path of the file
+     * @return The opened source
+     * @throws IOException If the file could not be opened or its format is not supported
+     */
+    static PcmSource open(Path path) throws IOException {
+        if (!isSupported(path)) {
+            throw new IOException("Unsupported audio file: " + path);
+        }
+        try {
+            return new UncompressedPcmSource(path);
+        } catch (IOException exception) {
+            return new AudioStreamPcmSource(path);
+        }
+    }
+
+    /**
+     * Returns the sample rate of this source.
+     * @return The number of frames per second
+     */
+    float getSampleRate();
+
+    /**
+     * Returns the length of this source.
+     * @return The number of frames, or {@code -1} if the length is not known
+     */
+    long getFrameLength();
+
+    /**
+     * Moves the read position of this source.
+     * @param frame The index of the frame to read next
+     * @throws IOException If an I/O error occurs
+     */
+    void seek(long frame) throws IOException;
+
+    /**
+     * Reads frames mixed down to mono into a buffer.
+     * @param buffer The buffer to read samples into
+     * @param offset The index of the first sample to write
+     * @param length The maximum number of frames to read
+     * @return The number of frames read, or {@code -1} if the end of the source was reached
+     * @throws IOException If an I/O error occurs
+     */
+    int read(float[] buffer, int offset, int length) throws IOException;
+}
@@ -0,0 +1,464 @@
+package dev.dmie.visualizer.audio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * A {@link PcmSource} that reads the samples of uncompressed WAV, AIFF and raw PCM files directly, so that files of
+ * any size can be analyzed without decoding them into the heap.
+ * <p>
+ * The headers are parsed directly: WAV files (including RF64 files over 4 GiB) with integer samples of 8 to 32 bits
+ * or floating-point samples, and AIFF or AIFC files with uncompressed big-endian or little-endian ({@code sowt})
+ * samples or 32-bit floating-point samples. Raw PCM files are read in {@link AudioStreamPcmSource#RAW_PCM_FORMAT}.
+ * <p>
+ * Each read fills a buffer of at most {@link UncompressedPcmSource#BUFFER_SIZE} bytes, allocated once with the source,
+ * through positional reads of the file channel and converts its samples. The memory used by a source is therefore
+ * that buffer whatever the length of the recording, and closing the source releases it with the channel.
+ */
+public class UncompressedPcmSource implements PcmSource {
+    /**
+     * The number of bytes of the buffer the samples are read into.
+     */
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    /**
+     * The WAV format tag of integer samples.
+     */
+    private static final int WAVE_FORMAT_PCM = 1;
+
+    /**
+     * The WAV format tag of floating-point samples.
+     */
+    private static final int WAVE_FORMAT_IEEE_FLOAT = 3;
+
+    /**
+     * The WAV format tag whose actual format is stored in the first two bytes of a sub-format GUID.
+     */
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    /**
+     * The value of a 32-bit RIFF size that is stored in the {@code ds64} chunk of an RF64 file instead.
+     */
+    private static final long RF64_SIZE_IN_DS64 = 0xFFFFFFFFL;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The byte order of the samples.
+     */
+    private final ByteOrder order;
+
+    /**
+     * The number of channels.
+     */
+    private final int channels;
+
+    /**
+     * The number of bits of a sample.
+     */
+    private final int bitsPerSample;
+
+    /**
+     * Whether the samples are floating-point numbers.
+     */
+    private final boolean floatingPoint;
+
+    /**
+     * Whether 8-bit samples are unsigned, as in WAV files.
+     */
+    private final boolean unsignedBytes;
+
+    /**
+     * The sample rate.
+     */
+    private final float sampleRate;
+
+    /**
+     * The number of bytes of a frame.
+     */
+    private final int frameSize;
+
+    /**
+     * The position of the first sample in the file.
+     */
+    private final long dataOffset;
+
+    /**
+     * The number of frames.
+     */
+    private final long frameLength;
+
+    /**
+     * The buffer the raw samples are read into, holding whole frames in the {@link UncompressedPcmSource#order}.
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * The index of the frame to read next.
+     */
+    private long position = 0;
+
+    /**
+     * Creates a new {@link UncompressedPcmSource} instance.
+     * @param path The path of the file to read
+     * @throws IOException If the file could not be opened or its format is not supported
+     */
+    public UncompressedPcmSource(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            Header header = name.endsWith(".pcm") ? readRawHeader() : readHeader(path);
+            order = header.order;
+            channels = header.channels;
+            bitsPerSample = header.bitsPerSample;
+            floatingPoint = header.floatingPoint;
+            unsignedBytes = header.unsignedBytes;
+            sampleRate = header.sampleRate;
+            frameSize = channels * (bitsPerSample / 8);
+            dataOffset = header.dataOffset;
+            long dataSize = Math.min(header.dataSize, channel.size() - dataOffset);
+            frameLength = Math.max(0, dataSize / frameSize);
+            bytes = ByteBuffer.allocate(Math.max(1, BUFFER_SIZE / frameSize) * frameSize).order(order);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns the number of channels.
+     * @return The channel count
+     */
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * Returns the number of bits of a sample.
+     * @return The sample size in bits: 8, 16, 24, 32 or 64
+     */
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    /**
+     * Returns whether the samples are floating-point numbers.
+     * @return Whether the samples are floats or doubles
+     */
+    public boolean isFloatingPoint() {
+        return floatingPoint;
+    }
+
+    /**
+     * Returns the byte order of the samples.
+     * @return The byte order of the samples in the file
+     */
+    public ByteOrder getByteOrder() {
+        return order;
+    }
+
+    @Override
+    public float getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    @Override
+    public void seek(long frame) {
+        position = Math.max(0, Math.min(frame, frameLength));
+    }
+
+    @Override
+    public int read(float[] buffer, int offset, int length) throws IOException {
+        if (position >= frameLength) {
+            return -1;
+        }
+        int frames = (int) Math.min(Math.min(length, frameLength - position), bytes.capacity() / frameSize);
+        bytes.clear().limit(frames * frameSize);
+        long start = dataOffset + position * frameSize;
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) < 0) {
+                throw new IOException("Unexpected end of the audio file");
+            }
+        }
+        int bytesPerSample = bitsPerSample / 8;
+        float scale = 1.0f / channels;
+        for (int i = 0; i < frames; i++) {
+            float sum = 0.0f;
+            int sampleOffset = i * frameSize;
+            for (int channel = 0; channel < channels; channel++, sampleOffset += bytesPerSample) {
+                sum += getSample(sampleOffset);
+            }
+            buffer[offset + i] = sum * scale;
+        }
+        position += frames;
+        return frames;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Converts one sample of the {@link UncompressedPcmSource#bytes}.
+     * @param index The position of the sample in the buffer
+     * @return The sample in the range [-1, 1]
+     */
+    private float getSample(int index) {
+        if (floatingPoint) {
+            return bitsPerSample == 64 ? (float) bytes.getDouble(index) : bytes.getFloat(index);
+        }
+        return switch (bitsPerSample) {
+            case 8 -> unsignedBytes
+                    ? ((bytes.get(index) & 0xFF) - 128) / 128.0f
+                    : bytes.get(index) / 128.0f;
+            case 16 -> bytes.getShort(index) / 32768.0f;
+            case 24 -> {
+                int low = order == ByteOrder.LITTLE_ENDIAN ? index : index + 2;
+                int high = order == ByteOrder.LITTLE_ENDIAN ? index + 2 : index;
+                int value = bytes.get(high) << 16 | (bytes.get(index + 1) & 0xFF) << 8 | bytes.get(low) & 0xFF;
+                yield value / 8388608.0f;
+            }
+            default -> bytes.getInt(index) / 2147483648.0f;
+        };
+    }
+
+    /**
+     * Returns the header of a raw PCM file.
+     * @return The header
+     */
+    private static Header readRawHeader() {
+        Header header = new Header();
+        header.order = ByteOrder.LITTLE_ENDIAN;
+        header.channels = AudioStreamPcmSource.RAW_PCM_FORMAT.getChannels();
+        header.bitsPerSample = AudioStreamPcmSource.RAW_PCM_FORMAT.getSampleSizeInBits();
+        header.sampleRate = AudioStreamPcmSource.RAW_PCM_FORMAT.getSampleRate();
+        header.dataOffset = 0;
+        header.dataSize = Long.MAX_VALUE;
+        return header;
+    }
+
+    /**
+     * Parses the header of a WAV or AIFF file.
+     * @param path The path of the file, used in error messages
+     * @return The header
+     * @throws IOException If the header could not be read or the format is not supported
+     */
+    private Header readHeader(Path path) throws IOException {
+        ByteBuffer buffer = readBytes(0, 12, ByteOrder.BIG_ENDIAN);
+        String id = readId(buffer, 0);
+        String type = readId(buffer, 8);
+        Header header;
+        if ((id.equals("RIFF") || id.equals("RF64")) && type.equals("WAVE")) {
+            header = readWaveHeader();
+        } else if (id.equals("FORM") && (type.equals("AIFF") || type.equals("AIFC"))) {
+            header = readAiffHeader(type.equals("AIFC"));
+        } else {
+            throw new IOException("Unsupported audio file: " + path);
+        }
+        boolean validSize = header.bitsPerSample == 8 || header.bitsPerSample == 16 || header.bitsPerSample == 24
+                || header.bitsPerSample == 32 || (header.floatingPoint && header.bitsPerSample == 64);
+        if (header.channels < 1 || !validSize || (header.floatingPoint && header.bitsPerSample < 32)
+                || header.sampleRate <= 0 || header.dataOffset < 0) {
+            throw new IOException("Unsupported audio encoding: " + path);
+        }
+        return header;
+    }
+
+    /**
+     * Parses the chunks of a WAV file.
+     * @return The header
+     * @throws IOException If the header could not be read or the format is not supported
+     */
+    private Header readWaveHeader() throws IOException {
+        Header header = new Header();
+        header.order = ByteOrder.LITTLE_ENDIAN;
+        header.unsignedBytes = true;
+        header.dataOffset = -1;
+        long rf64DataSize = -1;
+        int formatTag = -1;
+        long chunk = 12;
+        while (chunk + 8 <= channel.size() && header.dataOffset < 0) {
+            ByteBuffer chunkHeader = readBytes(chunk, 8, ByteOrder.LITTLE_ENDIAN);
+            String id = readId(chunkHeader, 0);
+            long size = Integer.toUnsignedLong(chunkHeader.getInt(4));
+            switch (id) {
+                case "ds64" -> rf64DataSize = readBytes(chunk + 8, 28, ByteOrder.LITTLE_ENDIAN).getLong(8);
+                case "fmt " -> {
+                    if (size < 16) {
+                        throw new IOException("The WAV fmt chunk is too short: " + size + " bytes");
+                    }
+                    ByteBuffer format = readBytes(chunk + 8, (int) Math.min(size, 40), ByteOrder.LITTLE_ENDIAN);
+                    formatTag = format.getShort(0) & 0xFFFF;
+                    header.channels = format.getShort(2) & 0xFFFF;
+                    header.sampleRate = format.getInt(4);
+                    header.bitsPerSample = format.getShort(14) & 0xFFFF;
+                    if (formatTag == WAVE_FORMAT_EXTENSIBLE && size >= 26) {
+                        formatTag = format.getShort(24) & 0xFFFF;
+                    }
+                }
+                case "data" -> {
+                    header.dataOffset = chunk + 8;
+                    header.dataSize = size == RF64_SIZE_IN_DS64 && rf64DataSize >= 0 ? rf64DataSize : size;
+                }
+                default -> {
+                }
+            }
+            chunk += 8 + size + (size & 1);
+        }
+        if (formatTag != WAVE_FORMAT_PCM && formatTag != WAVE_FORMAT_IEEE_FLOAT) {
+            throw new IOException("Unsupported WAV format: " + formatTag);
+        }
+        header.floatingPoint = formatTag == WAVE_FORMAT_IEEE_FLOAT;
+        return header;
+    }
+
+    /**
+     * Parses the chunks of an AIFF or AIFC file.
+     * @param compressed Whether the file is an AIFC file, which names its compression type
+     * @return The header
+     * @throws IOException If the header could not be read or the format is not supported
+     */
+    private Header readAiffHeader(boolean compressed) throws IOException {
+        Header header = new Header();
+        header.order = ByteOrder.BIG_ENDIAN;
+        header.dataOffset = -1;
+        boolean common = false;
+        long chunk = 12;
+        while (chunk + 8 <= channel.size() && (!common || header.dataOffset < 0)) {
+            ByteBuffer chunkHeader = readBytes(chunk, 8, ByteOrder.BIG_ENDIAN);
+            String id = readId(chunkHeader, 0);
+            long size = Integer.toUnsignedLong(chunkHeader.getInt(4));
+            if (id.equals("COMM")) {
+                if (size < (compressed ? 22 : 18)) {
+                    throw new IOException("The AIFF COMM chunk is too short: " + size + " bytes");
+                }
+                ByteBuffer comm = readBytes(chunk + 8, compressed ? 22 : 18, ByteOrder.BIG_ENDIAN);
+                header.channels = comm.getShort(0) & 0xFFFF;
+                header.bitsPerSample = comm.getShort(6) & 0xFFFF;
+                header.sampleRate = (float) readExtended(comm, 8);
+                if (compressed) {
+                    switch (readId(comm, 18)) {
+                        case "NONE", "twos" -> {
+                        }
+                        case "sowt" -> header.order = ByteOrder.LITTLE_ENDIAN;
+                        case "fl32", "FL32" -> header.floatingPoint = true;
+                        default -> throw new IOException("Unsupported AIFC compression: " + readId(comm, 18));
+                    }
+                }
+                common = true;
+            } else if (id.equals("SSND")) {
+                long offset = Integer.toUnsignedLong(readBytes(chunk + 8, 4, ByteOrder.BIG_ENDIAN).getInt(0));
+                header.dataOffset = chunk + 16 + offset;
+                header.dataSize = size - 8 - offset;
+            }
+            chunk += 8 + size + (size & 1);
+        }
+        if (!common) {
+            throw new IOException("The AIFF file has no COMM chunk");
+        }
+        return header;
+    }
+
+    /**
+     * Reads bytes of the file into a new buffer.
+     * @param position The position of the first byte
+     * @param length The number of bytes
+     * @param byteOrder The byte order of the buffer
+     * @return The buffer
+     * @throws IOException If the bytes could not be read
+     */
+    private ByteBuffer readBytes(long position, int length, ByteOrder byteOrder) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(byteOrder);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the audio file header");
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads a four-character chunk identifier.
+     * @param buffer The buffer to read from
+     * @param index The position of the identifier
+     * @return The identifier
+     */
+    private static String readId(ByteBuffer buffer, int index) {
+        byte[] id = new byte[4];
+        buffer.get(index, id);
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads an 80-bit IEEE 754 extended precision number, in which AIFF files store the sample rate.
+     * @param buffer The big-endian buffer to read from
+     * @param index The position of the number
+     * @return The number
+     */
+    private static double readExtended(ByteBuffer buffer, int index) {
+        int exponent = buffer.getShort(index) & 0x7FFF;
+        long mantissa = buffer.getLong(index + 2);
+        double value = (mantissa >>> 1) * Math.pow(2, exponent - 16383 - 62);
+        return (buffer.get(index) & 0x80) != 0 ? -value : value;
+    }
+
+    /**
+     * The parsed header of an audio file.
+     */
+    private static class Header {
+        /**
+         * The byte order of the samples.
+         */
+        private ByteOrder order;
+
+        /**
+         * The number of channels.
+         */
+        private int channels;
+
+        /**
+         * The number of bits of a sample.
+         */
+        private int bitsPerSample;
+
+        /**
+         * Whether the samples are floating-point numbers.
+         */
+        private boolean floatingPoint;
+
+        /**
+         * Whether 8-bit samples are unsigned.
+         */
+        private boolean unsignedBytes;
+
+        /**
+         * The sample rate.
+         */
+        private float sampleRate;
+
+        /**
+         * The position of the first sample.
+         */
+        private long dataOffset;
+
+        /**
+         * The declared number of bytes of samples.
+         */
+        private long dataSize;
+    }
+}
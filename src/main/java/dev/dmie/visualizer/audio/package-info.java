@@ -0,0 +1,4 @@
+/**
+ * Decoding of audio files into PCM samples.
+ */
+package dev.dmie.visualizer.audio;
@@ -0,0 +1,414 @@
+package dev.dmie.visualizer.batch;
+
+import dev.dmie.visualizer.Settings;
+import dev.dmie.visualizer.analysis.BeatDetector;
+import dev.dmie.visualizer.analysis.SpectrumAnalyzer;
+import dev.dmie.visualizer.audio.PcmSource;
+import dev.dmie.visualizer.playlist.PlaylistScanner;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Analyzes whole playlists without a display: the duration, tempo, loudness and average spectrum of every track are
+ * written to a CSV report.
+ * <p>
+ * The tracks are analyzed in parallel on a work-stealing {@code ForkJoinPool}, one track per task, so that workers
+ * that finish short tracks take over the remaining ones. Each track is streamed through a {@link PcmSource} hop by
+ * hop, and every worker reuses its own analyzer and buffers, so the memory used by a worker does not depend on the
+ * length of the tracks.
+ */
+public class BatchAnalyzer implements Closeable {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The spectrum threshold in decibels.
+     */
+    private static final int SPECTRUM_THRESHOLD = -80;
+
+    /**
+     * The largest tempo counted in the tempo histogram, in beats per minute.
+     */
+    private static final int MAX_TEMPO = 300;
+
+    /**
+     * The lowest level reported for silent tracks, in decibels relative to full scale.
+     */
+    private static final double SILENCE_DECIBELS = -200.0;
+
+    /**
+     * The number of spectrum bands.
+     */
+    private final int bandCount;
+
+    /**
+     * The number of samples in an FFT window.
+     */
+    private final int windowSize;
+
+    /**
+     * The number of frames between two FFT windows.
+     */
+    private final int hopSize;
+
+    /**
+     * The pool that analyzes the tracks.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The analysis state of each worker.
+     */
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * Creates a new {@link BatchAnalyzer} instance.
+     * @param bandCount The number of spectrum bands
+     * @param windowSize The number of samples in an FFT window
+     * @param hopSize The number of frames between two FFT windows
+     * @param parallelism The number of tracks analyzed at once
+     */
+    public BatchAnalyzer(int bandCount, int windowSize, int hopSize, int parallelism) {
+        this.bandCount = bandCount;
+        this.windowSize = windowSize;
+        this.hopSize = Math.min(hopSize, windowSize);
+        pool = new ForkJoinPool(parallelism);
+        workers = ThreadLocal.withInitial(Worker::new);
+    }
+
+    /**
+     * Analyzes tracks in parallel. Tracks that cannot be decoded or whose analysis fails are logged as failed and left
+     * out of the results, so that one broken track does not abort the analysis of the others.
+     * @param tracks The tracks
+     * @return The analyses of the tracks in the order of the tracks
+     */
+    public List<TrackAnalysis> analyze(List<Path> tracks) {
+        TrackAnalysis[] results = new TrackAnalysis[tracks.size()];
+        long start = System.nanoTime();
+        pool.invoke(new AnalysisTask(tracks, results, 0, results.length));
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        List<TrackAnalysis> analyses = Arrays.stream(results).filter(Objects::nonNull).toList();
+        double analyzedSeconds = analyses.stream().mapToDouble(TrackAnalysis::durationSeconds).sum();
+        logger.info("Analyzed {} of {} tracks in {} s ({}x realtime)",
+                analyses.size(), tracks.size(), String.format("%.2f", elapsed),
+                String.format("%.1f", analyzedSeconds / elapsed));
+        return analyses;
+    }
+
+    /**
+     * Analyzes a single track with the analyzer and buffers of the current worker.
+     * @param track The track
+     * @return The analysis of the track
+     * @throws IOException If the track cannot be decoded
+     */
+    TrackAnalysis analyzeTrack(Path track) throws IOException {
+        return workers.get().analyze(track);
+    }
+
+    /**
+     * Writes analyses to a CSV file with one row per track. Track paths are written relative to a directory and
+     * numbers are formatted independently of the locale.
+     * @param analyses The analyses
+     * @param directory The directory the track paths are relative to
+     * @param file The CSV file
+     * @throws IOException If the file cannot be written
+     */
+    public void writeCsv(List<TrackAnalysis> analyses, Path directory, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("track,duration,tempo,rms_db,peak_db");
+            for (int band = 0; band < bandCount; band++) {
+                writer.write(",band_" + band);
+            }
+            writer.newLine();
+
+            for (TrackAnalysis analysis : analyses) {
+                Path track = analysis.track();
+                writer.write(quote((track.startsWith(directory) ? directory.relativize(track) : track).toString()));
+                writer.write(String.format(Locale.ROOT, ",%.3f,%.1f,%.2f,%.2f",
+                        analysis.durationSeconds(), analysis.tempo(), analysis.rmsDecibels(),
+                        analysis.peakDecibels()));
+                for (float magnitude : analysis.bandProfile()) {
+                    writer.write(String.format(Locale.ROOT, ",%.2f", magnitude));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Quotes a CSV field if it contains a separator, a quote or a line break.
+     * @param field The field
+     * @return The field, quoted if needed
+     */
+    private static String quote(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Converts an amplitude to decibels relative to full scale.
+     * @param amplitude The amplitude in the range [0, 1]
+     * @return The level in decibels, at least {@link BatchAnalyzer#SILENCE_DECIBELS}
+     */
+    private static double toDecibels(double amplitude) {
+        return Math.max(SILENCE_DECIBELS, 20 * Math.log10(amplitude));
+    }
+
+    /**
+     * Stops the analysis pool.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * The analyzer and buffers of a worker thread, reused for every track the worker analyzes.
+     */
+    private class Worker {
+        /**
+         * The analyzer that computes the spectra.
+         */
+        private final SpectrumAnalyzer analyzer = new SpectrumAnalyzer(windowSize, bandCount, SPECTRUM_THRESHOLD);
+
+        /**
+         * The detector that estimates the tempo.
+         */
+        private final BeatDetector beatDetector = new BeatDetector(bandCount);
+
+        /**
+         * The last {@link BatchAnalyzer#windowSize} samples, used as a ring buffer.
+         */
+        private final float[] samples = new float[windowSize];
+
+        /**
+         * The magnitudes of the current spectrum.
+         */
+        private final float[] magnitudes = new float[bandCount];
+
+        /**
+         * The phases of the current spectrum.
+         */
+        private final float[] phases = new float[bandCount];
+
+        /**
+         * The sum of the magnitudes of each band over the track.
+         */
+        private final double[] magnitudeSums = new double[bandCount];
+
+        /**
+         * The number of spectra with each rounded tempo estimate.
+         */
+        private final int[] tempoVotes = new int[MAX_TEMPO + 1];
+
+        /**
+         * Analyzes a track.
+         * @param track The track
+         * @return The analysis of the track
+         * @throws IOException If the track cannot be decoded
+         */
+        TrackAnalysis analyze(Path track) throws IOException {
+            beatDetector.reset();
+            Arrays.fill(samples, 0.0f);
+            Arrays.fill(magnitudeSums, 0.0);
+            Arrays.fill(tempoVotes, 0);
+
+            try (PcmSource source = PcmSource.open(track)) {
+                float sampleRate = source.getSampleRate();
+                double squareSum = 0.0;
+                float peak = 0.0f;
+                long frameCount = 0;
+                long spectrumCount = 0;
+                int oldest = 0;
+                while (true) {
+                    int filled = 0;
+                    while (filled < hopSize) {
+                        int index = (oldest + filled) % windowSize;
+                        int read = source.read(samples, index, Math.min(hopSize - filled, windowSize - index));
+                        if (read < 0) {
+                            break;
+                        }
+                        for (int i = index; i < index + read; i++) {
+                            float sample = samples[i];
+                            squareSum += sample * sample;
+                            peak = Math.max(peak, Math.abs(sample));
+                        }
+                        filled += read;
+                    }
+                    frameCount += filled;
+                    if (filled < hopSize) {
+                        break;
+                    }
+                    oldest = (oldest + hopSize) % windowSize;
+
+                    analyzer.analyze(samples, oldest, magnitudes, phases);
+                    for (int band = 0; band < bandCount; band++) {
+                        magnitudeSums[band] += magnitudes[band];
+                    }
+                    beatDetector.process(frameCount / (double) sampleRate, magnitudes);
+                    int tempo = (int) Math.round(beatDetector.getTempo());
+                    if (tempo > 0 && tempo <= MAX_TEMPO) {
+                        tempoVotes[tempo]++;
+                    }
+                    spectrumCount++;
+                }
+
+                float[] bandProfile = new float[bandCount];
+                for (int band = 0; band < bandCount; band++) {
+                    bandProfile[band] = spectrumCount == 0
+                            ? SPECTRUM_THRESHOLD : (float) (magnitudeSums[band] / spectrumCount);
+                }
+                double rms = frameCount == 0 ? 0.0 : Math.sqrt(squareSum / frameCount);
+                return new TrackAnalysis(track, frameCount / (double) sampleRate, mostVotedTempo(),
+                        toDecibels(rms), toDecibels(peak), bandProfile);
+            }
+        }
+
+        /**
+         * Finds the tempo estimated for the most spectra of the track.
+         * @return The tempo in beats per minute, or zero if it is not known
+         */
+        private int mostVotedTempo() {
+            int tempo = 0;
+            for (int candidate = 1; candidate <= MAX_TEMPO; candidate++) {
+                if (tempoVotes[candidate] > tempoVotes[tempo]) {
+                    tempo = candidate;
+                }
+            }
+            return tempo;
+        }
+    }
+
+    /**
+     * A task that analyzes a range of tracks, splitting it until each task analyzes a single track.
+     */
+    private class AnalysisTask extends RecursiveAction {
+        /**
+         * All tracks.
+         */
+        private final List<Path> tracks;
+
+        /**
+         * The analyses of all tracks, {@code null} for tracks that could not be decoded.
+         */
+        private final TrackAnalysis[] results;
+
+        /**
+         * The index of the first track.
+         */
+        private final int from;
+
+        /**
+         * The index after the last track.
+         */
+        private final int to;
+
+        /**
+         * Creates a new {@link AnalysisTask} instance.
+         * @param tracks All tracks
+         * @param results The analyses of all tracks
+         * @param from The index of the first track
+         * @param to The index after the last track
+         */
+        AnalysisTask(List<Path> tracks, TrackAnalysis[] results, int from, int to) {
+            this.tracks = tracks;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new AnalysisTask(tracks, results, from, middle),
+                        new AnalysisTask(tracks, results, middle, to));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            Path track = tracks.get(from);
+            try {
+                results[from] = analyzeTrack(track);
+                logger.debug("Analyzed {}", track.getFileName());
+            } catch (IOException exception) {
+                logger.warn("Skipping {}, it cannot be analyzed: {}", track.getFileName(), exception.getMessage());
+            } catch (RuntimeException exception) {
+                logger.error("Failed to analyze {}", track.getFileName(), exception);
+            }
+        }
+    }
+
+    /**
+     * The entrypoint of the headless batch analysis. The input playlist directory and the output CSV file are read
+     * from the command-line arguments, or from the {@code visualizer.batch.input} and {@code visualizer.batch.output}
+     * system properties. Tracks in subdirectories are analyzed too.
+     * @param args Command-line arguments: the input and the output
+     */
+    public static void main(String[] args) {
+        Path input = args.length > 0 ? Path.of(args[0]) : Settings.getBatchInput();
+        Path output = args.length > 1 ? Path.of(args[1]) : Settings.getBatchOutput();
+        if (input == null || output == null) {
+            logger.error("The input and the output of the batch analysis are not set");
+            System.exit(2);
+            return;
+        }
+
+        List<Path> tracks;
+        try (Stream<Path> files = Files.isDirectory(input) ? Files.walk(input) : Stream.of(input)) {
+            tracks = files
+                    .filter(Files::isRegularFile)
+                    .filter(path -> PlaylistScanner.isTrack(path.getFileName().toString()))
+                    .filter(path -> {
+                        if (PcmSource.isSupported(path)) {
+                            return true;
+                        }
+                        logger.warn("Skipping {}, it cannot be decoded", path.getFileName());
+                        return false;
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException exception) {
+            logger.error("Failed to list the tracks to analyze");
+            System.exit(1);
+            return;
+        }
+
+        try (BatchAnalyzer analyzer = new BatchAnalyzer(
+                Settings.getBandCount(),
+                Settings.getWindowSize(),
+                Settings.getHopSize(),
+                Settings.getBatchThreads())) {
+            List<TrackAnalysis> analyses = analyzer.analyze(tracks);
+            Path directory = Files.isDirectory(input)
+                    ? input : Objects.requireNonNullElse(input.getParent(), Path.of(""));
+            analyzer.writeCsv(analyses, directory, output);
+        } catch (IOException exception) {
+            logger.error("The batch analysis failed: {}", exception.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package dev.dmie.visualizer.batch;
+
+import java.nio.file.Path;
+
+/**
+ * The result of the analysis of a track.
+ * @param track The path of the track
+ * @param durationSeconds The duration of the track in seconds
+ * @param tempo The estimated tempo in beats per minute, or zero if it is not known
+ * @param rmsDecibels The root mean square of all samples in decibels relative to full scale
+ * @param peakDecibels The largest absolute sample in decibels relative to full scale
+ * @param bandProfile The average magnitude of each spectrum band in decibels
+ */
+public record TrackAnalysis(
+        Path track,
+        double durationSeconds,
+        double tempo,
+        double rmsDecibels,
+        double peakDecibels,
+        float[] bandProfile) {
+}
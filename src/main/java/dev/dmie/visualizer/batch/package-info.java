@@ -0,0 +1,4 @@
+/**
+ * Headless analysis of whole playlists into reports.
+ */
+package dev.dmie.visualizer.batch;
@@ -0,0 +1,16 @@
+package dev.dmie.visualizer.export;
+
+/**
+ * Formats of exported frames.
+ */
+public enum ExportFormat {
+    /**
+     * Indicates each frame is written into a numbered PNG file.
+     */
+    PNG,
+
+    /**
+     * Indicates all frames are written one after another into a single file of raw 8-bit RGBA pixels.
+     */
+    RGBA,
+}
@@ -0,0 +1,413 @@
+package dev.dmie.visualizer.export;
+
+import dev.dmie.visualizer.FrameRasterizer;
+import dev.dmie.visualizer.Renderer;
+import dev.dmie.visualizer.Settings;
+import dev.dmie.visualizer.VisualizationState;
+import dev.dmie.visualizer.Visualizer;
+import dev.dmie.visualizer.analysis.SpectrumAnalyzer;
+import dev.dmie.visualizer.audio.PcmSource;
+import dev.dmie.visualizer.playlist.PlaylistScanner;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Renders the visualization of tracks offline into PNG sequences or raw RGBA video without a display.
+ * <p>
+ * The tracks are decoded and analyzed, and the {@link Visualizer} state is advanced sequentially, one video frame at
+ * a time, because every frame depends on the previous one. The states of a chunk of frames are captured and then
+ * rasterized, encoded and written in parallel on a {@code ForkJoinPool}. All tracks of a playlist form one continuous
+ * sequence of frames.
+ */
+public class FrameExporter implements Closeable {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The spectrum threshold in decibels.
+     */
+    private static final int SPECTRUM_THRESHOLD = -80;
+
+    /**
+     * The maximum allowed magnitude of the visualizer.
+     */
+    private static final float MAX_MAGNITUDE = 80.0f;
+
+    /**
+     * The largest number of frames rendered by one task.
+     */
+    private static final int FRAMES_PER_TASK = 2;
+
+    /**
+     * The directory the frames are written to.
+     */
+    private final Path outputDirectory;
+
+    /**
+     * The format of the frames.
+     */
+    private final ExportFormat format;
+
+    /**
+     * The number of frames per second.
+     */
+    private final int fps;
+
+    /**
+     * The number of spectrum bands.
+     */
+    private final int bandCount;
+
+    /**
+     * The number of samples in an FFT window.
+     */
+    private final int windowSize;
+
+    /**
+     * The rasterizer that draws the frames.
+     */
+    private final FrameRasterizer rasterizer;
+
+    /**
+     * The pool that renders the frames.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The visualizer that computes the state of each frame.
+     */
+    private final Visualizer visualizer;
+
+    /**
+     * The captured bar levels of the frames of the current chunk.
+     */
+    private final float[][] levels;
+
+    /**
+     * The captured hues of the frames of the current chunk.
+     */
+    private final double[] hues;
+
+    /**
+     * The captured numbers of dot pulses of the frames of the current chunk.
+     */
+    private final long[] dotPulses;
+
+    /**
+     * The pixels of the frame each thread renders.
+     */
+    private final ThreadLocal<int[]> pixels;
+
+    /**
+     * The PNG encoder of each thread.
+     */
+    private final ThreadLocal<PngEncoder> encoders = ThreadLocal.withInitial(PngEncoder::new);
+
+    /**
+     * The RGBA buffer of each thread.
+     */
+    private final ThreadLocal<ByteBuffer> rgbaBuffers;
+
+    /**
+     * The channel of the RGBA file, or {@code null} if frames are written as PNG files.
+     */
+    private FileChannel rgbaChannel;
+
+    /**
+     * The number of frames captured in the current chunk.
+     */
+    private int capturedFrames = 0;
+
+    /**
+     * The index of the first frame of the current chunk in the whole sequence.
+     */
+    private long chunkStart = 0;
+
+    /**
+     * Creates a new {@link FrameExporter} instance.
+     * @param outputDirectory The directory the frames are written to
+     * @param format The format of the frames
+     * @param width The width of a frame in pixels
+     * @param height The height of a frame in pixels
+     * @param fps The number of frames per second
+     * @param bandCount The number of spectrum bands
+     * @param barCount The number of bars
+     * @param windowSize The number of samples in an FFT window
+     */
+    public FrameExporter(Path outputDirectory, ExportFormat format, int width, int height, int fps, int bandCount,
+                         int barCount, int windowSize) {
+        this.outputDirectory = outputDirectory;
+        this.format = format;
+        this.fps = fps;
+        this.windowSize = windowSize;
+        this.bandCount = bandCount;
+        rasterizer = new FrameRasterizer(width, height, barCount);
+        pool = new ForkJoinPool();
+        int chunkSize = pool.getParallelism() * FRAMES_PER_TASK * 4;
+        levels = new float[chunkSize][barCount];
+        hues = new double[chunkSize];
+        dotPulses = new long[chunkSize];
+        pixels = ThreadLocal.withInitial(() -> new int[width * height]);
+        rgbaBuffers = ThreadLocal.withInitial(() ->
+                ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.BIG_ENDIAN));
+
+        visualizer = new Visualizer(new Renderer() {
+            @Override
+            public void setUp(int barCount) {
+            }
+
+            @Override
+            public void render(VisualizationState state) {
+                System.arraycopy(state.getLevels(), 0, levels[capturedFrames], 0, barCount);
+                hues[capturedFrames] = state.getHue();
+                dotPulses[capturedFrames] = state.getDotPulses();
+                capturedFrames++;
+            }
+        }, bandCount, barCount, SPECTRUM_THRESHOLD, MAX_MAGNITUDE);
+    }
+
+    /**
+     * Exports the visualization of tracks as one continuous sequence of frames.
+     * @param tracks The tracks
+     * @throws IOException If a track cannot be decoded or a frame cannot be written
+     */
+    public void export(List<Path> tracks) throws IOException {
+        Files.createDirectories(outputDirectory);
+        if (format == ExportFormat.RGBA) {
+            rgbaChannel = FileChannel.open(outputDirectory.resolve("frames.rgba"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        long start = System.nanoTime();
+        double exportedSeconds = 0.0;
+        for (Path track : tracks) {
+            exportedSeconds += exportTrack(track);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        logger.info("Exported {} frames of {} tracks in {} s ({} fps, {}x realtime)",
+                chunkStart, tracks.size(), String.format("%.2f", elapsed), String.format("%.1f", chunkStart / elapsed),
+                String.format("%.1f", exportedSeconds / elapsed));
+    }
+
+    /**
+     * Decodes, analyzes and renders one track.
+     * @param track The track
+     * @return The duration of the track in seconds
+     * @throws IOException If the track cannot be decoded or a frame cannot be written
+     */
+    private double exportTrack(Path track) throws IOException {
+        logger.info("Exporting {}", track.getFileName());
+        long start = System.nanoTime();
+        long firstFrame = chunkStart;
+        SpectrumAnalyzer analyzer = new SpectrumAnalyzer(windowSize, bandCount, SPECTRUM_THRESHOLD);
+        float[] samples = new float[windowSize];
+        float[] magnitudes = new float[bandCount];
+        float[] phases = new float[bandCount];
+        visualizer.clear();
+
+        long frameCount;
+        try (PcmSource source = PcmSource.open(track)) {
+            float sampleRate = source.getSampleRate();
+            int oldest = 0;
+            long position = 0;
+            for (long frame = 0; ; frame++) {
+                long end = Math.round((frame + 1) * (double) sampleRate / fps);
+                int hop = (int) (end - position);
+                int filled = 0;
+                while (filled < hop) {
+                    int index = (oldest + filled) % windowSize;
+                    int read = source.read(samples, index, Math.min(hop - filled, windowSize - index));
+                    if (read < 0) {
+                        break;
+                    }
+                    filled += read;
+                }
+                if (filled < hop) {
+                    frameCount = frame;
+                    break;
+                }
+                oldest = (oldest + hop) % windowSize;
+                position = end;
+
+                analyzer.analyze(samples, oldest, magnitudes, phases);
+                visualizer.spectrumDataUpdate((double) end / sampleRate, 1.0 / fps, magnitudes, phases);
+                if (capturedFrames == hues.length) {
+                    flushChunk();
+                }
+            }
+        }
+        flushChunk();
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        double duration = (double) frameCount / fps;
+        logger.info("Exported {} frames in {} s ({} fps, {}x realtime)",
+                chunkStart - firstFrame, String.format("%.2f", elapsed), String.format("%.1f", frameCount / elapsed),
+                String.format("%.1f", duration / elapsed));
+        return duration;
+    }
+
+    /**
+     * Renders and writes the captured frames of the current chunk in parallel.
+     * @throws IOException If a frame cannot be written
+     */
+    private void flushChunk() throws IOException {
+        try {
+            pool.invoke(new RenderTask(0, capturedFrames));
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        chunkStart += capturedFrames;
+        capturedFrames = 0;
+    }
+
+    /**
+     * Renders and writes a captured frame.
+     * @param slot The index of the frame in the current chunk
+     * @throws IOException If the frame cannot be written
+     */
+    private void writeFrame(int slot) throws IOException {
+        int[] framePixels = pixels.get();
+        rasterizer.rasterize(levels[slot], hues[slot], dotPulses[slot], framePixels);
+        long frame = chunkStart + slot;
+        if (format == ExportFormat.PNG) {
+            ByteBuffer png = encoders.get().encode(framePixels, rasterizer.getWidth(), rasterizer.getHeight());
+            Path file = outputDirectory.resolve(String.format("frame-%06d.png", frame));
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (png.hasRemaining()) {
+                    channel.write(png);
+                }
+            }
+        } else {
+            ByteBuffer rgba = rgbaBuffers.get();
+            rgba.clear();
+            int pixelCount = rasterizer.getWidth() * rasterizer.getHeight();
+            for (int i = 0; i < pixelCount; i++) {
+                rgba.putInt(framePixels[i] << 8 | framePixels[i] >>> 24);
+            }
+            rgba.flip();
+            long offset = frame * rgba.remaining();
+            while (rgba.hasRemaining()) {
+                offset += rgbaChannel.write(rgba, offset);
+            }
+        }
+    }
+
+    /**
+     * Stops the render pool and closes the RGBA file.
+     * @throws IOException If the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        pool.shutdown();
+        if (rgbaChannel != null) {
+            rgbaChannel.close();
+        }
+    }
+
+    /**
+     * A task that renders a range of captured frames, splitting it between workers.
+     */
+    private class RenderTask extends RecursiveAction {
+        /**
+         * The index of the first frame in the current chunk.
+         */
+        private final int from;
+
+        /**
+         * The index after the last frame in the current chunk.
+         */
+        private final int to;
+
+        /**
+         * Creates a new {@link RenderTask} instance.
+         * @param from The index of the first frame in the current chunk
+         * @param to The index after the last frame in the current chunk
+         */
+        RenderTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > FRAMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RenderTask(from, middle), new RenderTask(middle, to));
+                return;
+            }
+            try {
+                for (int slot = from; slot < to; slot++) {
+                    writeFrame(slot);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    /**
+     * The entrypoint of the headless export. The input track or playlist directory and the output directory are read
+     * from the command-line arguments, or from the {@code visualizer.export.input} and {@code visualizer.export.output}
+     * system properties.
+     * @param args Command-line arguments: the input and the output
+     */
+    public static void main(String[] args) {
+        Path input = args.length > 0 ? Path.of(args[0]) : Settings.getExportInput();
+        Path output = args.length > 1 ? Path.of(args[1]) : Settings.getExportOutput();
+        if (input == null || output == null) {
+            logger.error("The input and the output of the export are not set");
+            System.exit(2);
+            return;
+        }
+
+        List<Path> tracks;
+        try (Stream<Path> files = Files.isDirectory(input) ? Files.list(input) : Stream.of(input)) {
+            tracks = files
+                    .filter(path -> PlaylistScanner.isTrack(path.getFileName().toString()))
+                    .filter(path -> {
+                        if (PcmSource.isSupported(path)) {
+                            return true;
+                        }
+                        logger.warn("Skipping {}, it cannot be decoded", path.getFileName());
+                        return false;
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException exception) {
+            logger.error("Failed to list the tracks to export");
+            System.exit(1);
+            return;
+        }
+
+        try (FrameExporter exporter = new FrameExporter(
+                output,
+                Settings.getExportFormat(),
+                Settings.getExportWidth(),
+                Settings.getExportHeight(),
+                Settings.getExportFps(),
+                Settings.getBandCount(),
+                Settings.getBarCount(),
+                Settings.getWindowSize())) {
+            exporter.export(tracks);
+        } catch (IOException exception) {
+            logger.error("The export failed: {}", exception.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package dev.dmie.visualizer.export;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes opaque ARGB frames into PNG images with 8-bit RGB pixels.
+ * <p>
+ * Every row is stored with the "sub" filter, which turns the flat areas of the visualization into runs of zeros that
+ * compress well even at the fastest compression level. An encoder reuses its buffers between frames and is not
+ * thread-safe, so each thread should use its own instance.
+ */
+public class PngEncoder {
+    /**
+     * The signature that starts every PNG file.
+     */
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * The PNG filter type that stores each byte as the difference to the byte of the previous pixel.
+     */
+    private static final byte SUB_FILTER = 1;
+
+    /**
+     * The number of bytes per pixel.
+     */
+    private static final int PIXEL_SIZE = 3;
+
+    /**
+     * The compressor of the image data.
+     */
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    /**
+     * The checksum of the chunks.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * The filtered image data.
+     */
+    private byte[] filtered = new byte[0];
+
+    /**
+     * The encoded image.
+     */
+    private byte[] output = new byte[0];
+
+    /**
+     * The number of bytes written to {@link PngEncoder#output}.
+     */
+    private int length;
+
+    /**
+     * Encodes a frame.
+     * @param pixels The ARGB pixels of the frame in rows
+     * @param width The width of the frame
+     * @param height The height of the frame
+     * @return A buffer with the encoded image, valid until the next call
+     */
+    public ByteBuffer encode(int[] pixels, int width, int height) {
+        int rowSize = 1 + width * PIXEL_SIZE;
+        int filteredSize = rowSize * height;
+        if (filtered.length < filteredSize) {
+            filtered = new byte[filteredSize];
+            output = new byte[filteredSize + filteredSize / 8 + 1024];
+        }
+        filter(pixels, width, height, rowSize);
+        length = 0;
+
+        writeBytes(SIGNATURE);
+        int start = beginChunk("IHDR");
+        writeInt(width);
+        writeInt(height);
+        output[length++] = 8;
+        output[length++] = 2;
+        output[length++] = 0;
+        output[length++] = 0;
+        output[length++] = 0;
+        endChunk(start);
+
+        start = beginChunk("IDAT");
+        deflater.reset();
+        deflater.setInput(filtered, 0, filteredSize);
+        deflater.finish();
+        while (!deflater.finished()) {
+            if (length == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            length += deflater.deflate(output, length, output.length - length);
+        }
+        endChunk(start);
+
+        start = beginChunk("IEND");
+        endChunk(start);
+        return ByteBuffer.wrap(output, 0, length);
+    }
+
+    /**
+     * Converts the pixels into filtered RGB rows.
+     * @param pixels The ARGB pixels of the frame in rows
+     * @param width The width of the frame
+     * @param height The height of the frame
+     * @param rowSize The number of bytes of a filtered row
+     */
+    private void filter(int[] pixels, int width, int height, int rowSize) {
+        for (int y = 0; y < height; y++) {
+            int offset = y * rowSize;
+            filtered[offset++] = SUB_FILTER;
+            int previous = 0;
+            for (int x = 0; x < width; x++) {
+                int pixel = pixels[y * width + x];
+                filtered[offset++] = (byte) ((pixel >> 16) - (previous >> 16));
+                filtered[offset++] = (byte) ((pixel >> 8) - (previous >> 8));
+                filtered[offset++] = (byte) (pixel - previous);
+                previous = pixel;
+            }
+        }
+    }
+
+    /**
+     * Writes the header of a chunk with a length to be filled in by {@link PngEncoder#endChunk}.
+     * @param type The type of the chunk
+     * @return The position of the chunk type
+     */
+    private int beginChunk(String type) {
+        ensureCapacity(8);
+        length += 4;
+        int start = length;
+        writeBytes(type.getBytes(StandardCharsets.US_ASCII));
+        return start;
+    }
+
+    /**
+     * Fills in the length of a chunk and writes its checksum.
+     * @param start The position of the chunk type
+     */
+    private void endChunk(int start) {
+        int dataLength = length - start - 4;
+        int end = length;
+        length = start - 4;
+        writeInt(dataLength);
+        length = end;
+        crc.reset();
+        crc.update(output, start, end - start);
+        writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Writes a big-endian integer.
+     * @param value The integer
+     */
+    private void writeInt(int value) {
+        ensureCapacity(4);
+        output[length++] = (byte) (value >>> 24);
+        output[length++] = (byte) (value >>> 16);
+        output[length++] = (byte) (value >>> 8);
+        output[length++] = (byte) value;
+    }
+
+    /**
+     * Writes bytes.
+     * @param bytes The bytes
+     */
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, output, length, bytes.length);
+        length += bytes.length;
+    }
+
+    /**
+     * Grows the {@link PngEncoder#output} to fit more bytes.
+     * @param count The number of bytes to fit
+     */
+    private void ensureCapacity(int count) {
+        if (length + count > output.length) {
+            output = Arrays.copyOf(output, Math.max(output.length * 2, length + count));
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Headless export of the visualization of tracks into image sequences.
+ */
+package dev.dmie.visualizer.export;
@@ -0,0 +1,146 @@
+package dev.dmie.visualizer.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies with log-linear buckets.
+ * <p>
+ * Like an HDR histogram, every power of two is split into {@value #SUB_BUCKETS} linear buckets, so any recorded
+ * value is known to within about 6 % regardless of its magnitude, and recording a value costs a few atomic additions
+ * without allocating.
+ */
+public class LatencyHistogram {
+    /**
+     * The number of bits of a value that select its bucket within a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of buckets needed for all non-negative {@code long} values.
+     */
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * The number of values in each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * The number of recorded values.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The sum of the recorded values.
+     */
+    private final AtomicLong sum = new AtomicLong();
+
+    /**
+     * The largest recorded value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     * @param nanos The latency in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     * @return The count
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     * @return The mean in nanoseconds, or zero if nothing was recorded
+     */
+    public double getMean() {
+        long recorded = count.get();
+        return recorded == 0 ? 0.0 : (double) sum.get() / recorded;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     * @return The maximum in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns a percentile of the recorded values.
+     * @param percentile The percentile in the range [0, 100]
+     * @return The upper bound of the bucket that contains the percentile in nanoseconds, or zero if nothing was
+     *         recorded
+     */
+    public long getPercentile(double percentile) {
+        long recorded = count.get();
+        if (recorded == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(recorded * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Forgets all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Returns the bucket of a value.
+     * @param value The non-negative value
+     * @return The index of the bucket
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Returns the largest value of a bucket.
+     * @param bucket The index of the bucket
+     * @return The largest value that falls into the bucket
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,22 @@
+package dev.dmie.visualizer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded when the visualization is rendered. Created only while its type is enabled.
+ */
+@Name("dev.dmie.visualizer.Render")
+@Label("Render")
+@Category("Visualizer")
+@Description("A render of the visualization in a JavaFX pulse")
+public class RenderEvent extends Event {
+    /**
+     * The progress of the animation towards the latest spectrum frame.
+     */
+    @Label("Progress")
+    public double progress;
+}
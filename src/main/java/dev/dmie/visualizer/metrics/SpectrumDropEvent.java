@@ -0,0 +1,23 @@
+package dev.dmie.visualizer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event recorded when spectrum frames were dropped because their consumer did not keep up. Created only while
+ * its type is enabled.
+ */
+@Name("dev.dmie.visualizer.SpectrumDrop")
+@Label("Spectrum Drop")
+@Category("Visualizer")
+@Description("Spectrum frames dropped since the previous pulse")
+public class SpectrumDropEvent extends Event {
+    /**
+     * The number of dropped frames.
+     */
+    @Label("Dropped Frames")
+    public long count;
+}
@@ -0,0 +1,31 @@
+package dev.dmie.visualizer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A JFR event recorded when a spectrum frame is processed for the visualization. Created only while its type is
+ * enabled.
+ */
+@Name("dev.dmie.visualizer.SpectrumUpdate")
+@Label("Spectrum Update")
+@Category("Visualizer")
+@Description("A spectrum frame processed for the visualization")
+public class SpectrumUpdateEvent extends Event {
+    /**
+     * The playback time that passed since the end of the frame when it was processed.
+     */
+    @Label("Lateness")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lateness;
+
+    /**
+     * Whether the frame was processed later than its own duration.
+     */
+    @Label("Late")
+    public boolean late;
+}
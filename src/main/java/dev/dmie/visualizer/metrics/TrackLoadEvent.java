@@ -0,0 +1,22 @@
+package dev.dmie.visualizer.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event that spans loading a track until its player is ready.
+ */
+@Name("dev.dmie.visualizer.TrackLoad")
+@Label("Track Load")
+@Category("Visualizer")
+@Description("Loading a track until its player is ready")
+public class TrackLoadEvent extends Event {
+    /**
+     * The file name of the track.
+     */
+    @Label("Track")
+    public String track;
+}
@@ -0,0 +1,242 @@
+package dev.dmie.visualizer.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects latency histograms and counters of the visualizer and exposes them over JMX.
+ * <p>
+ * There is a single instance per process, registered in the platform {@code MBeanServer} when it is first used.
+ * Recording is lock-free and does not allocate, so it can stay enabled in production.
+ */
+public final class VisualizerMetrics implements VisualizerMetricsMXBean {
+    /**
+     * The name the metrics are registered under.
+     */
+    public static final String OBJECT_NAME = "dev.dmie.visualizer:type=Metrics";
+
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The shortest time between two measurements of the allocation rate in nanoseconds.
+     */
+    private static final long ALLOCATION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The single instance.
+     */
+    private static final VisualizerMetrics instance = new VisualizerMetrics();
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+        } catch (JMException exception) {
+            logger.warn("Failed to register the metrics MBean");
+        }
+    }
+
+    /**
+     * The times of processing spectrum frames.
+     */
+    private final LatencyHistogram spectrumUpdates = new LatencyHistogram();
+
+    /**
+     * The times of rendering the visualization.
+     */
+    private final LatencyHistogram renders = new LatencyHistogram();
+
+    /**
+     * The times from loading a track until its player is ready.
+     */
+    private final LatencyHistogram trackLoads = new LatencyHistogram();
+
+    /**
+     * The number of spectrum frames processed later than their own duration.
+     */
+    private final AtomicLong lateSpectrumFrames = new AtomicLong();
+
+    /**
+     * The number of dropped spectrum frames.
+     */
+    private final AtomicLong droppedSpectrumFrames = new AtomicLong();
+
+    /**
+     * The thread bean that measures allocation, or {@code null} if allocation cannot be measured.
+     */
+    private final com.sun.management.ThreadMXBean allocationBean;
+
+    /**
+     * The rate at which the render thread allocates in bytes per second.
+     */
+    private volatile long allocationRate = -1;
+
+    /**
+     * The time of the last allocation measurement in nanoseconds.
+     */
+    private long allocationSampleNanos = 0;
+
+    /**
+     * The bytes allocated by the render thread at the last allocation measurement.
+     */
+    private long allocationSampleBytes = 0;
+
+    /**
+     * Creates the single {@link VisualizerMetrics} instance.
+     */
+    private VisualizerMetrics() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean allocationBean
+                && allocationBean.isThreadAllocatedMemorySupported()) {
+            this.allocationBean = allocationBean;
+        } else {
+            this.allocationBean = null;
+        }
+    }
+
+    /**
+     * Returns the single instance.
+     * @return The metrics
+     */
+    public static VisualizerMetrics get() {
+        return instance;
+    }
+
+    /**
+     * Records a spectrum frame processed for the visualization.
+     * @param nanos The time of processing the frame in nanoseconds
+     * @param late Whether the frame was processed later than its own duration
+     */
+    public void recordSpectrumUpdate(long nanos, boolean late) {
+        spectrumUpdates.record(nanos);
+        if (late) {
+            lateSpectrumFrames.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records a render of the visualization and, at most once per second, measures the allocation rate of the
+     * calling thread, which is expected to be the render thread.
+     * @param nanos The time of rendering in nanoseconds
+     */
+    public void recordRender(long nanos) {
+        renders.record(nanos);
+        if (allocationBean == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - allocationSampleNanos < ALLOCATION_INTERVAL_NANOS) {
+            return;
+        }
+        long bytes = allocationBean.getCurrentThreadAllocatedBytes();
+        if (allocationSampleNanos != 0) {
+            allocationRate = (long) ((bytes - allocationSampleBytes) * 1e9 / (now - allocationSampleNanos));
+        }
+        allocationSampleNanos = now;
+        allocationSampleBytes = bytes;
+    }
+
+    /**
+     * Records the time from loading a track until its player is ready.
+     * @param nanos The time in nanoseconds
+     */
+    public void recordTrackLoad(long nanos) {
+        trackLoads.record(nanos);
+    }
+
+    /**
+     * Records dropped spectrum frames.
+     * @param count The number of dropped frames
+     */
+    public void recordDroppedSpectrumFrames(long count) {
+        droppedSpectrumFrames.addAndGet(count);
+    }
+
+    @Override
+    public long getSpectrumUpdateCount() {
+        return spectrumUpdates.getCount();
+    }
+
+    @Override
+    public double getSpectrumUpdateMedianMicros() {
+        return spectrumUpdates.getPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getSpectrumUpdateP99Micros() {
+        return spectrumUpdates.getPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getSpectrumUpdateMaxMicros() {
+        return spectrumUpdates.getMax() / 1e3;
+    }
+
+    @Override
+    public long getRenderCount() {
+        return renders.getCount();
+    }
+
+    @Override
+    public double getRenderMedianMicros() {
+        return renders.getPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getRenderP99Micros() {
+        return renders.getPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getRenderMaxMicros() {
+        return renders.getMax() / 1e3;
+    }
+
+    @Override
+    public long getTrackLoadCount() {
+        return trackLoads.getCount();
+    }
+
+    @Override
+    public double getTrackLoadMedianMillis() {
+        return trackLoads.getPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getTrackLoadMaxMillis() {
+        return trackLoads.getMax() / 1e6;
+    }
+
+    @Override
+    public long getLateSpectrumFrames() {
+        return lateSpectrumFrames.get();
+    }
+
+    @Override
+    public long getDroppedSpectrumFrames() {
+        return droppedSpectrumFrames.get();
+    }
+
+    @Override
+    public long getRenderThreadAllocationRate() {
+        return allocationRate;
+    }
+
+    @Override
+    public void reset() {
+        spectrumUpdates.reset();
+        renders.reset();
+        trackLoads.reset();
+        lateSpectrumFrames.set(0);
+        droppedSpectrumFrames.set(0);
+    }
+}
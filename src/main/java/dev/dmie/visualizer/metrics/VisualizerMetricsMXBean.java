@@ -0,0 +1,95 @@
+package dev.dmie.visualizer.metrics;
+
+/**
+ * The JMX interface of the {@link VisualizerMetrics}, registered as {@value VisualizerMetrics#OBJECT_NAME}.
+ */
+public interface VisualizerMetricsMXBean {
+    /**
+     * Returns the number of spectrum frames processed for the visualization.
+     * @return The count
+     */
+    long getSpectrumUpdateCount();
+
+    /**
+     * Returns the median time of processing a spectrum frame.
+     * @return The median in microseconds
+     */
+    double getSpectrumUpdateMedianMicros();
+
+    /**
+     * Returns the 99th percentile of the time of processing a spectrum frame.
+     * @return The percentile in microseconds
+     */
+    double getSpectrumUpdateP99Micros();
+
+    /**
+     * Returns the longest time of processing a spectrum frame.
+     * @return The maximum in microseconds
+     */
+    double getSpectrumUpdateMaxMicros();
+
+    /**
+     * Returns the number of renders of the visualization.
+     * @return The count
+     */
+    long getRenderCount();
+
+    /**
+     * Returns the median time of rendering the visualization.
+     * @return The median in microseconds
+     */
+    double getRenderMedianMicros();
+
+    /**
+     * Returns the 99th percentile of the time of rendering the visualization.
+     * @return The percentile in microseconds
+     */
+    double getRenderP99Micros();
+
+    /**
+     * Returns the longest time of rendering the visualization.
+     * @return The maximum in microseconds
+     */
+    double getRenderMaxMicros();
+
+    /**
+     * Returns the number of loaded tracks.
+     * @return The count
+     */
+    long getTrackLoadCount();
+
+    /**
+     * Returns the median time from loading a track until its player is ready.
+     * @return The median in milliseconds
+     */
+    double getTrackLoadMedianMillis();
+
+    /**
+     * Returns the longest time from loading a track until its player is ready.
+     * @return The maximum in milliseconds
+     */
+    double getTrackLoadMaxMillis();
+
+    /**
+     * Returns the number of spectrum frames processed later than their own duration.
+     * @return The count
+     */
+    long getLateSpectrumFrames();
+
+    /**
+     * Returns the number of spectrum frames dropped because the render loop did not keep up.
+     * @return The count
+     */
+    long getDroppedSpectrumFrames();
+
+    /**
+     * Returns the rate at which the render thread allocates memory, measured over the last second.
+     * @return The rate in bytes per second, or -1 if it cannot be measured
+     */
+    long getRenderThreadAllocationRate();
+
+    /**
+     * Forgets all recorded values.
+     */
+    void reset();
+}
@@ -0,0 +1,7 @@
+/**
+ * Latency histograms, JFR events and the JMX interface of the visualizer instrumentation.
+ * <p>
+ * The events of every frame and pulse are created only while their {@code EventType} is enabled, because creating a
+ * disabled event still allocates it on a path that must not allocate.
+ */
+package dev.dmie.visualizer.metrics;
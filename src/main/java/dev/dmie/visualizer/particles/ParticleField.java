@@ -0,0 +1,199 @@
+package dev.dmie.visualizer.particles;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A field of audio-reactive particles that drift across the unit square and wrap around its edges.
+ * <p>
+ * The particles are split into groups, one per spectrum band range, and each group moves faster and shines brighter
+ * the louder its band is; beats push all particles forward for a moment. The state of the particles is kept in
+ * primitive arrays, one per coordinate, with the particles of a group stored next to each other, so a group is moved
+ * by a single loop over contiguous memory that the {@link ParticleKernel} can vectorize. The particles are drawn
+ * into a pixel buffer, which is shown as one image.
+ */
+public class ParticleField {
+    /**
+     * The speed of particles of a silent band in units per second.
+     */
+    private static final float BASE_SPEED = 0.01f;
+
+    /**
+     * The speed added to particles of a band at full level in units per second.
+     */
+    private static final float LEVEL_SPEED = 0.12f;
+
+    /**
+     * The factor that a beat multiplies the speed of all particles with.
+     */
+    private static final float BEAT_BOOST = 4.0f;
+
+    /**
+     * The rate at which the beat boost decays, per second.
+     */
+    private static final float BEAT_DECAY = 6.0f;
+
+    /**
+     * The brightness of a particle of a silent band in the range [0, 255].
+     */
+    private static final int BASE_BRIGHTNESS = 40;
+
+    /**
+     * The brightness added to a particle of a band at full level.
+     */
+    private static final int LEVEL_BRIGHTNESS = 180;
+
+    /**
+     * The level above which particles are drawn as two by two pixels instead of a single pixel.
+     */
+    private static final float LARGE_LEVEL = 0.6f;
+
+    /**
+     * The kernel that moves the particles.
+     */
+    private final ParticleKernel kernel;
+
+    /**
+     * The horizontal position of each particle in the range [0, 1).
+     */
+    private final float[] x;
+
+    /**
+     * The vertical position of each particle in the range [0, 1).
+     */
+    private final float[] y;
+
+    /**
+     * The horizontal velocity of each particle.
+     */
+    private final float[] vx;
+
+    /**
+     * The vertical velocity of each particle.
+     */
+    private final float[] vy;
+
+    /**
+     * The index of the first particle of each group, followed by the number of particles.
+     */
+    private final int[] groupStarts;
+
+    /**
+     * The current level of each group in the range [0, 1].
+     */
+    private final float[] groupLevels;
+
+    /**
+     * The current factor of the beat boost, zero when no beat is boosting the particles.
+     */
+    private float beatBoost = 0.0f;
+
+    /**
+     * Creates a new {@link ParticleField} instance with particles at random positions moving in random directions.
+     * @param particleCount The number of particles
+     * @param groupCount The number of groups, which usually equals the number of bars
+     * @param vectorized Whether the particles are moved with the Vector API when it is available
+     */
+    public ParticleField(int particleCount, int groupCount, boolean vectorized) {
+        kernel = ParticleKernel.create(vectorized);
+        x = new float[particleCount];
+        y = new float[particleCount];
+        vx = new float[particleCount];
+        vy = new float[particleCount];
+        groupStarts = new int[groupCount + 1];
+        groupLevels = new float[groupCount];
+        for (int group = 0; group <= groupCount; group++) {
+            groupStarts[group] = (int) ((long) particleCount * group / groupCount);
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < particleCount; i++) {
+            x[i] = (float) random.nextDouble();
+            y[i] = (float) random.nextDouble();
+            double angle = random.nextDouble(2 * Math.PI);
+            double speed = random.nextDouble(0.5, 1.0);
+            vx[i] = (float) (Math.cos(angle) * speed);
+            vy[i] = (float) (Math.sin(angle) * speed);
+        }
+    }
+
+    /**
+     * Returns the number of particles.
+     * @return The particle count
+     */
+    public int getParticleCount() {
+        return x.length;
+    }
+
+    /**
+     * Returns whether the particles are moved with the Vector API.
+     * @return Whether the field is vectorized
+     */
+    public boolean isVectorized() {
+        return kernel.isVectorized();
+    }
+
+    /**
+     * Moves the particles.
+     * @param elapsedSeconds The time since the previous update in seconds
+     * @param levels The level of each bar in the range [0, 1]
+     * @param levelCount The number of shown bars, which are spread over the groups
+     * @param beat Whether a beat occurred since the previous update
+     */
+    public void update(double elapsedSeconds, float[] levels, int levelCount, boolean beat) {
+        float seconds = (float) Math.min(elapsedSeconds, 0.1);
+        if (beat) {
+            beatBoost = BEAT_BOOST;
+        }
+        float boost = 1.0f + beatBoost;
+        beatBoost *= (float) Math.exp(-BEAT_DECAY * seconds);
+
+        int groupCount = groupLevels.length;
+        for (int group = 0; group < groupCount; group++) {
+            float level = levelCount == 0 ? 0.0f : levels[(int) ((long) group * levelCount / groupCount)];
+            groupLevels[group] = level;
+            float step = seconds * (BASE_SPEED + LEVEL_SPEED * level) * boost;
+            kernel.advance(x, y, vx, vy, groupStarts[group], groupStarts[group + 1], step);
+        }
+    }
+
+    /**
+     * Draws the particles as white points that add up where they overlap.
+     * @param pixels The pixels in premultiplied ARGB format, cleared before drawing
+     * @param width The width of the pixel buffer
+     * @param height The height of the pixel buffer
+     */
+    public void rasterize(int[] pixels, int width, int height) {
+        Arrays.fill(pixels, 0, width * height, 0);
+        if (width < 2 || height < 2) {
+            return;
+        }
+        float maxX = width - 2;
+        float maxY = height - 2;
+        for (int group = 0; group < groupLevels.length; group++) {
+            float level = groupLevels[group];
+            int brightness = BASE_BRIGHTNESS + (int) (LEVEL_BRIGHTNESS * level);
+            boolean large = level > LARGE_LEVEL;
+            for (int i = groupStarts[group]; i < groupStarts[group + 1]; i++) {
+                int index = (int) Math.min(y[i] * height, maxY) * width + (int) Math.min(x[i] * width, maxX);
+                plot(pixels, index, brightness);
+                if (large) {
+                    plot(pixels, index + 1, brightness);
+                    plot(pixels, index + width, brightness);
+                    plot(pixels, index + width + 1, brightness);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the brightness of a white point to a pixel, saturating at full white.
+     * @param pixels The pixels in premultiplied ARGB format
+     * @param index The index of the pixel
+     * @param brightness The brightness of the point in the range [0, 255]
+     */
+    private static void plot(int[] pixels, int index, int brightness) {
+        int value = Math.min(255, (pixels[index] & 0xFF) + brightness);
+        pixels[index] = value * 0x01010101;
+    }
+}
@@ -0,0 +1,37 @@
+package dev.dmie.visualizer.particles;
+
+/**
+ * Moves a range of particles stored in structure-of-arrays buffers.
+ */
+interface ParticleKernel {
+    /**
+     * Creates a kernel, vectorized with the Vector API if requested and the {@code jdk.incubator.vector} module is
+     * present.
+     * @param vectorized Whether a vectorized kernel is preferred
+     * @return The kernel
+     */
+    static ParticleKernel create(boolean vectorized) {
+        if (vectorized && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return new VectorParticleKernel();
+        }
+        return new ScalarParticleKernel();
+    }
+
+    /**
+     * Returns whether this kernel is vectorized.
+     * @return Whether the Vector API is used
+     */
+    boolean isVectorized();
+
+    /**
+     * Moves particles by their velocities and wraps them around the edges of the unit square.
+     * @param x The horizontal position of each particle in the range [0, 1)
+     * @param y The vertical position of each particle in the range [0, 1)
+     * @param vx The horizontal velocity of each particle
+     * @param vy The vertical velocity of each particle
+     * @param from The index of the first moved particle
+     * @param to The index after the last moved particle
+     * @param step The time the particles move for, at most one unit of time
+     */
+    void advance(float[] x, float[] y, float[] vx, float[] vy, int from, int to, float step);
+}
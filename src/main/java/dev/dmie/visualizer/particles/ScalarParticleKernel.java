@@ -0,0 +1,29 @@
+package dev.dmie.visualizer.particles;
+
+/**
+ * A {@link ParticleKernel} that moves one particle at a time, used when the Vector API is not available. The loop
+ * has no branches, so the JIT compiler can still vectorize it on its own.
+ */
+final class ScalarParticleKernel implements ParticleKernel {
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    public void advance(float[] x, float[] y, float[] vx, float[] vy, int from, int to, float step) {
+        for (int i = from; i < to; i++) {
+            x[i] = wrap(x[i] + vx[i] * step);
+            y[i] = wrap(y[i] + vy[i] * step);
+        }
+    }
+
+    /**
+     * Wraps a coordinate back into the unit range.
+     * @param coordinate The coordinate
+     * @return The coordinate in the range [0, 1], where 1 only results from rounding tiny negative coordinates
+     */
+    private static float wrap(float coordinate) {
+        return coordinate - (float) Math.floor(coordinate);
+    }
+}
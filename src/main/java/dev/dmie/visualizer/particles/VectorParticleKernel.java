@@ -0,0 +1,65 @@
+package dev.dmie.visualizer.particles;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link ParticleKernel} that moves as many particles at a time as fit into the preferred SIMD register. Only
+ * loaded when the {@code jdk.incubator.vector} module is present.
+ */
+final class VectorParticleKernel implements ParticleKernel {
+    /**
+     * The preferred vector shape of the CPU.
+     */
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public void advance(float[] x, float[] y, float[] vx, float[] vy, int from, int to, float step) {
+        int i = from;
+        for (int upperBound = from + SPECIES.loopBound(to - from); i < upperBound; i += SPECIES.length()) {
+            advance(x, vx, i, step);
+            advance(y, vy, i, step);
+        }
+        for (; i < to; i++) {
+            x[i] = wrap(x[i] + vx[i] * step);
+            y[i] = wrap(y[i] + vy[i] * step);
+        }
+    }
+
+    /**
+     * Moves one coordinate of a vector of particles and wraps it into the unit range.
+     * @param positions The coordinates of all particles
+     * @param velocities The velocities of all particles along the coordinate
+     * @param index The index of the first particle of the vector
+     * @param step The time the particles move for
+     */
+    private static void advance(float[] positions, float[] velocities, int index, float step) {
+        FloatVector position = FloatVector.fromArray(SPECIES, positions, index)
+                .add(FloatVector.fromArray(SPECIES, velocities, index).mul(step));
+        VectorMask<Float> below = position.compare(VectorOperators.LT, 0.0f);
+        VectorMask<Float> above = position.compare(VectorOperators.GE, 1.0f);
+        position.add(1.0f, below).sub(1.0f, above).intoArray(positions, index);
+    }
+
+    /**
+     * Wraps a coordinate that left the unit range by less than one unit back into it.
+     * @param coordinate The coordinate in the range [-1, 2)
+     * @return The coordinate in the range [0, 1)
+     */
+    private static float wrap(float coordinate) {
+        if (coordinate < 0.0f) {
+            return coordinate + 1.0f;
+        }
+        if (coordinate >= 1.0f) {
+            return coordinate - 1.0f;
+        }
+        return coordinate;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Simulation of audio-reactive particle fields in structure-of-arrays buffers.
+ */
+package dev.dmie.visualizer.particles;
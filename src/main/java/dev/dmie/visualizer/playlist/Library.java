@@ -0,0 +1,543 @@
+package dev.dmie.visualizer.playlist;
+
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The tracks of a playlist sorted by directory and file name, with their titles and artists and a search index.
+ * <p>
+ * Tracks are stored in columns indexed by a track id that never changes: the directory of each track is an id into
+ * a pool of directory names and the artist an id into a pool of artist names, so a library of hundred thousand tracks
+ * keeps only one string per file name and title. The sorted order maps positions, which are shown to the user, to
+ * track ids; removed tracks keep their id but have no position.
+ * <p>
+ * The search index maps every trigram of the case and accent folded file names, titles and artists to the ids of the
+ * tracks that contain it. A query is answered by checking only the tracks of its rarest trigram, so that filtering
+ * takes milliseconds. Queries shorter than a trigram check all tracks. This class is not thread-safe.
+ */
+public class Library {
+    /**
+     * The number of characters of an indexed n-gram.
+     */
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * The lower case characters without accents of the Latin characters.
+     */
+    private static final char[] FOLDED = createFoldedTable();
+
+    /**
+     * The pool of directory names.
+     */
+    private final StringPool directories = new StringPool();
+
+    /**
+     * The pool of artist names.
+     */
+    private final StringPool artists = new StringPool();
+
+    /**
+     * The trigrams of the search index mapped to the ids of the tracks that contain them.
+     */
+    private final Map<Integer, Postings> postings = new HashMap<>();
+
+    /**
+     * The directory id of each track.
+     */
+    private int[] trackDirectories = new int[0];
+
+    /**
+     * The file name of each track.
+     */
+    private String[] names = new String[0];
+
+    /**
+     * The title of each track, or {@code null} if it is not known.
+     */
+    private String[] titles = new String[0];
+
+    /**
+     * The artist id of each track, or {@code -1} if the artist is not known.
+     */
+    private int[] trackArtists = new int[0];
+
+    /**
+     * The number of track ids that were assigned.
+     */
+    private int trackCount = 0;
+
+    /**
+     * The id of the track at each position.
+     */
+    private int[] order = new int[0];
+
+    /**
+     * The position of each track, or {@code -1} if the track was removed.
+     */
+    private int[] positions = new int[0];
+
+    /**
+     * Returns the number of tracks.
+     * @return The track count
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * Returns whether the library has no tracks.
+     * @return Whether the library is empty
+     */
+    public boolean isEmpty() {
+        return order.length == 0;
+    }
+
+    /**
+     * Returns the path of a track.
+     * @param position The position of the track
+     * @return The path
+     */
+    public Path get(int position) {
+        int id = order[position];
+        String directory = directories.get(trackDirectories[id]);
+        return directory.isEmpty() ? Path.of(names[id]) : Path.of(directory, names[id]);
+    }
+
+    /**
+     * Returns the file name of a track.
+     * @param position The position of the track
+     * @return The file name
+     */
+    public String getName(int position) {
+        return names[order[position]];
+    }
+
+    /**
+     * Returns the title of a track.
+     * @param position The position of the track
+     * @return The title, or {@code null} if it is not known
+     */
+    public String getTitle(int position) {
+        return titles[order[position]];
+    }
+
+    /**
+     * Returns the artist of a track.
+     * @param position The position of the track
+     * @return The artist, or {@code null} if it is not known
+     */
+    public String getArtist(int position) {
+        int artist = trackArtists[order[position]];
+        return artist < 0 ? null : artists.get(artist);
+    }
+
+    /**
+     * Finds the position of a track.
+     * @param track The path of the track
+     * @return The position, or {@code -1} if the track is not in the library
+     */
+    public int indexOf(Path track) {
+        return indexOf(directoryOf(track), track.getFileName().toString());
+    }
+
+    /**
+     * Finds the position of a track.
+     * @param directory The directory name of the track
+     * @param name The file name of the track
+     * @return The position, or {@code -1} if the track is not in the library
+     */
+    private int indexOf(String directory, String name) {
+        int low = 0;
+        int high = order.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = order[middle];
+            int result = directories.get(trackDirectories[id]).compareTo(directory);
+            if (result == 0) {
+                result = names[id].compareTo(name);
+            }
+            if (result < 0) {
+                low = middle + 1;
+            } else if (result > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds tracks that are not in the library yet.
+     * @param tracks The paths of the tracks
+     * @return The paths of the added tracks
+     */
+    public List<Path> add(Collection<Path> tracks) {
+        Candidate[] sorted = tracks.stream()
+                .map(track -> new Candidate(track, directoryOf(track), track.getFileName().toString()))
+                .sorted(Comparator.comparing(Candidate::directory).thenComparing(Candidate::name))
+                .toArray(Candidate[]::new);
+        List<Path> added = new ArrayList<>(sorted.length);
+        int firstId = trackCount;
+        ensureCapacity(trackCount + sorted.length);
+        for (int i = 0; i < sorted.length; i++) {
+            Candidate candidate = sorted[i];
+            if (i > 0 && candidate.path().equals(sorted[i - 1].path())
+                    || indexOf(candidate.directory(), candidate.name()) >= 0) {
+                continue;
+            }
+            int id = trackCount++;
+            trackDirectories[id] = directories.intern(candidate.directory());
+            names[id] = candidate.name();
+            trackArtists[id] = -1;
+            index(id, names[id]);
+            added.add(candidate.path());
+        }
+        if (added.isEmpty()) {
+            return added;
+        }
+
+        int[] merged = new int[order.length + added.size()];
+        int copied = 0;
+        for (int id = firstId; id < trackCount; id++) {
+            int insertion = insertionPoint(id);
+            System.arraycopy(order, copied, merged, copied + id - firstId, insertion - copied);
+            merged[insertion + id - firstId] = id;
+            copied = insertion;
+        }
+        System.arraycopy(order, copied, merged, copied + trackCount - firstId, order.length - copied);
+        setOrder(merged);
+        return added;
+    }
+
+    /**
+     * Removes tracks from the library.
+     * @param filter Selects the removed tracks
+     * @return The former positions of the removed tracks in ascending order
+     */
+    public int[] remove(Predicate<Path> filter) {
+        int[] removed = new int[order.length];
+        int removedCount = 0;
+        int[] kept = new int[order.length];
+        int keptCount = 0;
+        for (int position = 0; position < order.length; position++) {
+            if (filter.test(get(position))) {
+                removed[removedCount++] = position;
+            } else {
+                kept[keptCount++] = order[position];
+            }
+        }
+        if (removedCount > 0) {
+            setOrder(Arrays.copyOf(kept, keptCount));
+        }
+        return Arrays.copyOf(removed, removedCount);
+    }
+
+    /**
+     * Sets the title and artist of a track and adds them to the search index.
+     * @param track The path of the track
+     * @param metadata The metadata of the track
+     */
+    public void setMetadata(Path track, TrackMetadata metadata) {
+        int position = indexOf(track);
+        if (position < 0) {
+            return;
+        }
+        int id = order[position];
+        if (metadata.title() != null && !metadata.title().equals(titles[id])) {
+            titles[id] = metadata.title();
+            index(id, metadata.title());
+        }
+        if (metadata.artist() != null) {
+            int artist = artists.intern(metadata.artist());
+            if (artist != trackArtists[id]) {
+                trackArtists[id] = artist;
+                index(id, metadata.artist());
+            }
+        }
+    }
+
+    /**
+     * Finds the tracks whose file name, title or artist contains a query, ignoring case and accents.
+     * @param query The query
+     * @return The positions of the found tracks in ascending order, or all positions if the query is blank
+     */
+    public int[] search(String query) {
+        String folded = fold(query.strip());
+        if (folded.isEmpty()) {
+            int[] all = new int[order.length];
+            Arrays.setAll(all, position -> position);
+            return all;
+        }
+        int[] candidates = null;
+        int candidateCount = trackCount;
+        if (folded.length() >= GRAM_LENGTH) {
+            for (int i = 0; i + GRAM_LENGTH <= folded.length(); i++) {
+                Postings gram = postings.get(gramKey(folded, i));
+                if (gram == null) {
+                    return new int[0];
+                }
+                if (candidates == null || gram.size < candidateCount) {
+                    candidates = gram.ids;
+                    candidateCount = gram.size;
+                }
+            }
+        }
+        BitSet found = new BitSet(order.length);
+        for (int i = 0; i < candidateCount; i++) {
+            int id = candidates == null ? i : candidates[i];
+            int position = positions[id];
+            if (position >= 0 && !found.get(position) && matches(id, folded)) {
+                found.set(position);
+            }
+        }
+        return found.stream().toArray();
+    }
+
+    /**
+     * Checks whether the file name, title or artist of a track contains a folded query.
+     * @param id The id of the track
+     * @param folded The folded query
+     * @return Whether the track matches
+     */
+    private boolean matches(int id, String folded) {
+        return contains(names[id], folded)
+                || (titles[id] != null && contains(titles[id], folded))
+                || (trackArtists[id] >= 0 && contains(artists.get(trackArtists[id]), folded));
+    }
+
+    /**
+     * Finds the position in the sorted order before which a track that is not in it belongs.
+     * @param id The id of the track
+     * @return The position of the first track sorted after it
+     */
+    private int insertionPoint(int id) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(order[middle], id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares two tracks by their directory names and then their file names.
+     * @param first The id of the first track
+     * @param second The id of the second track
+     * @return A negative number, zero or a positive number if the first track is sorted before, with or after the
+     *         second track
+     */
+    private int compare(int first, int second) {
+        int result = directories.get(trackDirectories[first]).compareTo(directories.get(trackDirectories[second]));
+        return result != 0 ? result : names[first].compareTo(names[second]);
+    }
+
+    /**
+     * Adds the trigrams of a text to the search index.
+     * @param id The id of the track that contains the text
+     * @param text The text
+     */
+    private void index(int id, String text) {
+        int key = 0;
+        for (int i = 0; i < text.length(); i++) {
+            key = (key << 10 | fold(text.charAt(i)) & 0x3FF) & 0x3FFFFFFF;
+            if (i >= GRAM_LENGTH - 1) {
+                postings.computeIfAbsent(key, unused -> new Postings()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Replaces the sorted order of tracks and updates their positions.
+     * @param order The id of the track at each position
+     */
+    private void setOrder(int[] order) {
+        this.order = order;
+        Arrays.fill(positions, -1);
+        for (int position = 0; position < order.length; position++) {
+            positions[order[position]] = position;
+        }
+    }
+
+    /**
+     * Grows the columns to hold a number of tracks.
+     * @param capacity The number of tracks
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= names.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, names.length + (names.length >> 1));
+        trackDirectories = Arrays.copyOf(trackDirectories, newCapacity);
+        names = Arrays.copyOf(names, newCapacity);
+        titles = Arrays.copyOf(titles, newCapacity);
+        trackArtists = Arrays.copyOf(trackArtists, newCapacity);
+        positions = Arrays.copyOf(positions, newCapacity);
+    }
+
+    /**
+     * Returns the directory name of a track.
+     * @param track The path of the track
+     * @return The directory name, or an empty string if the path has no parent
+     */
+    private static String directoryOf(Path track) {
+        Path parent = track.getParent();
+        return parent == null ? "" : parent.toString();
+    }
+
+    /**
+     * Converts a text to lower case and removes accents.
+     * @param text The text
+     * @return The folded text
+     */
+    private static String fold(String text) {
+        char[] folded = new char[text.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(text.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Converts a character to lower case and removes its accent.
+     * @param character The character
+     * @return The folded character
+     */
+    private static char fold(char character) {
+        return character < FOLDED.length ? FOLDED[character] : Character.toLowerCase(character);
+    }
+
+    /**
+     * Checks whether a text contains a folded query, ignoring case and accents, without folding the whole text.
+     * @param text The text
+     * @param folded The folded query
+     * @return Whether the text contains the query
+     */
+    private static boolean contains(String text, String folded) {
+        int last = text.length() - folded.length();
+        for (int start = 0; start <= last; start++) {
+            int i = 0;
+            while (i < folded.length() && fold(text.charAt(start + i)) == folded.charAt(i)) {
+                i++;
+            }
+            if (i == folded.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Packs the trigram at an index of a folded text into a key. Characters are truncated to 10 bits, so distinct
+     * trigrams may share a key; {@link Library#matches} filters out such false candidates.
+     * @param folded The folded text
+     * @param index The index of the first character of the trigram
+     * @return The key
+     */
+    private static int gramKey(String folded, int index) {
+        return (folded.charAt(index) & 0x3FF) << 20
+                | (folded.charAt(index + 1) & 0x3FF) << 10
+                | (folded.charAt(index + 2) & 0x3FF);
+    }
+
+    /**
+     * Creates the table of folded Latin characters.
+     * @return The folded character of each character up to Latin Extended-B
+     */
+    private static char[] createFoldedTable() {
+        char[] table = new char[0x250];
+        for (char character = 0; character < table.length; character++) {
+            String lowerCase = String.valueOf(Character.toLowerCase(character));
+            table[character] = Normalizer.normalize(lowerCase, Normalizer.Form.NFD).charAt(0);
+        }
+        return table;
+    }
+
+    /**
+     * A track to be added, with the names that it is sorted by.
+     * @param path The path of the track
+     * @param directory The directory name of the track
+     * @param name The file name of the track
+     */
+    private record Candidate(Path path, String directory, String name) {
+    }
+
+    /**
+     * A pool that stores each distinct string once and refers to it by an id.
+     */
+    private static class StringPool {
+        /**
+         * The strings by their ids.
+         */
+        private final List<String> strings = new ArrayList<>();
+
+        /**
+         * The ids of the strings.
+         */
+        private final Map<String, Integer> ids = new HashMap<>();
+
+        /**
+         * Returns the id of a string, adding it to the pool if it is not there yet.
+         * @param string The string
+         * @return The id
+         */
+        int intern(String string) {
+            return ids.computeIfAbsent(string, key -> {
+                strings.add(key);
+                return strings.size() - 1;
+            });
+        }
+
+        /**
+         * Returns the string with an id.
+         * @param id The id
+         * @return The string
+         */
+        String get(int id) {
+            return strings.get(id);
+        }
+    }
+
+    /**
+     * The ids of the tracks that contain a trigram.
+     */
+    private static class Postings {
+        /**
+         * The ids, with unused space at the end.
+         */
+        private int[] ids = new int[2];
+
+        /**
+         * The number of ids.
+         */
+        private int size = 0;
+
+        /**
+         * Adds an id unless it is the last added id.
+         * @param id The id of the track
+         */
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
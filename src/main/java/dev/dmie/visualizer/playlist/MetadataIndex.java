@@ -0,0 +1,226 @@
+package dev.dmie.visualizer.playlist;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A persistent index of {@link TrackMetadata} that reads missing metadata in parallel in the background.
+ * <p>
+ * Entries are keyed by the absolute path of a track and are valid as long as the size and the modification time of
+ * the track do not change. The whole index is stored in a single file, so reopening a large playlist costs one file
+ * read instead of opening every track.
+ */
+public class MetadataIndex {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The magic number of an index file.
+     */
+    private static final int MAGIC = 0x564D4958;
+
+    /**
+     * The version of the index file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * An indexed entry.
+     * @param size The size of the track in bytes
+     * @param modified The modification time of the track in milliseconds
+     * @param metadata The metadata of the track
+     */
+    private record Entry(long size, long modified, TrackMetadata metadata) {
+    }
+
+    /**
+     * The file the index is stored in.
+     */
+    private final Path file;
+
+    /**
+     * The indexed entries by the absolute path of the track.
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The executor that reads metadata.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The number of running index requests.
+     */
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+
+    /**
+     * Creates a new {@link MetadataIndex} instance and loads the index file if it exists.
+     * @param file The file the index is stored in
+     */
+    public MetadataIndex(Path file) {
+        this.file = file;
+        int threads = Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Metadata Indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        load();
+    }
+
+    /**
+     * Returns the indexed metadata of a track.
+     * @param track The path of the track
+     * @return The metadata, or {@code null} if the track is not indexed
+     */
+    public TrackMetadata get(Path track) {
+        Entry entry = entries.get(key(track));
+        return entry == null ? null : entry.metadata();
+    }
+
+    /**
+     * Indexes tracks, reading the metadata of tracks that are not indexed or changed in parallel. The index file is
+     * saved when no index requests are running anymore.
+     * @param tracks The paths of the tracks
+     * @return A future that completes when all tracks are indexed
+     */
+    public CompletableFuture<Void> index(List<Path> tracks) {
+        pendingRequests.incrementAndGet();
+        CompletableFuture<?>[] futures = tracks.stream()
+                .map(track -> CompletableFuture.runAsync(() -> indexTrack(track), executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).whenCompleteAsync((result, exception) -> {
+            if (pendingRequests.decrementAndGet() == 0) {
+                save();
+            }
+        }, executor);
+    }
+
+    /**
+     * Indexes a track unless its entry is up to date.
+     * @param track The path of the track
+     */
+    private void indexTrack(Path track) {
+        String key = key(track);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(track, BasicFileAttributes.class);
+            long modified = attributes.lastModifiedTime().toMillis();
+            Entry entry = entries.get(key);
+            if (entry != null && entry.size() == attributes.size() && entry.modified() == modified) {
+                return;
+            }
+            TrackMetadata metadata = MetadataReader.read(track);
+            entries.put(key, new Entry(attributes.size(), modified, metadata));
+        } catch (IOException | RuntimeException exception) {
+            logger.warn("Failed to read the metadata of a track");
+        }
+    }
+
+    /**
+     * Loads the index file.
+     */
+    private void load() {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                logger.warn("Ignoring a metadata index of an unknown format");
+                return;
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = input.readUTF();
+                long size = input.readLong();
+                long modified = input.readLong();
+                long duration = input.readLong();
+                String title = readNullableString(input);
+                String artist = readNullableString(input);
+                entries.put(path, new Entry(size, modified, new TrackMetadata(title, artist, duration)));
+            }
+            logger.info("Loaded {} entries of the metadata index", count);
+        } catch (NoSuchFileException exception) {
+            logger.info("There is no metadata index yet");
+        } catch (IOException exception) {
+            logger.warn("Failed to load the metadata index");
+        }
+    }
+
+    /**
+     * Saves the index file.
+     */
+    private synchronized void save() {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), "metadata", ".tmp");
+            try (DataOutputStream output =
+                         new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                List<Map.Entry<String, Entry>> snapshot = List.copyOf(entries.entrySet());
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> entry : snapshot) {
+                    TrackMetadata metadata = entry.getValue().metadata();
+                    output.writeUTF(entry.getKey());
+                    output.writeLong(entry.getValue().size());
+                    output.writeLong(entry.getValue().modified());
+                    output.writeLong(metadata.durationMillis());
+                    writeNullableString(output, metadata.title());
+                    writeNullableString(output, metadata.artist());
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            logger.warn("Failed to save the metadata index");
+        }
+    }
+
+    /**
+     * Reads a string that may be {@code null}.
+     * @param input The stream to read from
+     * @return The string
+     * @throws IOException If an I/O error occurs
+     */
+    private static String readNullableString(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    /**
+     * Writes a string that may be {@code null}.
+     * @param output The stream to write to
+     * @param value The string
+     * @throws IOException If an I/O error occurs
+     */
+    private static void writeNullableString(DataOutputStream output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    /**
+     * Returns the key of a track.
+     * @param track The path of the track
+     * @return The absolute normalized path of the track
+     */
+    private static String key(Path track) {
+        return track.toAbsolutePath().normalize().toString();
+    }
+}
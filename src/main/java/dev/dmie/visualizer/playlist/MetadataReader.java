@@ -0,0 +1,453 @@
+package dev.dmie.visualizer.playlist;
+
+import dev.dmie.visualizer.audio.AudioStreamPcmSource;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Reads tags and computes exact durations of tracks without opening them as media.
+ * <p>
+ * MP3 and AAC durations are computed by walking all frame headers, which is exact for variable bitrate files too.
+ * M4A durations come from the movie header, WAV and AIFF durations from the file header.
+ */
+public final class MetadataReader {
+    /**
+     * The bitrates of MPEG-1 frames in kbit/s, indexed by layer and bitrate index.
+     */
+    private static final int[][] MPEG1_BITRATES = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+    };
+
+    /**
+     * The bitrates of MPEG-2 and MPEG-2.5 frames in kbit/s, indexed by layer and bitrate index.
+     */
+    private static final int[][] MPEG2_BITRATES = {
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+    };
+
+    /**
+     * The sample rates of MPEG-1 frames, indexed by sample rate index.
+     */
+    private static final int[] MPEG1_SAMPLE_RATES = {44100, 48000, 32000};
+
+    /**
+     * The sample rates of ADTS frames, indexed by sample rate index.
+     */
+    private static final int[] ADTS_SAMPLE_RATES =
+            {96000, 88200, 64000, 48000, 44100, 32000, 24000, 22050, 16000, 12000, 11025, 8000, 7350};
+
+    /**
+     * The largest number of bytes skipped while looking for the next frame header.
+     */
+    private static final int MAX_RESYNC = 64 * 1024;
+
+    /**
+     * Prevents instantiation.
+     */
+    private MetadataReader() {
+    }
+
+    /**
+     * Reads the metadata of a track.
+     * @param track The path of the track
+     * @return The metadata, with unknown fields left empty
+     * @throws IOException If the track could not be read
+     */
+    public static TrackMetadata read(Path track) throws IOException {
+        String name = track.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".wav") || name.endsWith(".aiff")) {
+            return readSampled(track);
+        }
+        if (name.endsWith(".pcm")) {
+            long frames = Files.size(track) / AudioStreamPcmSource.RAW_PCM_FORMAT.getFrameSize();
+            return new TrackMetadata(null, null,
+                    (long) (frames * 1000 / AudioStreamPcmSource.RAW_PCM_FORMAT.getSampleRate()));
+        }
+        try (FileChannel channel = FileChannel.open(track, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return TrackMetadata.UNKNOWN;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (name.endsWith(".mp3")) {
+                return readMpeg(buffer);
+            }
+            if (name.endsWith(".aac")) {
+                return readAdts(buffer);
+            }
+            if (name.endsWith(".m4a")) {
+                return readMp4(buffer);
+            }
+        }
+        return TrackMetadata.UNKNOWN;
+    }
+
+    /**
+     * Reads the metadata of a WAV or AIFF track from its header.
+     * @param track The path of the track
+     * @return The metadata
+     * @throws IOException If the track could not be read
+     */
+    private static TrackMetadata readSampled(Path track) throws IOException {
+        try {
+            AudioFileFormat format = AudioSystem.getAudioFileFormat(track.toFile());
+            if (format.getFrameLength() == AudioSystem.NOT_SPECIFIED) {
+                return TrackMetadata.UNKNOWN;
+            }
+            long duration = (long) (format.getFrameLength() * 1000L / format.getFormat().getFrameRate());
+            return new TrackMetadata(null, null, duration);
+        } catch (UnsupportedAudioFileException exception) {
+            return TrackMetadata.UNKNOWN;
+        }
+    }
+
+    /**
+     * Reads the ID3v2 tag and the duration of an MP3 track.
+     * @param buffer The content of the track
+     * @return The metadata
+     */
+    private static TrackMetadata readMpeg(ByteBuffer buffer) {
+        String[] tags = new String[2];
+        int position = readId3(buffer, tags);
+        int limit = buffer.limit();
+
+        long samples = 0;
+        int sampleRate = 0;
+        int skipped = 0;
+        boolean first = true;
+        while (position + 4 <= limit) {
+            int header = buffer.getInt(position);
+            int length = mpegFrameLength(header);
+            if (length <= 0 || (first && !isMpegFrameFollowed(buffer, position + length))) {
+                if (++skipped > MAX_RESYNC) {
+                    break;
+                }
+                position++;
+                continue;
+            }
+            skipped = 0;
+            int frameSampleRate = mpegSampleRate(header);
+            if (!(first && isXingFrame(buffer, position, length))) {
+                samples += mpegSamplesPerFrame(header);
+                sampleRate = frameSampleRate;
+            }
+            first = false;
+            position += length;
+        }
+        long duration = sampleRate > 0 ? samples * 1000 / sampleRate : -1;
+        return new TrackMetadata(tags[0], tags[1], duration);
+    }
+
+    /**
+     * Checks whether a valid MPEG frame header starts at a position, or the buffer ends there.
+     * @param buffer The content of the track
+     * @param position The position
+     * @return Whether a frame follows
+     */
+    private static boolean isMpegFrameFollowed(ByteBuffer buffer, int position) {
+        return position + 4 > buffer.limit() || mpegFrameLength(buffer.getInt(position)) > 0;
+    }
+
+    /**
+     * Checks whether an MPEG frame is a Xing or Info header, which carries no audio.
+     * @param buffer The content of the track
+     * @param position The position of the frame
+     * @param length The length of the frame
+     * @return Whether the frame is a Xing or Info header
+     */
+    private static boolean isXingFrame(ByteBuffer buffer, int position, int length) {
+        int end = Math.min(buffer.limit() - 4, position + Math.min(length, 40));
+        for (int i = position + 4; i < end; i++) {
+            int tag = buffer.getInt(i);
+            if (tag == 0x58696E67 || tag == 0x496E666F) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the length of an MPEG audio frame.
+     * @param header The first four bytes of the frame
+     * @return The length in bytes, or {@code -1} if the header is not valid
+     */
+    private static int mpegFrameLength(int header) {
+        if ((header >>> 21) != 0x7FF) {
+            return -1;
+        }
+        int version = (header >>> 19) & 3;
+        int layer = (header >>> 17) & 3;
+        int bitrateIndex = (header >>> 12) & 0xF;
+        int sampleRateIndex = (header >>> 10) & 3;
+        if (version == 1 || layer == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return -1;
+        }
+        int padding = (header >>> 9) & 1;
+        int[][] bitrates = version == 3 ? MPEG1_BITRATES : MPEG2_BITRATES;
+        int bitrate = bitrates[3 - layer][bitrateIndex] * 1000;
+        int sampleRate = mpegSampleRate(header);
+        if (layer == 3) {
+            return (12 * bitrate / sampleRate + padding) * 4;
+        }
+        return mpegSamplesPerFrame(header) / 8 * bitrate / sampleRate + padding;
+    }
+
+    /**
+     * Returns the sample rate of an MPEG audio frame.
+     * @param header The first four bytes of a valid frame
+     * @return The sample rate
+     */
+    private static int mpegSampleRate(int header) {
+        int version = (header >>> 19) & 3;
+        int sampleRate = MPEG1_SAMPLE_RATES[(header >>> 10) & 3];
+        return version == 3 ? sampleRate : version == 2 ? sampleRate / 2 : sampleRate / 4;
+    }
+
+    /**
+     * Returns the number of samples in an MPEG audio frame.
+     * @param header The first four bytes of a valid frame
+     * @return The number of samples
+     */
+    private static int mpegSamplesPerFrame(int header) {
+        int version = (header >>> 19) & 3;
+        int layer = (header >>> 17) & 3;
+        if (layer == 3) {
+            return 384;
+        }
+        return layer == 1 && version != 3 ? 576 : 1152;
+    }
+
+    /**
+     * Reads the title and artist from an ID3v2 tag at the start of a buffer.
+     * @param buffer The content of the track
+     * @param tags The array to store the title and the artist in
+     * @return The position after the tag, or 0 if there is no tag
+     */
+    private static int readId3(ByteBuffer buffer, String[] tags) {
+        if (buffer.limit() < 10 || buffer.get(0) != 'I' || buffer.get(1) != 'D' || buffer.get(2) != '3') {
+            return 0;
+        }
+        int major = buffer.get(3);
+        int flags = buffer.get(5);
+        int size = syncsafe(buffer.getInt(6));
+        int end = Math.min(buffer.limit(), 10 + size);
+        int position = 10;
+        if ((flags & 0x40) != 0 && major >= 3 && position + 4 <= end) {
+            int extendedSize = buffer.getInt(position);
+            position += major == 4 ? syncsafe(extendedSize) : extendedSize + 4;
+        }
+
+        int idLength = major == 2 ? 3 : 4;
+        int headerLength = major == 2 ? 6 : 10;
+        while (position + headerLength <= end && buffer.get(position) != 0) {
+            String id = ascii(buffer, position, idLength);
+            int frameSize;
+            if (major == 2) {
+                frameSize = buffer.getInt(position + 2) & 0xFFFFFF;
+            } else {
+                frameSize = buffer.getInt(position + 4);
+                if (major == 4) {
+                    frameSize = syncsafe(frameSize);
+                }
+            }
+            int content = position + headerLength;
+            if (frameSize <= 0 || content + frameSize > end) {
+                break;
+            }
+            if (id.equals("TIT2") || id.equals("TT2")) {
+                tags[0] = id3Text(buffer, content, frameSize);
+            } else if (id.equals("TPE1") || id.equals("TP1")) {
+                tags[1] = id3Text(buffer, content, frameSize);
+            }
+            position = content + frameSize;
+        }
+        return 10 + size + ((flags & 0x10) != 0 ? 10 : 0);
+    }
+
+    /**
+     * Decodes an ID3v2 text frame.
+     * @param buffer The content of the track
+     * @param position The position of the frame content
+     * @param length The length of the frame content
+     * @return The text
+     */
+    private static String id3Text(ByteBuffer buffer, int position, int length) {
+        Charset charset = switch (buffer.get(position)) {
+            case 1 -> StandardCharsets.UTF_16;
+            case 2 -> StandardCharsets.UTF_16BE;
+            case 3 -> StandardCharsets.UTF_8;
+            default -> StandardCharsets.ISO_8859_1;
+        };
+        byte[] bytes = new byte[length - 1];
+        buffer.get(position + 1, bytes);
+        String text = new String(bytes, charset);
+        int terminator = text.indexOf('\0');
+        text = (terminator >= 0 ? text.substring(0, terminator) : text).strip();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Decodes a 28-bit syncsafe integer.
+     * @param value The encoded integer
+     * @return The decoded integer
+     */
+    private static int syncsafe(int value) {
+        return (value & 0x7F) | ((value >> 8) & 0x7F) << 7 | ((value >> 16) & 0x7F) << 14
+                | ((value >> 24) & 0x7F) << 21;
+    }
+
+    /**
+     * Reads the ID3v2 tag and the duration of an ADTS AAC track.
+     * @param buffer The content of the track
+     * @return The metadata
+     */
+    private static TrackMetadata readAdts(ByteBuffer buffer) {
+        String[] tags = new String[2];
+        int position = readId3(buffer, tags);
+        int limit = buffer.limit();
+        long samples = 0;
+        int sampleRate = 0;
+        int skipped = 0;
+        while (position + 7 <= limit) {
+            int b1 = buffer.get(position + 1) & 0xFF;
+            int b2 = buffer.get(position + 2) & 0xFF;
+            int sampleRateIndex = (b2 >> 2) & 0xF;
+            int length = ((buffer.get(position + 3) & 3) << 11)
+                    | ((buffer.get(position + 4) & 0xFF) << 3)
+                    | ((buffer.get(position + 5) & 0xFF) >> 5);
+            if ((buffer.get(position) & 0xFF) != 0xFF || (b1 & 0xF6) != 0xF0
+                    || sampleRateIndex >= ADTS_SAMPLE_RATES.length || length < 7) {
+                if (++skipped > MAX_RESYNC) {
+                    break;
+                }
+                position++;
+                continue;
+            }
+            skipped = 0;
+            samples += 1024L * ((buffer.get(position + 6) & 3) + 1);
+            sampleRate = ADTS_SAMPLE_RATES[sampleRateIndex];
+            position += length;
+        }
+        long duration = sampleRate > 0 ? samples * 1000 / sampleRate : -1;
+        return new TrackMetadata(tags[0], tags[1], duration);
+    }
+
+    /**
+     * Reads the tags and the duration of an M4A track from its {@code moov} box.
+     * @param buffer The content of the track
+     * @return The metadata
+     */
+    private static TrackMetadata readMp4(ByteBuffer buffer) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        String[] tags = new String[2];
+        long duration = -1;
+        int moov = findBox(buffer, 0, buffer.limit(), "moov");
+        if (moov >= 0) {
+            int moovEnd = moov + buffer.getInt(moov);
+            int mvhd = findBox(buffer, moov + 8, moovEnd, "mvhd");
+            if (mvhd >= 0) {
+                int version = buffer.get(mvhd + 8);
+                int timescale = buffer.getInt(mvhd + (version == 1 ? 28 : 20));
+                long length = version == 1
+                        ? buffer.getLong(mvhd + 32)
+                        : buffer.getInt(mvhd + 24) & 0xFFFFFFFFL;
+                if (timescale > 0) {
+                    duration = length * 1000 / timescale;
+                }
+            }
+            int udta = findBox(buffer, moov + 8, moovEnd, "udta");
+            int meta = udta >= 0 ? findBox(buffer, udta + 8, udta + buffer.getInt(udta), "meta") : -1;
+            int ilst = meta >= 0 ? findBox(buffer, meta + 12, meta + buffer.getInt(meta), "ilst") : -1;
+            if (ilst >= 0) {
+                int end = ilst + buffer.getInt(ilst);
+                tags[0] = mp4Text(buffer, findBox(buffer, ilst + 8, end, "©nam"));
+                tags[1] = mp4Text(buffer, findBox(buffer, ilst + 8, end, "©ART"));
+            }
+        }
+        return new TrackMetadata(tags[0], tags[1], duration);
+    }
+
+    /**
+     * Finds a box among the sibling boxes in a range.
+     * @param buffer The content of the track
+     * @param start The position of the first sibling box
+     * @param end The end of the range
+     * @param type The type of the box
+     * @return The position of the box, or {@code -1} if it was not found
+     */
+    private static int findBox(ByteBuffer buffer, int start, int end, String type) {
+        int position = start;
+        end = Math.min(end, buffer.limit());
+        while (position + 8 <= end) {
+            long size = buffer.getInt(position) & 0xFFFFFFFFL;
+            if (size == 1 && position + 16 <= end) {
+                size = buffer.getLong(position + 8);
+            } else if (size == 0) {
+                size = end - position;
+            }
+            if (size < 8) {
+                return -1;
+            }
+            if (ascii(buffer, position + 4, 4).equals(type)) {
+                return position;
+            }
+            position += (int) Math.min(size, Integer.MAX_VALUE);
+            if (position < 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the text of an {@code ilst} item.
+     * @param buffer The content of the track
+     * @param item The position of the item box, or {@code -1}
+     * @return The text, or {@code null} if there is none
+     */
+    private static String mp4Text(ByteBuffer buffer, int item) {
+        if (item < 0) {
+            return null;
+        }
+        int data = findBox(buffer, item + 8, item + buffer.getInt(item), "data");
+        if (data < 0) {
+            return null;
+        }
+        int length = buffer.getInt(data) - 16;
+        if (length <= 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(data + 16, bytes);
+        String text = new String(bytes, StandardCharsets.UTF_8).strip();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Decodes ASCII characters.
+     * @param buffer The content of the track
+     * @param position The position of the first character
+     * @param length The number of characters
+     * @return The decoded characters
+     */
+    private static String ascii(ByteBuffer buffer, int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
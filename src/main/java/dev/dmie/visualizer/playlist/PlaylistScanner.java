@@ -0,0 +1,339 @@
+package dev.dmie.visualizer.playlist;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Scans a playlist directory for tracks on a virtual thread and keeps watching it for changes.
+ * <p>
+ * Found tracks are streamed to a {@link Listener} in batches while the scan is running. After the scan, the scanner
+ * reports tracks that are added or removed using a {@code WatchService} instead of rescanning the directory, unless
+ * the service reports that events were lost. All listener methods are called on the scanner thread.
+ */
+public class PlaylistScanner implements Closeable {
+    /**
+     * Receives the results of a {@link PlaylistScanner}.
+     */
+    public interface Listener {
+        /**
+         * Called when tracks are found or added to the playlist.
+         * @param tracks The found tracks
+         */
+        void onTracksFound(List<Path> tracks);
+
+        /**
+         * Called when entries of the playlist are removed. A removed directory stands for all tracks inside it.
+         * @param paths The removed tracks and directories
+         */
+        void onTracksRemoved(List<Path> paths);
+
+        /**
+         * Called when the initial scan finishes.
+         */
+        void onScanFinished();
+
+        /**
+         * Called when the playlist directory was scanned again because changes were lost. Tracks found by the rescan
+         * were passed to {@link Listener#onTracksFound} before; tracks that were not found were removed meanwhile.
+         * @param tracks All tracks found by the rescan
+         */
+        void onTracksRescanned(Set<Path> tracks);
+
+        /**
+         * Called when the playlist directory cannot be scanned.
+         * @param exception The cause of the failure
+         */
+        void onScanFailed(IOException exception);
+    }
+
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The pattern of the names of supported tracks.
+     */
+    private static final Pattern TRACK_PATTERN =
+            Pattern.compile(".+\\.(aac|m4a|mp3|pcm|wav|aiff)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The maximum number of tracks in a batch.
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * The longest time a found track waits in a batch in nanoseconds.
+     */
+    private static final long BATCH_NANOS = 50_000_000;
+
+    /**
+     * The playlist directory.
+     */
+    private final Path root;
+
+    /**
+     * Whether subdirectories are scanned.
+     */
+    private final boolean recursive;
+
+    /**
+     * The listener that receives the results.
+     */
+    private final Listener listener;
+
+    /**
+     * The service that watches the scanned directories, or {@code null} if changes are not watched.
+     */
+    private volatile WatchService watchService;
+
+    /**
+     * The thread that runs the scanner.
+     */
+    private Thread thread;
+
+    /**
+     * Whether the scanner was closed.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new {@link PlaylistScanner} instance.
+     * @param root The playlist directory
+     * @param recursive Whether subdirectories are scanned
+     * @param listener The listener that receives the results
+     */
+    public PlaylistScanner(Path root, boolean recursive, Listener listener) {
+        this.root = root;
+        this.recursive = recursive;
+        this.listener = listener;
+    }
+
+    /**
+     * Checks whether a file name is the name of a supported track.
+     * @param name The file name
+     * @return Whether the track is supported
+     */
+    public static boolean isTrack(String name) {
+        return TRACK_PATTERN.matcher(name).matches();
+    }
+
+    /**
+     * Starts scanning.
+     */
+    public void start() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException exception) {
+            logger.warn("Playlist changes will not be watched");
+        }
+        thread = Thread.ofVirtual().name("Playlist Scanner").start(this::run);
+    }
+
+    /**
+     * Stops scanning and watching the playlist directory.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException exception) {
+            logger.warn("Failed to close the playlist watch service");
+        }
+    }
+
+    /**
+     * Scans the playlist directory and then watches it until the scanner is closed.
+     */
+    private void run() {
+        List<Path> batch = new ArrayList<>();
+        try {
+            scan(root, batch, null);
+        } catch (IOException exception) {
+            listener.onScanFailed(exception);
+            close();
+            return;
+        }
+        if (closed) {
+            return;
+        }
+        flush(batch);
+        listener.onScanFinished();
+        if (watchService != null) {
+            watch();
+        }
+    }
+
+    /**
+     * Scans a directory, registers it and its scanned subdirectories for watching and collects found tracks.
+     * @param directory The directory
+     * @param batch The batch to collect found tracks in
+     * @param found The collection to also add all found tracks to, or {@code null}
+     * @throws IOException If the directory cannot be read
+     */
+    private void scan(Path directory, List<Path> batch, Collection<Path> found) throws IOException {
+        long[] batchStart = {System.nanoTime()};
+        FileVisitor<Path> visitor = new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                if (closed) {
+                    return FileVisitResult.TERMINATE;
+                }
+                register(dir);
+                return recursive || dir.equals(directory) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && isTrack(file.getFileName().toString())) {
+                    batch.add(file);
+                    if (found != null) {
+                        found.add(file);
+                    }
+                    if (batch.size() >= BATCH_SIZE || System.nanoTime() - batchStart[0] > BATCH_NANOS) {
+                        flush(batch);
+                        batchStart[0] = System.nanoTime();
+                    }
+                }
+                return closed ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exception) throws IOException {
+                if (file.equals(directory)) {
+                    throw exception;
+                }
+                logger.warn("Skipping an unreadable playlist entry");
+                return FileVisitResult.CONTINUE;
+            }
+        };
+        Files.walkFileTree(directory, visitor);
+    }
+
+    /**
+     * Registers a directory for watching.
+     * @param directory The directory
+     */
+    private void register(Path directory) {
+        WatchService watchService = this.watchService;
+        if (watchService == null || (!recursive && !directory.equals(root))) {
+            return;
+        }
+        try {
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | ClosedWatchServiceException exception) {
+            logger.warn("Failed to watch a playlist directory");
+        }
+    }
+
+    /**
+     * Passes a non-empty batch of found tracks to the {@link PlaylistScanner#listener} and clears it.
+     * @param batch The batch
+     */
+    private void flush(List<Path> batch) {
+        if (!batch.isEmpty() && !closed) {
+            listener.onTracksFound(List.copyOf(batch));
+        }
+        batch.clear();
+    }
+
+    /**
+     * Reports changes of the watched directories until the scanner is closed.
+     */
+    private void watch() {
+        WatchService watchService = this.watchService;
+        List<Path> added = new ArrayList<>();
+        List<Path> removed = new ArrayList<>();
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException exception) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            boolean overflow = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                    continue;
+                }
+                Path path = directory.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    if (Files.isDirectory(path)) {
+                        if (recursive) {
+                            try {
+                                scan(path, added, null);
+                            } catch (IOException exception) {
+                                logger.warn("Failed to scan a new playlist directory");
+                            }
+                        }
+                    } else if (isTrack(path.getFileName().toString())) {
+                        added.add(path);
+                    }
+                } else {
+                    removed.add(path);
+                }
+            }
+            key.reset();
+            flush(added);
+            if (!removed.isEmpty() && !closed) {
+                listener.onTracksRemoved(List.copyOf(removed));
+            }
+            removed.clear();
+            if (overflow) {
+                rescan(added);
+            }
+        }
+    }
+
+    /**
+     * Scans the playlist directory again after watch events were lost, reporting the found tracks and then all of
+     * them so that the listener can drop the tracks that are gone.
+     * @param batch The batch to collect found tracks in
+     */
+    private void rescan(List<Path> batch) {
+        logger.warn("Playlist watch events were lost, rescanning the playlist");
+        Set<Path> found = new HashSet<>();
+        try {
+            scan(root, batch, found);
+        } catch (IOException exception) {
+            logger.warn("Failed to rescan the playlist");
+            batch.clear();
+            return;
+        }
+        flush(batch);
+        if (!closed) {
+            listener.onTracksRescanned(found);
+        }
+    }
+}
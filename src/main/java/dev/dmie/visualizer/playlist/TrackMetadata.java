@@ -0,0 +1,22 @@
+package dev.dmie.visualizer.playlist;
+
+/**
+ * Metadata of a track.
+ * @param title The title from the tags of the track, or {@code null} if there is none
+ * @param artist The artist from the tags of the track, or {@code null} if there is none
+ * @param durationMillis The exact duration of the track in milliseconds, or {@code -1} if it is not known
+ */
+public record TrackMetadata(String title, String artist, long durationMillis) {
+    /**
+     * Metadata of a track that could not be read.
+     */
+    public static final TrackMetadata UNKNOWN = new TrackMetadata(null, null, -1);
+
+    /**
+     * Returns whether the duration of the track is known.
+     * @return Whether the duration is known
+     */
+    public boolean hasDuration() {
+        return durationMillis >= 0;
+    }
+}
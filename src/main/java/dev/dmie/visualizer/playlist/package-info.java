@@ -0,0 +1,4 @@
+/**
+ * Discovery and indexing of playlist tracks.
+ */
+package dev.dmie.visualizer.playlist;
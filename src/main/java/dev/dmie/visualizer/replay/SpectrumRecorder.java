@@ -0,0 +1,265 @@
+package dev.dmie.visualizer.replay;
+
+import javafx.scene.media.AudioSpectrumListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link AudioSpectrumListener} that appends every spectrum callback to a binary log and passes it on to another
+ * listener, so that the callbacks can be fed again by a {@link SpectrumReplayer}.
+ * <p>
+ * The log starts with a header of the {@link SpectrumRecorder#MAGIC} number and the format version. Each callback is
+ * stored as a record of the band count, the time since the recorder was opened in nanoseconds, the timestamp and the
+ * duration in seconds, and the magnitude and the phase of each band, all in little-endian order. Records are encoded
+ * into a direct buffer on the calling thread and written when the buffer is full or at least once per second. When an
+ * existing log is opened, an incomplete record at its end, left by a crash, is cut off and new records are appended.
+ */
+public class SpectrumRecorder implements AudioSpectrumListener, Closeable {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The magic number of a spectrum log.
+     */
+    static final int MAGIC = 0x444D534C;
+
+    /**
+     * The version of the spectrum log format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the file header in bytes.
+     */
+    static final int HEADER_SIZE = 4 + 4;
+
+    /**
+     * The size of a record without the bands in bytes.
+     */
+    static final int RECORD_HEADER_SIZE = 4 + 8 + 8 + 8;
+
+    /**
+     * The size of the buffer that records are collected in before they are written.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The longest time records are kept in the buffer.
+     */
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The listener that receives the recorded callbacks.
+     */
+    private final AudioSpectrumListener listener;
+
+    /**
+     * The channel of the log file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The value of {@link System#nanoTime()} when the recorder was opened.
+     */
+    private final long startNanos;
+
+    /**
+     * The records that were not written yet.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The value of {@link System#nanoTime()} when the buffer was last written.
+     */
+    private long flushNanos;
+
+    /**
+     * The number of recorded callbacks.
+     */
+    private long recordCount = 0;
+
+    /**
+     * Whether recording stopped because the recorder was closed or the log could not be written.
+     */
+    private boolean stopped = false;
+
+    /**
+     * Creates a new {@link SpectrumRecorder} instance.
+     * @param listener The listener that receives the recorded callbacks
+     * @param channel The channel of the log file, positioned after its last complete record
+     */
+    private SpectrumRecorder(AudioSpectrumListener listener, FileChannel channel) {
+        this.listener = listener;
+        this.channel = channel;
+        startNanos = System.nanoTime();
+        flushNanos = startNanos;
+    }
+
+    /**
+     * Opens a log for recording, creating it if it does not exist.
+     * @param path The path of the log file
+     * @param listener The listener that receives the recorded callbacks
+     * @return The recorder
+     * @throws IOException If the file could not be opened or is not a spectrum log
+     */
+    public static SpectrumRecorder open(Path path, AudioSpectrumListener listener) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                writeFully(channel, header.putInt(MAGIC).putInt(VERSION).flip());
+            } else {
+                long end = validLength(channel);
+                if (end < channel.size()) {
+                    logger.warn("Cutting off an incomplete record at the end of the spectrum log");
+                    channel.truncate(end);
+                }
+                channel.position(end);
+            }
+        } catch (IOException exception) {
+            channel.close();
+            throw exception;
+        }
+        logger.info("Recording spectrum callbacks to {}", path.getFileName());
+        return new SpectrumRecorder(listener, channel);
+    }
+
+    /**
+     * Returns the number of recorded callbacks.
+     * @return The record count
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Records a callback and passes it on to the listener. The listener also receives callbacks that could not be
+     * recorded.
+     * @param timestamp Timestamp of the event in seconds
+     * @param duration Duration for which the spectrum was computed in seconds
+     * @param magnitudes Array containing the spectrum magnitude in decibels for each band
+     * @param phases Array containing the phase for each band
+     */
+    @Override
+    public void spectrumDataUpdate(double timestamp, double duration, float[] magnitudes, float[] phases) {
+        record(timestamp, duration, magnitudes, phases);
+        listener.spectrumDataUpdate(timestamp, duration, magnitudes, phases);
+    }
+
+    /**
+     * Writes the buffered records to the log.
+     * @throws IOException If the log could not be written
+     */
+    public synchronized void flush() throws IOException {
+        writeFully(channel, buffer.flip());
+        buffer.clear();
+        flushNanos = System.nanoTime();
+    }
+
+    /**
+     * Writes the buffered records and closes the log. Later callbacks are only passed on to the listener.
+     * @throws IOException If the log could not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (!stopped) {
+                flush();
+            }
+        } finally {
+            stopped = true;
+            channel.close();
+            logger.info("Recorded {} spectrum callbacks", recordCount);
+        }
+    }
+
+    /**
+     * Encodes a callback into the buffer, writing the buffer first if it is full or old.
+     * @param timestamp Timestamp of the event in seconds
+     * @param duration Duration for which the spectrum was computed in seconds
+     * @param magnitudes Array containing the spectrum magnitude in decibels for each band
+     * @param phases Array containing the phase for each band
+     */
+    private synchronized void record(double timestamp, double duration, float[] magnitudes, float[] phases) {
+        if (stopped) {
+            return;
+        }
+        long now = System.nanoTime();
+        int bandCount = magnitudes.length;
+        int size = RECORD_HEADER_SIZE + bandCount * 2 * Float.BYTES;
+        try {
+            if (buffer.remaining() < size || now - flushNanos >= FLUSH_INTERVAL_NANOS) {
+                flush();
+            }
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException exception) {
+            logger.error("Failed to write the spectrum log, recording stopped: {}", exception.getMessage());
+            stopped = true;
+            return;
+        }
+        buffer.putInt(bandCount).putLong(now - startNanos).putDouble(timestamp).putDouble(duration);
+        for (int i = 0; i < bandCount; i++) {
+            buffer.putFloat(magnitudes[i]);
+        }
+        for (int i = 0; i < bandCount; i++) {
+            buffer.putFloat(i < phases.length ? phases[i] : 0.0f);
+        }
+        recordCount++;
+    }
+
+    /**
+     * Finds the end of the last complete record of a log.
+     * @param channel The channel of the log file
+     * @return The length of the log without an incomplete record at its end
+     * @throws IOException If the file could not be read or is not a spectrum log
+     */
+    private static long validLength(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.read(header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a spectrum log");
+        }
+        long size = channel.size();
+        long position = HEADER_SIZE;
+        while (size - position >= RECORD_HEADER_SIZE) {
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.read(header, position + header.position());
+            }
+            long end = position + RECORD_HEADER_SIZE + (long) header.getInt(0) * 2 * Float.BYTES;
+            if (header.getInt(0) < 0 || end > size) {
+                break;
+            }
+            position = end;
+        }
+        return position;
+    }
+
+    /**
+     * Writes all remaining bytes of a buffer to a channel.
+     * @param channel The channel
+     * @param buffer The buffer
+     * @throws IOException If an I/O error occurs
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
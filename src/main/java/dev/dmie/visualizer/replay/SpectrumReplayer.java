@@ -0,0 +1,175 @@
+package dev.dmie.visualizer.replay;
+
+import javafx.scene.media.AudioSpectrumListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds the callbacks of a spectrum log written by a {@link SpectrumRecorder} to an {@link AudioSpectrumListener},
+ * either as fast as possible or at the pace they were recorded.
+ * <p>
+ * The log is memory-mapped and its records are checked when it is opened; an incomplete record at its end is
+ * ignored. The listener is called on the replaying thread with arrays that are reused between calls while the band
+ * count stays the same.
+ */
+public class SpectrumReplayer {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The mapped content of the log.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The length of the log up to the end of its last complete record.
+     */
+    private final int length;
+
+    /**
+     * The number of complete records.
+     */
+    private final int frameCount;
+
+    /**
+     * Creates a new {@link SpectrumReplayer} instance from a mapped log.
+     * @param buffer The mapped content of the log
+     * @throws IOException If the log is not a valid spectrum log
+     */
+    private SpectrumReplayer(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < SpectrumRecorder.HEADER_SIZE
+                || buffer.getInt(0) != SpectrumRecorder.MAGIC
+                || buffer.getInt(4) != SpectrumRecorder.VERSION) {
+            throw new IOException("Not a spectrum log");
+        }
+        int position = SpectrumRecorder.HEADER_SIZE;
+        int count = 0;
+        while (buffer.capacity() - position >= SpectrumRecorder.RECORD_HEADER_SIZE) {
+            long end = recordEnd(position);
+            if (end > buffer.capacity()) {
+                break;
+            }
+            position = (int) end;
+            count++;
+        }
+        if (position < buffer.capacity()) {
+            logger.warn("Ignoring an incomplete record at the end of the spectrum log");
+        }
+        length = position;
+        frameCount = count;
+    }
+
+    /**
+     * Maps a spectrum log.
+     * @param path The path of the log file
+     * @return The replayer
+     * @throws IOException If the file could not be read, is larger than 2 GB or is not a valid spectrum log
+     */
+    public static SpectrumReplayer open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The spectrum log is too large");
+            }
+            return new SpectrumReplayer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the number of recorded callbacks.
+     * @return The frame count
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the length of the log without an incomplete record at its end.
+     * @return The length in bytes
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Feeds all recorded callbacks to a listener on the calling thread. A paced replay waits between the callbacks as
+     * long as between their recording, except where the log continues with a later recording. The replay ends early
+     * if the thread is interrupted.
+     * @param listener The listener that receives the callbacks
+     * @param paced Whether the recorded pace is kept, otherwise the callbacks are fed as fast as possible
+     * @return The number of callbacks fed
+     */
+    public int replay(AudioSpectrumListener listener, boolean paced) {
+        float[] magnitudes = new float[0];
+        float[] phases = new float[0];
+        long startNanos = 0;
+        long firstRecordedNanos = 0;
+        long previousRecordedNanos = Long.MAX_VALUE;
+        int position = SpectrumRecorder.HEADER_SIZE;
+        int count = 0;
+        while (position < length && !Thread.currentThread().isInterrupted()) {
+            int bandCount = buffer.getInt(position);
+            long recordedNanos = buffer.getLong(position + 4);
+            double timestamp = buffer.getDouble(position + 12);
+            double duration = buffer.getDouble(position + 20);
+            if (magnitudes.length != bandCount) {
+                magnitudes = new float[bandCount];
+                phases = new float[bandCount];
+            }
+            int bands = position + SpectrumRecorder.RECORD_HEADER_SIZE;
+            for (int i = 0; i < bandCount; i++) {
+                magnitudes[i] = buffer.getFloat(bands + i * Float.BYTES);
+                phases[i] = buffer.getFloat(bands + (bandCount + i) * Float.BYTES);
+            }
+            position = (int) recordEnd(position);
+
+            if (paced) {
+                if (recordedNanos < previousRecordedNanos) {
+                    startNanos = System.nanoTime();
+                    firstRecordedNanos = recordedNanos;
+                } else {
+                    waitUntil(startNanos + recordedNanos - firstRecordedNanos);
+                }
+                previousRecordedNanos = recordedNanos;
+            }
+            listener.spectrumDataUpdate(timestamp, duration, magnitudes, phases);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the end of a record.
+     * @param position The position of the record
+     * @return The position after the record, beyond the end of the log if the band count is invalid
+     */
+    private long recordEnd(int position) {
+        int bandCount = buffer.getInt(position);
+        if (bandCount < 0) {
+            return Long.MAX_VALUE;
+        }
+        return position + SpectrumRecorder.RECORD_HEADER_SIZE + (long) bandCount * 2 * Float.BYTES;
+    }
+
+    /**
+     * Waits until a point in time unless the thread is interrupted.
+     * @param deadlineNanos The value of {@link System#nanoTime()} to wait for
+     */
+    private static void waitUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Recording of spectrum callbacks into binary logs and their replay without media or audio hardware.
+ */
+package dev.dmie.visualizer.replay;
@@ -0,0 +1,771 @@
+package dev.dmie.visualizer.stream;
+
+import dev.dmie.visualizer.SpectrumBus;
+import dev.dmie.visualizer.VisualizationState;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the frames of a {@link SpectrumBus} to clients on the network, e.g. LED walls, over UDP and WebSocket.
+ * <p>
+ * A single thread reads the bus through its own subscription and serves all clients with non-blocking channels. The
+ * frames published since the previous poll are encoded once into a batch in a direct buffer, which is then sent to
+ * every client as one datagram or one binary WebSocket message; no objects are allocated per frame. Each WebSocket
+ * client has a fixed output buffer, and a batch that does not fit into it is dropped for that client, so a slow
+ * client never delays the others or the bus. Likewise, a datagram that cannot be sent at once is dropped.
+ * <p>
+ * A batch starts with a header of {@link SpectrumServer#BATCH_HEADER_SIZE} bytes in network byte order:
+ * <ul>
+ *     <li>{@code int} {@link SpectrumServer#MAGIC}</li>
+ *     <li>{@code byte} {@link SpectrumServer#VERSION}</li>
+ *     <li>{@code byte} the number of frames in the batch</li>
+ *     <li>{@code short} the number of bars of a frame</li>
+ *     <li>{@code long} the {@link System#nanoTime()} of the server when the batch was sent</li>
+ * </ul>
+ * followed by the frames, each made of
+ * <ul>
+ *     <li>{@code int} the sequence number of the frame, which skips frames the server missed</li>
+ *     <li>{@code float} the timestamp of the frame in seconds</li>
+ *     <li>{@code int} the number of beats so far, which changes on every beat</li>
+ *     <li>{@code float} the hue in degrees</li>
+ *     <li>one unsigned {@code byte} per bar, the level of the bar scaled to [0, 255]</li>
+ * </ul>
+ * UDP clients subscribe by sending any datagram to the UDP port and must repeat it at least every
+ * {@link SpectrumServer#SUBSCRIPTION_TIMEOUT_NANOS} to stay subscribed. WebSocket clients connect to any path of the
+ * WebSocket port.
+ */
+public class SpectrumServer implements Closeable {
+    /**
+     * Main logger.
+     */
+    private static final Logger logger = LogManager.getLogger("dev.dmie");
+
+    /**
+     * The first four bytes of every batch, {@code DMSF} in ASCII.
+     */
+    public static final int MAGIC = 0x444D5346;
+
+    /**
+     * The version of the batch format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The size of the header of a batch in bytes.
+     */
+    public static final int BATCH_HEADER_SIZE = 16;
+
+    /**
+     * The size of a frame without its bar levels in bytes.
+     */
+    public static final int FRAME_HEADER_SIZE = 16;
+
+    /**
+     * The largest batch that fits into one Ethernet frame, which is its MTU minus the IP and UDP headers.
+     */
+    private static final int MAX_DATAGRAM_SIZE = 1472;
+
+    /**
+     * The time after which a UDP client that has not sent a datagram is unsubscribed, in nanoseconds.
+     */
+    private static final long SUBSCRIPTION_TIMEOUT_NANOS = 10_000_000_000L;
+
+    /**
+     * The largest number of clients of each protocol.
+     */
+    private static final int MAX_CLIENTS = 64;
+
+    /**
+     * The size of the output buffer of a WebSocket client, which bounds the data queued for a slow client.
+     */
+    private static final int CLIENT_OUTPUT_SIZE = 16384;
+
+    /**
+     * The size of the input buffer of a WebSocket client, which bounds the handshake request and received messages.
+     */
+    private static final int CLIENT_INPUT_SIZE = 4096;
+
+    /**
+     * The largest number of bars of a frame, for which a batch of one frame and its WebSocket header of four bytes
+     * still fit into the output buffer of a client. A batch is thereby also shorter than the 65536 bytes the 16-bit
+     * length of a WebSocket frame can describe, and the bar count fits into the {@code short} of the batch header.
+     */
+    public static final int MAX_BAR_COUNT = CLIENT_OUTPUT_SIZE - 4 - BATCH_HEADER_SIZE - FRAME_HEADER_SIZE;
+
+    /**
+     * The GUID that the WebSocket handshake appends to the key of the client.
+     */
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    /**
+     * The subscription to the published bus.
+     */
+    private final SpectrumBus.Subscription subscription;
+
+    /**
+     * The number of bars of a frame.
+     */
+    private final int barCount;
+
+    /**
+     * The address the UDP channel is bound to, or {@code null} if UDP is disabled.
+     */
+    private final InetSocketAddress udpAddress;
+
+    /**
+     * The address the WebSocket server is bound to, or {@code null} if WebSocket is disabled.
+     */
+    private final InetSocketAddress webSocketAddress;
+
+    /**
+     * The time between two polls of the bus in nanoseconds.
+     */
+    private final long intervalNanos;
+
+    /**
+     * The largest number of frames in a batch.
+     */
+    private final int framesPerBatch;
+
+    /**
+     * The batch being encoded.
+     */
+    private final ByteBuffer batch;
+
+    /**
+     * The buffer that datagrams from UDP clients are received into.
+     */
+    private final ByteBuffer datagram = ByteBuffer.allocateDirect(64);
+
+    /**
+     * The subscribed UDP clients.
+     */
+    private final List<UdpClient> udpClients = new ArrayList<>();
+
+    /**
+     * The subscribed UDP clients by their addresses.
+     */
+    private final Map<SocketAddress, UdpClient> udpClientsByAddress = new HashMap<>();
+
+    /**
+     * The connected WebSocket clients.
+     */
+    private final List<WebSocketClient> webSocketClients = new ArrayList<>();
+
+    /**
+     * Encodes a frame read from the bus into the {@link SpectrumServer#batch}.
+     */
+    private final SpectrumBus.FrameListener encoder = this::encode;
+
+    /**
+     * The selector of all channels.
+     */
+    private Selector selector;
+
+    /**
+     * The channel of UDP clients, or {@code null} if UDP is disabled.
+     */
+    private DatagramChannel udpChannel;
+
+    /**
+     * The channel that accepts WebSocket clients, or {@code null} if WebSocket is disabled.
+     */
+    private ServerSocketChannel webSocketChannel;
+
+    /**
+     * The thread that serves the clients.
+     */
+    private Thread thread;
+
+    /**
+     * Whether the server is running.
+     */
+    private volatile boolean running = false;
+
+    /**
+     * The number of frames read from the bus.
+     */
+    private long frameCount = 0;
+
+    /**
+     * The number of frames in the {@link SpectrumServer#batch}.
+     */
+    private int batchFrames = 0;
+
+    /**
+     * Creates a new {@link SpectrumServer} instance.
+     * @param bus The bus whose frames are published
+     * @param udpAddress The address of the UDP channel, or {@code null} to disable UDP
+     * @param webSocketAddress The address of the WebSocket server, or {@code null} to disable WebSocket
+     * @param intervalMillis The time between two polls of the bus in milliseconds
+     * @throws IllegalArgumentException If the bus has more than {@link SpectrumServer#MAX_BAR_COUNT} bars
+     */
+    public SpectrumServer(SpectrumBus bus, InetSocketAddress udpAddress, InetSocketAddress webSocketAddress,
+                          int intervalMillis) {
+        if (bus.getBarCount() > MAX_BAR_COUNT) {
+            throw new IllegalArgumentException("At most " + MAX_BAR_COUNT + " bars can be streamed: "
+                    + bus.getBarCount());
+        }
+        this.subscription = bus.subscribe();
+        this.barCount = bus.getBarCount();
+        this.udpAddress = udpAddress;
+        this.webSocketAddress = webSocketAddress;
+        this.intervalNanos = Math.max(1, intervalMillis) * 1_000_000L;
+        int frameSize = FRAME_HEADER_SIZE + barCount;
+        framesPerBatch = Math.max(1, Math.min(255, (MAX_DATAGRAM_SIZE - BATCH_HEADER_SIZE) / frameSize));
+        batch = ByteBuffer.allocateDirect(BATCH_HEADER_SIZE + framesPerBatch * frameSize);
+    }
+
+    /**
+     * Opens the channels and starts serving clients on a daemon thread.
+     * @throws IOException If a channel cannot be opened or bound
+     */
+    public void start() throws IOException {
+        selector = Selector.open();
+        try {
+            if (udpAddress != null) {
+                udpChannel = DatagramChannel.open();
+                udpChannel.configureBlocking(false);
+                udpChannel.bind(udpAddress);
+                udpChannel.register(selector, SelectionKey.OP_READ);
+                logger.info("Streaming spectrum frames over UDP on {}", udpChannel.getLocalAddress());
+            }
+            if (webSocketAddress != null) {
+                webSocketChannel = ServerSocketChannel.open();
+                webSocketChannel.configureBlocking(false);
+                webSocketChannel.bind(webSocketAddress);
+                webSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+                logger.info("Streaming spectrum frames over WebSocket on {}", webSocketChannel.getLocalAddress());
+            }
+        } catch (IOException exception) {
+            closeChannels();
+            throw exception;
+        }
+        running = true;
+        thread = new Thread(this::run, "Spectrum server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns the address the UDP channel is bound to, e.g. to find an ephemeral port.
+     * @return The bound address, or {@code null} if UDP is disabled or the server is not started
+     * @throws IOException If an I/O error occurs
+     */
+    public InetSocketAddress getUdpAddress() throws IOException {
+        return udpChannel == null ? null : (InetSocketAddress) udpChannel.getLocalAddress();
+    }
+
+    /**
+     * Returns the address the WebSocket server is bound to, e.g. to find an ephemeral port.
+     * @return The bound address, or {@code null} if WebSocket is disabled or the server is not started
+     * @throws IOException If an I/O error occurs
+     */
+    public InetSocketAddress getWebSocketAddress() throws IOException {
+        return webSocketChannel == null ? null : (InetSocketAddress) webSocketChannel.getLocalAddress();
+    }
+
+    /**
+     * Stops serving clients and closes all channels.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (thread == null) {
+            closeChannels();
+            return;
+        }
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serves the clients and polls the bus once per interval until the server is closed. A failure is logged and the
+     * batch being encoded is dropped, so that the server goes on with the next interval.
+     */
+    private void run() {
+        long nextPoll = System.nanoTime();
+        while (running) {
+            try {
+                long wait = nextPoll - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(this::handle, Math.max(1, wait / 1_000_000));
+                } else {
+                    selector.selectNow(this::handle);
+                }
+                long now = System.nanoTime();
+                if (now - nextPoll >= 0) {
+                    nextPoll = now + intervalNanos;
+                    subscription.poll(encoder);
+                    sendBatch();
+                    expireUdpClients(now);
+                }
+            } catch (IOException | RuntimeException exception) {
+                logger.error("The spectrum server failed to serve its clients", exception);
+                batchFrames = 0;
+            }
+        }
+        closeChannels();
+    }
+
+    /**
+     * Handles a channel that is ready.
+     * @param key The key of the channel
+     */
+    private void handle(SelectionKey key) {
+        try {
+            if (key.attachment() instanceof WebSocketClient client) {
+                if (key.isReadable()) {
+                    client.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    client.flush();
+                }
+            } else if (key.channel() == udpChannel) {
+                receiveDatagrams();
+            } else if (key.isAcceptable()) {
+                accept();
+            }
+        } catch (IOException exception) {
+            if (key.attachment() instanceof WebSocketClient client) {
+                logger.debug("WebSocket client {} failed: {}", client.address, exception.getMessage());
+                client.close();
+            } else {
+                logger.warn("The spectrum server failed to handle a request: {}", exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Subscribes or renews the subscription of the UDP clients that sent a datagram.
+     * @throws IOException If an I/O error occurs
+     */
+    private void receiveDatagrams() throws IOException {
+        long now = System.nanoTime();
+        SocketAddress address;
+        while ((address = udpChannel.receive(datagram.clear())) != null) {
+            UdpClient client = udpClientsByAddress.get(address);
+            if (client == null) {
+                if (udpClients.size() >= MAX_CLIENTS) {
+                    logger.warn("Rejecting UDP client {}, there are too many clients", address);
+                    continue;
+                }
+                client = new UdpClient(address);
+                udpClients.add(client);
+                udpClientsByAddress.put(address, client);
+                logger.info("UDP client {} subscribed", address);
+            }
+            client.lastSeen = now;
+        }
+    }
+
+    /**
+     * Unsubscribes the UDP clients whose subscriptions were not renewed in time.
+     * @param now The current time in nanoseconds
+     */
+    private void expireUdpClients(long now) {
+        for (int i = udpClients.size() - 1; i >= 0; i--) {
+            UdpClient client = udpClients.get(i);
+            if (now - client.lastSeen > SUBSCRIPTION_TIMEOUT_NANOS) {
+                udpClients.remove(i);
+                udpClientsByAddress.remove(client.address);
+                logger.info("UDP client {} unsubscribed, {} frames dropped", client.address, client.droppedFrames);
+            }
+        }
+    }
+
+    /**
+     * Accepts a WebSocket client.
+     * @throws IOException If an I/O error occurs
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = webSocketChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        if (webSocketClients.size() >= MAX_CLIENTS) {
+            logger.warn("Rejecting WebSocket client {}, there are too many clients", channel.getRemoteAddress());
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        WebSocketClient client = new WebSocketClient(channel);
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        webSocketClients.add(client);
+    }
+
+    /**
+     * Encodes a frame into the {@link SpectrumServer#batch}, sending the batch first if it is full.
+     * @param timestamp Timestamp of the frame in seconds
+     * @param duration Duration of the frame in seconds
+     * @param state The processed state
+     */
+    private void encode(double timestamp, double duration, VisualizationState state) {
+        if (batchFrames == framesPerBatch) {
+            sendBatch();
+        }
+        if (batchFrames == 0) {
+            batch.clear().position(BATCH_HEADER_SIZE);
+        }
+        batch.putInt((int) (frameCount + subscription.getSkippedFrames()));
+        batch.putFloat((float) timestamp);
+        batch.putInt((int) state.getDotPulses());
+        batch.putFloat((float) state.getHue());
+        float[] levels = state.getLevels();
+        for (int i = 0; i < barCount; i++) {
+            batch.put((byte) Math.round(Math.max(0.0f, Math.min(1.0f, levels[i])) * 255));
+        }
+        frameCount++;
+        batchFrames++;
+    }
+
+    /**
+     * Completes the header of the {@link SpectrumServer#batch} and sends it to all clients.
+     */
+    private void sendBatch() {
+        if (batchFrames == 0) {
+            return;
+        }
+        batch.putInt(0, MAGIC);
+        batch.put(4, (byte) VERSION);
+        batch.put(5, (byte) batchFrames);
+        batch.putShort(6, (short) barCount);
+        batch.putLong(8, System.nanoTime());
+        batch.flip();
+        int length = batch.limit();
+
+        for (int i = 0; i < udpClients.size(); i++) {
+            UdpClient client = udpClients.get(i);
+            try {
+                if (udpChannel.send(batch.rewind(), client.address) == 0) {
+                    client.droppedFrames += batchFrames;
+                }
+            } catch (IOException exception) {
+                client.droppedFrames += batchFrames;
+            }
+        }
+        for (int i = webSocketClients.size() - 1; i >= 0; i--) {
+            WebSocketClient client = webSocketClients.get(i);
+            if (!client.open) {
+                continue;
+            }
+            ByteBuffer output = client.output;
+            if (output.remaining() < (length < 126 ? 2 : 4) + length) {
+                client.droppedFrames += batchFrames;
+                continue;
+            }
+            output.put((byte) 0x82);
+            if (length < 126) {
+                output.put((byte) length);
+            } else {
+                output.put((byte) 126).putShort((short) length);
+            }
+            output.put(batch.rewind());
+            try {
+                client.flush();
+            } catch (IOException exception) {
+                logger.debug("WebSocket client {} failed: {}", client.address, exception.getMessage());
+                client.close();
+            }
+        }
+        batchFrames = 0;
+    }
+
+    /**
+     * Closes the selector, the channels and the connections of all clients.
+     */
+    private void closeChannels() {
+        for (int i = webSocketClients.size() - 1; i >= 0; i--) {
+            webSocketClients.get(i).close();
+        }
+        try {
+            if (udpChannel != null) {
+                udpChannel.close();
+            }
+            if (webSocketChannel != null) {
+                webSocketChannel.close();
+            }
+            if (selector != null) {
+                selector.close();
+            }
+        } catch (IOException exception) {
+            logger.warn("Failed to close the spectrum server: {}", exception.getMessage());
+        }
+    }
+
+    /**
+     * A client subscribed over UDP.
+     */
+    private static final class UdpClient {
+        /**
+         * The address of the client.
+         */
+        private final SocketAddress address;
+
+        /**
+         * The time of the latest datagram from the client in nanoseconds.
+         */
+        private long lastSeen;
+
+        /**
+         * The number of frames that could not be sent to the client.
+         */
+        private long droppedFrames = 0;
+
+        /**
+         * Creates a new {@link UdpClient} instance.
+         * @param address The address of the client
+         */
+        private UdpClient(SocketAddress address) {
+            this.address = address;
+        }
+    }
+
+    /**
+     * A client connected over WebSocket.
+     */
+    private final class WebSocketClient {
+        /**
+         * The connection to the client.
+         */
+        private final SocketChannel channel;
+
+        /**
+         * The address of the client.
+         */
+        private final SocketAddress address;
+
+        /**
+         * The data received from the client and not processed yet.
+         */
+        private final ByteBuffer input = ByteBuffer.allocateDirect(CLIENT_INPUT_SIZE);
+
+        /**
+         * The data queued for the client and not sent yet.
+         */
+        private final ByteBuffer output = ByteBuffer.allocateDirect(CLIENT_OUTPUT_SIZE);
+
+        /**
+         * The key of the {@link WebSocketClient#channel}.
+         */
+        private SelectionKey key;
+
+        /**
+         * Whether the handshake is complete and the client receives batches.
+         */
+        private boolean open = false;
+
+        /**
+         * The number of frames dropped because the client did not read them in time.
+         */
+        private long droppedFrames = 0;
+
+        /**
+         * Creates a new {@link WebSocketClient} instance.
+         * @param channel The connection to the client
+         * @throws IOException If an I/O error occurs
+         */
+        private WebSocketClient(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.address = channel.getRemoteAddress();
+        }
+
+        /**
+         * Reads and processes the data sent by the client.
+         * @throws IOException If an I/O error occurs
+         */
+        private void read() throws IOException {
+            if (channel.read(input) < 0) {
+                close();
+                return;
+            }
+            if (!open) {
+                readHandshake();
+            }
+            if (open) {
+                readMessages();
+            }
+        }
+
+        /**
+         * Answers the handshake request of the client once it is received completely.
+         * @throws IOException If an I/O error occurs
+         */
+        private void readHandshake() throws IOException {
+            int end = -1;
+            for (int i = 3; i < input.position(); i++) {
+                if (input.get(i - 3) == '\r' && input.get(i - 2) == '\n' && input.get(i - 1) == '\r'
+                        && input.get(i) == '\n') {
+                    end = i + 1;
+                    break;
+                }
+            }
+            if (end < 0) {
+                if (!input.hasRemaining()) {
+                    close();
+                }
+                return;
+            }
+
+            String request = StandardCharsets.ISO_8859_1.decode(input.duplicate().flip().limit(end)).toString();
+            String key = null;
+            for (String line : request.split("\r\n")) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                    key = line.substring(colon + 1).trim();
+                }
+            }
+            if (!request.startsWith("GET ") || key == null) {
+                output.put("HTTP/1.1 400 Bad Request\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                flush();
+                close();
+                return;
+            }
+            String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                    + "Upgrade: websocket\r\n"
+                    + "Connection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + accept(key) + "\r\n\r\n";
+            output.put(response.getBytes(StandardCharsets.US_ASCII));
+            input.flip().position(end);
+            input.compact();
+            open = true;
+            flush();
+            logger.info("WebSocket client {} connected", address);
+        }
+
+        /**
+         * Processes the complete messages received from the client: answers pings and closes the connection on a
+         * close message. Other messages are ignored.
+         * @throws IOException If an I/O error occurs
+         */
+        private void readMessages() throws IOException {
+            input.flip();
+            while (input.remaining() >= 2) {
+                int start = input.position();
+                int opcode = input.get(start) & 0x0F;
+                int second = input.get(start + 1) & 0xFF;
+                long length = second & 0x7F;
+                int headerSize = 2;
+                if (length == 126) {
+                    if (input.remaining() < 4) {
+                        break;
+                    }
+                    length = input.getShort(start + 2) & 0xFFFF;
+                    headerSize = 4;
+                } else if (length == 127) {
+                    if (input.remaining() < 10) {
+                        break;
+                    }
+                    length = input.getLong(start + 2);
+                    headerSize = 10;
+                }
+                int maskStart = start + headerSize;
+                boolean masked = (second & 0x80) != 0;
+                if (masked) {
+                    headerSize += 4;
+                }
+                if (length < 0 || headerSize + length > input.capacity()) {
+                    close();
+                    return;
+                }
+                if (input.remaining() < headerSize + length) {
+                    break;
+                }
+
+                if (opcode == 0x8) {
+                    output.put((byte) 0x88).put((byte) 0);
+                    flush();
+                    close();
+                    return;
+                }
+                if (opcode == 0x9 && length <= 125 && output.remaining() >= 2 + length) {
+                    output.put((byte) 0x8A).put((byte) length);
+                    for (int i = 0; i < length; i++) {
+                        byte mask = masked ? input.get(maskStart + (i & 3)) : 0;
+                        output.put((byte) (input.get(start + headerSize + i) ^ mask));
+                    }
+                    flush();
+                }
+                input.position(start + headerSize + (int) length);
+            }
+            input.compact();
+        }
+
+        /**
+         * Writes as much of the queued data as the connection accepts, and waits for the connection to become
+         * writable if some data remains.
+         * @throws IOException If an I/O error occurs
+         */
+        private void flush() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            output.flip();
+            channel.write(output);
+            output.compact();
+            int interest = SelectionKey.OP_READ;
+            if (output.position() > 0) {
+                interest |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(interest);
+        }
+
+        /**
+         * Closes the connection to the client.
+         */
+        private void close() {
+            if (!webSocketClients.remove(this)) {
+                return;
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException exception) {
+                logger.debug("Failed to close WebSocket client {}: {}", address, exception.getMessage());
+            }
+            if (open) {
+                logger.info("WebSocket client {} disconnected, {} frames dropped", address, droppedFrames);
+            }
+        }
+    }
+
+    /**
+     * Computes the accept value of the WebSocket handshake.
+     * @param key The key sent by the client
+     * @return The accept value
+     */
+    private static String accept(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-1 is not available", exception);
+        }
+    }
+}
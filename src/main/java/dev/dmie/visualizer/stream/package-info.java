@@ -0,0 +1,4 @@
+/**
+ * Streaming of spectrum frames to clients on the network.
+ */
+package dev.dmie.visualizer.stream;
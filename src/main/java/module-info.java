@@ -5,8 +5,24 @@ module dev.dmie.visualizer {
     requires javafx.controls;
     requires javafx.fxml;
     requires javafx.media;
+    requires java.desktop;
+    requires java.management;
+    requires jdk.jfr;
+    requires jdk.management;
     requires org.apache.logging.log4j;
+    requires jdk.incubator.vector;
+
+    uses dev.dmie.visualizer.RendererProvider;
 
     opens dev.dmie.visualizer to javafx.fxml;
     exports dev.dmie.visualizer;
+    exports dev.dmie.visualizer.analysis;
+    exports dev.dmie.visualizer.audio;
+    exports dev.dmie.visualizer.batch;
+    exports dev.dmie.visualizer.export;
+    exports dev.dmie.visualizer.metrics;
+    exports dev.dmie.visualizer.particles;
+    exports dev.dmie.visualizer.playlist;
+    exports dev.dmie.visualizer.replay;
+    exports dev.dmie.visualizer.stream;
 }
\ No newline at end of file
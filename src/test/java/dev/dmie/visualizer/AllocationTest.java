@@ -0,0 +1,177 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.analysis.SpectrumKernels;
+import javafx.scene.layout.Pane;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the steady-state frame path, from a spectrum callback through the {@link SpectrumBus} to a render of the
+ * {@link RenderLoop} by the default renderer, allocates nothing on the calling thread.
+ */
+class AllocationTest {
+    /**
+     * The number of bands of the frames.
+     */
+    private static final int BAND_COUNT = 128;
+
+    /**
+     * The number of bars of the visualization.
+     */
+    private static final int BAR_COUNT = 64;
+
+    /**
+     * The width of the pane the bars are drawn on.
+     */
+    private static final double WIDTH = 800;
+
+    /**
+     * The height of the pane the bars are drawn on.
+     */
+    private static final double HEIGHT = 400;
+
+    /**
+     * The number of frames fed before allocations are first measured, which fills the caches but leaves most of the
+     * frame path interpreted, so that escape analysis cannot hide an allocation.
+     */
+    private static final int WARMUP_FRAMES = 200;
+
+    /**
+     * The number of frames fed before allocations are measured again, enough for the JIT to compile the frame path.
+     */
+    private static final int COMPILE_FRAMES = 50_000;
+
+    /**
+     * The number of frames allocations are measured over.
+     */
+    private static final int MEASURED_FRAMES = 500;
+
+    /**
+     * The allocation counters of the threads.
+     */
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * The synthetic frames, fed in turn.
+     */
+    private final float[][] frames = new float[64][BAND_COUNT];
+
+    /**
+     * The phases passed with every frame.
+     */
+    private final float[] phases = new float[BAND_COUNT];
+
+    /**
+     * Selects the software graphics pipeline, which the {@code AnimationTimer} of a {@link RenderLoop} loads, so that
+     * no OpenGL library is needed.
+     */
+    @BeforeAll
+    static void useSoftwarePipeline() {
+        System.setProperty("prism.order", "sw");
+    }
+
+    /**
+     * Feeds frames to a bus and renders them with a render loop and a {@link NodeRenderer}, which colors its bars from
+     * the {@link HuePalette}, processing the bars with the scalar kernels, and checks that no bytes are allocated once
+     * the frame path is warmed up, both before and after it is compiled.
+     */
+    @Test
+    void scalarFramePathAllocatesNothing() {
+        SpectrumKernels kernels = SpectrumKernels.scalar();
+        SpectrumBus bus = createBus(kernels);
+        RenderLoop renderLoop = createRenderLoop(bus, kernels);
+
+        feed(bus, renderLoop, 0, WARMUP_FRAMES);
+        assertEquals(0, measure(bus, renderLoop, WARMUP_FRAMES), "Bytes allocated by interpreted frames");
+        int compiled = WARMUP_FRAMES + MEASURED_FRAMES;
+        feed(bus, renderLoop, compiled, COMPILE_FRAMES);
+        assertEquals(0, measure(bus, renderLoop, compiled + COMPILE_FRAMES), "Bytes allocated by compiled frames");
+    }
+
+    /**
+     * Feeds frames to a bus and renders them as {@link AllocationTest#scalarFramePathAllocatesNothing} does, processing
+     * the bars with the kernels selected at runtime, and checks that no bytes are allocated once the frame path is
+     * compiled. The Vector API boxes its vectors until the JIT compiles them, so interpreted frames are not checked.
+     */
+    @Test
+    void compiledFramePathAllocatesNothing() {
+        SpectrumKernels kernels = SpectrumKernels.get();
+        SpectrumBus bus = createBus(kernels);
+        RenderLoop renderLoop = createRenderLoop(bus, kernels);
+
+        feed(bus, renderLoop, 0, COMPILE_FRAMES);
+        assertEquals(0, measure(bus, renderLoop, COMPILE_FRAMES), "Bytes allocated by compiled frames");
+    }
+
+    /**
+     * Fills the synthetic frames with random magnitudes.
+     */
+    @BeforeEach
+    void fillFrames() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (float[] frame : frames) {
+            for (int band = 0; band < BAND_COUNT; band++) {
+                frame[band] = (float) random.nextDouble(-80.0, -10.0);
+            }
+        }
+    }
+
+    /**
+     * Creates a bus that processes the frames with the given kernels.
+     * @param kernels The kernels that process the bars
+     * @return The bus
+     */
+    private SpectrumBus createBus(SpectrumKernels kernels) {
+        return new SpectrumBus(16, new SpectrumProcessor(BAND_COUNT, BAR_COUNT, -80, 80.0f, kernels), () -> 0.0);
+    }
+
+    /**
+     * Creates a render loop that reads the given bus and renders with a {@link NodeRenderer} on a pane that is not
+     * shown, so that the bars are moved and colored as on screen.
+     * @param bus The bus to read
+     * @param kernels The kernels that merge and interpolate the bar levels
+     * @return The render loop
+     */
+    private RenderLoop createRenderLoop(SpectrumBus bus, SpectrumKernels kernels) {
+        Pane pane = new Pane();
+        pane.resize(WIDTH, HEIGHT);
+        Visualizer visualizer = new Visualizer(new NodeRenderer(pane), BAR_COUNT, kernels);
+        visualizer.setUp();
+        return new RenderLoop(visualizer, bus.subscribe());
+    }
+
+    /**
+     * Feeds {@link AllocationTest#MEASURED_FRAMES} frames and measures the bytes allocated meanwhile.
+     * @param bus The bus to feed
+     * @param renderLoop The render loop that reads the bus
+     * @param first The index of the first frame
+     * @return The number of bytes allocated by all the frames
+     */
+    private long measure(SpectrumBus bus, RenderLoop renderLoop, int first) {
+        long before = threads.getCurrentThreadAllocatedBytes();
+        feed(bus, renderLoop, first, MEASURED_FRAMES);
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    /**
+     * Feeds frames at 40 per second and runs two pulses of the render loop at 80 Hz for each frame.
+     * @param bus The bus to feed
+     * @param renderLoop The render loop that reads the bus
+     * @param first The index of the first frame
+     * @param count The number of frames
+     */
+    private void feed(SpectrumBus bus, RenderLoop renderLoop, int first, int count) {
+        for (int frame = first; frame < first + count; frame++) {
+            bus.spectrumDataUpdate(frame / 40.0, 1 / 40.0, frames[frame % frames.length], phases);
+            renderLoop.handle(frame * 25_000_000L);
+            renderLoop.handle(frame * 25_000_000L + 12_500_000L);
+        }
+    }
+}
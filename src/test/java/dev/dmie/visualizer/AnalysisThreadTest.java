@@ -0,0 +1,198 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.metrics.VisualizerMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Passes callbacks through the ring of an {@link AnalysisThread} and checks what its listener receives.
+ */
+class AnalysisThreadTest {
+    /**
+     * The number of callbacks the ring holds.
+     */
+    private static final int CAPACITY = 4;
+
+    /**
+     * The number of bands of the callbacks.
+     */
+    private static final int BAND_COUNT = 8;
+
+    /**
+     * The number of callbacks dropped by the allocation test after it fills the ring, both before and while
+     * allocations are measured.
+     */
+    private static final int DROPPED_CALLBACKS = 1000;
+
+    /**
+     * The number of seconds a callback is waited for.
+     */
+    private static final long TIMEOUT = 5;
+
+    /**
+     * The timestamps of the callbacks received by the listener, followed by their first magnitude and phase.
+     */
+    private final BlockingQueue<double[]> received = new LinkedBlockingQueue<>();
+
+    /**
+     * The tested thread, stopped after each test.
+     */
+    private AnalysisThread analysisThread;
+
+    /**
+     * Stops the analysis thread.
+     */
+    @AfterEach
+    void stop() {
+        if (analysisThread != null) {
+            analysisThread.stop();
+        }
+    }
+
+    /**
+     * Hands callbacks over one at a time, each after the previous one was received, so that the thread parks on the
+     * empty ring between them and the sequence wraps around the ring many times, and checks that every callback
+     * arrives in order with its own copy of the magnitudes and phases.
+     * @throws InterruptedException If the test is interrupted
+     */
+    @Test
+    void passesCallbacksInOrderAcrossWraparound() throws InterruptedException {
+        analysisThread = new AnalysisThread(CAPACITY, this::receive);
+        analysisThread.start();
+        float[] magnitudes = new float[BAND_COUNT];
+        float[] phases = new float[BAND_COUNT];
+        for (int i = 0; i < CAPACITY * 50; i++) {
+            magnitudes[0] = -i;
+            phases[0] = i;
+            analysisThread.spectrumDataUpdate(i, 0.025, magnitudes, phases);
+            magnitudes[0] = Float.NaN;
+            assertArrayEquals(new double[] {i, -i, i}, poll(), "Callback " + i);
+        }
+        assertNull(received.poll());
+    }
+
+    /**
+     * Blocks the listener on the first callback, whose slot stays taken until it returns, fills the rest of the ring
+     * and overflows it, and checks that the overflowing callbacks are dropped and counted while the ring is kept, and
+     * that the thread passes the kept callbacks on in order once the listener returns.
+     * @throws InterruptedException If the test is interrupted
+     */
+    @Test
+    void dropsCallbacksWhenTheRingIsFull() throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        analysisThread = new AnalysisThread(CAPACITY, (timestamp, duration, magnitudes, phases) -> {
+            if (timestamp == 0) {
+                entered.countDown();
+                awaitUninterruptibly(release);
+            }
+            receive(timestamp, duration, magnitudes, phases);
+        });
+        analysisThread.start();
+        float[] magnitudes = new float[BAND_COUNT];
+        analysisThread.spectrumDataUpdate(0, 0.025, magnitudes, magnitudes);
+        assertTrue(entered.await(TIMEOUT, TimeUnit.SECONDS));
+
+        long dropped = VisualizerMetrics.get().getDroppedSpectrumFrames();
+        for (int i = 1; i < CAPACITY + 3; i++) {
+            analysisThread.spectrumDataUpdate(i, 0.025, magnitudes, magnitudes);
+        }
+        assertEquals(3, VisualizerMetrics.get().getDroppedSpectrumFrames() - dropped);
+
+        release.countDown();
+        for (int i = 0; i < CAPACITY; i++) {
+            assertEquals(i, poll()[0]);
+        }
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Fills the ring of a thread that is not started and checks that the callbacks dropped after it are counted
+     * without allocating, since no JFR recording enables the drop event.
+     */
+    @Test
+    void droppedCallbacksAllocateNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        analysisThread = new AnalysisThread(CAPACITY, this::receive);
+        float[] magnitudes = new float[BAND_COUNT];
+        for (int i = 0; i < CAPACITY + DROPPED_CALLBACKS; i++) {
+            analysisThread.spectrumDataUpdate(i, 0.025, magnitudes, magnitudes);
+        }
+
+        long dropped = VisualizerMetrics.get().getDroppedSpectrumFrames();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < DROPPED_CALLBACKS; i++) {
+            analysisThread.spectrumDataUpdate(i, 0.025, magnitudes, magnitudes);
+        }
+        assertEquals(0, threads.getCurrentThreadAllocatedBytes() - before, "Bytes allocated by dropped callbacks");
+        assertEquals(DROPPED_CALLBACKS, VisualizerMetrics.get().getDroppedSpectrumFrames() - dropped);
+    }
+
+    /**
+     * Lets the listener fail on one callback and checks that the thread goes on with the next ones.
+     * @throws InterruptedException If the test is interrupted
+     */
+    @Test
+    void keepsRunningWhenTheListenerFails() throws InterruptedException {
+        analysisThread = new AnalysisThread(CAPACITY, (timestamp, duration, magnitudes, phases) -> {
+            if (timestamp == 1) {
+                throw new IllegalStateException("Expected by the test");
+            }
+            receive(timestamp, duration, magnitudes, phases);
+        });
+        analysisThread.start();
+        float[] magnitudes = new float[BAND_COUNT];
+        for (int i = 0; i < CAPACITY * 2; i++) {
+            analysisThread.spectrumDataUpdate(i, 0.025, magnitudes, magnitudes);
+            if (i != 1) {
+                assertEquals(i, poll()[0]);
+            }
+        }
+    }
+
+    /**
+     * Records a callback received by the listener.
+     * @param timestamp The timestamp of the callback
+     * @param duration The duration of the callback
+     * @param magnitudes The magnitudes of the callback
+     * @param phases The phases of the callback
+     */
+    private void receive(double timestamp, double duration, float[] magnitudes, float[] phases) {
+        received.add(new double[] {timestamp, magnitudes[0], phases[0]});
+    }
+
+    /**
+     * Waits for the next received callback.
+     * @return The timestamp, first magnitude and first phase of the callback
+     * @throws InterruptedException If the test is interrupted
+     */
+    private double[] poll() throws InterruptedException {
+        double[] callback = received.poll(TIMEOUT, TimeUnit.SECONDS);
+        assertNotNull(callback, "No callback received");
+        return callback;
+    }
+
+    /**
+     * Waits for a latch on the analysis thread, which is not interrupted by the test.
+     * @param latch The latch
+     */
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
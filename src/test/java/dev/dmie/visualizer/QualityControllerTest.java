@@ -0,0 +1,88 @@
+package dev.dmie.visualizer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Feeds pulses to a {@link QualityController} and checks the level of detail of its {@link Visualizer}.
+ */
+class QualityControllerTest {
+    /**
+     * The frame budget of 60 frames per second in milliseconds.
+     */
+    private static final double BUDGET_MILLIS = 1000.0 / 60;
+
+    /**
+     * The number of bars at the full level of detail, which allows three levels.
+     */
+    private static final int BAR_COUNT = 64;
+
+    /**
+     * Checks that a display refreshed at 48 Hz, whose pulses are further apart than the budget, keeps the full
+     * level of detail while rendering is fast.
+     */
+    @Test
+    void keepsTheLevelOnASlowDisplay() {
+        Visualizer visualizer = createVisualizer();
+        QualityController controller = new QualityController(visualizer, BUDGET_MILLIS);
+
+        pulse(controller, 0, 20_833_333L, 2_000_000L, 10);
+
+        assertEquals(0, visualizer.getLevelOfDetail());
+    }
+
+    /**
+     * Checks that slow rendering lowers the level of detail once per window down to the last level, and that fast
+     * rendering raises it again only after several windows.
+     */
+    @Test
+    void lowersAndRaisesTheLevelByRenderTime() {
+        Visualizer visualizer = createVisualizer();
+        QualityController controller = new QualityController(visualizer, BUDGET_MILLIS);
+
+        long now = pulse(controller, 0, 16_666_667L, 10_000_000L, 1.5);
+        assertEquals(1, visualizer.getLevelOfDetail());
+        now = pulse(controller, now, 16_666_667L, 10_000_000L, 5);
+        assertEquals(visualizer.getLevelOfDetailCount() - 1, visualizer.getLevelOfDetail());
+
+        now = pulse(controller, now, 16_666_667L, 1_000_000L, 3);
+        assertEquals(visualizer.getLevelOfDetailCount() - 1, visualizer.getLevelOfDetail());
+        pulse(controller, now, 16_666_667L, 1_000_000L, 4);
+        assertEquals(visualizer.getLevelOfDetailCount() - 2, visualizer.getLevelOfDetail());
+    }
+
+    /**
+     * Feeds pulses at a fixed interval, each with a fixed render time.
+     * @param controller The controller to feed
+     * @param start The time of the first pulse in nanoseconds
+     * @param interval The time between two pulses in nanoseconds
+     * @param renderTime The render time of each pulse in nanoseconds
+     * @param seconds The time to feed pulses for in seconds
+     * @return The time after the last pulse in nanoseconds
+     */
+    private static long pulse(QualityController controller, long start, long interval, long renderTime,
+                              double seconds) {
+        long now = start;
+        for (; now < start + (long) (seconds * 1e9); now += interval) {
+            controller.recordPulse(now + 1, renderTime);
+        }
+        return now;
+    }
+
+    /**
+     * Creates a visualizer whose renderer draws nothing.
+     * @return The visualizer
+     */
+    private static Visualizer createVisualizer() {
+        return new Visualizer(new Renderer() {
+            @Override
+            public void setUp(int barCount) {
+            }
+
+            @Override
+            public void render(VisualizationState state) {
+            }
+        }, BAR_COUNT);
+    }
+}
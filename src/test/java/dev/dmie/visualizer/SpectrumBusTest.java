@@ -0,0 +1,260 @@
+package dev.dmie.visualizer;
+
+import dev.dmie.visualizer.metrics.VisualizerMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Publishes frames to a {@link SpectrumBus} and reads them through subscriptions.
+ */
+class SpectrumBusTest {
+    /**
+     * The number of bands of the frames.
+     */
+    private static final int BAND_COUNT = 128;
+
+    /**
+     * The number of bars of the published states.
+     */
+    private static final int BAR_COUNT = 64;
+
+    /**
+     * The spectrum threshold in decibels.
+     */
+    private static final int THRESHOLD = -80;
+
+    /**
+     * The number of frames kept for slow consumers.
+     */
+    private static final int CAPACITY = 16;
+
+    /**
+     * The number of frames published by the concurrent test.
+     */
+    private static final int FRAME_COUNT = 20_000;
+
+    /**
+     * The number of frames published while each frame is processed by the drop test.
+     */
+    private static final int DROPPED_FRAMES = 1000;
+
+    /**
+     * The magnitudes of the published frames, by their timestamp.
+     */
+    private final float[][] magnitudes = new float[FRAME_COUNT][BAND_COUNT];
+
+    /**
+     * The phases passed with every frame.
+     */
+    private final float[] phases = new float[BAND_COUNT];
+
+    /**
+     * Checks that a subscription reads the frames published since it was created in order and counts the frames it
+     * missed after falling more than a ring behind, and that the latest frame is read only once.
+     */
+    @Test
+    void pollsInOrderAndSkipsOverwrittenFrames() {
+        createMagnitudes();
+        SpectrumBus bus = createBus();
+        publish(bus, 0, 3);
+        SpectrumBus.Subscription subscription = bus.subscribe();
+        SpectrumBus.Subscription latest = bus.subscribe();
+        publish(bus, 3, 5);
+
+        List<Double> timestamps = new ArrayList<>();
+        assertEquals(5, subscription.poll((timestamp, duration, state) -> timestamps.add(timestamp)));
+        assertEquals(List.of(3.0, 4.0, 5.0, 6.0, 7.0), timestamps);
+        assertEquals(0, subscription.poll((timestamp, duration, state) -> timestamps.add(timestamp)));
+
+        publish(bus, 8, CAPACITY + 4);
+        timestamps.clear();
+        assertEquals(CAPACITY, subscription.poll((timestamp, duration, state) -> timestamps.add(timestamp)));
+        assertEquals(4, subscription.getSkippedFrames());
+        assertEquals(12.0, timestamps.get(0));
+
+        timestamps.clear();
+        assertTrue(latest.pollLatest((timestamp, duration, state) -> timestamps.add(timestamp)));
+        assertFalse(latest.pollLatest((timestamp, duration, state) -> timestamps.add(timestamp)));
+        assertEquals(List.of(8.0 + CAPACITY + 3), timestamps);
+        assertEquals(0, latest.getSkippedFrames());
+    }
+
+    /**
+     * Publishes frames while a fast, a slow and a latest-frame consumer read them concurrently, and checks that every
+     * consumer reads whole frames equal to the processed ones, in order, and that the frame-by-frame consumers read or
+     * skip every frame.
+     * @throws InterruptedException If the test is interrupted
+     * @throws ExecutionException If a consumer failed
+     * @throws TimeoutException If a consumer did not finish
+     */
+    @Test
+    void consumersReadWholeFramesWhilePublishing() throws InterruptedException, ExecutionException, TimeoutException {
+        createMagnitudes();
+        VisualizationState[] expected = processAll();
+        SpectrumBus bus = createBus();
+        CountDownLatch published = new CountDownLatch(1);
+        ExecutorService consumers = Executors.newFixedThreadPool(3);
+        SpectrumBus.Subscription fast = bus.subscribe();
+        SpectrumBus.Subscription slow = bus.subscribe();
+        SpectrumBus.Subscription latest = bus.subscribe();
+        try {
+            List<Future<Long>> results = List.of(
+                    consumers.submit(() -> consume(fast, expected, published, false, 0)),
+                    consumers.submit(() -> consume(slow, expected, published, false, 50_000)),
+                    consumers.submit(() -> consume(latest, expected, published, true, 0)));
+            publish(bus, 0, FRAME_COUNT);
+            published.countDown();
+
+            assertEquals(FRAME_COUNT, results.get(0).get(10, TimeUnit.SECONDS));
+            assertEquals(FRAME_COUNT, results.get(1).get(10, TimeUnit.SECONDS));
+            results.get(2).get(10, TimeUnit.SECONDS);
+        } finally {
+            consumers.shutdownNow();
+        }
+    }
+
+    /**
+     * Publishes frames from inside the processing of a frame, as a callback overlapping a slow one would, and checks
+     * that they are dropped and counted without allocating, since no JFR recording enables the drop event.
+     */
+    @Test
+    void framesArrivingDuringProcessingAreDroppedWithoutAllocating() {
+        createMagnitudes();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        SpectrumBus[] bus = new SpectrumBus[1];
+        long[] allocated = {-1};
+        SpectrumProcessor processor = new SpectrumProcessor(BAND_COUNT, BAR_COUNT, THRESHOLD, 80.0f) {
+            @Override
+            public void process(double timestamp, float[] frame) {
+                super.process(timestamp, frame);
+                long before = threads.getCurrentThreadAllocatedBytes();
+                publish(bus[0], 0, DROPPED_FRAMES);
+                allocated[0] = threads.getCurrentThreadAllocatedBytes() - before;
+            }
+        };
+        bus[0] = new SpectrumBus(CAPACITY, processor, () -> 0.0);
+        SpectrumBus.Subscription subscription = bus[0].subscribe();
+        long dropped = VisualizerMetrics.get().getDroppedSpectrumFrames();
+
+        publish(bus[0], 0, 2);
+        assertEquals(0, allocated[0], "Bytes allocated by the dropped frames");
+        assertEquals(2L * DROPPED_FRAMES, VisualizerMetrics.get().getDroppedSpectrumFrames() - dropped);
+        assertEquals(2, subscription.poll((timestamp, duration, state) -> { }));
+    }
+
+    /**
+     * Reads the frames of a subscription until the last frame is read and checks each of them.
+     * @param subscription The subscription of the consumer
+     * @param expected The processed state of each frame
+     * @param published Counted down once all frames are published
+     * @param latestOnly Whether only the latest frame is read
+     * @param pauseNanos The time the consumer waits after each read
+     * @return The number of read and skipped frames
+     */
+    private static long consume(SpectrumBus.Subscription subscription, VisualizationState[] expected,
+                                CountDownLatch published, boolean latestOnly, long pauseNanos) {
+        double[] previous = {-1.0};
+        long read = 0;
+        SpectrumBus.FrameListener listener = (timestamp, duration, state) -> {
+            int frame = (int) timestamp;
+            assertTrue(timestamp > previous[0], "Frame " + frame + " after frame " + previous[0]);
+            assertEquals(0.025, duration);
+            assertEquals(expected[frame].getHue(), state.getHue(), "Hue of frame " + frame);
+            assertEquals(expected[frame].getDotPulses(), state.getDotPulses(), "Dot pulses of frame " + frame);
+            assertArrayEquals(expected[frame].getLevels(), state.getLevels(), "Levels of frame " + frame);
+            previous[0] = timestamp;
+        };
+        while (previous[0] < FRAME_COUNT - 1) {
+            boolean done = published.getCount() == 0;
+            if (latestOnly) {
+                read += subscription.pollLatest(listener) ? 1 : 0;
+            } else {
+                read += subscription.poll(listener);
+            }
+            if (done) {
+                break;
+            }
+            if (pauseNanos > 0) {
+                LockSupport.parkNanos(pauseNanos);
+            }
+        }
+        assertEquals(FRAME_COUNT - 1, previous[0]);
+        return read + subscription.getSkippedFrames();
+    }
+
+    /**
+     * Fills the magnitudes of the frames with noise and a peak that moves across the bands.
+     */
+    private void createMagnitudes() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int frame = 0; frame < FRAME_COUNT; frame++) {
+            for (int band = 0; band < BAND_COUNT; band++) {
+                magnitudes[frame][band] = (float) random.nextDouble(THRESHOLD, -40.0);
+            }
+            magnitudes[frame][frame % BAND_COUNT] = -5.0f;
+        }
+    }
+
+    /**
+     * Processes all frames in order with a separate processor.
+     * @return The processed state of each frame
+     */
+    private VisualizationState[] processAll() {
+        SpectrumProcessor processor = createProcessor();
+        VisualizationState[] states = new VisualizationState[FRAME_COUNT];
+        for (int frame = 0; frame < FRAME_COUNT; frame++) {
+            processor.process(frame, magnitudes[frame]);
+            VisualizationState state = processor.getState();
+            states[frame] = new VisualizationState(BAR_COUNT);
+            states[frame].setHue(state.getHue());
+            states[frame].setDotPulses(state.getDotPulses());
+            System.arraycopy(state.getLevels(), 0, states[frame].getLevels(), 0, BAR_COUNT);
+        }
+        return states;
+    }
+
+    /**
+     * Publishes frames whose timestamps are their indices.
+     * @param bus The bus to publish to
+     * @param first The index of the first frame
+     * @param count The number of frames
+     */
+    private void publish(SpectrumBus bus, int first, int count) {
+        for (int frame = first; frame < first + count; frame++) {
+            bus.spectrumDataUpdate(frame, 0.025, magnitudes[frame], phases);
+        }
+    }
+
+    /**
+     * Creates a bus with a new processor and a clock that is never ahead of the frames.
+     * @return The bus
+     */
+    private static SpectrumBus createBus() {
+        return new SpectrumBus(CAPACITY, createProcessor(), () -> 0.0);
+    }
+
+    /**
+     * Creates a processor of the frames.
+     * @return The processor
+     */
+    private static SpectrumProcessor createProcessor() {
+        return new SpectrumProcessor(BAND_COUNT, BAR_COUNT, THRESHOLD, 80.0f);
+    }
+}
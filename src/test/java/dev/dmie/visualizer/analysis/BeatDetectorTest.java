@@ -0,0 +1,151 @@
+package dev.dmie.visualizer.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Feeds synthetic click tracks to a {@link BeatDetector}.
+ */
+class BeatDetectorTest {
+    /**
+     * The number of bands of the synthetic frames.
+     */
+    private static final int BAND_COUNT = 32;
+
+    /**
+     * The time between two frames at the default hop of 1024 samples at 44.1 kHz.
+     */
+    private static final double FRAME_PERIOD = 1024 / 44100.0;
+
+    /**
+     * The length of the click tracks in seconds.
+     */
+    private static final double TRACK_SECONDS = 30.0;
+
+    /**
+     * The magnitude of silence in decibels.
+     */
+    private static final float SILENCE = -80.0f;
+
+    /**
+     * The magnitude of a click in decibels.
+     */
+    private static final float CLICK = -10.0f;
+
+    /**
+     * The fall of the magnitude after a click per second.
+     */
+    private static final float CLICK_DECAY = 400.0f;
+
+    /**
+     * Checks a click track at 90 BPM.
+     */
+    @Test
+    void detectsClicksAt90Bpm() {
+        assertDetectsClicksAndTempo(90);
+    }
+
+    /**
+     * Checks a click track at 120 BPM.
+     */
+    @Test
+    void detectsClicksAt120Bpm() {
+        assertDetectsClicksAndTempo(120);
+    }
+
+    /**
+     * Checks a click track at 150 BPM.
+     */
+    @Test
+    void detectsClicksAt150Bpm() {
+        assertDetectsClicksAndTempo(150);
+    }
+
+    /**
+     * Feeds a click track and checks that every click is reported as a beat at its first frame and that the tempo is
+     * estimated within 1 %.
+     * @param bpm The tempo of the clicks in beats per minute
+     */
+    private static void assertDetectsClicksAndTempo(int bpm) {
+        BeatDetector detector = new BeatDetector(BAND_COUNT);
+        List<Double> beats = new ArrayList<>();
+        detector.addListener((timestamp, strength) -> beats.add(timestamp));
+
+        feedClickTrack(detector, bpm, FRAME_PERIOD);
+
+        double beatPeriod = 60.0 / bpm;
+        int expectedBeats = (int) (TRACK_SECONDS / beatPeriod);
+        assertTrue(beats.size() >= expectedBeats - 2 && beats.size() <= expectedBeats + 1,
+                "Expected about " + expectedBeats + " beats, got " + beats.size());
+        for (double beat : beats) {
+            double click = Math.floor(beat / beatPeriod) * beatPeriod;
+            assertTrue(beat >= click && beat < click + FRAME_PERIOD + 1e-9,
+                    "Beat at " + beat + " is not the first frame after the click at " + click);
+        }
+        assertEquals(bpm, detector.getTempo(), bpm * 0.01);
+    }
+
+    /**
+     * Checks that frames far apart, as with a large hop size, neither crash the tempo estimate nor hide beats.
+     */
+    @Test
+    void handlesFramesFarApart() {
+        // 8192 samples at 44.1 kHz, so the fastest tempo is a lag of a single frame
+        BeatDetector detector = new BeatDetector(BAND_COUNT);
+        List<Double> beats = new ArrayList<>();
+        detector.addListener((timestamp, strength) -> beats.add(timestamp));
+
+        feedClickTrack(detector, 90, 8192 / 44100.0);
+
+        assertFalse(beats.isEmpty());
+    }
+
+    /**
+     * Checks that silence has neither beats nor a tempo.
+     */
+    @Test
+    void ignoresSilence() {
+        BeatDetector detector = new BeatDetector(BAND_COUNT);
+        List<Double> beats = new ArrayList<>();
+        detector.addListener((timestamp, strength) -> beats.add(timestamp));
+
+        float[] magnitudes = new float[BAND_COUNT];
+        Arrays.fill(magnitudes, SILENCE);
+        for (int frame = 0; frame * FRAME_PERIOD < TRACK_SECONDS; frame++) {
+            detector.process(frame * FRAME_PERIOD, magnitudes);
+        }
+
+        assertTrue(beats.isEmpty());
+        assertEquals(0.0, detector.getTempo());
+    }
+
+    /**
+     * Feeds frames of a click track: silence with a little noise, and a click in all bands that decays quickly at
+     * every beat.
+     * @param detector The detector to feed
+     * @param bpm The tempo of the clicks in beats per minute
+     * @param framePeriod The time between two frames in seconds
+     */
+    private static void feedClickTrack(BeatDetector detector, int bpm, double framePeriod) {
+        SplittableRandom random = new SplittableRandom(bpm);
+        double beatPeriod = 60.0 / bpm;
+        float[] magnitudes = new float[BAND_COUNT];
+        for (int frame = 0; frame * framePeriod < TRACK_SECONDS; frame++) {
+            double timestamp = frame * framePeriod;
+            double sinceClick = timestamp - Math.floor(timestamp / beatPeriod) * beatPeriod;
+            float level = Math.max(SILENCE, CLICK - (float) (sinceClick * CLICK_DECAY));
+            for (int band = 0; band < BAND_COUNT; band++) {
+                magnitudes[band] = level + (float) random.nextDouble(-1.0, 1.0);
+            }
+            detector.process(timestamp, magnitudes);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package dev.dmie.visualizer.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stores the spectrograms of synthetic tracks in a {@link SpectrogramCache} and reads them back.
+ */
+class SpectrogramCacheTest {
+    /**
+     * The number of samples in an FFT window.
+     */
+    private static final int WINDOW_SIZE = 2048;
+
+    /**
+     * The number of frames between two FFT windows.
+     */
+    private static final int HOP_SIZE = 1024;
+
+    /**
+     * The number of bands.
+     */
+    private static final int BAND_COUNT = 32;
+
+    /**
+     * The spectrum threshold in decibels.
+     */
+    private static final int THRESHOLD = -60;
+
+    /**
+     * The number of frames of the track, two seconds that do not end on a hop.
+     */
+    private static final int FRAME_COUNT = 88200;
+
+    /**
+     * The directory of the track and the cache.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Computes the spectrogram of a track and checks that its frames match a direct analysis within the quantization
+     * and that the cache then returns the same frames.
+     * @throws IOException If the track or the cache could not be written or read
+     */
+    @Test
+    void storesAndFindsTheSpectrogram() throws IOException {
+        Path track = TestTracks.writeSweep(directory.resolve("sweep.wav"), 1000, FRAME_COUNT);
+        SpectrogramCache cache = new SpectrogramCache(directory.resolve("cache"), WINDOW_SIZE, HOP_SIZE, BAND_COUNT,
+                THRESHOLD);
+        assertTrue(cache.find(track).isEmpty());
+
+        float[][] expected = analyze(TestTracks.decode(track));
+        float[][] computed;
+        try (Spectrogram spectrogram = cache.compute(track)) {
+            assertEquals(FRAME_COUNT / HOP_SIZE, spectrogram.getFrameCount());
+            assertEquals(BAND_COUNT, spectrogram.getBandCount());
+            assertEquals(HOP_SIZE / TestTracks.SAMPLE_RATE, spectrogram.getHopDuration(), 1e-9);
+            computed = readAll(spectrogram);
+        }
+        float step = -THRESHOLD / 255.0f;
+        for (int frame = 0; frame < expected.length; frame++) {
+            for (int band = 0; band < BAND_COUNT; band++) {
+                float magnitude = Math.max(THRESHOLD, Math.min(0, expected[frame][band]));
+                assertEquals(magnitude, computed[frame][band], step / 2 + 1e-4f,
+                        "Frame " + frame + ", band " + band);
+            }
+        }
+
+        Optional<Spectrogram> cached = cache.find(track);
+        assertTrue(cached.isPresent());
+        try (Spectrogram spectrogram = cached.get()) {
+            assertEquals(computed.length, spectrogram.getFrameCount());
+            for (int frame = 0; frame < computed.length; frame++) {
+                float[] magnitudes = new float[BAND_COUNT];
+                spectrogram.read(frame, magnitudes);
+                assertArrayEquals(computed[frame], magnitudes);
+            }
+        }
+    }
+
+    /**
+     * Checks that a truncated cache file is not returned, so that the spectrogram is computed again.
+     * @throws IOException If the track or the cache could not be written or read
+     */
+    @Test
+    void ignoresATruncatedCacheFile() throws IOException {
+        Path track = TestTracks.writeSweep(directory.resolve("sweep.wav"), 1000, FRAME_COUNT);
+        Path cacheDirectory = directory.resolve("cache");
+        SpectrogramCache cache = new SpectrogramCache(cacheDirectory, WINDOW_SIZE, HOP_SIZE, BAND_COUNT, THRESHOLD);
+        cache.compute(track).close();
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(cacheDirectory)) {
+            files = list.toList();
+        }
+        assertEquals(1, files.size());
+        try (FileChannel channel = FileChannel.open(files.get(0), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        assertFalse(cache.find(track).isPresent());
+    }
+
+    /**
+     * Checks that a closed spectrogram cannot be read.
+     * @throws IOException If the track or the cache could not be written or read
+     */
+    @Test
+    void rejectsReadsAfterClose() throws IOException {
+        Path track = TestTracks.writeSweep(directory.resolve("sweep.wav"), 1000, FRAME_COUNT);
+        Spectrogram spectrogram = new SpectrogramCache(directory.resolve("cache"), WINDOW_SIZE, HOP_SIZE, BAND_COUNT,
+                THRESHOLD).compute(track);
+        spectrogram.close();
+
+        assertThrows(IllegalStateException.class, () -> spectrogram.read(0, new float[BAND_COUNT]));
+    }
+
+    /**
+     * Analyzes samples hop by hop like the cache does.
+     * @param samples The samples of the track
+     * @return The magnitudes of each frame
+     */
+    private static float[][] analyze(float[] samples) {
+        SpectrumAnalyzer analyzer = new SpectrumAnalyzer(WINDOW_SIZE, BAND_COUNT, THRESHOLD);
+        float[] window = new float[WINDOW_SIZE];
+        float[] phases = new float[BAND_COUNT];
+        float[][] frames = new float[samples.length / HOP_SIZE][BAND_COUNT];
+        for (int frame = 0; frame < frames.length; frame++) {
+            for (int i = frame * HOP_SIZE; i < (frame + 1) * HOP_SIZE; i++) {
+                window[i % WINDOW_SIZE] = samples[i];
+            }
+            analyzer.analyze(window, (frame + 1) * HOP_SIZE % WINDOW_SIZE, frames[frame], phases);
+        }
+        return frames;
+    }
+
+    /**
+     * Reads all frames of a spectrogram.
+     * @param spectrogram The spectrogram
+     * @return The magnitudes of each frame
+     */
+    private static float[][] readAll(Spectrogram spectrogram) {
+        float[][] frames = new float[spectrogram.getFrameCount()][spectrogram.getBandCount()];
+        for (int frame = 0; frame < frames.length; frame++) {
+            spectrogram.read(frame, frames[frame]);
+        }
+        return frames;
+    }
+}
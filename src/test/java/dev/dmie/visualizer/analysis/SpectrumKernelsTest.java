@@ -0,0 +1,204 @@
+package dev.dmie.visualizer.analysis;
+
+import jdk.incubator.vector.FloatVector;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the vectorized {@link SpectrumKernels} compute the same results as the scalar ones for arrays shorter
+ * than, as long as and longer than one vector, including lengths that leave a tail after the last whole vector.
+ */
+class SpectrumKernelsTest {
+    /**
+     * The number of floats in one vector of the preferred shape.
+     */
+    private static final int VECTOR_LENGTH = FloatVector.SPECIES_PREFERRED.length();
+
+    /**
+     * The largest tested length.
+     */
+    private static final int MAX_LENGTH = VECTOR_LENGTH * 4 + 3;
+
+    /**
+     * The largest relative difference allowed between the results, which covers the different order of additions in
+     * reductions and the different approximation of the exponential.
+     */
+    private static final float TOLERANCE = 1e-5f;
+
+    /**
+     * The scalar kernels.
+     */
+    private final SpectrumKernels scalar = SpectrumKernels.scalar();
+
+    /**
+     * The vectorized kernels.
+     */
+    private final SpectrumKernels vector = SpectrumKernels.vector();
+
+    /**
+     * The generator of the input values.
+     */
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    /**
+     * Checks that the vectorized kernels are used where the Vector API is available.
+     */
+    @Test
+    void prefersVectorizedKernels() {
+        assertTrue(SpectrumKernels.get().isVectorized());
+        assertTrue(vector.isVectorized());
+    }
+
+    /**
+     * Compares the rises and the held magnitudes of {@link SpectrumKernels#peakHold}.
+     */
+    @Test
+    void peakHoldMatchesScalar() {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            float[] magnitudes = values(length, -80, 0);
+            float[] held = values(length, -80, 0);
+            float[] expected = held.clone();
+            float expectedRise = scalar.peakHold(magnitudes, expected, 1.5f, length);
+            float rise = vector.peakHold(magnitudes, held, 1.5f, length);
+            assertClose(expectedRise, rise, 1, length);
+            assertClose(expected, held, 1, length);
+        }
+    }
+
+    /**
+     * Compares the smoothed values of {@link SpectrumKernels#smooth}.
+     */
+    @Test
+    void smoothMatchesScalar() {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            float[] values = values(length, 0, 1);
+            float[] smoothed = values(length, 0, 1);
+            float[] expected = smoothed.clone();
+            scalar.smooth(values, expected, 0.6f, 0.2f, length);
+            vector.smooth(values, smoothed, 0.6f, 0.2f, length);
+            assertClose(expected, smoothed, 1, length);
+        }
+    }
+
+    /**
+     * Compares the amplitudes of {@link SpectrumKernels#decibelsToLinear}.
+     */
+    @Test
+    void decibelsToLinearMatchesScalar() {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            float[] decibels = values(length, -120, 20);
+            float[] expected = new float[length];
+            float[] linear = new float[length];
+            scalar.decibelsToLinear(decibels, expected, length);
+            vector.decibelsToLinear(decibels, linear, length);
+            assertClose(expected, linear, 0, length);
+        }
+    }
+
+    /**
+     * Compares the levels of {@link SpectrumKernels#normalize}, of which some are clamped at either end.
+     */
+    @Test
+    void normalizeMatchesScalar() {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            float[] values = values(length, -100, 10);
+            float[] expected = new float[length];
+            float[] levels = new float[length];
+            scalar.normalize(values, expected, -80, 1 / 80.0f, length);
+            vector.normalize(values, levels, -80, 1 / 80.0f, length);
+            assertClose(expected, levels, 1, length);
+        }
+    }
+
+    /**
+     * Compares the values of {@link SpectrumKernels#interpolate}.
+     */
+    @Test
+    void interpolateMatchesScalar() {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            float[] from = values(length, 0, 1);
+            float[] to = values(length, 0, 1);
+            float[] expected = new float[length];
+            float[] result = new float[length];
+            scalar.interpolate(from, to, 0.3f, expected, length);
+            vector.interpolate(from, to, 0.3f, result, length);
+            assertClose(expected, result, 1, length);
+        }
+    }
+
+    /**
+     * Compares {@link SpectrumKernels#sum} over ranges of every length that start at the beginning and in the middle
+     * of an array.
+     */
+    @Test
+    void sumMatchesScalar() {
+        float[] values = values(MAX_LENGTH + VECTOR_LENGTH, -1, 1);
+        for (int from : new int[] {0, 1, VECTOR_LENGTH - 1}) {
+            for (int length = 0; length <= MAX_LENGTH; length++) {
+                float expected = scalar.sum(values, from, from + length);
+                float sum = vector.sum(values, from, from + length);
+                assertEquals(expected, sum, TOLERANCE * Math.max(1, length), "Sum of " + length + " from " + from);
+            }
+        }
+    }
+
+    /**
+     * Compares {@link SpectrumKernels#max} over ranges of every length that start at the beginning and in the middle
+     * of an array, including the empty range.
+     */
+    @Test
+    void maxMatchesScalar() {
+        float[] values = values(MAX_LENGTH + VECTOR_LENGTH, -80, 0);
+        for (int from : new int[] {0, 1, VECTOR_LENGTH - 1}) {
+            for (int length = 0; length <= MAX_LENGTH; length++) {
+                float expected = scalar.max(values, from, from + length);
+                assertEquals(expected, vector.max(values, from, from + length), "Max of " + length + " from " + from);
+            }
+        }
+    }
+
+    /**
+     * Creates random values.
+     * @param length The number of values
+     * @param low The lowest value
+     * @param high The highest value
+     * @return The values
+     */
+    private float[] values(int length, double low, double high) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (float) random.nextDouble(low, high);
+        }
+        return values;
+    }
+
+    /**
+     * Checks that a result is within the relative {@link SpectrumKernelsTest#TOLERANCE} of the scalar result.
+     * @param expected The scalar result
+     * @param actual The vectorized result
+     * @param scale The smallest magnitude the tolerance is relative to, for results that cancel out larger inputs
+     * @param length The length of the arrays, used in the message
+     */
+    private static void assertClose(float expected, float actual, float scale, int length) {
+        assertEquals(expected, actual, TOLERANCE * Math.max(scale, Math.abs(expected)), "Length " + length);
+    }
+
+    /**
+     * Checks that each element of a result is within the relative {@link SpectrumKernelsTest#TOLERANCE} of the
+     * scalar result.
+     * @param expected The scalar results
+     * @param actual The vectorized results
+     * @param scale The smallest magnitude the tolerance is relative to, for results that cancel out larger inputs
+     * @param length The length of the arrays, used in the message
+     */
+    private static void assertClose(float[] expected, float[] actual, float scale, int length) {
+        for (int i = 0; i < length; i++) {
+            assertEquals(expected[i], actual[i], TOLERANCE * Math.max(scale, Math.abs(expected[i])),
+                    "Element " + i + " of length " + length);
+        }
+    }
+}
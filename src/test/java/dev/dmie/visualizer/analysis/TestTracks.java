@@ -0,0 +1,71 @@
+package dev.dmie.visualizer.analysis;
+
+import dev.dmie.visualizer.audio.PcmSource;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Writes and reads the synthetic tracks of the cache tests.
+ */
+final class TestTracks {
+    /**
+     * The sample rate of the tracks.
+     */
+    static final float SAMPLE_RATE = 44100.0f;
+
+    /**
+     * Prevents instantiation.
+     */
+    private TestTracks() {
+    }
+
+    /**
+     * Writes a 16-bit mono WAV file of a sine wave whose amplitude rises from silence to full scale.
+     * @param file The path of the file
+     * @param frequency The frequency of the sine wave in hertz
+     * @param frameCount The number of frames
+     * @return The path of the file
+     * @throws IOException If the file could not be written
+     */
+    static Path writeSweep(Path file, double frequency, int frameCount) throws IOException {
+        ByteBuffer samples = ByteBuffer.allocate(frameCount * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frameCount; i++) {
+            double amplitude = (double) i / frameCount;
+            double sample = amplitude * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE);
+            samples.putShort((short) Math.round(sample * 32767));
+        }
+        AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(samples.array()), format,
+                frameCount)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file.toFile());
+        }
+        return file;
+    }
+
+    /**
+     * Decodes all samples of a track.
+     * @param track The path of the track
+     * @return The samples
+     * @throws IOException If the track could not be decoded
+     */
+    static float[] decode(Path track) throws IOException {
+        try (PcmSource source = PcmSource.open(track)) {
+            float[] samples = new float[(int) source.getFrameLength()];
+            int length = 0;
+            int read;
+            while (length < samples.length && (read = source.read(samples, length, samples.length - length)) >= 0) {
+                length += read;
+            }
+            return Arrays.copyOf(samples, length);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package dev.dmie.visualizer.analysis;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Computes the waveforms of synthetic tracks with a {@link WaveformCache} and reads them back from its files.
+ */
+class WaveformCacheTest {
+    /**
+     * The number of columns of the waveforms.
+     */
+    private static final int COLUMN_COUNT = 16;
+
+    /**
+     * The number of frames of the track, long enough for a coarse waveform to be shown first.
+     */
+    private static final int FRAME_COUNT = 441_000;
+
+    /**
+     * The directory of the track and the cache.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * The pool the waveforms are computed on.
+     */
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    /**
+     * Shuts the pool down.
+     */
+    @AfterEach
+    void shutDownPool() {
+        pool.shutdown();
+    }
+
+    /**
+     * Computes the waveform of a track and checks that a coarse and then the refined waveform are reported, that the
+     * refined columns match the samples, and that a second load reads the same columns from the cache file.
+     * @throws IOException If the track could not be written or decoded
+     * @throws ExecutionException If a waveform could not be computed or read
+     * @throws InterruptedException If the test is interrupted
+     */
+    @Test
+    void storesAndLoadsTheWaveform() throws IOException, ExecutionException, InterruptedException {
+        Path track = TestTracks.writeSweep(directory.resolve("sweep.wav"), 440, FRAME_COUNT);
+        WaveformCache cache = new WaveformCache(directory.resolve("cache"), COLUMN_COUNT);
+        assertTrue(cache.find(track).isEmpty());
+
+        List<Waveform> reported = new CopyOnWriteArrayList<>();
+        Waveform computed = cache.loadAsync(track, pool, reported::add).get();
+        assertEquals(2, reported.size());
+        assertFalse(reported.get(0).isRefined());
+        assertTrue(computed.isRefined());
+        assertColumnsMatch(TestTracks.decode(track), computed);
+
+        Optional<Waveform> cached = cache.find(track);
+        assertTrue(cached.isPresent());
+        assertSameColumns(computed, cached.get());
+
+        reported.clear();
+        Waveform loaded = cache.loadAsync(track, pool, reported::add).get();
+        assertEquals(1, reported.size());
+        assertSameColumns(computed, loaded);
+    }
+
+    /**
+     * Checks that a cache with another column count does not read the cache file.
+     * @throws IOException If the track could not be written
+     * @throws ExecutionException If the waveform could not be computed
+     * @throws InterruptedException If the test is interrupted
+     */
+    @Test
+    void keysTheCacheByColumnCount() throws IOException, ExecutionException, InterruptedException {
+        Path track = TestTracks.writeSweep(directory.resolve("sweep.wav"), 440, FRAME_COUNT);
+        new WaveformCache(directory.resolve("cache"), COLUMN_COUNT).loadAsync(track, pool, waveform -> {
+        }).get();
+
+        assertTrue(new WaveformCache(directory.resolve("cache"), COLUMN_COUNT * 2).find(track).isEmpty());
+    }
+
+    /**
+     * Checks that the columns of a waveform hold the minimum, maximum and RMS of their samples.
+     * @param samples The samples of the track
+     * @param waveform The waveform
+     */
+    private static void assertColumnsMatch(float[] samples, Waveform waveform) {
+        assertEquals(COLUMN_COUNT, waveform.getColumnCount());
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            int start = (int) ((long) column * samples.length / COLUMN_COUNT);
+            int end = (int) ((long) (column + 1) * samples.length / COLUMN_COUNT);
+            float minimum = 0;
+            float maximum = 0;
+            double sum = 0;
+            for (int i = start; i < end; i++) {
+                minimum = Math.min(minimum, samples[i]);
+                maximum = Math.max(maximum, samples[i]);
+                sum += samples[i] * samples[i];
+            }
+            assertEquals(minimum, waveform.getMinimum(column), "Minimum of column " + column);
+            assertEquals(maximum, waveform.getMaximum(column), "Maximum of column " + column);
+            assertEquals(Math.sqrt(sum / (end - start)), waveform.getRms(column), 1e-5, "RMS of column " + column);
+        }
+    }
+
+    /**
+     * Checks that two waveforms have the same columns.
+     * @param expected The expected waveform
+     * @param actual The actual waveform
+     */
+    private static void assertSameColumns(Waveform expected, Waveform actual) {
+        assertTrue(actual.isRefined());
+        assertEquals(expected.getColumnCount(), actual.getColumnCount());
+        for (int column = 0; column < expected.getColumnCount(); column++) {
+            assertEquals(expected.getMinimum(column), actual.getMinimum(column));
+            assertEquals(expected.getMaximum(column), actual.getMaximum(column));
+            assertEquals(expected.getRms(column), actual.getRms(column));
+        }
+    }
+}
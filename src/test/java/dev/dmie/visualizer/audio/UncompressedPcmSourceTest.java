@@ -0,0 +1,281 @@
+package dev.dmie.visualizer.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that an {@link UncompressedPcmSource} parses the headers of WAV, RF64, AIFF and AIFC files and reads their
+ * samples, also across the boundaries of its buffer.
+ */
+class UncompressedPcmSourceTest {
+    /**
+     * The sample rate of the files.
+     */
+    private static final int SAMPLE_RATE = 44100;
+
+    /**
+     * The number of bytes of the header of a WAV or AIFF file before its first chunk.
+     */
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * The directory the files are written to.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Checks that the samples of a 16-bit stereo WAV file are read and the channels averaged.
+     * @throws IOException If the file could not be written or read
+     */
+    @Test
+    void readsWave16Bit() throws IOException {
+        Path file = writeWave(directory.resolve("stereo.wav"), false, 16, 2, 16, 1000);
+        try (UncompressedPcmSource source = new UncompressedPcmSource(file)) {
+            assertEquals(2, source.getChannels());
+            assertEquals(16, source.getBitsPerSample());
+            assertEquals(ByteOrder.LITTLE_ENDIAN, source.getByteOrder());
+            assertEquals(SAMPLE_RATE, source.getSampleRate());
+            assertEquals(1000, source.getFrameLength());
+            assertSamples(source, 16, 2, 0, 1000, 1000);
+        }
+    }
+
+    /**
+     * Checks that the samples of a 24-bit mono WAV file are read with their sign.
+     * @throws IOException If the file could not be written or read
+     */
+    @Test
+    void readsWave24Bit() throws IOException {
+        Path file = writeWave(directory.resolve("mono.wav"), false, 16, 1, 24, 1000);
+        try (UncompressedPcmSource source = new UncompressedPcmSource(file)) {
+            assertEquals(24, source.getBitsPerSample());
+            assertEquals(1000, source.getFrameLength());
+            assertSamples(source, 24, 1, 0, 1000, 1000);
+        }
+    }
+
+    /**
+     * Checks that the length of the samples of an RF64 file is taken from its {@code ds64} chunk.
+     * @throws IOException If the file could not be written or read
+     */
+    @Test
+    void readsRf64() throws IOException {
+        Path file = writeWave(directory.resolve("long.wav"), true, 16, 2, 16, 1000);
+        try (UncompressedPcmSource source = new UncompressedPcmSource(file)) {
+            assertEquals(1000, source.getFrameLength());
+            assertSamples(source, 16, 2, 0, 1000, 1000);
+        }
+    }
+
+    /**
+     * Checks that the big-endian samples and the extended-precision sample rate of an AIFF file are read.
+     * @throws IOException If the file could not be written or read
+     */
+    @Test
+    void readsAiff() throws IOException {
+        Path file = writeAiff(directory.resolve("track.aiff"), null, 2, 16, 1000);
+        try (UncompressedPcmSource source = new UncompressedPcmSource(file)) {
+            assertEquals(ByteOrder.BIG_ENDIAN, source.getByteOrder());
+            assertEquals(SAMPLE_RATE, source.getSampleRate());
+            assertEquals(1000, source.getFrameLength());
+            assertSamples(source, 16, 2, 0, 1000, 1000);
+        }
+    }
+
+    /**
+     * Checks that the little-endian ({@code sowt}) 24-bit samples of an AIFC file are read.
+     * @throws IOException If the file could not be written or read
+     */
+    @Test
+    void readsAifcLittleEndian() throws IOException {
+        Path file = writeAiff(directory.resolve("track.aiff"), "sowt", 1, 24, 1000);
+        try (UncompressedPcmSource source = new UncompressedPcmSource(file)) {
+            assertEquals(ByteOrder.LITTLE_ENDIAN, source.getByteOrder());
+            assertEquals(24, source.getBitsPerSample());
+            assertSamples(source, 24, 1, 0, 1000, 1000);
+        }
+    }
+
+    /**
+     * Checks that reads of odd lengths and reads after seeks return the right samples where they cross the
+     * boundaries of the buffer, and that no read returns more frames than the buffer holds.
+     * @throws IOException If the file could not be written or read
+     */
+    @Test
+    void readsAcrossBufferBoundaries() throws IOException {
+        int frameCount = 100_000;
+        Path file = writeWave(directory.resolve("large.wav"), false, 16, 2, 16, frameCount);
+        try (UncompressedPcmSource source = new UncompressedPcmSource(file)) {
+            assertSamples(source, 16, 2, 0, frameCount, 7001);
+            assertEquals(-1, source.read(new float[16], 0, 16));
+
+            source.seek(16_380);
+            assertSamples(source, 16, 2, 16_380, 20, 20);
+            source.seek(frameCount - 3);
+            assertSamples(source, 16, 2, frameCount - 3, 3, 10);
+
+            source.seek(0);
+            int read = source.read(new float[frameCount], 0, frameCount);
+            assertTrue(read > 0 && read < frameCount, "A read fills at most one buffer: " + read);
+        }
+    }
+
+    /**
+     * Checks that a WAV file whose format chunk is too short for the sample size is rejected with an
+     * {@link IOException}.
+     * @throws IOException If the file could not be written
+     */
+    @Test
+    void rejectsShortFormatChunk() throws IOException {
+        Path file = writeWave(directory.resolve("short.wav"), false, 14, 1, 16, 100);
+        assertThrows(IOException.class, () -> new UncompressedPcmSource(file).close());
+    }
+
+    /**
+     * Reads frames from the position of a source in reads of a fixed length and compares them with the written
+     * samples.
+     * @param source The source to read
+     * @param bits The number of bits of a sample
+     * @param channels The number of channels
+     * @param first The index of the first frame to read
+     * @param count The number of frames to read
+     * @param readLength The number of frames requested by each read
+     * @throws IOException If the frames could not be read
+     */
+    private static void assertSamples(UncompressedPcmSource source, int bits, int channels, int first, int count,
+                                      int readLength) throws IOException {
+        float[] buffer = new float[readLength];
+        int frame = first;
+        while (frame < first + count) {
+            int read = source.read(buffer, 0, Math.min(readLength, first + count - frame));
+            assertTrue(read > 0, "Frames are left at " + frame);
+            for (int i = 0; i < read; i++, frame++) {
+                float expected = 0.0f;
+                for (int channel = 0; channel < channels; channel++) {
+                    expected += sample(frame, channel, bits) / (float) (1 << bits - 1);
+                }
+                assertEquals(expected / channels, buffer[i], 1e-6f, "Frame " + frame);
+            }
+        }
+    }
+
+    /**
+     * Returns the written value of a sample, which covers the whole signed range of the sample size.
+     * @param frame The index of the frame
+     * @param channel The index of the channel
+     * @param bits The number of bits of a sample
+     * @return The value of the sample
+     */
+    private static int sample(int frame, int channel, int bits) {
+        int range = 1 << bits;
+        return (int) (((long) frame * 40_503 + channel * 7_919L) % range) - range / 2;
+    }
+
+    /**
+     * Writes the samples of all frames.
+     * @param buffer The buffer to write to, in the byte order of the samples
+     * @param bits The number of bits of a sample
+     * @param channels The number of channels
+     * @param frameCount The number of frames
+     */
+    private static void putSamples(ByteBuffer buffer, int bits, int channels, int frameCount) {
+        for (int frame = 0; frame < frameCount; frame++) {
+            for (int channel = 0; channel < channels; channel++) {
+                int value = sample(frame, channel, bits);
+                if (bits == 16) {
+                    buffer.putShort((short) value);
+                } else if (buffer.order() == ByteOrder.LITTLE_ENDIAN) {
+                    buffer.put((byte) value).put((byte) (value >> 8)).put((byte) (value >> 16));
+                } else {
+                    buffer.put((byte) (value >> 16)).put((byte) (value >> 8)).put((byte) value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a WAV file of integer samples.
+     * @param file The path of the file
+     * @param rf64 Whether to write an RF64 file, which stores its sizes in a {@code ds64} chunk
+     * @param formatSize The number of bytes of the format chunk, at most 16
+     * @param channels The number of channels
+     * @param bits The number of bits of a sample: 16 or 24
+     * @param frameCount The number of frames
+     * @return The path of the file
+     * @throws IOException If the file could not be written
+     */
+    private static Path writeWave(Path file, boolean rf64, int formatSize, int channels, int bits, int frameCount)
+            throws IOException {
+        int dataSize = frameCount * channels * bits / 8;
+        int ds64Size = rf64 ? 8 + 28 : 0;
+        int size = HEADER_SIZE + ds64Size + 8 + formatSize + 8 + dataSize;
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        putId(buffer, rf64 ? "RF64" : "RIFF").putInt(rf64 ? -1 : size - 8);
+        putId(buffer, "WAVE");
+        if (rf64) {
+            putId(buffer, "ds64").putInt(28).putLong(size - 8).putLong(dataSize).putLong(frameCount).putInt(0);
+        }
+        ByteBuffer format = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        format.putShort((short) 1).putShort((short) channels).putInt(SAMPLE_RATE)
+                .putInt(SAMPLE_RATE * channels * bits / 8).putShort((short) (channels * bits / 8))
+                .putShort((short) bits);
+        putId(buffer, "fmt ").putInt(formatSize).put(format.array(), 0, formatSize);
+        putId(buffer, "data").putInt(rf64 ? -1 : dataSize);
+        putSamples(buffer, bits, channels, frameCount);
+        return Files.write(file, buffer.array());
+    }
+
+    /**
+     * Writes an AIFF file, or an AIFC file if a compression type is given.
+     * @param file The path of the file
+     * @param compression The compression type of an AIFC file, or {@code null} for an AIFF file
+     * @param channels The number of channels
+     * @param bits The number of bits of a sample: 16 or 24
+     * @param frameCount The number of frames
+     * @return The path of the file
+     * @throws IOException If the file could not be written
+     */
+    private static Path writeAiff(Path file, String compression, int channels, int bits, int frameCount)
+            throws IOException {
+        int dataSize = frameCount * channels * bits / 8;
+        int commonSize = compression == null ? 18 : 22;
+        int size = HEADER_SIZE + 8 + commonSize + 8 + 8 + dataSize;
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+        putId(buffer, "FORM").putInt(size - 8);
+        putId(buffer, compression == null ? "AIFF" : "AIFC");
+        putId(buffer, "COMM").putInt(commonSize).putShort((short) channels).putInt(frameCount)
+                .putShort((short) bits);
+        int exponent = 31 - Integer.numberOfLeadingZeros(SAMPLE_RATE);
+        buffer.putShort((short) (16383 + exponent)).putLong((long) SAMPLE_RATE << 63 - exponent);
+        if (compression != null) {
+            putId(buffer, compression);
+        }
+        putId(buffer, "SSND").putInt(8 + dataSize).putInt(0).putInt(0);
+        boolean littleEndian = "sowt".equals(compression);
+        ByteBuffer samples = buffer.slice().order(littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        putSamples(samples, bits, channels, frameCount);
+        return Files.write(file, buffer.array());
+    }
+
+    /**
+     * Writes a four-character chunk identifier.
+     * @param buffer The buffer to write to
+     * @param id The identifier
+     * @return The buffer
+     */
+    private static ByteBuffer putId(ByteBuffer buffer, String id) {
+        return buffer.put(id.getBytes(StandardCharsets.US_ASCII));
+    }
+}
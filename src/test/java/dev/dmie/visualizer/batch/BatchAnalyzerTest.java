@@ -0,0 +1,129 @@
+package dev.dmie.visualizer.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Analyzes synthetic tracks with a {@link BatchAnalyzer} and checks the analyses and the written CSV report.
+ */
+class BatchAnalyzerTest {
+    /**
+     * The sample rate of the tracks.
+     */
+    private static final float SAMPLE_RATE = 44100.0f;
+
+    /**
+     * The number of spectrum bands.
+     */
+    private static final int BAND_COUNT = 16;
+
+    /**
+     * The directory the tracks and the report are written to.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Analyzes tracks of which one cannot be decoded and one fails during the analysis, and checks that only the
+     * other tracks are reported, in the order of the tracks.
+     * @throws IOException If a track could not be written
+     */
+    @Test
+    void leavesOutFailedTracks() throws IOException {
+        Path first = writeSweep(directory.resolve("first.wav"), 44100);
+        Path undecodable = Files.writeString(directory.resolve("undecodable.wav"), "not a WAV file");
+        Path failing = writeSweep(directory.resolve("failing.wav"), 4410);
+        Path last = writeSweep(directory.resolve("last.wav"), 22050);
+        try (BatchAnalyzer analyzer = new BatchAnalyzer(BAND_COUNT, 1024, 512, 2) {
+            @Override
+            TrackAnalysis analyzeTrack(Path track) throws IOException {
+                if (track.equals(failing)) {
+                    throw new IllegalStateException("Expected by the test");
+                }
+                return super.analyzeTrack(track);
+            }
+        }) {
+            List<TrackAnalysis> analyses = analyzer.analyze(List.of(first, undecodable, failing, last));
+            assertEquals(List.of(first, last), analyses.stream().map(TrackAnalysis::track).toList());
+            assertEquals(1.0, analyses.get(0).durationSeconds(), 1e-9);
+            assertEquals(0.5, analyses.get(1).durationSeconds(), 1e-9);
+        }
+    }
+
+    /**
+     * Writes the report of tracks in nested directories, one of them with a comma in its name, under a locale with a
+     * decimal comma, and checks the header, the relative and quoted paths and the formatted levels.
+     * @throws IOException If a track or the report could not be written or read
+     */
+    @Test
+    void writesCsvReport() throws IOException {
+        Path plain = writeSweep(directory.resolve("plain.wav"), 44100);
+        Files.createDirectories(directory.resolve("album"));
+        Path quoted = writeSweep(directory.resolve("album").resolve("one, two.wav"), 88200);
+        Path report = directory.resolve("reports").resolve("report.csv");
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try (BatchAnalyzer analyzer = new BatchAnalyzer(BAND_COUNT, 1024, 512, 2)) {
+            analyzer.writeCsv(analyzer.analyze(List.of(plain, quoted)), directory, report);
+        } finally {
+            Locale.setDefault(locale);
+        }
+
+        List<String> lines = Files.readAllLines(report);
+        assertEquals(3, lines.size());
+        StringBuilder header = new StringBuilder("track,duration,tempo,rms_db,peak_db");
+        for (int band = 0; band < BAND_COUNT; band++) {
+            header.append(",band_").append(band);
+        }
+        assertEquals(header.toString(), lines.get(0));
+        assertTrue(lines.get(1).startsWith("plain.wav,1.000,"), lines.get(1));
+        String album = "\"album" + directory.getFileSystem().getSeparator() + "one, two.wav\",2.000,";
+        assertTrue(lines.get(2).startsWith(album), lines.get(2));
+
+        String[] fields = lines.get(1).split(",");
+        assertEquals(5 + BAND_COUNT, fields.length);
+        // The RMS of a sine whose amplitude rises linearly to full scale is sqrt(1/6), the peak almost full scale.
+        assertEquals(20 * Math.log10(Math.sqrt(1 / 6.0)), Double.parseDouble(fields[3]), 0.05);
+        assertEquals(0.0, Double.parseDouble(fields[4]), 0.05);
+        for (int band = 0; band < BAND_COUNT; band++) {
+            assertTrue(fields[5 + band].matches("-?\\d+\\.\\d{2}"), "Band " + band + ": " + fields[5 + band]);
+        }
+    }
+
+    /**
+     * Writes a 16-bit mono WAV file of a 440 Hz sine wave whose amplitude rises from silence to full scale.
+     * @param file The path of the file
+     * @param frameCount The number of frames
+     * @return The path of the file
+     * @throws IOException If the file could not be written
+     */
+    private static Path writeSweep(Path file, int frameCount) throws IOException {
+        ByteBuffer samples = ByteBuffer.allocate(frameCount * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < frameCount; i++) {
+            double amplitude = (double) i / frameCount;
+            samples.putShort((short) Math.round(amplitude * Math.sin(2 * Math.PI * 440 * i / SAMPLE_RATE) * 32767));
+        }
+        AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(samples.array()), format,
+                frameCount)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file.toFile());
+        }
+        return file;
+    }
+}
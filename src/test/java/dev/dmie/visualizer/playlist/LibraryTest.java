@@ -0,0 +1,132 @@
+package dev.dmie.visualizer.playlist;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Adds, removes and searches the tracks of a {@link Library}.
+ */
+class LibraryTest {
+    /**
+     * Checks that tracks are sorted by directory and file name and added only once.
+     */
+    @Test
+    void addsTracksSortedAndOnce() {
+        Library library = new Library();
+
+        List<Path> added = library.add(List.of(track("b", "2.wav"), track("a", "1.wav"), track("b", "1.wav"),
+                track("a", "1.wav")));
+
+        assertEquals(List.of(track("a", "1.wav"), track("b", "1.wav"), track("b", "2.wav")), added);
+        assertEquals(List.of(track("c", "1.wav")), library.add(List.of(track("b", "2.wav"), track("c", "1.wav"))));
+        assertEquals(List.of(track("a", "1.wav"), track("b", "1.wav"), track("b", "2.wav"), track("c", "1.wav")),
+                paths(library));
+        assertEquals(2, library.indexOf(track("b", "2.wav")));
+        assertEquals(-1, library.indexOf(track("c", "2.wav")));
+        assertEquals("2.wav", library.getName(2));
+        assertNull(library.getTitle(2));
+        assertNull(library.getArtist(2));
+    }
+
+    /**
+     * Checks that removing tracks reports their former positions and moves the remaining tracks up, and that a
+     * removed track can be added again.
+     */
+    @Test
+    void removesTracks() {
+        Library library = new Library();
+        library.add(List.of(track("a", "1.wav"), track("b", "1.wav"), track("b", "2.wav"), track("c", "1.wav")));
+
+        int[] removed = library.remove(track -> track.getParent().equals(Path.of("music", "b")));
+
+        assertArrayEquals(new int[] {1, 2}, removed);
+        assertEquals(List.of(track("a", "1.wav"), track("c", "1.wav")), paths(library));
+        assertEquals(1, library.indexOf(track("c", "1.wav")));
+        assertEquals(-1, library.indexOf(track("b", "1.wav")));
+        assertArrayEquals(new int[0], library.remove(track -> false));
+
+        assertEquals(List.of(track("b", "2.wav")), library.add(List.of(track("b", "2.wav"))));
+        assertEquals(List.of(track("a", "1.wav"), track("b", "2.wav"), track("c", "1.wav")), paths(library));
+    }
+
+    /**
+     * Checks that file names, titles and artists are found ignoring case and accents, and that removed tracks are not
+     * found.
+     */
+    @Test
+    void searchesNamesTitlesAndArtists() {
+        Library library = new Library();
+        library.add(List.of(track("a", "Overture.wav"), track("a", "Largo.wav"), track("b", "Finale.wav")));
+        library.setMetadata(track("a", "Largo.wav"), new TrackMetadata("Z Nového světa", "Antonín Dvořák", 0));
+        library.setMetadata(track("b", "Finale.wav"), new TrackMetadata("Finále", "Bedřich Smetana", 0));
+
+        assertEquals("Antonín Dvořák", library.getArtist(library.indexOf(track("a", "Largo.wav"))));
+        assertArrayEquals(new int[] {0}, library.search("DVORAK"));
+        assertArrayEquals(new int[] {0}, library.search("  novéh "));
+        assertArrayEquals(new int[] {1}, library.search("overt"));
+        assertArrayEquals(new int[] {0, 1, 2}, library.search("r"));
+        assertArrayEquals(new int[] {2}, library.search("finale"));
+        assertArrayEquals(new int[0], library.search("mozart"));
+        assertArrayEquals(new int[] {0, 1, 2}, library.search(" "));
+
+        library.remove(track -> track.getFileName().toString().equals("Largo.wav"));
+        assertArrayEquals(new int[0], library.search("dvorak"));
+        assertArrayEquals(new int[] {1}, library.search("finale"));
+    }
+
+    /**
+     * Checks the search index against scanning the file names of a large library with random names.
+     */
+    @Test
+    void searchMatchesAScan() {
+        SplittableRandom random = new SplittableRandom(7);
+        List<Path> tracks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int length = random.nextInt(4, 12); name.length() < length; ) {
+                name.append((char) ('a' + random.nextInt(6)));
+            }
+            tracks.add(track("d" + random.nextInt(20), name + ".wav"));
+        }
+        Library library = new Library();
+        library.add(tracks);
+        library.remove(track -> track.getFileName().toString().startsWith("ab"));
+
+        for (String query : List.of("a", "Bc", "abc", "fed", "cafe", "aaaa", "ebbf", ".wav", "zz")) {
+            String lowerCase = query.toLowerCase(Locale.ROOT);
+            int[] expected = IntStream.range(0, library.size())
+                    .filter(position -> library.getName(position).contains(lowerCase))
+                    .toArray();
+            assertArrayEquals(expected, library.search(query), "Query " + query);
+        }
+    }
+
+    /**
+     * Returns the path of a track in a directory of the music directory.
+     * @param directory The name of the directory
+     * @param name The file name of the track
+     * @return The path of the track
+     */
+    private static Path track(String directory, String name) {
+        return Path.of("music", directory, name);
+    }
+
+    /**
+     * Returns the paths of all tracks of a library in order.
+     * @param library The library
+     * @return The paths of the tracks
+     */
+    private static List<Path> paths(Library library) {
+        return IntStream.range(0, library.size()).mapToObj(library::get).toList();
+    }
+}
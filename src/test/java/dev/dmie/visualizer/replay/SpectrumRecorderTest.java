@@ -0,0 +1,213 @@
+package dev.dmie.visualizer.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Records spectrum callbacks with a {@link SpectrumRecorder} and feeds them again with a {@link SpectrumReplayer}.
+ */
+class SpectrumRecorderTest {
+    /**
+     * The directory of the logs.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Records callbacks whose band count changes, including ones larger than the write buffer, and checks that they
+     * are passed on and replayed unchanged and in order.
+     * @throws IOException If the log could not be written or read
+     */
+    @Test
+    void recordsAndReplaysCallbacks() throws IOException {
+        Path log = directory.resolve("spectrum.log");
+        List<Callback> callbacks = new ArrayList<>();
+        callbacks.addAll(callbacks(1, 200, 128));
+        callbacks.addAll(callbacks(2, 5, 16_384));
+        callbacks.addAll(callbacks(3, 100, 64));
+
+        List<Callback> passedOn = new ArrayList<>();
+        try (SpectrumRecorder recorder = SpectrumRecorder.open(log, (timestamp, duration, magnitudes, phases) ->
+                passedOn.add(new Callback(timestamp, duration, magnitudes.clone(), phases.clone())))) {
+            for (Callback callback : callbacks) {
+                recorder.spectrumDataUpdate(callback.timestamp(), callback.duration(), callback.magnitudes(),
+                        callback.phases());
+            }
+            assertEquals(callbacks.size(), recorder.getRecordCount());
+        }
+        assertCallbacksEqual(callbacks, passedOn);
+
+        SpectrumReplayer replayer = SpectrumReplayer.open(log);
+        assertEquals(callbacks.size(), replayer.getFrameCount());
+        assertEquals(Files.size(log), replayer.getLength());
+        assertCallbacksEqual(callbacks, replay(replayer));
+    }
+
+    /**
+     * Checks that an incomplete record at the end of a log is ignored by the replayer and cut off when the recorder
+     * appends to the log.
+     * @throws IOException If the log could not be written or read
+     */
+    @Test
+    void appendsAfterAnIncompleteRecord() throws IOException {
+        Path log = directory.resolve("spectrum.log");
+        List<Callback> first = callbacks(4, 10, 32);
+        record(log, first);
+        long length = Files.size(log);
+        ByteBuffer incomplete = ByteBuffer.allocate(SpectrumRecorder.RECORD_HEADER_SIZE + 10)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(32);
+        Files.write(log, incomplete.array(), StandardOpenOption.APPEND);
+
+        SpectrumReplayer truncated = SpectrumReplayer.open(log);
+        assertEquals(first.size(), truncated.getFrameCount());
+        assertEquals(length, truncated.getLength());
+
+        List<Callback> second = callbacks(5, 7, 48);
+        record(log, second);
+        List<Callback> all = new ArrayList<>(first);
+        all.addAll(second);
+        SpectrumReplayer replayer = SpectrumReplayer.open(log);
+        assertEquals(Files.size(log), replayer.getLength());
+        assertCallbacksEqual(all, replay(replayer));
+    }
+
+    /**
+     * Checks that a paced replay takes at least as long as the recording.
+     * @throws IOException If the log could not be written or read
+     * @throws InterruptedException If the test is interrupted
+     */
+    @Test
+    void pacedReplayKeepsTheRecordedPace() throws IOException, InterruptedException {
+        Path log = directory.resolve("spectrum.log");
+        List<Callback> callbacks = callbacks(6, 6, 16);
+        long recordingNanos;
+        try (SpectrumRecorder recorder = SpectrumRecorder.open(log, (timestamp, duration, magnitudes, phases) -> {
+        })) {
+            long start = System.nanoTime();
+            for (int i = 0; i < callbacks.size(); i++) {
+                if (i > 0) {
+                    TimeUnit.MILLISECONDS.sleep(20);
+                }
+                Callback callback = callbacks.get(i);
+                recorder.spectrumDataUpdate(callback.timestamp(), callback.duration(), callback.magnitudes(),
+                        callback.phases());
+            }
+            recordingNanos = System.nanoTime() - start;
+        }
+
+        SpectrumReplayer replayer = SpectrumReplayer.open(log);
+        long start = System.nanoTime();
+        assertEquals(callbacks.size(), replayer.replay((timestamp, duration, magnitudes, phases) -> {
+        }, true));
+        long replayNanos = System.nanoTime() - start;
+        assertTrue(replayNanos >= recordingNanos - TimeUnit.MILLISECONDS.toNanos(5),
+                "Replayed in " + replayNanos + " ns, recorded in " + recordingNanos + " ns");
+    }
+
+    /**
+     * Checks that a file that is not a spectrum log is neither appended to nor replayed.
+     * @throws IOException If the file could not be written
+     */
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = Files.write(directory.resolve("other.log"), "not a spectrum log".getBytes());
+
+        assertThrows(IOException.class, () -> SpectrumRecorder.open(file, (timestamp, duration, magnitudes, phases) -> {
+        }));
+        assertThrows(IOException.class, () -> SpectrumReplayer.open(file));
+        assertEquals("not a spectrum log", Files.readString(file));
+    }
+
+    /**
+     * Records callbacks to a log, appending them if the log exists.
+     * @param log The path of the log
+     * @param callbacks The callbacks to record
+     * @throws IOException If the log could not be written
+     */
+    private static void record(Path log, List<Callback> callbacks) throws IOException {
+        try (SpectrumRecorder recorder = SpectrumRecorder.open(log, (timestamp, duration, magnitudes, phases) -> {
+        })) {
+            for (Callback callback : callbacks) {
+                recorder.spectrumDataUpdate(callback.timestamp(), callback.duration(), callback.magnitudes(),
+                        callback.phases());
+            }
+        }
+    }
+
+    /**
+     * Replays a log as fast as possible.
+     * @param replayer The replayer of the log
+     * @return The replayed callbacks
+     */
+    private static List<Callback> replay(SpectrumReplayer replayer) {
+        List<Callback> replayed = new ArrayList<>();
+        int count = replayer.replay((timestamp, duration, magnitudes, phases) ->
+                replayed.add(new Callback(timestamp, duration, magnitudes.clone(), phases.clone())), false);
+        assertEquals(replayed.size(), count);
+        return replayed;
+    }
+
+    /**
+     * Creates random callbacks 25 ms apart.
+     * @param seed The seed of the random values
+     * @param count The number of callbacks
+     * @param bandCount The number of bands of each callback
+     * @return The callbacks
+     */
+    private static List<Callback> callbacks(long seed, int count, int bandCount) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Callback> callbacks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            float[] magnitudes = new float[bandCount];
+            float[] phases = new float[bandCount];
+            for (int band = 0; band < bandCount; band++) {
+                magnitudes[band] = (float) random.nextDouble(-60.0, 0.0);
+                phases[band] = (float) random.nextDouble(-Math.PI, Math.PI);
+            }
+            callbacks.add(new Callback(seed * 1000 + i * 0.025, 0.025, magnitudes, phases));
+        }
+        return callbacks;
+    }
+
+    /**
+     * Checks that two lists of callbacks are equal.
+     * @param expected The expected callbacks
+     * @param actual The actual callbacks
+     */
+    private static void assertCallbacksEqual(List<Callback> expected, List<Callback> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).timestamp(), actual.get(i).timestamp(), "Timestamp of callback " + i);
+            assertEquals(expected.get(i).duration(), actual.get(i).duration(), "Duration of callback " + i);
+            assertArrayEquals(expected.get(i).magnitudes(), actual.get(i).magnitudes(), "Magnitudes of callback " + i);
+            assertArrayEquals(expected.get(i).phases(), actual.get(i).phases(), "Phases of callback " + i);
+        }
+    }
+
+    /**
+     * A spectrum callback.
+     * @param timestamp Timestamp of the event in seconds
+     * @param duration Duration for which the spectrum was computed in seconds
+     * @param magnitudes The spectrum magnitude in decibels of each band
+     * @param phases The phase of each band
+     */
+    private record Callback(double timestamp, double duration, float[] magnitudes, float[] phases) {
+    }
+}
@@ -0,0 +1,264 @@
+package dev.dmie.visualizer.stream;
+
+import dev.dmie.visualizer.SpectrumBus;
+import dev.dmie.visualizer.SpectrumProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Connects WebSocket clients to a {@link SpectrumServer} and checks the handshake and the batches they receive.
+ */
+class SpectrumServerTest {
+    /**
+     * The number of frames kept by the bus for the server.
+     */
+    private static final int CAPACITY = 16;
+
+    /**
+     * The key of the handshake example of RFC 6455.
+     */
+    private static final String KEY = "dGhlIHNhbXBsZSBub25jZQ==";
+
+    /**
+     * The accept value of the handshake example of RFC 6455.
+     */
+    private static final String ACCEPT = "s3pPLMBiTxaQ9kYGzzhZRbK+xOo=";
+
+    /**
+     * The number of milliseconds a client waits for data.
+     */
+    private static final int TIMEOUT = 5000;
+
+    /**
+     * The tested server, closed after each test.
+     */
+    private SpectrumServer server;
+
+    /**
+     * The connected clients, closed after each test.
+     */
+    private final List<Socket> clients = new ArrayList<>();
+
+    /**
+     * Closes the clients and the server.
+     * @throws IOException If a client could not be closed
+     */
+    @AfterEach
+    void close() throws IOException {
+        for (Socket client : clients) {
+            client.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Checks that the handshake is answered with the accept value of the key, and that a request without a key is
+     * answered with an error.
+     * @throws IOException If the connection failed
+     */
+    @Test
+    void answersHandshake() throws IOException {
+        SpectrumBus bus = createBus(64);
+        startServer(bus);
+        assertTrue(readResponse(connect(KEY, 0)).contains("\r\nSec-WebSocket-Accept: " + ACCEPT + "\r\n"));
+        assertTrue(readResponse(connect(null, 0)).startsWith("HTTP/1.1 400 "));
+    }
+
+    /**
+     * Publishes frames of few bars, which share a batch, and of many bars, which need the 16-bit length of a
+     * WebSocket frame, and checks the header and the frames of the received batches.
+     * @throws IOException If the connection failed
+     */
+    @Test
+    void sendsBatchesInBinaryFrames() throws IOException {
+        for (int barCount : new int[] {64, SpectrumServer.MAX_BAR_COUNT}) {
+            SpectrumBus bus = createBus(barCount);
+            startServer(bus);
+            DataInputStream client = connect(KEY, 0);
+            readResponse(client);
+            publish(bus, 0, 3);
+
+            int frame = 0;
+            while (frame < 3) {
+                ByteBuffer batch = readBatch(client);
+                assertEquals(SpectrumServer.MAGIC, batch.getInt());
+                assertEquals(SpectrumServer.VERSION, batch.get());
+                int frameCount = batch.get() & 0xFF;
+                assertEquals(barCount, batch.getShort() & 0xFFFF);
+                batch.getLong();
+                assertEquals(SpectrumServer.BATCH_HEADER_SIZE + frameCount * (SpectrumServer.FRAME_HEADER_SIZE
+                        + barCount), batch.limit());
+                for (int i = 0; i < frameCount; i++, frame++) {
+                    assertEquals(frame, batch.getInt());
+                    assertEquals(frame, batch.getFloat());
+                    batch.position(batch.position() + 8 + barCount);
+                }
+            }
+            assertEquals(3, frame);
+            server.close();
+            server = null;
+        }
+    }
+
+    /**
+     * Connects a client that reads every batch and one that reads nothing, publishes more frames than the connection
+     * and the output buffer of the slow client hold, and checks that the fast client still receives every frame while
+     * the batches that did not fit are dropped for the slow client.
+     * @throws IOException If the connection failed
+     */
+    @Test
+    void dropsBatchesForSlowClients() throws IOException {
+        int barCount = SpectrumServer.MAX_BAR_COUNT;
+        int frameCount = 2000;
+        SpectrumBus bus = createBus(barCount);
+        startServer(bus);
+        DataInputStream fast = connect(KEY, 0);
+        DataInputStream slow = connect(KEY, 4096);
+        readResponse(fast);
+        readResponse(slow);
+
+        for (int frame = 0; frame < frameCount; frame += CAPACITY / 2) {
+            publish(bus, frame, CAPACITY / 2);
+            for (int i = 0; i < CAPACITY / 2; i++) {
+                ByteBuffer batch = readBatch(fast);
+                assertEquals(frame + i, batch.getInt(SpectrumServer.BATCH_HEADER_SIZE));
+            }
+        }
+
+        clients.get(1).setSoTimeout(500);
+        int previous = -1;
+        int received = 0;
+        try {
+            while (true) {
+                int frame = readBatch(slow).getInt(SpectrumServer.BATCH_HEADER_SIZE);
+                assertTrue(frame > previous, "Frame " + frame + " after frame " + previous);
+                previous = frame;
+                received++;
+            }
+        } catch (SocketTimeoutException exception) {
+            assertTrue(received > 0 && received < frameCount, "Frames received by the slow client: " + received);
+        }
+    }
+
+    /**
+     * Checks that a bus with more bars than a batch can carry is rejected.
+     */
+    @Test
+    void rejectsTooManyBars() {
+        SpectrumBus bus = createBus(SpectrumServer.MAX_BAR_COUNT + 1);
+        assertThrows(IllegalArgumentException.class, () -> new SpectrumServer(bus, null,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1));
+    }
+
+    /**
+     * Creates a bus whose frames have as many bands as bars.
+     * @param barCount The number of bars
+     * @return The bus
+     */
+    private static SpectrumBus createBus(int barCount) {
+        return new SpectrumBus(CAPACITY, new SpectrumProcessor(barCount, barCount, -80, 80.0f), () -> 0.0);
+    }
+
+    /**
+     * Starts a server that streams a bus over WebSocket on an ephemeral port and polls it every millisecond.
+     * @param bus The bus
+     * @throws IOException If the server could not be started
+     */
+    private void startServer(SpectrumBus bus) throws IOException {
+        server = new SpectrumServer(bus, null, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+        server.start();
+    }
+
+    /**
+     * Publishes frames whose timestamps are their indices.
+     * @param bus The bus
+     * @param first The index of the first frame
+     * @param count The number of frames
+     */
+    private static void publish(SpectrumBus bus, int first, int count) {
+        float[] magnitudes = new float[bus.getBarCount()];
+        for (int frame = first; frame < first + count; frame++) {
+            bus.spectrumDataUpdate(frame, 0.025, magnitudes, magnitudes);
+        }
+    }
+
+    /**
+     * Connects a client to the server and sends its handshake request.
+     * @param key The key of the request, or {@code null} to leave it out
+     * @param receiveBufferSize The receive buffer size of the connection, or 0 for the default
+     * @return The input of the connection
+     * @throws IOException If the connection failed
+     */
+    private DataInputStream connect(String key, int receiveBufferSize) throws IOException {
+        Socket socket = new Socket();
+        clients.add(socket);
+        if (receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+        socket.setSoTimeout(TIMEOUT);
+        socket.connect(server.getWebSocketAddress(), TIMEOUT);
+        String request = "GET /spectrum HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + (key == null ? "" : "Sec-WebSocket-Key: " + key + "\r\n")
+                + "Sec-WebSocket-Version: 13\r\n\r\n";
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+        return new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    /**
+     * Reads the response to the handshake request.
+     * @param input The input of the connection
+     * @return The status line and the headers of the response
+     * @throws IOException If the connection failed
+     */
+    private static String readResponse(DataInputStream input) throws IOException {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        int last = 0;
+        while (last != 0x0D0A0D0A) {
+            int read = input.readUnsignedByte();
+            response.write(read);
+            last = last << 8 | read;
+        }
+        return response.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reads an unmasked binary WebSocket frame, whose length is given in as few bytes as possible.
+     * @param input The input of the connection
+     * @return The payload of the frame
+     * @throws IOException If the connection failed
+     */
+    private static ByteBuffer readBatch(DataInputStream input) throws IOException {
+        assertEquals(0x82, input.readUnsignedByte());
+        int length = input.readUnsignedByte();
+        assertTrue(length != 127, "A batch never needs the 64-bit length");
+        if (length == 126) {
+            length = input.readUnsignedShort();
+            assertTrue(length >= 126, "Length " + length + " in the 16-bit field");
+        }
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+        return ByteBuffer.wrap(payload);
+    }
+}